@@ -26,17 +26,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PrintStream;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import de.parsemis.graph.Graph;
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Metrics;
 import de.parsemis.miner.environment.Settings;
 import de.parsemis.miner.environment.Statistics;
 import de.parsemis.miner.filter.FragmentFilter;
 import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.parsers.FragmentStreamWriter;
+import de.parsemis.utils.AsyncOutputStream;
 
 /**
  * This class is the user friendly shell around the ParSeMiS algorithms.
@@ -48,6 +55,92 @@ import de.parsemis.miner.general.Fragment;
  */
 public final class Miner {
 
+	/**
+	 * This class gathers the summary of the found fragments and forwards them
+	 * to a further sink, if given.
+	 * <p>
+	 * Each mining thread counts into its own part, so the threads do not wait
+	 * for each other; the parts are merged after the search.
+	 */
+	private static final class Summary<NodeType, EdgeType> implements
+			FragmentSink<NodeType, EdgeType> {
+
+		/* the summary of the fragments of one thread */
+		private static final class Part {
+			int fragments = 0, numEmbeddings = 0, maxNodes = 0, maxEdges = 0,
+					cyclic = 0;
+		}
+
+		private final FragmentSink<NodeType, EdgeType> next;
+
+		private final boolean embeddings;
+
+		private final ArrayList<Part> parts = new ArrayList<Part>();
+
+		private final ThreadLocal<Part> local = new ThreadLocal<Part>() {
+			@Override
+			protected Part initialValue() {
+				final Part part = new Part();
+				synchronized (parts) {
+					parts.add(part);
+				}
+				return part;
+			}
+		};
+
+		int fragments = 0, numEmbeddings = 0, maxNodes = 0, maxEdges = 0,
+				cyclic = 0;
+
+		Summary(final FragmentSink<NodeType, EdgeType> next,
+				final boolean embeddings) {
+			this.next = next;
+			this.embeddings = embeddings;
+		}
+
+		public void add(final Fragment<NodeType, EdgeType> actFrag) {
+			final Part part = local.get();
+			final Graph<NodeType, EdgeType> g = (embeddings ? actFrag.toGraph()
+					: null);
+			// just the own thread and the final merge lock this part
+			synchronized (part) {
+				part.fragments++;
+				if (g != null) {
+					part.numEmbeddings += actFrag.size();
+					if (g.getNodeCount() > part.maxNodes) {
+						part.maxNodes = g.getNodeCount();
+					}
+					if (g.getEdgeCount() > part.maxEdges) {
+						part.maxEdges = g.getEdgeCount();
+					}
+					if (g.getNodeCount() - 1 < g.getEdgeCount()) {
+						part.cyclic++;
+					}
+				}
+			}
+			if (next != null) {
+				next.add(actFrag);
+			}
+		}
+
+		/**
+		 * merges the parts of all threads, after the search is finished
+		 */
+		void merge() {
+			synchronized (parts) {
+				for (final Part part : parts) {
+					synchronized (part) {
+						fragments += part.fragments;
+						numEmbeddings += part.numEmbeddings;
+						maxNodes = Math.max(maxNodes, part.maxNodes);
+						maxEdges = Math.max(maxEdges, part.maxEdges);
+						cyclic += part.cyclic;
+					}
+				}
+				parts.clear();
+			}
+		}
+	}
+
 	/**
 	 * to start a search from console
 	 * 
@@ -99,6 +192,64 @@ public final class Miner {
 		};
 	}
 
+	/**
+	 * starts a separate thread that regularly writes the current metrics of
+	 * the search as one line of JSON to the given file
+	 * 
+	 * @param metrics
+	 * @param fileName
+	 * @param interval
+	 *            the time (in seconds) between two samples
+	 * @return the thread
+	 */
+	private static final Thread metricsSampler(final Metrics metrics,
+			final String fileName, final int interval) {
+		return new Thread("MetricsSampler") {
+			{
+				this.setDaemon(true);
+			}
+
+			@Override
+			public void run() {
+				PrintStream samples = null;
+				try {
+					samples = new PrintStream(new FileOutputStream(fileName));
+					while (!isInterrupted()) {
+						sleep(1000L * interval);
+						metrics.writeJSON(samples);
+						samples.flush();
+					}
+				} catch (final InterruptedException e) {
+					// the search is finished
+				} catch (final IOException io) {
+					err.println(io);
+				} finally {
+					if (samples != null) {
+						samples.close();
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * writes the current metrics of the search as JSON to the given file
+	 * 
+	 * @param metrics
+	 * @param fileName
+	 */
+	private static final void writeMetrics(final Metrics metrics,
+			final String fileName) {
+		try {
+			final PrintStream out = new PrintStream(new FileOutputStream(
+					fileName));
+			metrics.writeJSON(out);
+			out.close();
+		} catch (final IOException io) {
+			err.println(io);
+		}
+	}
+
 	/**
 	 * 
 	 * @param <NodeType>
@@ -114,9 +265,35 @@ public final class Miner {
 	public static <NodeType, EdgeType> Collection<Fragment<NodeType, EdgeType>> mine(
 			final Collection<Graph<NodeType, EdgeType>> graphs,
 			final Settings<NodeType, EdgeType> settings) {
+		return mine(graphs, settings, null);
+	}
 
+	/**
+	 * 
+	 * @param <NodeType>
+	 *            the type of the node labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param <EdgeType>
+	 *            the type of the edge labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param graphs
+	 * @param settings
+	 * @param sink
+	 *            receives each fragment as soon as it is found (or after the
+	 *            search, if a post mining filter is required); may be
+	 *            <code>null</code>
+	 * @return a collection of the found frequent fragments, or an empty
+	 *         collection if a sink is given
+	 */
+	public static <NodeType, EdgeType> Collection<Fragment<NodeType, EdgeType>> mine(
+			final Collection<Graph<NodeType, EdgeType>> graphs,
+			final Settings<NodeType, EdgeType> settings,
+			final FragmentSink<NodeType, EdgeType> sink) {
 
 		final Statistics stats = settings.stats;
+		if (settings.budget != null) {
+			settings.budget.start();
+		}
 
 		// start memoryCheck, if necessary
 		Thread t = null;
@@ -133,10 +310,34 @@ public final class Miner {
 		final Collection<Fragment<NodeType, EdgeType>> expectedFragments = settings.algorithm
 				.initialize(graphs, settings.factory, settings);
 
+		// filters are installed while the search starts, so fragments found
+		// for a filtered search are buffered until it is finished
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(settings.strategy);
+		final Collection<Fragment<NodeType, EdgeType>> buffer = Collections
+				.synchronizedList(new ArrayList<Fragment<NodeType, EdgeType>>());
+		final FragmentSink<NodeType, EdgeType> stream = (sink == null ? null
+				: new FragmentSink<NodeType, EdgeType>() {
+					public void add(final Fragment<NodeType, EdgeType> fragment) {
+						if (env.filter == null) {
+							sink.add(fragment);
+						} else {
+							buffer.add(fragment);
+						}
+					}
+				});
+
 		Collection<Fragment<NodeType, EdgeType>> ret = settings.strategy
-				.search(settings.algorithm);
+				.search(settings.algorithm, stream);
 
-		ret.addAll(expectedFragments);
+		if (stream == null) {
+			ret.addAll(expectedFragments);
+		} else {
+			ret = buffer;
+			for (final Fragment<NodeType, EdgeType> frag : expectedFragments) {
+				stream.add(frag);
+			}
+		}
 
 		if (INFO) {
 			stats.searchTime += System.currentTimeMillis();
@@ -153,6 +354,14 @@ public final class Miner {
 			if (INFO) {
 				stats.filteringTime += System.currentTimeMillis();
 			}
+			if (sink != null) {
+				for (final Fragment<NodeType, EdgeType> frag : ret) {
+					sink.add(frag);
+				}
+			}
+		}
+		if (sink != null) {
+			ret = new ArrayList<Fragment<NodeType, EdgeType>>();
 		}
 
 		// stop memoryCheck, if necessary
@@ -230,20 +439,13 @@ public final class Miner {
 	}
 
 	/**
-	 * prints the given fragments to the configured output
+	 * opens the configured output
 	 * 
-	 * @param <NodeType>
-	 *            the type of the node labels (will be hashed and checked with
-	 *            .equals(..))
-	 * @param <EdgeType>
-	 *            the type of the edge labels (will be hashed and checked with
-	 *            .equals(..))
-	 * @param fragments
 	 * @param settings
+	 * @return the stream for the fragments, or <code>null</code> if no output
+	 *         is configured
 	 */
-	public static final <NodeType, EdgeType> void printOutput(
-			final Collection<Fragment<NodeType, EdgeType>> fragments,
-			final Settings<NodeType, EdgeType> settings) {
+	private static OutputStream openOutput(final Settings<?, ?> settings) {
 		OutputStream out = null;
 		if (settings.outputFileName != null) {
 			if (settings.outputFileName.equals("-")) {
@@ -254,6 +456,9 @@ public final class Miner {
 					if (settings.outputFileName.endsWith(".gz")) {
 						out = new GZIPOutputStream(out);
 					}
+					if (settings.asyncIO) {
+						out = new AsyncOutputStream(out);
+					}
 				} catch (final FileNotFoundException ex) {
 					err.println(ex);
 				} catch (final IOException ex) {
@@ -261,6 +466,25 @@ public final class Miner {
 				}
 			}
 		}
+		return out;
+	}
+
+	/**
+	 * prints the given fragments to the configured output
+	 * 
+	 * @param <NodeType>
+	 *            the type of the node labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param <EdgeType>
+	 *            the type of the edge labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param fragments
+	 * @param settings
+	 */
+	public static final <NodeType, EdgeType> void printOutput(
+			final Collection<Fragment<NodeType, EdgeType>> fragments,
+			final Settings<NodeType, EdgeType> settings) {
+		final OutputStream out = openOutput(settings);
 		if (out != null) {
 			try {
 				settings.serializer.serializeFragments(out, fragments);
@@ -279,6 +503,13 @@ public final class Miner {
 			stats.completeTime -= System.currentTimeMillis();
 			stats.completeTime2 -= LocalEnvironment.currentCPUMillis();
 		}
+		// start sampling the metrics, if necessary
+		Thread sampler = null;
+		if (settings.metricsFileName != null && settings.metricsInterval > 0) {
+			sampler = metricsSampler(stats.metrics, settings.metricsFileName
+					+ ".samples", settings.metricsInterval);
+			sampler.start();
+		}
 		// parse graphs
 		if (INFO) {
 			stats.parseTime -= System.currentTimeMillis();
@@ -289,16 +520,46 @@ public final class Miner {
 			stats.parseTime += System.currentTimeMillis();
 		}
 		// mine them
-		final Collection<Fragment<NodeType, EdgeType>> fragments = mine(graphs,
-				settings);
-		// write results
-		if (INFO) {
-			stats.serializeTime -= System.currentTimeMillis();
-		}
-		printOutput(fragments, settings);
-		if (INFO) {
-			stats.serializeTime += System.currentTimeMillis();
+		final Summary<NodeType, EdgeType> summary;
+		final OutputStream stream = (settings.streamOutput ? openOutput(settings)
+				: null);
+		if (stream != null) {
+			// write results while mining
+			final FragmentStreamWriter<NodeType, EdgeType> writer = new FragmentStreamWriter<NodeType, EdgeType>(
+					settings.serializer, stream);
+			summary = new Summary<NodeType, EdgeType>(writer,
+					settings.storeEmbeddings && !QUIET);
+			mine(graphs, settings, summary);
+			if (INFO) {
+				stats.serializeTime -= System.currentTimeMillis();
+			}
+			try {
+				writer.close();
+				stream.close();
+			} catch (final IOException io) {
+				err.println(io);
+			}
+			if (INFO) {
+				stats.serializeTime += System.currentTimeMillis();
+			}
+		} else {
+			final Collection<Fragment<NodeType, EdgeType>> fragments = mine(
+					graphs, settings);
+			// write results
+			if (INFO) {
+				stats.serializeTime -= System.currentTimeMillis();
+			}
+			printOutput(fragments, settings);
+			if (INFO) {
+				stats.serializeTime += System.currentTimeMillis();
+			}
+			summary = new Summary<NodeType, EdgeType>(null,
+					settings.storeEmbeddings && !QUIET);
+			for (final Fragment<NodeType, EdgeType> actFrag : fragments) {
+				summary.add(actFrag);
+			}
 		}
+		summary.merge();
 		if (!QUIET) {
 			stats.completeTime += System.currentTimeMillis();
 			stats.completeTime2 += LocalEnvironment.currentCPUMillis();
@@ -308,36 +569,35 @@ public final class Miner {
 			stats.printTo(out);
 		}
 
+		// stop sampling and write the final metrics, if necessary
+		if (sampler != null) {
+			sampler.interrupt();
+			try {
+				sampler.join();
+			} catch (final InterruptedException ie) {
+				err.println(ie);
+			}
+		}
+		if (settings.metricsFileName != null) {
+			writeMetrics(stats.metrics, settings.metricsFileName);
+		}
+
+		if (!QUIET && settings.budget != null) {
+			settings.budget.report(out);
+		}
 		if (!QUIET) {
 			if (settings.storeEmbeddings) {
-				int numEmbeddings = 0;
-				int maxNodes = 0;
-				int maxEdges = 0;
-				int cyclic = 0;
-				for (final Fragment<NodeType, EdgeType> actFrag : fragments) {
-					numEmbeddings += actFrag.size();
-					final Graph<NodeType, EdgeType> g = actFrag.toGraph();
-					if (g.getNodeCount() > maxNodes) {
-						maxNodes = actFrag.toGraph().getNodeCount();
-					}
-					if (g.getEdgeCount() > maxEdges) {
-						maxEdges = actFrag.toGraph().getEdgeCount();
-					}
-					if (g.getNodeCount() - 1 < g.getEdgeCount()) {
-						cyclic++;
-					}
-				}
 				out.println("Complete run took "
 						+ (settings.stats.completeTime / 1000.0) + " seconds; "
-						+ "found " + fragments.size() + " fragments and "
-						+ numEmbeddings + " embeddings.");
-				out.println("The biggest Fragment has " + maxNodes
-						+ " nodes and " + maxEdges + " edge.");
-				out.println(cyclic + " cyclic Fragments are found.");
+						+ "found " + summary.fragments + " fragments and "
+						+ summary.numEmbeddings + " embeddings.");
+				out.println("The biggest Fragment has " + summary.maxNodes
+						+ " nodes and " + summary.maxEdges + " edge.");
+				out.println(summary.cyclic + " cyclic Fragments are found.");
 			} else {
 				out.println("Complete run took "
 						+ (settings.stats.completeTime / 1000.0) + " seconds; "
-						+ "found " + fragments.size() + " fragments");
+						+ "found " + summary.fragments + " fragments");
 			}
 		}
 
@@ -21,6 +21,7 @@ import de.parsemis.miner.chain.Extender;
 import de.parsemis.miner.chain.Extension;
 import de.parsemis.miner.chain.MiningStep;
 import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
 
 /**
  * @author Tobias Werth (sitowert@i2.informatik.uni-erlangen.de)
@@ -107,6 +108,8 @@ public class DAGmExtender<NodeType, EdgeType> extends
 		children = new LinkedList<SearchLatticeNode<NodeType, EdgeType>>();
 		dummy.clear();
 		first.call(node, dummy);
+		LocalEnvironment.env(this).stats.extensionsPerNode.record(children
+				.size());
 		return children;
 	}
 
@@ -57,31 +57,34 @@ public class DAGmFragment<NodeType, EdgeType> extends
 		INSERTED_NODE, INSERTED_EDGE, INSERTED_BOTH, STARTED_LEVEL, UNKNOWN
 	}
 
-	private class StartPartition {
-		int indegree, outdegree;
+	private static final class StartPartition<NodeType> {
+		final int indegree, outdegree;
 
-		NodeType label;
+		final NodeType label;
+
+		final int hash;
 
 		public StartPartition(final int in, final int out, final NodeType label) {
 			this.indegree = in;
 			this.outdegree = out;
 			this.label = label;
+			this.hash = (label.hashCode() * 31 + in) * 31 + out;
 		}
 
 		@Override
 		public boolean equals(final Object o) {
-			if (!(o instanceof DAGmFragment.StartPartition)) {
+			if (!(o instanceof StartPartition)) {
 				return false;
 			}
-			final StartPartition other = (StartPartition) o;
-			return (this.indegree == other.indegree
+			final StartPartition<?> other = (StartPartition<?>) o;
+			return (this.hash == other.hash && this.indegree == other.indegree
 					&& this.outdegree == other.outdegree && this.label
 					.equals(other.label));
 		}
 
 		@Override
 		public int hashCode() {
-			return 0;
+			return hash;
 		}
 	}
 
@@ -253,13 +256,14 @@ public class DAGmFragment<NodeType, EdgeType> extends
 		final boolean debug = false;
 		final int nodeCount = hpFragment.getNodeCount();
 
-		final HashMap<StartPartition, Integer> partitionTable = new HashMap<StartPartition, Integer>();
+		final HashMap<StartPartition<NodeType>, Integer> partitionTable = new HashMap<StartPartition<NodeType>, Integer>();
 		for (int i = 0; i < nodeCount; i++) {
-			final StartPartition tmp = new StartPartition(hpFragment
-					.getInDegree(i), hpFragment.getOutDegree(i), hpFragment
-					.getNodeLabel(i));
-			if (partitionTable.containsKey(tmp)) {
-				partitionNumber[i] = partitionTable.get(tmp);
+			final StartPartition<NodeType> tmp = new StartPartition<NodeType>(
+					hpFragment.getInDegree(i), hpFragment.getOutDegree(i),
+					hpFragment.getNodeLabel(i));
+			final Integer known = partitionTable.get(tmp);
+			if (known != null) {
+				partitionNumber[i] = known;
 			} else {
 				partitionNumber[i] = partitionCount;
 				partitionCount++;
@@ -19,10 +19,12 @@ import java.util.BitSet;
 
 import de.parsemis.graph.Graph;
 import de.parsemis.graph.HPGraph;
+import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.general.DataBaseGraph;
 import de.parsemis.miner.general.Frequency;
 import de.parsemis.utils.Generic;
 import de.parsemis.utils.GraphUtils;
+import de.parsemis.utils.IntIterator;
 
 /**
  * @author Tobias Werth (sitowert@i2.informatik.uni-erlangen.de)
@@ -47,6 +49,15 @@ public class DAGmGraph<NodeType, EdgeType> implements
 	private final int idx;
 	private final Frequency freq;
 
+	// the frequent label index of each node (or -1)
+	private final int[] labelIndices;
+
+	// the nodes with frequent labels ordered by their label index, and the
+	// position of the first node of each label index in this order
+	private final int[] nodesByLabel;
+
+	private final int[] labelStarts;
+
 	public DAGmGraph(final HPGraph<NodeType, EdgeType> originalGraph,
 			final int idx, final Frequency freq) {
 		this.originalGraph = originalGraph;
@@ -58,6 +69,35 @@ public class DAGmGraph<NodeType, EdgeType> implements
 		}
 		this.idx = idx;
 		this.freq = freq;
+
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		labelIndices = new int[originalGraph.getMaxNodeIndex()];
+		int maxLabel = -1;
+		for (int i = 0; i < labelIndices.length; ++i) {
+			labelIndices[i] = (originalGraph.isValidNode(i) ? env
+					.getNodeLabelIndex(originalGraph.getNodeLabel(i)) : -1);
+			if (labelIndices[i] > maxLabel) {
+				maxLabel = labelIndices[i];
+			}
+		}
+		// counting sort keeps the nodes of each label in ascending order
+		labelStarts = new int[maxLabel + 2];
+		for (final int label : labelIndices) {
+			if (label >= 0) {
+				labelStarts[label + 1]++;
+			}
+		}
+		for (int l = 0; l <= maxLabel; ++l) {
+			labelStarts[l + 1] += labelStarts[l];
+		}
+		nodesByLabel = new int[labelStarts[maxLabel + 1]];
+		final int[] pos = labelStarts.clone();
+		for (int i = 0; i < labelIndices.length; ++i) {
+			if (labelIndices[i] >= 0) {
+				nodesByLabel[pos[labelIndices[i]]++] = i;
+			}
+		}
 	}
 
 	/*
@@ -98,6 +138,40 @@ public class DAGmGraph<NodeType, EdgeType> implements
 		return (BitSet) originalGraph.getNodes().clone();
 	}
 
+	/**
+	 * @param nodeIdx
+	 * @return the frequent label index of the given node, or -1 if its label
+	 *         is infrequent
+	 */
+	public int getNodeLabelIndex(final int nodeIdx) {
+		return labelIndices[nodeIdx];
+	}
+
+	/**
+	 * @param maxLabelIndex
+	 * @return an iterator over all nodes whose frequent label index is at most
+	 *         the given one, ordered by label index and node index
+	 */
+	public IntIterator nodesUpToLabel(final int maxLabelIndex) {
+		final int end = labelStarts[Math.min(maxLabelIndex + 1,
+				labelStarts.length - 1)];
+		return new IntIterator() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < end;
+			}
+
+			public int next() {
+				return nodesByLabel[next++];
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -194,7 +194,7 @@ public class DAGmNewEdgeExtension<NodeType, EdgeType> extends
 
 					edgeExtendedFragments.put(otherNodeInSubgraphIndex,
 							newFragment);
-					LocalEnvironment.env(this).stats.newEdge++;
+					LocalEnvironment.env(this).stats.newEdge.inc();
 				}
 
 				final int superNodes[] = new int[actFragment.getNodeLevels().length + 1];
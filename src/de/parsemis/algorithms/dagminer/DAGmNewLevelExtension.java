@@ -110,8 +110,8 @@ public class DAGmNewLevelExtension<NodeType, EdgeType> extends
 
 					// prune - this is a valid embedding, but does not ever lead
 					// to *enough*
-					final int nodeTypeIdx = LocalEnvironment.env(actFragment)
-							.getNodeLabelIndex(otherNodeLabel);
+					final int nodeTypeIdx = ((DAGmGraph<NodeType, EdgeType>) actEmbedding
+							.getDataBaseGraph()).getNodeLabelIndex(otherNode);
 					if (nodeTypeIdx < 0) {
 						// System.out.println("dummdidumm");
 						// //System.exit(nodeTypeIdx);
@@ -157,7 +157,7 @@ public class DAGmNewLevelExtension<NodeType, EdgeType> extends
 							newFragment.setLastEdgeCreatingNode(actNode);
 
 							extendedFragments.put(otherNodeLabel, newFragment);
-							LocalEnvironment.env(this).stats.newLevel++;
+							LocalEnvironment.env(this).stats.newLevel.inc();
 						}
 
 						final int superNodes[] = new int[actFragment
@@ -116,8 +116,8 @@ public class DAGmNewNodeExtension<NodeType, EdgeType> extends
 					final NodeType otherNodeLabel = superGraph
 							.getNodeLabel(otherNodeIndex);
 
-					final int nodeTypeIdx = LocalEnvironment.env(actFragment)
-							.getNodeLabelIndex(otherNodeLabel);
+					final int nodeTypeIdx = ((DAGmGraph<NodeType, EdgeType>) actEmbedding
+							.getDataBaseGraph()).getNodeLabelIndex(otherNodeIndex);
 
 					// this is an valid embedding, but could not ever lead to
 					// *enough* valid ones
@@ -180,7 +180,7 @@ public class DAGmNewNodeExtension<NodeType, EdgeType> extends
 							newFragment.setLastEdgeCreatingNode(actNode);
 
 							extendedFragments.put(otherNodeLabel, newFragment);
-							LocalEnvironment.env(this).stats.newNode++;
+							LocalEnvironment.env(this).stats.newNode.inc();
 						}
 
 						final int superNodes[] = new int[actFragment
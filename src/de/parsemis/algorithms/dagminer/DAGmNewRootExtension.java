@@ -77,56 +77,54 @@ public class DAGmNewRootExtension<NodeType, EdgeType> extends
 			final HPGraph<NodeType, EdgeType> superGraph = actEmbedding
 					.getHPSuperGraph();
 
-			final IntIterator nodeIt = superGraph.nodeIndexIterator();
+			// just the nodes with a label index in [0, lastNodeIdx] are
+			// enumerated
+			final IntIterator nodeIt = ((DAGmGraph<NodeType, EdgeType>) actEmbedding
+					.getDataBaseGraph()).nodesUpToLabel(lastNodeIdx);
 			while (nodeIt.hasNext()) {
 				final int nextNode = nodeIt.next();
-				final NodeType nextNodeLabel = superGraph
-						.getNodeLabel(nextNode);
 
 				if (!actEmbedding.isUsed(nextNode)) {
-					final int nodeTypeIdx = LocalEnvironment.env(actFragment)
-							.getNodeLabelIndex(nextNodeLabel);
-
-					if (nodeTypeIdx >= 0 && nodeTypeIdx <= lastNodeIdx) {
-						// useful extension found
-						final DAGmHPEmbedding<NodeType, EdgeType> newEmbedding = new DAGmHPEmbedding<NodeType, EdgeType>();
-						DAGmFragment<NodeType, EdgeType> newFragment;
-
-						if (extendedFragments.containsKey(nextNodeLabel)) {
-							newFragment = extendedFragments.get(nextNodeLabel);
-						} else {
-							final int nodeLevels[] = new int[actFragment
-									.getNodeLevels().length + 1];
-							for (int i = 0; i < nodeLevels.length; i++) {
-								nodeLevels[i] = 1; // all nodes at level 1
-							}
-							final HPMutableGraph<NodeType, EdgeType> newGraph = (HPMutableGraph<NodeType, EdgeType>) actEmbedding
-									.getSubGraph().clone();
-							newGraph.addNodeIndex(nextNodeLabel);
-
-							newFragment = new DAGmFragment<NodeType, EdgeType>(
-									newGraph, nodeLevels);
-							newFragment.setLastAction(LastAction.INSERTED_NODE);
-							newFragment.setLastCreatingNode(0); // FIXME
-							newFragment.setLastEdgeCreatingNode(0); // FIXME
-
-							extendedFragments.put(nextNodeLabel, newFragment);
-							LocalEnvironment.env(this).stats.newRoot++;
+					final NodeType nextNodeLabel = superGraph
+							.getNodeLabel(nextNode);
+					// useful extension found
+					final DAGmHPEmbedding<NodeType, EdgeType> newEmbedding = new DAGmHPEmbedding<NodeType, EdgeType>();
+					DAGmFragment<NodeType, EdgeType> newFragment;
+
+					if (extendedFragments.containsKey(nextNodeLabel)) {
+						newFragment = extendedFragments.get(nextNodeLabel);
+					} else {
+						final int nodeLevels[] = new int[actFragment
+								.getNodeLevels().length + 1];
+						for (int i = 0; i < nodeLevels.length; i++) {
+							nodeLevels[i] = 1; // all nodes at level 1
 						}
+						final HPMutableGraph<NodeType, EdgeType> newGraph = (HPMutableGraph<NodeType, EdgeType>) actEmbedding
+								.getSubGraph().clone();
+						newGraph.addNodeIndex(nextNodeLabel);
+
+						newFragment = new DAGmFragment<NodeType, EdgeType>(
+								newGraph, nodeLevels);
+						newFragment.setLastAction(LastAction.INSERTED_NODE);
+						newFragment.setLastCreatingNode(0); // FIXME
+						newFragment.setLastEdgeCreatingNode(0); // FIXME
+
+						extendedFragments.put(nextNodeLabel, newFragment);
+						LocalEnvironment.env(this).stats.newRoot.inc();
+					}
 
-						final int superNodes[] = new int[actFragment
-								.getNodeLevels().length + 1];
-						System.arraycopy(actEmbedding.getSuperNodes(), 0,
-								superNodes, 0, superNodes.length - 1);
-						superNodes[superNodes.length - 1] = nextNode;
+					final int superNodes[] = new int[actFragment
+							.getNodeLevels().length + 1];
+					System.arraycopy(actEmbedding.getSuperNodes(), 0,
+							superNodes, 0, superNodes.length - 1);
+					superNodes[superNodes.length - 1] = nextNode;
 
-						newEmbedding.set(
-								(DAGmGraph<NodeType, EdgeType>) actEmbedding
-										.getDataBaseGraph(), newFragment
-										.getHPSubGraph(), superNodes);
+					newEmbedding.set(
+							(DAGmGraph<NodeType, EdgeType>) actEmbedding
+									.getDataBaseGraph(), newFragment
+									.getHPSubGraph(), superNodes);
 
-						newFragment.add(newEmbedding);
-					}
+					newFragment.add(newEmbedding);
 				}
 			}
 		}
@@ -19,8 +19,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import de.parsemis.graph.Graph;
 import de.parsemis.graph.GraphFactory;
@@ -48,6 +50,7 @@ import de.parsemis.miner.general.DataBaseGraph;
 import de.parsemis.miner.general.Fragment;
 import de.parsemis.utils.Generic;
 import de.parsemis.utils.IntIterator;
+import de.parsemis.utils.PartitionedTask;
 
 /**
  * Creates a mining chain according to the gSpan algorithm, extended by
@@ -125,6 +128,17 @@ public class Algorithm<NodeType, EdgeType> implements
 			return (o instanceof PseudoLabel);
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			// all pseudo labels are equal
+			return PseudoLabel.class.getName().hashCode();
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -252,8 +266,16 @@ public class Algorithm<NodeType, EdgeType> implements
 			keep = true;
 		}
 		if (env.connectedFragments) {
-			generationFirst = new RightMostExtension<NodeType, EdgeType>(
+			final RightMostExtension<NodeType, EdgeType> rme = new RightMostExtension<NodeType, EdgeType>(
 					generationFirst, tenv);
+			if (env.embeddingTasks > 1 && gen instanceof GSpanGeneration
+					&& generationFirst == gen.getLast()) {
+				// the extensions of the tasks can just be merged, if no
+				// further step needs the embeddings
+				((GSpanGeneration<NodeType, EdgeType>) gen).split(rme,
+						env.embeddingTasks);
+			}
+			generationFirst = rme;
 		} else {
 			generationFirst = new UnconnectedExtension<NodeType, EdgeType>(
 					generationFirst, tenv);
@@ -305,14 +327,57 @@ public class Algorithm<NodeType, EdgeType> implements
 				.create(settings, graphs.size(), nodes, edges, nnil, enil,
 						new GThreadEnvFactory<NodeType, EdgeType>());
 
-		// generate GSpanGraphs and initial edges
-		int i = 0;
-		for (final Graph<NodeType, EdgeType> graph : graphs) {
-			final GSpanGraph<NodeType, EdgeType> gg = new GSpanGraph<NodeType, EdgeType>(
-					graph, i, settings.getFrequency(graph));
-			env.setDataBaseGraph(i, gg);
-			++i;
-			gg.createInitials(initials);
+		// generate GSpanGraphs and collect their initial edges for
+		// consecutive parts of the database concurrently
+		final List<Graph<NodeType, EdgeType>> list = PartitionedTask
+				.asList(graphs);
+		final List<Collection<GSpanEdge<NodeType, EdgeType>>> edgeParts = new PartitionedTask<Collection<GSpanEdge<NodeType, EdgeType>>>() {
+			@Override
+			protected Collection<GSpanEdge<NodeType, EdgeType>> process(
+					final int part, final int from, final int to) {
+				final GThreadEnvironment<NodeType, EdgeType> tenv = (GThreadEnvironment<NodeType, EdgeType>) env
+						.getThreadEnv(part);
+				final Collection<GSpanEdge<NodeType, EdgeType>> edges = new TreeSet<GSpanEdge<NodeType, EdgeType>>();
+				for (int i = from; i < to; ++i) {
+					final Graph<NodeType, EdgeType> graph = list.get(i);
+					final GSpanGraph<NodeType, EdgeType> gg = new GSpanGraph<NodeType, EdgeType>(
+							graph, i, settings.getFrequency(graph));
+					env.setDataBaseGraph(i, gg);
+					gg.collectInitialEdges(edges, tenv);
+				}
+				return edges;
+			}
+		}.run(list.size(), settings.threadCount);
+
+		// create the initial DFSCodes
+		final GThreadEnvironment<NodeType, EdgeType> tenv = (GThreadEnvironment<NodeType, EdgeType>) env
+				.getThreadEnv(0);
+		for (final Collection<GSpanEdge<NodeType, EdgeType>> part : edgeParts) {
+			for (final GSpanEdge<NodeType, EdgeType> gedge : part) {
+				if (!initials.containsKey(gedge)) {
+					initials.put(gedge, GSpanGraph.createInitial(gedge, tenv));
+				}
+			}
+		}
+
+		// find the graphs/embeddings of the initial DFSCodes concurrently, and
+		// add them in the order of the graphs
+		final List<OccurrenceBuffer<NodeType, EdgeType>> codeParts = new PartitionedTask<OccurrenceBuffer<NodeType, EdgeType>>() {
+			@Override
+			protected OccurrenceBuffer<NodeType, EdgeType> process(
+					final int part, final int from, final int to) {
+				final GThreadEnvironment<NodeType, EdgeType> ptenv = (GThreadEnvironment<NodeType, EdgeType>) env
+						.getThreadEnv(part);
+				final OccurrenceBuffer<NodeType, EdgeType> buffer = new OccurrenceBuffer<NodeType, EdgeType>();
+				for (int i = from; i < to; ++i) {
+					((GSpanGraph<NodeType, EdgeType>) env.getGraph(i))
+							.createInitials(initials, buffer, ptenv);
+				}
+				return buffer;
+			}
+		}.run(list.size(), settings.threadCount);
+		for (final OccurrenceBuffer<NodeType, EdgeType> buffer : codeParts) {
+			buffer.flush();
 		}
 
 		// filter infrequent edges
@@ -325,8 +390,6 @@ public class Algorithm<NodeType, EdgeType> implements
 			}
 		}
 
-		final GThreadEnvironment<NodeType, EdgeType> tenv = (GThreadEnvironment<NodeType, EdgeType>) env
-				.getThreadEnv(0);
 		final Map<NodeType, Fragment<NodeType, EdgeType>> nodeFragments = new HashMap<NodeType, Fragment<NodeType, EdgeType>>();
 		if (env.connectedFragments && env.minNodeCount <= 1) {
 			// add single noded graphs
@@ -335,34 +398,46 @@ public class Algorithm<NodeType, EdgeType> implements
 				g.addNodeIndex(label);
 				nodeFragments.put(label, tenv.getHPFragment(g).toFragment());
 			}
-			// calculate frequency of single noded graphs
-			for (int j = 0; j < env.graphCount(); j++) {
-				final GSpanGraph<NodeType, EdgeType> graph = (GSpanGraph<NodeType, EdgeType>) env
-						.getGraph(j);
-				final HPGraph<NodeType, EdgeType> hpgraph = graph.toHPGraph();
-				for (final IntIterator nit = hpgraph.nodeIndexIterator(); nit
-						.hasNext();) {
-					final int node = nit.next();
-					final NodeType label = hpgraph.getNodeLabel(node);
-					final Fragment<NodeType, EdgeType> frag = nodeFragments
-							.get(label);
-					if (frag != null) {
-						final HPMutableGraph<NodeType, EdgeType> g = env
-								.newHPGraph();
-						g.addNodeIndex(label);
-						if (env.storeEmbeddings) {
-							frag
-									.toHPFragment()
-									.add(
+			// calculate frequency of single noded graphs concurrently
+			final List<OccurrenceBuffer<NodeType, EdgeType>> nodeParts = new PartitionedTask<OccurrenceBuffer<NodeType, EdgeType>>() {
+				@Override
+				protected OccurrenceBuffer<NodeType, EdgeType> process(
+						final int part, final int from, final int to) {
+					final GThreadEnvironment<NodeType, EdgeType> ptenv = (GThreadEnvironment<NodeType, EdgeType>) env
+							.getThreadEnv(part);
+					final OccurrenceBuffer<NodeType, EdgeType> buffer = new OccurrenceBuffer<NodeType, EdgeType>();
+					for (int j = from; j < to; j++) {
+						final GSpanGraph<NodeType, EdgeType> graph = (GSpanGraph<NodeType, EdgeType>) env
+								.getGraph(j);
+						final HPGraph<NodeType, EdgeType> hpgraph = graph
+								.toHPGraph();
+						for (final IntIterator nit = hpgraph
+								.nodeIndexIterator(); nit.hasNext();) {
+							final int node = nit.next();
+							final NodeType label = hpgraph.getNodeLabel(node);
+							final Fragment<NodeType, EdgeType> frag = nodeFragments
+									.get(label);
+							if (frag != null) {
+								if (env.storeEmbeddings) {
+									final HPMutableGraph<NodeType, EdgeType> g = env
+											.newHPGraph();
+									g.addNodeIndex(label);
+									buffer.add(frag.toHPFragment(),
 											new GSpanEmbedding<NodeType, EdgeType>(
-													tenv).set(g.toGraph(),
+													ptenv).set(g.toGraph(),
 													graph, new int[] { node })
 													.toHPEmbedding());
-						} else {
-							frag.toHPFragment().add(graph);
+								} else {
+									buffer.add(frag.toHPFragment(), graph);
+								}
+							}
 						}
 					}
+					return buffer;
 				}
+			}.run(env.graphCount(), settings.threadCount);
+			for (final OccurrenceBuffer<NodeType, EdgeType> buffer : nodeParts) {
+				buffer.flush();
 			}
 			// remove infrequent single noded graphs
 			for (final Iterator<Map.Entry<NodeType, Fragment<NodeType, EdgeType>>> eit = nodeFragments
@@ -377,16 +452,14 @@ public class Algorithm<NodeType, EdgeType> implements
 				// remove single noded graphs, with equal frequent supergraphs
 				// (= initial edges)
 				for (final DFSCode<NodeType, EdgeType> code : initials.values()) {
-					final NodeType ta = env.getNodeLabel(code.getFirst()
-							.getLabelA());
+					final NodeType ta = env.getNodeLabel(code.getLabelA(0));
 					final Fragment<NodeType, EdgeType> na = nodeFragments
 							.get(ta);
 					if (na != null
 							&& na.frequency().compareTo(code.frequency()) == 0) {
 						nodeFragments.remove(ta);
 					}
-					final NodeType tb = env.getNodeLabel(code.getFirst()
-							.getLabelB());
+					final NodeType tb = env.getNodeLabel(code.getLabelB(0));
 					final Fragment<NodeType, EdgeType> nb = nodeFragments
 							.get(tb);
 					if (nb != null
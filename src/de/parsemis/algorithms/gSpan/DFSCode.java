@@ -14,10 +14,11 @@
  */
 package de.parsemis.algorithms.gSpan;
 
-import java.util.ArrayList;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
 
+import de.parsemis.graph.Edge;
 import de.parsemis.graph.HPGraph;
 import de.parsemis.graph.HPMutableGraph;
 import de.parsemis.miner.chain.Extension;
@@ -60,9 +61,36 @@ public class DFSCode<NodeType, EdgeType> extends
 
 	protected final static int UNUSED = -1;
 
-	private GSpanEdge<NodeType, EdgeType> first, last;
+	/* the ints of each packed edge: nodeA, nodeB, labelA, edge label and
+	 * direction, labelB */
+	private final static int EDGE_SIZE = 5;
 
-	private int psize;
+	private final static int NODE_A = 0, NODE_B = 1, LABEL_A = 2,
+			EDGE_LABEL = 3, LABEL_B = 4;
+
+	/**
+	 * the packed edges of a DFSCode, shared by a code and its first child as
+	 * long as there is space left
+	 */
+	private static final class PackedEdges implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		int[] ints;
+
+		/** the number of ints used by the longest code of this array */
+		int used;
+
+		PackedEdges(final int capacity) {
+			this.ints = new int[capacity];
+		}
+	}
+
+	private PackedEdges edges;
+
+	/** the number of ints used by this code */
+	private int length;
+
+	private GSpanEdge<NodeType, EdgeType> last;
 
 	private int threadIdx;
 
@@ -72,7 +100,11 @@ public class DFSCode<NodeType, EdgeType> extends
 
 	transient private GThreadEnvironment<NodeType, EdgeType> tenv;
 
-	transient private ArrayList<GSpanEdge<NodeType, EdgeType>> parents;
+	/* the nodeA of the forward edge that introduced each node */
+	transient private int[] parents;
+
+	/* the stored occurrences, lost by serialization and searched again */
+	transient private EmbeddingList<NodeType, EdgeType> occurrences;
 
 	/** used for the object pool */
 	// transient public DFSCode<NodeType,EdgeType> next;
@@ -102,23 +134,49 @@ public class DFSCode<NodeType, EdgeType> extends
 	 * @see java.lang.Comparable#compareTo(T)
 	 */
 	public int compareTo(final DFSCode<NodeType, EdgeType> arg0) {
-		GSpanEdge<NodeType, EdgeType> ack1 = this.first;
-		GSpanEdge<NodeType, EdgeType> ack2 = arg0.first;
-		while (ack1 != null && ack2 != null && ack1.compareTo(ack2) == 0) {
-			ack1 = ack1.next;
-			ack2 = ack2.next;
-		}
-		if (ack1 == null) {
-			if (ack2 == null) {
-				return 0;
-			} else {
-				return -1;
+		final int[] c1 = this.edges.ints;
+		final int[] c2 = arg0.edges.ints;
+		final int min = Math.min(this.length, arg0.length);
+		int i = 0;
+		if (c1 != c2) {
+			// equal edges have equal packed values
+			while (i < min && c1[i] == c2[i]) {
+				++i;
 			}
-		} else if (ack2 == null) {
-			return 1;
 		} else {
-			return ack1.compareTo(ack2);
+			// a shared prefix is equal anyway
+			i = min;
+		}
+		if (i == min) {
+			return this.length - arg0.length;
 		}
+		final int e = i - i % EDGE_SIZE;
+		return GSpanEdge.compare(c1[e + NODE_A], c1[e + NODE_B],
+				c1[e + LABEL_A], c1[e + EDGE_LABEL] >> 2,
+				c1[e + LABEL_B], (c1[e + EDGE_LABEL] & 3) - 1,
+				c2[e + NODE_A], c2[e + NODE_B], c2[e + LABEL_A],
+				c2[e + EDGE_LABEL] >> 2, c2[e + LABEL_B],
+				(c2[e + EDGE_LABEL] & 3) - 1);
+	}
+
+	/**
+	 * compares the given edge of this code with the given <code>other</code>
+	 * one
+	 * 
+	 * @param edge
+	 *            the index of the edge within this code
+	 * @param other
+	 * @param nodeB
+	 *            this node is used as the second node for the other edge
+	 * @return <0; 0; or >0
+	 */
+	final int compareEdge(final int edge,
+			final GSpanEdge<NodeType, EdgeType> other, final int nodeB) {
+		return GSpanEdge.compare(getNodeA(edge), getNodeB(edge),
+				getLabelA(edge), getEdgeLabel(edge), getLabelB(edge),
+				getDirection(edge), other.getNodeA(), nodeB, other
+						.getLabelA(), other.getEdgeLabel(), other.getLabelB(),
+				other.getDirection());
 	}
 
 	/*
@@ -144,38 +202,20 @@ public class DFSCode<NodeType, EdgeType> extends
 		final GSpanExtension<NodeType, EdgeType> ext = (GSpanExtension<NodeType, EdgeType>) extension;
 		final GThreadEnvironment<NodeType, EdgeType> tenv = tenv();
 
-		// clone current DFS-List
-		final GSpanEdge<NodeType, EdgeType> nextFirst = first.clone(tenv);
-		GSpanEdge<NodeType, EdgeType> nextLast = nextFirst;
-		final HPGraph<NodeType, EdgeType> g = ext.getFragment().toHPGraph();
-		final ArrayList<GSpanEdge<NodeType, EdgeType>> nextParents = new ArrayList<GSpanEdge<NodeType, EdgeType>>(
-				g.getNodeCount());
-
-		// generate parent map
-		for (int i = g.getNodeCount(); i > 0; --i) {
-			nextParents.add(null);
-		}
-		nextParents.set(nextFirst.getNodeA(), nextFirst);
-		nextParents.set(nextFirst.getNodeB(), nextFirst);
-
-		for (GSpanEdge<NodeType, EdgeType> ack = first.next; ack != null; ack = ack.next) {
-			nextLast.next = ack.clone(tenv);
-			nextLast = nextLast.next;
-			if (nextLast.isForward()) {
-				nextParents.set(nextLast.getNodeB(), nextLast);
+		// get "new" DFSCode object, that shares the prefix if possible
+		final DFSCode<NodeType, EdgeType> ret = tenv.getCode(ext
+				.getFragment(), this, ext.edge);
+		if (ext.list != null) {
+			// infrequent codes will not be extended, so their occurrences
+			// are not required
+			if (LocalEnvironment.env(this).minFreq.compareTo(ext.frequency()) > 0) {
+				ext.list.release(tenv);
+			} else {
+				ret.occurrences = ext.list;
 			}
+			ext.list = null;
 		}
-
-		// append new edge
-		nextLast.next = ext.edge;
-		nextLast = ext.edge;
-		if (nextLast.isForward()) {
-			nextParents.set(nextLast.getNodeB(), nextLast);
-		}
-
-		// get "new" DFSCode object
-		return tenv().getCode(ext.getFragment(), nextFirst, nextLast,
-				nextParents);
+		return ret;
 	}
 
 	/*
@@ -186,9 +226,10 @@ public class DFSCode<NodeType, EdgeType> extends
 	@Override
 	public void finalizeIt() {
 		if (tenv != null) {
-			first.releaseAll(last, tenv);
+			last.release(tenv);
 		}
 		parents = null;
+		occurrences = null;
 	}
 
 	/** @return the frequency (finally) associated with this DFS-code */
@@ -226,9 +267,99 @@ public class DFSCode<NodeType, EdgeType> extends
 		return last;
 	}
 
-	/** @return the initial GSpanEdge of this DFSCode */
+	/**
+	 * @return the stored occurrences of this DFSCode, or <code>null</code> if
+	 *         they have to be searched
+	 */
+	final EmbeddingList<NodeType, EdgeType> getEmbeddingList() {
+		return occurrences;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @param graph
+	 * @param ackNodes
+	 *            the nodes of the graph the code nodes are mapped to
+	 * @return the index of the graph edge the given edge is mapped to
+	 */
+	final int getCorresponding(final int edge,
+			final HPGraph<NodeType, EdgeType> graph, final int[] ackNodes) {
+		final int nA = ackNodes[getNodeA(edge)];
+		final int nB = ackNodes[getNodeB(edge)];
+		if (getDirection(edge) == Edge.INCOMING) {
+			return graph.getEdge(nB, nA);
+		} else {
+			return graph.getEdge(nA, nB);
+		}
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the direction of the edge
+	 */
+	final int getDirection(final int edge) {
+		return (edges.ints[edge * EDGE_SIZE + EDGE_LABEL] & 3) - 1;
+	}
+
+	/**
+	 * @return the number of edges of this code
+	 */
+	final int getEdgeCount() {
+		return length / EDGE_SIZE;
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the edge label index of the edge
+	 */
+	final int getEdgeLabel(final int edge) {
+		return edges.ints[edge * EDGE_SIZE + EDGE_LABEL] >> 2;
+	}
+
+	/** @return a new GSpanEdge equal to the initial edge of this DFSCode */
 	protected final GSpanEdge<NodeType, EdgeType> getFirst() {
-		return first;
+		return new GSpanEdge<NodeType, EdgeType>(tenv()).set(getNodeA(0),
+				getNodeB(0), getLabelA(0), getEdgeLabel(0), getLabelB(0),
+				getDirection(0));
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the node label index of the first node of the edge
+	 */
+	final int getLabelA(final int edge) {
+		return edges.ints[edge * EDGE_SIZE + LABEL_A];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the node label index of the second node of the edge
+	 */
+	final int getLabelB(final int edge) {
+		return edges.ints[edge * EDGE_SIZE + LABEL_B];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the DFS-index of the first node of the edge
+	 */
+	final int getNodeA(final int edge) {
+		return edges.ints[edge * EDGE_SIZE + NODE_A];
+	}
+
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @return the DFS-index of the second node of the edge
+	 */
+	final int getNodeB(final int edge) {
+		return edges.ints[edge * EDGE_SIZE + NODE_B];
 	}
 
 	/** @return the last GSpanEdge of this DFSCode */
@@ -240,23 +371,23 @@ public class DFSCode<NodeType, EdgeType> extends
 	 * generates the parents array, if necessary
 	 * 
 	 * @param node
-	 * @return the GSpanEdge that introduced the given node
+	 * @return the first node of the forward edge that introduced the given
+	 *         node
 	 */
-	public GSpanEdge<NodeType, EdgeType> getParent(final int node) {
+	public int getParentNode(final int node) {
 		if (parents == null) {
-			parents = new ArrayList<GSpanEdge<NodeType, EdgeType>>(psize);
-			for (int i = 0; i < psize; i++) {
-				parents.add(null);
-			}
-			parents.set(0, first);
-			for (GSpanEdge<NodeType, EdgeType> ack = first; ack != null; ack = ack.next) {
-				if (ack.isForward()) {
-					parents.set(ack.getNodeB(), ack);
+			final int[] nparents = new int[toHPFragment().toHPGraph()
+					.getNodeCount()];
+			for (int i = 0; i < length; i += EDGE_SIZE) {
+				final int[] ints = edges.ints;
+				if (ints[i + NODE_A] < ints[i + NODE_B]) {
+					nparents[ints[i + NODE_B]] = ints[i + NODE_A];
 				}
 			}
+			parents = nparents;
 		}
-		assert parents.size() > node : this + " " + node;
-		return parents.get(node);
+		assert parents.length > node : this + " " + node;
+		return parents[node];
 	}
 
 	/*
@@ -276,7 +407,12 @@ public class DFSCode<NodeType, EdgeType> extends
 	 */
 	@Override
 	public int hashCode() {
-		return first == null ? 0 : first.hashCode();
+		final int[] ints = edges.ints;
+		int ret = 1;
+		for (int i = 0; i < length; ++i) {
+			ret = 31 * ret + ints[i];
+		}
+		return ret;
 	}
 
 	/**
@@ -302,31 +438,30 @@ public class DFSCode<NodeType, EdgeType> extends
 			if (!hp.isValidNode(node)) {
 				continue;
 			}
-			final int nodeLabelIndex = env.getNodeLabelIndex(hp
-					.getNodeLabel(node));
+			final int nodeLabelIndex = hp.getNodeLabelIndex(node, env);
 			int foundEdge = -2;
-			GSpanEdge<NodeType, EdgeType> ack = first;
-			if (ack.getNodeA() == ack.getNodeB()) { // self edge
+			int ack = 0;
+			if (getNodeA(0) == getNodeB(0)) { // self edge
 				final int edge = hp.getEdge(node, node);
 				if (edge != -1) {
-					if (nodeLabelIndex < ack.getLabelA()) {
+					if (nodeLabelIndex < getLabelA(0)) {
 						return false; // a smaller DFSCode is found
 					}
-					if (nodeLabelIndex == ack.getLabelA()) {
+					if (nodeLabelIndex == getLabelA(0)) {
 						// only DFSCodes will searched which starts same as this
 						final int edgeIndex = edge;
 						final int edgeLabelIndex = hp.getEdgeLabelIndex(edge,
 								env);
-						if (edgeLabelIndex < ack.getEdgeLabel()) {
+						if (edgeLabelIndex < getEdgeLabel(0)) {
 							return false; // a smaller DFSCode is found
 						}
-						if (edgeLabelIndex == ack.getEdgeLabel()) {
+						if (edgeLabelIndex == getEdgeLabel(0)) {
 							// equal starting edge found
 							usedNodes[node] = 0;
 							ackNodes[0] = node;
 							usedEdges[edgeIndex] = 1;
 							foundEdge = edgeIndex;
-							ack = ack.next;
+							ack = 1;
 						}
 					}
 				}
@@ -334,7 +469,7 @@ public class DFSCode<NodeType, EdgeType> extends
 				if (hp.getEdge(node, node) != -1) {
 					return false; // a smaller DFSCode is found
 				}
-				if (nodeLabelIndex <= ack.getLabelA()) {
+				if (nodeLabelIndex <= getLabelA(0)) {
 					// only DFSCodes will searched which starts same as this
 					// first edge will be detected by recursion
 					usedNodes[node] = 0;
@@ -342,7 +477,7 @@ public class DFSCode<NodeType, EdgeType> extends
 					foundEdge = -1;
 				}
 			}
-			if (foundEdge > -2 && ack != null) {// node is a start node
+			if (foundEdge > -2 && ack < getEdgeCount()) {// node is a start node
 				final MinExtension<NodeType, EdgeType> exts = getExtensions(0,
 						hp, node, usedEdges, usedNodes);
 				set.addAll(exts);
@@ -370,6 +505,7 @@ public class DFSCode<NodeType, EdgeType> extends
 	 * extends current detected DFSCode and searches for new extensions
 	 * 
 	 * @param ackEdge
+	 *            the index of the current edge of this code
 	 * @param set
 	 * @param lastNode
 	 * @param usedNodes
@@ -378,7 +514,7 @@ public class DFSCode<NodeType, EdgeType> extends
 	 * @param graph
 	 * @return <code>false</code>, the part of the serach determines this
 	 */
-	private boolean isCan2(final GSpanEdge<NodeType, EdgeType> ackEdge,
+	private boolean isCan2(final int ackEdge,
 			final MinExtensionSet<NodeType, EdgeType> set, final int lastNode,
 			final int[] usedNodes, final int[] usedEdges, final int[] ackNodes,
 			final HPGraph<NodeType, EdgeType> graph) {
@@ -399,13 +535,13 @@ public class DFSCode<NodeType, EdgeType> extends
 				}
 			} else {
 				if (ack.getNodeB() == UNUSED) { // forward edge
-					final int tmp = ackEdge.compareTo(ack, lastNode + 1);
+					final int tmp = compareEdge(ackEdge, ack, lastNode + 1);
 					if (tmp > 0) {
 						// smaller DFSCode found
 						set.relink(ack, next);
 						return false;
 					}
-					if (ackEdge.next == null || tmp < 0) {
+					if (ackEdge + 1 == getEdgeCount() || tmp < 0) {
 						// smaller DFSCode found
 						set.relink(ack, next);
 						return true;
@@ -419,7 +555,7 @@ public class DFSCode<NodeType, EdgeType> extends
 							usedNodes);
 					set.addAll(exts);
 					// recursiv search
-					if (!isCan2(ackEdge.next, set, lastNode + 1, usedNodes,
+					if (!isCan2(ackEdge + 1, set, lastNode + 1, usedNodes,
 							usedEdges, ackNodes, graph)) {
 						// smaller DFSCode found
 						set.removeAndFreeAll(exts);
@@ -431,13 +567,13 @@ public class DFSCode<NodeType, EdgeType> extends
 					ackNodes[lastNode + 1] = UNUSED;
 					usedEdges[ack.gEdgei] = UNUSED;
 				} else { // backward edge
-					final int tmp = ackEdge.compareTo(ack, ack.getNodeB());
+					final int tmp = compareEdge(ackEdge, ack, ack.getNodeB());
 					if (tmp > 0) {
 						// smaller DFSCode found
 						set.relink(ack, next);
 						return false;
 					}
-					if (ackEdge.next == null || tmp < 0) {
+					if (ackEdge + 1 == getEdgeCount() || tmp < 0) {
 						// smaller DFSCode found
 						set.relink(ack, next);
 						return true;
@@ -445,7 +581,7 @@ public class DFSCode<NodeType, EdgeType> extends
 					// mark edge as used
 					usedEdges[ack.gEdgei] = 1;
 					// recursiv search
-					if (!isCan2(ackEdge.next, set, lastNode, usedNodes,
+					if (!isCan2(ackEdge + 1, set, lastNode, usedNodes,
 							usedEdges, ackNodes, graph)) {
 						// smaller DFSCode found
 						set.relink(ack, next);
@@ -484,6 +620,20 @@ public class DFSCode<NodeType, EdgeType> extends
 		return ret;
 	}
 
+	/**
+	 * releases the stored occurrences, after they are no longer required
+	 * 
+	 * @param target
+	 *            the environment of the current thread
+	 */
+	final void releaseEmbeddingList(
+			final GThreadEnvironment<NodeType, EdgeType> target) {
+		if (occurrences != null) {
+			occurrences.release(target);
+			occurrences = null;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -502,27 +652,86 @@ public class DFSCode<NodeType, EdgeType> extends
 	 * initialisation do allow reusability
 	 * 
 	 * @param me
-	 * @param first
+	 * @param parent
+	 *            the code that is extended
 	 * @param last
-	 * @param parents
+	 *            the new edge
+	 * @return a newly initialized DFSCode
+	 */
+	protected DFSCode<NodeType, EdgeType> set(
+			final HPFragment<NodeType, EdgeType> me,
+			final DFSCode<NodeType, EdgeType> parent,
+			final GSpanEdge<NodeType, EdgeType> last) {
+		final PackedEdges pe = parent.edges;
+		final int plength = parent.length;
+		if (pe.used == plength && plength + EDGE_SIZE <= pe.ints.length) {
+			// the first child appends to the array of its parent
+			this.edges = pe;
+		} else {
+			// each further one copies the prefix
+			this.edges = new PackedEdges(2 * (plength + EDGE_SIZE));
+			System.arraycopy(pe.ints, 0, edges.ints, 0, plength);
+		}
+		this.length = plength;
+		return append(me, last);
+	}
+
+	/**
+	 * initialisation do allow reusability
+	 * 
+	 * @param me
+	 * @param first
+	 *            the initial edge
 	 * @return a newly initialized DFSCode
 	 */
 	protected DFSCode<NodeType, EdgeType> set(
 			final HPFragment<NodeType, EdgeType> me,
-			final GSpanEdge<NodeType, EdgeType> first,
-			final GSpanEdge<NodeType, EdgeType> last,
-			final ArrayList<GSpanEdge<NodeType, EdgeType>> parents) {
+			final GSpanEdge<NodeType, EdgeType> first) {
+		this.edges = new PackedEdges(4 * EDGE_SIZE);
+		this.length = 0;
+		return append(me, first);
+	}
+
+	/* appends the given edge to the packed edges */
+	private DFSCode<NodeType, EdgeType> append(
+			final HPFragment<NodeType, EdgeType> me,
+			final GSpanEdge<NodeType, EdgeType> edge) {
+		final int[] ints = edges.ints;
+		ints[length + NODE_A] = edge.getNodeA();
+		ints[length + NODE_B] = edge.getNodeB();
+		ints[length + LABEL_A] = edge.getLabelA();
+		ints[length + EDGE_LABEL] = (edge.getEdgeLabel() << 2)
+				| (edge.getDirection() + 1);
+		ints[length + LABEL_B] = edge.getLabelB();
+		length += EDGE_SIZE;
+		edges.used = length;
 		this.me = me;
-		this.parents = parents;
-		this.psize = parents.size();
-		this.first = first;
-		this.last = last;
+		this.parents = null;
+		this.last = edge;
 		this.finalMe = null;
 		setLevel(me.toHPGraph().getEdgeCount() - 1);
 		store(true);
 		return this;
 	}
 
+	/**
+	 * @param edge
+	 *            the index of an edge of this code
+	 * @param graph
+	 * @param gEdge
+	 *            an edge of the graph
+	 * @param gNode
+	 *            the node of the graph edge the edge starts at
+	 * @return <code>true</code>, if the graph edge matches the given edge
+	 *         (ignoring the node labels)
+	 */
+	final boolean sameAs(final int edge,
+			final HPGraph<NodeType, EdgeType> graph, final int gEdge,
+			final int gNode) {
+		return graph.getDirection(gEdge, gNode) == getDirection(edge)
+				&& graph.getEdgeLabelIndex(gEdge, LocalEnvironment.env(this)) == getEdgeLabel(edge);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,165 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.algorithms.gSpan;
+
+import de.parsemis.graph.HPGraph;
+
+/**
+ * This class stores all occurrences of a DFSCode (the projected database of
+ * the original gSpan) in one compact int array.
+ * <p>
+ * Each occurrence is one record of <code>nodeCount + 1</code> ints: the index
+ * of the database graph followed by the database node of each DFSCode node.
+ * The used edges are not stored, because they are determined by the nodes.
+ * The records of a child are created from the records of its parent, so the
+ * embeddings need not to be searched again.
+ * <p>
+ * It will be stored in the local object pool of the thread that created it,
+ * including its array.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+final class EmbeddingList<NodeType, EdgeType> {
+
+	private static final int INITIAL_SIZE = 64;
+
+	private final GThreadEnvironment<NodeType, EdgeType> tenv;
+
+	/** used for the object pool */
+	EmbeddingList<NodeType, EdgeType> next;
+
+	private int[] records = new int[INITIAL_SIZE];
+
+	private int stride;
+
+	private int size;
+
+	/**
+	 * creates a new EmbeddingList
+	 *
+	 * @param tenv
+	 */
+	EmbeddingList(final GThreadEnvironment<NodeType, EdgeType> tenv) {
+		this.tenv = tenv;
+	}
+
+	/**
+	 * adds the occurrence given by the parent embedding and the database node
+	 * of a new forward edge
+	 *
+	 * @param emb
+	 *            the embedding of the parent DFSCode
+	 * @param superNodeB
+	 *            the database node of the new DFSCode node, or
+	 *            <code>HPGraph.NO_NODE</code> for backward edges
+	 */
+	void add(final GSpanHPEmbedding<NodeType, EdgeType> emb,
+			final int superNodeB) {
+		final int end = (size + 1) * stride;
+		if (end > records.length) {
+			final int[] tmp = new int[Math.max(2 * records.length, end)];
+			System.arraycopy(records, 0, tmp, 0, size * stride);
+			records = tmp;
+		}
+		int pos = size * stride;
+		records[pos++] = emb.getDataBaseGraph().getIndex();
+		for (int i = 0; pos < end && i < emb.getSubGraph().getNodeCount(); ++i) {
+			records[pos++] = emb.getSuperGraphNode(i);
+		}
+		if (pos < end) {
+			assert superNodeB != HPGraph.NO_NODE : "missing node for a forward edge";
+			records[pos] = superNodeB;
+		}
+		size++;
+	}
+
+	/**
+	 * appends the occurrences of the given list
+	 *
+	 * @param other
+	 *            a list for the same DFSCode
+	 */
+	void addAll(final EmbeddingList<NodeType, EdgeType> other) {
+		assert other.stride == stride : "different DFSCodes";
+		final int end = (size + other.size) * stride;
+		if (end > records.length) {
+			final int[] tmp = new int[Math.max(2 * records.length, end)];
+			System.arraycopy(records, 0, tmp, 0, size * stride);
+			records = tmp;
+		}
+		System.arraycopy(other.records, 0, records, size * stride, other.size
+				* stride);
+		size += other.size;
+	}
+
+	/**
+	 * @return the number of ints allocated for the stored occurrences
+	 */
+	int capacity() {
+		return records.length;
+	}
+
+	/**
+	 * @param record
+	 * @return the index of the database graph of the given occurrence
+	 */
+	int getGraphIndex(final int record) {
+		return records[record * stride];
+	}
+
+	/**
+	 * copies the database nodes of the given occurrence
+	 *
+	 * @param record
+	 * @param superNodes
+	 *            the array the nodes are copied to
+	 */
+	void getSuperNodes(final int record, final int[] superNodes) {
+		System.arraycopy(records, record * stride + 1, superNodes, 0,
+				stride - 1);
+	}
+
+	/**
+	 * stores this list in the given pool (if it is the creating one)
+	 *
+	 * @param target
+	 */
+	void release(final GThreadEnvironment<NodeType, EdgeType> target) {
+		if (target == tenv) {
+			target.push(this);
+		}
+	}
+
+	/**
+	 * initialisation do allow reusability
+	 *
+	 * @param nodeCount
+	 *            the number of nodes of the corresponding DFSCode
+	 * @return this list without any occurrence
+	 */
+	EmbeddingList<NodeType, EdgeType> set(final int nodeCount) {
+		this.stride = nodeCount + 1;
+		this.size = 0;
+		this.next = null;
+		return this;
+	}
+
+	/**
+	 * @return the number of stored occurrences
+	 */
+	int size() {
+		return size;
+	}
+
+}
@@ -59,7 +59,7 @@ public class GSpanEdge<NodeType, EdgeType> implements
 
 	private int edgeLabel, direction;
 
-	/** the next edge in the DFS-Code (or the pool-list) */
+	/** the next edge in the pool-list */
 	protected GSpanEdge<NodeType, EdgeType> next;
 
 	/**
@@ -124,52 +124,68 @@ public class GSpanEdge<NodeType, EdgeType> implements
 	 */
 	public final int compareTo(final GSpanEdge<NodeType, EdgeType> other,
 			final int nodeB) {
-		if (this.nodeA == other.nodeA) {
-			if (this.nodeB != nodeB) {
-				return this.nodeB - nodeB;
+		return compare(this.nodeA, this.nodeB, this.labelA, this.edgeLabel,
+				this.labelB, this.direction, other.nodeA, nodeB, other.labelA,
+				other.edgeLabel, other.labelB, other.direction);
+	}
+
+	/**
+	 * compares two edges given by their single values, so that also packed
+	 * DFSCodes can be compared without GSpanEdge objects
+	 * 
+	 * @return <0; 0; or >0
+	 */
+	static final int compare(final int nodeA, final int nodeB,
+			final int labelA, final int edgeLabel, final int labelB,
+			final int direction, final int oNodeA, final int oNodeB,
+			final int oLabelA, final int oEdgeLabel, final int oLabelB,
+			final int oDirection) {
+		if (nodeA == oNodeA) {
+			if (nodeB != oNodeB) {
+				return nodeB - oNodeB;
 			}
-			if (this.direction != other.direction) {
-				return other.direction - this.direction;
+			if (direction != oDirection) {
+				return oDirection - direction;
 			}
-			if (this.labelA != other.labelA) {
-				return this.labelA - other.labelA;
+			if (labelA != oLabelA) {
+				return labelA - oLabelA;
 			}
-			if (this.edgeLabel != other.edgeLabel) {
-				return this.edgeLabel - other.edgeLabel;
+			if (edgeLabel != oEdgeLabel) {
+				return edgeLabel - oEdgeLabel;
 			}
-			return this.labelB - other.labelB;
+			return labelB - oLabelB;
 		} else { // TODO: das laesst sich bestimmt noch irgendwie schoener
 			// schreiben
-			if (this.nodeA < this.nodeB) {
-				if (this.nodeB == other.nodeA) {
+			if (nodeA < nodeB) {
+				if (nodeB == oNodeA) {
 					return -1; // see paper
 				} else {
-					if (other.nodeA > this.nodeA) {
-						if (other.nodeA > this.nodeB) {
+					if (oNodeA > nodeA) {
+						if (oNodeA > nodeB) {
 							return -1;
 						} else {
 							return 1;
 						}
 					} else {
-						if (this.nodeA >= nodeB) {
+						if (nodeA >= oNodeB) {
 							return 1;
 						} else {
 							return -1;
 						}
 					}
 				}
-			} else if (other.nodeA < nodeB) {
-				if (nodeB == this.nodeA) {
+			} else if (oNodeA < oNodeB) {
+				if (oNodeB == nodeA) {
 					return 1; // see paper
 				} else {
-					if (other.nodeA > this.nodeA) {
-						if (other.nodeA >= this.nodeB) {
+					if (oNodeA > nodeA) {
+						if (oNodeA >= nodeB) {
 							return -1;
 						} else {
 							return 1;
 						}
 					} else {
-						if (this.nodeA > nodeB) {
+						if (nodeA > oNodeB) {
 							return 1;
 						} else {
 							return -1;
@@ -177,7 +193,7 @@ public class GSpanEdge<NodeType, EdgeType> implements
 					}
 				}
 			} else { // compare two backwards edges with different nodeA
-				return this.nodeA - other.nodeA;
+				return nodeA - oNodeA;
 			}
 		}
 	}
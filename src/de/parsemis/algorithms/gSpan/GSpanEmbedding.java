@@ -50,8 +50,6 @@ public class GSpanEmbedding<NodeType, EdgeType> implements
 	 */
 	private static final long serialVersionUID = 1920495376552453967L;
 
-	public static int counter = 0;
-
 	private transient/* final */GThreadEnvironment<NodeType, EdgeType> tenv;
 
 	private int idx;
@@ -74,7 +72,7 @@ public class GSpanEmbedding<NodeType, EdgeType> implements
 	 * @param tenv
 	 */
 	public GSpanEmbedding(final GThreadEnvironment<NodeType, EdgeType> tenv) {
-		counter++;
+		tenv.stats.embeddings.inc();
 		this.threadIdx = tenv.threadIdx;
 		this.tenv = tenv;
 	}
@@ -14,8 +14,8 @@
  */
 package de.parsemis.algorithms.gSpan;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.TreeSet;
 
 import de.parsemis.miner.chain.Extender;
 import de.parsemis.miner.chain.Extension;
@@ -54,7 +54,8 @@ public class GSpanExtender<NodeType, EdgeType> extends
 		super(null);
 		first = this;
 		this.tenv = tenv;
-		dummy = new TreeSet<Extension<NodeType, EdgeType>>();
+		// the extensions are given in the order of their edges
+		dummy = new ArrayList<Extension<NodeType, EdgeType>>();
 	}
 
 	/*
@@ -91,11 +92,13 @@ public class GSpanExtender<NodeType, EdgeType> extends
 	 */
 	public Collection<SearchLatticeNode<NodeType, EdgeType>> getChildren(
 			final SearchLatticeNode<NodeType, EdgeType> node) {
-		// ArrayList for deteministic search
-		children = new TreeSet<SearchLatticeNode<NodeType, EdgeType>>();
 		dummy.clear();
+		// the ordered extensions lead to ordered children
+		children = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
 		// start the run throu the chain for the given node
 		first.call(node, dummy);
+		((DFSCode<NodeType, EdgeType>) node).releaseEmbeddingList(tenv);
+		tenv.stats.extensionsPerNode.record(children.size());
 		return children;
 	}
 
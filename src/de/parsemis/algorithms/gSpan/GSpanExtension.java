@@ -44,6 +44,9 @@ public class GSpanExtension<NodeType, EdgeType> implements
 
 	protected Object frag;
 
+	/** the occurrences of the extended DFSCode, if embedding lists are used */
+	transient EmbeddingList<NodeType, EdgeType> list;
+
 	/** used for the pool */
 	transient GSpanExtension<NodeType, EdgeType> next;
 
@@ -18,6 +18,9 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import de.parsemis.graph.Edge;
 import de.parsemis.graph.HPGraph;
@@ -28,6 +31,7 @@ import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.general.DataBaseGraph;
 import de.parsemis.miner.general.HPEmbedding;
+import de.parsemis.utils.PartitionedTask;
 
 /**
  * Contains the whole chain for possible children generation.
@@ -43,12 +47,42 @@ import de.parsemis.miner.general.HPEmbedding;
  */
 public class GSpanGeneration<NodeType, EdgeType> extends
 		GenerationStep<NodeType, EdgeType> {
+
+	/** the minimal number of start nodes (or occurrences) of each task */
+	private static final int MIN_TASK_SIZE = 64;
+
+	private static ExecutorService pool = null;
+
+	/**
+	 * @return the shared pool for the further tasks of split searches
+	 */
+	private static synchronized ExecutorService pool() {
+		if (pool == null) {
+			pool = Executors.newCachedThreadPool(new ThreadFactory() {
+				private int count = 0;
+
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "EmbeddingTask-"
+							+ (count++));
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
+
 	private final Collection<HPEmbedding<NodeType, EdgeType>> embeddings;
 
 	private final LocalEnvironment<NodeType, EdgeType> env;
 
 	private final GThreadEnvironment<NodeType, EdgeType> tenv;
 
+	/* the generations (and their extensions) of each task of a split search */
+	private GSpanGeneration<NodeType, EdgeType>[] tasks = null;
+
+	private RightMostExtension<NodeType, EdgeType>[] extensions = null;
+
 	/**
 	 * creates a new embeddings searching GSpanGeneration
 	 * 
@@ -77,12 +111,28 @@ public class GSpanGeneration<NodeType, EdgeType> extends
 		final DFSCode<NodeType, EdgeType> code = (DFSCode<NodeType, EdgeType>) node;
 		final int[] ackNodes = tenv.getIntArray(code.toHPFragment().toHPGraph()
 				.getNodeCount(), HPGraph.NO_NODE);
-		// search for children in all required database graphs, therefor search
-		// all embeddings
-		for (final Iterator<DataBaseGraph<NodeType, EdgeType>> ggit = code
-				.toHPFragment().graphIterator(); ggit.hasNext();) {
-			searchEmbeddings((GSpanGraph<NodeType, EdgeType>) ggit.next(),
-					code, ackNodes);
+		final EmbeddingList<NodeType, EdgeType> list = code.getEmbeddingList();
+		if (list != null) {
+			// the occurrences are already known by the parent
+			if (tasks != null && list.size() >= 2 * MIN_TASK_SIZE) {
+				split(code, null, list, list.size());
+			} else {
+				replayEmbeddings(list, code, ackNodes, 0, list.size());
+			}
+		} else {
+			// search for children in all required database graphs, therefor
+			// search all embeddings
+			for (final Iterator<DataBaseGraph<NodeType, EdgeType>> ggit = code
+					.toHPFragment().graphIterator(); ggit.hasNext();) {
+				final GSpanGraph<NodeType, EdgeType> dbgraph = (GSpanGraph<NodeType, EdgeType>) ggit
+						.next();
+				final int max = dbgraph.toHPGraph().getMaxNodeIndex();
+				if (tasks != null && max >= 2 * MIN_TASK_SIZE) {
+					split(code, dbgraph, null, max);
+				} else {
+					searchEmbeddings(dbgraph, code, ackNodes, 0, max);
+				}
+			}
 		}
 		tenv.push(ackNodes);
 		super.call(node, extensions);
@@ -118,73 +168,180 @@ public class GSpanGeneration<NodeType, EdgeType> extends
 		super.reset();
 	}
 
-	/* initializes the recursive search for embeddings */
+	/* @return the currently existing edges of the given graph */
+	private final BitSet existingEdges(
+			final GSpanGraph<NodeType, EdgeType> dbgraph) {
+		final HPGraph<NodeType, EdgeType> me = dbgraph.toHPGraph();
+		final BitSet freeEdges = new BitSet(me.getMaxEdgeIndex() + 1);
+		for (int edge = me.getMaxEdgeIndex() - 1; edge >= 0; --edge) {
+			if (dbgraph.edgeExists(edge)) {
+				freeEdges.set(edge);
+			}
+		}
+		return freeEdges;
+	}
+
+	/* creates the embeddings for the stored occurrences of the code */
+	@SuppressWarnings("unchecked")
+	private final void replayEmbeddings(
+			final EmbeddingList<NodeType, EdgeType> list,
+			final DFSCode<NodeType, EdgeType> code, final int[] ackNodes,
+			final int from, final int to) {
+		GSpanGraph<NodeType, EdgeType> dbgraph = null;
+		HPGraph<NodeType, EdgeType> me = null;
+		BitSet freeEdges = null;
+		for (int i = from; i < to; ++i) {
+			final int idx = list.getGraphIndex(i);
+			if (dbgraph == null || dbgraph.getIndex() != idx) {
+				// the occurrences of each graph are stored consecutively
+				dbgraph = (GSpanGraph<NodeType, EdgeType>) env.getGraph(idx);
+				me = dbgraph.toHPGraph();
+				freeEdges = existingEdges(dbgraph);
+			}
+			list.getSuperNodes(i, ackNodes);
+			for (int ack = code.getEdgeCount() - 1; ack >= 0; --ack) {
+				freeEdges.clear(code.getCorresponding(ack, me, ackNodes));
+			}
+			call(code, tenv.getHPEmbedding(code, dbgraph, ackNodes, freeEdges));
+			for (int ack = code.getEdgeCount() - 1; ack >= 0; --ack) {
+				final int edge = code.getCorresponding(ack, me, ackNodes);
+				if (dbgraph.edgeExists(edge)) {
+					freeEdges.set(edge);
+				}
+			}
+		}
+	}
+
+	/*
+	 * initializes the recursive search for embeddings, starting at the given
+	 * range of nodes
+	 */
 	private final void searchEmbeddings(
 			final GSpanGraph<NodeType, EdgeType> dbgraph,
-			final DFSCode<NodeType, EdgeType> code, final int[] ackNodes) {
+			final DFSCode<NodeType, EdgeType> code, final int[] ackNodes,
+			final int from, final int to) {
 		// initialise embedding arrays
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.env(this);
 		final HPGraph<NodeType, EdgeType> me = dbgraph.toHPGraph();
 		final int[] usedNodes = tenv.getIntArray(me.getMaxNodeIndex(),
 				ackNodes.length);
-		final BitSet freeEdges = new BitSet(me.getMaxEdgeIndex() + 1);
-		for (int edge = me.getMaxEdgeIndex() - 1; edge >= 0; --edge) {
-			if (dbgraph.edgeExists(edge)) {
-				freeEdges.set(edge);
-			}
-		}
-		final GSpanEdge<NodeType, EdgeType> first = code.getFirst();
+		final BitSet freeEdges = existingEdges(dbgraph);
 
-		for (int node = me.getMaxNodeIndex() - 1; node >= 0; --node) {
+		for (int node = to - 1; node >= from; --node) {
 			// try all nodes as embedding start node
 			if (me.isValidNode(node)
-					&& me.getNodeLabelIndex(node, env) == first.getLabelA()) {
+					&& me.getNodeLabelIndex(node, env) == code.getLabelA(0)) {
 				ackNodes[0] = node;
 				usedNodes[node] = 0;
 				// recursive extension
-				searchEmbeddings(dbgraph, first, code, ackNodes, usedNodes,
+				searchEmbeddings(dbgraph, 0, code, ackNodes, usedNodes,
 						freeEdges);
 				usedNodes[node] = ackNodes.length;
 			}
 
 		}
+		tenv.push(usedNodes);
+	}
+
+	/**
+	 * splits each following embedding search into the given number of tasks,
+	 * that search the embeddings of consecutive start nodes (or stored
+	 * occurrences) concurrently and extend them by their own
+	 * RightMostExtension
+	 * 
+	 * @param extension
+	 *            the RightMostExtension of this generation, that has to be the
+	 *            only step of its generation chain
+	 * @param count
+	 *            the number of tasks
+	 */
+	@SuppressWarnings("unchecked")
+	void split(final RightMostExtension<NodeType, EdgeType> extension,
+			final int count) {
+		tasks = (GSpanGeneration<NodeType, EdgeType>[]) new GSpanGeneration<?, ?>[count];
+		extensions = (RightMostExtension<NodeType, EdgeType>[]) new RightMostExtension<?, ?>[count];
+		tasks[0] = this;
+		extensions[0] = extension;
+		for (int i = 1; i < count; ++i) {
+			final GThreadEnvironment<NodeType, EdgeType> ttenv = new GThreadEnvironment<NodeType, EdgeType>(
+					tenv.threadIdx);
+			tasks[i] = new GSpanGeneration<NodeType, EdgeType>(null, ttenv);
+			extensions[i] = new RightMostExtension<NodeType, EdgeType>(
+					tasks[i].getLast(), ttenv);
+			tasks[i].setFirst(extensions[i]);
+		}
+	}
+
+	/*
+	 * searches the embeddings of the given graph (or replays the given list)
+	 * by all tasks, and merges their extensions in the order of the tasks, so
+	 * that the found extensions are the same as for a single search
+	 */
+	private void split(final DFSCode<NodeType, EdgeType> code,
+			final GSpanGraph<NodeType, EdgeType> dbgraph,
+			final EmbeddingList<NodeType, EdgeType> list, final int size) {
+		// the parents are computed on demand, so do it before they are shared
+		code.getParentNode(0);
+		final int nodeCount = code.toHPFragment().toHPGraph().getNodeCount();
+		new PartitionedTask<Object>() {
+			@Override
+			protected Object process(final int part, final int from,
+					final int to) {
+				final GSpanGeneration<NodeType, EdgeType> gen = tasks[part];
+				final int[] ackNodes = gen.tenv.getIntArray(nodeCount,
+						HPGraph.NO_NODE);
+				if (list != null) {
+					gen.replayEmbeddings(list, code, ackNodes, from, to);
+				} else {
+					// the start nodes are searched from the last to the first
+					gen.searchEmbeddings(dbgraph, code, ackNodes, size - to,
+							size - from);
+				}
+				gen.tenv.push(ackNodes);
+				return null;
+			}
+		}.run(size, tasks.length, pool());
+		for (int i = 1; i < tasks.length; ++i) {
+			extensions[0].merge(extensions[i]);
+			tasks[i].reset();
+		}
 	}
 
 	/* recursiv extension to complete embeddings */
 	private void searchEmbeddings(final GSpanGraph<NodeType, EdgeType> dbgraph,
-			final GSpanEdge<NodeType, EdgeType> currentEdge,
-			final DFSCode<NodeType, EdgeType> code, final int[] ackNodes,
+			final int currentEdge, final DFSCode<NodeType, EdgeType> code, final int[] ackNodes,
 			final int[] usedNodes, final BitSet freeEdges) {
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.env(this);
 		final HPGraph<NodeType, EdgeType> me = dbgraph.toHPGraph();
-		final int node = ackNodes[currentEdge.getNodeA()];
-		final int cdir = currentEdge.getDirection();
-		if (currentEdge.isForward()) {
+		final int node = ackNodes[code.getNodeA(currentEdge)];
+		final int cdir = code.getDirection(currentEdge);
+		final boolean last = currentEdge + 1 == code.getEdgeCount();
+		if (code.getNodeA(currentEdge) < code.getNodeB(currentEdge)) {
 			for (int i = me.getDegree(node) - 1; i >= 0; --i) {
 				final int edge = me.getNodeEdge(node, i);// */
 				if (freeEdges.get(edge) &&
 				// (me.getDirection(edge,node)==cdir) &&
 						// (me.getEdgeLabelIndex(edge,LocalEnvironment.env(this))==currentEdge.getEdgeLabel())
-						currentEdge.sameAs(me, edge, node)) {
+						code.sameAs(currentEdge, me, edge, node)) {
 					final int oidx = me.getOtherNode(edge, node);
 					// only unused, correct labeled edges
 					if (usedNodes[oidx] == ackNodes.length
 							&& (me.getNodeLabelIndex(me
-									.getOtherNode(edge, node), env) == currentEdge
-									.getLabelB())) {
+									.getOtherNode(edge, node), env) == code
+									.getLabelB(currentEdge))) {
 						// only unused, correct labeled nodes
 						final int old = usedNodes[oidx];
-						ackNodes[currentEdge.getNodeB()] = oidx;
-						usedNodes[oidx] = currentEdge.getNodeB();
+						ackNodes[code.getNodeB(currentEdge)] = oidx;
+						usedNodes[oidx] = code.getNodeB(currentEdge);
 						freeEdges.clear(edge);
 						// If found, call first generation partial step
-						if (currentEdge.next == null) {
+						if (last) {
 							call(code, tenv.getHPEmbedding(code, dbgraph,
 									ackNodes, freeEdges));
 						} else {
-							searchEmbeddings(dbgraph, currentEdge.next, code,
+							searchEmbeddings(dbgraph, currentEdge + 1, code,
 									ackNodes, usedNodes, freeEdges);
 						}
 						usedNodes[oidx] = old;
@@ -194,7 +351,7 @@ public class GSpanGeneration<NodeType, EdgeType> extends
 				}
 			}
 		} else { // backward Edge
-			final int nB = ackNodes[currentEdge.getNodeB()];
+			final int nB = ackNodes[code.getNodeB(currentEdge)];
 
 			final int edge = (cdir == Edge.INCOMING ? me.getEdge(nB, node) : me
 					.getEdge(node, nB));
@@ -203,14 +360,14 @@ public class GSpanGeneration<NodeType, EdgeType> extends
 			if (edge != -1 && freeEdges.get(edge) &&
 			// (me.getDirection(edge,node)==cdir) &&
 					// (me.getEdgeLabelIndex(edge,LocalEnvironment.env(this))==currentEdge.getEdgeLabel())
-					currentEdge.sameAs(me, edge, node)) {
+					code.sameAs(currentEdge, me, edge, node)) {
 				freeEdges.clear(edge);
 				// If found, call first generation partial step
-				if (currentEdge.next == null) {
+				if (last) {
 					call(code, tenv.getHPEmbedding(code, dbgraph, ackNodes,
 							freeEdges));
 				} else {
-					searchEmbeddings(dbgraph, currentEdge.next, code, ackNodes,
+					searchEmbeddings(dbgraph, currentEdge + 1, code, ackNodes,
 							usedNodes, freeEdges);
 				}
 				freeEdges.set(edge);
@@ -14,8 +14,8 @@
  */
 package de.parsemis.algorithms.gSpan;
 
-import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -96,6 +96,21 @@ public class GSpanGraph<NodeType, EdgeType> implements
 			}
 		}
 
+		// bind the label indices of the graph to the environment now, so the
+		// search threads just read them
+		for (int i = 0; i < hp.getMaxNodeIndex(); ++i) {
+			if (hp.isValidNode(i)) {
+				hp.getNodeLabelIndex(i, env);
+				break;
+			}
+		}
+		for (int i = 0; i < hp.getMaxEdgeIndex(); ++i) {
+			if (hp.isValidEdge(i)) {
+				hp.getEdgeLabelIndex(i, env);
+				break;
+			}
+		}
+
 		// mark frequent edges as available
 		this.availableEdges = new BitSet(hp.getEdgeCount());
 		for (int i = hp.getMaxEdgeIndex() - 1; i >= 0; --i) {
@@ -109,14 +124,30 @@ public class GSpanGraph<NodeType, EdgeType> implements
 		}
 	}
 
+	/**
+	 * creates the initial DFS-Code for the given edge
+	 * 
+	 * @param gedge
+	 *            the initial edge
+	 * @param tenv
+	 *            the environment the DFS-Code is created in
+	 * @return a new DFS-Code with an empty fragment
+	 */
+	static <NodeType, EdgeType> DFSCode<NodeType, EdgeType> createInitial(
+			final GSpanEdge<NodeType, EdgeType> gedge,
+			final GThreadEnvironment<NodeType, EdgeType> tenv) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(gedge);
+		final HPMutableGraph<NodeType, EdgeType> ng = env.newHPGraph();
+		gedge.addTo(ng);
+		return tenv.getCode(tenv.getHPFragment(ng), gedge);
+	}
+
 	/* creates an initial embedding for the given (self) edge */
 	private final GSpanHPEmbedding<NodeType, EdgeType> createEmbedding(
 			final int nodeA, final int nodeB, final int edge,
-			final DFSCode<NodeType, EdgeType> code) {
-		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
-				.env(this);
-		final GThreadEnvironment<NodeType, EdgeType> tenv = (GThreadEnvironment<NodeType, EdgeType>) env
-				.getThreadEnv(0);
+			final DFSCode<NodeType, EdgeType> code,
+			final GThreadEnvironment<NodeType, EdgeType> tenv) {
 		int[] superNodes;
 		if (nodeA == nodeB) {
 			superNodes = tenv.getIntArray(1);
@@ -140,104 +171,141 @@ public class GSpanGraph<NodeType, EdgeType> implements
 			final Map<GSpanEdge<NodeType, EdgeType>, DFSCode<NodeType, EdgeType>> map) {
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.env(this);
-		final GThreadEnvironment<NodeType, EdgeType> tenv = (GThreadEnvironment<NodeType, EdgeType>) env
-				.getThreadEnv(0);
+		visitInitials(map, null, null,
+				(GThreadEnvironment<NodeType, EdgeType>) env.getThreadEnv(0));
+	}
+
+	/**
+	 * adds the embeddings (or this graph) of each initial DFS-Code to the
+	 * given buffer instead of the fragments of the codes, so that several
+	 * graphs can be processed concurrently
+	 * 
+	 * @param map
+	 *            the initial DFS-Codes for all edges collected before (will
+	 *            not be modified)
+	 * @param buffer
+	 * @param tenv
+	 *            the environment of the current thread
+	 */
+	void createInitials(
+			final Map<GSpanEdge<NodeType, EdgeType>, DFSCode<NodeType, EdgeType>> map,
+			final OccurrenceBuffer<NodeType, EdgeType> buffer,
+			final GThreadEnvironment<NodeType, EdgeType> tenv) {
+		visitInitials(map, buffer, null, tenv);
+	}
+
+	/**
+	 * collects each frequent edge of this graph, that could be start of a
+	 * DFS-Code
+	 * 
+	 * @param edges
+	 *            the collection the (not yet contained) edges are added to
+	 * @param tenv
+	 *            the environment of the current thread
+	 */
+	void collectInitialEdges(final Collection<GSpanEdge<NodeType, EdgeType>> edges,
+			final GThreadEnvironment<NodeType, EdgeType> tenv) {
+		visitInitials(null, null, edges, tenv);
+	}
+
+	/* visits all initial edges for the different createInitials methods */
+	private void visitInitials(
+			final Map<GSpanEdge<NodeType, EdgeType>, DFSCode<NodeType, EdgeType>> map,
+			final OccurrenceBuffer<NodeType, EdgeType> buffer,
+			final Collection<GSpanEdge<NodeType, EdgeType>> edges,
+			final GThreadEnvironment<NodeType, EdgeType> tenv) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
 		if (env.connectedFragments) {
 			// each frequent edge could be start of a DFSCode
 			for (int edge = availableEdges.nextSetBit(0); edge >= 0; edge = availableEdges
 					.nextSetBit(edge + 1)) {
-				final int nodeA = hp.getNodeA(edge);
-				final int nodeB = hp.getNodeB(edge);
-				final GSpanEdge<NodeType, EdgeType> gedge = tenv.getEdge(0,
-						(nodeA == nodeB ? 0 : 1), hp.getNodeLabelIndex(nodeA,
-								env), hp.getEdgeLabelIndex(edge, env), hp
-								.getNodeLabelIndex(nodeB, env), hp
-								.getDirection(edge));
-
-				// search fragment for current edge
-				DFSCode<NodeType, EdgeType> code = map.get(gedge);
-				HPFragment<NodeType, EdgeType> frag;
-				if (code == null) {
-					// create initial DFSCode
-					final ArrayList<GSpanEdge<NodeType, EdgeType>> parents = new ArrayList<GSpanEdge<NodeType, EdgeType>>(
-							2);
-					parents.add(gedge);
-					parents.add(gedge);
-					final HPMutableGraph<NodeType, EdgeType> ng = env
-							.newHPGraph();
-					gedge.addTo(ng);
-					frag = tenv.getHPFragment(ng);
-					code = tenv.getCode(frag, gedge, gedge, parents);
-					map.put(gedge, code);
-				} else {
-					frag = code.toHPFragment();
-					gedge.release(tenv);
-				}
-
-				// add graph/embedding to fragment
-				if (env.storeEmbeddings) {// create Embedding
-					if (hp.getNodeLabelIndex(nodeA, env) == gedge.getLabelA()) {
-						frag.add(createEmbedding(nodeA, nodeB, edge, code));
-						if (nodeA != nodeB
-								&& gedge.getDirection() == Edge.UNDIRECTED
-								&& hp.getNodeLabelIndex(nodeA, env) == hp
-										.getNodeLabelIndex(nodeB, env)) {
-							frag.add(createEmbedding(nodeB, nodeA, edge, code));
-						}
-					} else {
-						frag.add(createEmbedding(nodeB, nodeA, edge, code));
-					}
-				} else {
-					frag.add(this);
-				}
+				visitInitial(map, buffer, edges, tenv, hp.getNodeA(edge), hp
+						.getNodeB(edge), edge);
 			}
 		} else {
 			// for unconnected search, just edges of the glue node are relevant
 			// for initial edges
 			for (int i = hp.getDegree(glue) - 1; i >= 0; --i) {
-				final int nodeA = glue;
 				final int edge = hp.getNodeEdge(glue, i);
-				if (!availableEdges.get(edge)) {
-					continue;
-				}
-				final int nodeB = hp.getOtherNode(edge, glue);
-				final GSpanEdge<NodeType, EdgeType> gedge = tenv.getEdge(0,
-						(nodeA == nodeB ? 0 : 1), hp.getNodeLabelIndex(nodeA,
-								env), hp.getEdgeLabelIndex(edge, env), hp
-								.getNodeLabelIndex(nodeB, env), hp
-								.getDirection(edge));
-
-				// search fragment for current edge
-				DFSCode<NodeType, EdgeType> code = map.get(gedge);
-				HPFragment<NodeType, EdgeType> frag;
-				if (code == null) {// create initial DFSCode
-					final ArrayList<GSpanEdge<NodeType, EdgeType>> parents = new ArrayList<GSpanEdge<NodeType, EdgeType>>(
-							2);
-					parents.add(gedge);
-					parents.add(gedge);
-					final HPMutableGraph<NodeType, EdgeType> ng = env
-							.newHPGraph();
-					gedge.addTo(ng);
-					frag = tenv.getHPFragment(ng);
-					code = tenv.getCode(frag, gedge, gedge, parents);
-					map.put(gedge, code);
-				} else {
-					frag = code.toHPFragment();
-					gedge.release(tenv);
+				if (availableEdges.get(edge)) {
+					visitInitial(map, buffer, edges, tenv, glue, hp
+							.getOtherNode(edge, glue), edge);
 				}
+			}
+		}
+	}
 
-				// add graph/embedding to fragment
-				if (env.storeEmbeddings) {// create Embedding
-					final int[] superNodes = tenv.getIntArray(2);
-					superNodes[1] = nodeB;
-					superNodes[0] = nodeA;
-					final BitSet freeEdges = (BitSet) availableEdges.clone();
-					freeEdges.clear(edge);
-					frag.add(tenv.getHPEmbedding(code, this, superNodes,
-							freeEdges));
-				} else {
-					frag.add(this);
-				}
+	private void visitInitial(
+			final Map<GSpanEdge<NodeType, EdgeType>, DFSCode<NodeType, EdgeType>> map,
+			final OccurrenceBuffer<NodeType, EdgeType> buffer,
+			final Collection<GSpanEdge<NodeType, EdgeType>> edges,
+			final GThreadEnvironment<NodeType, EdgeType> tenv,
+			final int nodeA, final int nodeB, final int edge) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		final GSpanEdge<NodeType, EdgeType> gedge = tenv.getEdge(0,
+				(nodeA == nodeB ? 0 : 1), hp.getNodeLabelIndex(nodeA, env), hp
+						.getEdgeLabelIndex(edge, env), hp.getNodeLabelIndex(
+						nodeB, env), hp.getDirection(edge));
+		if (edges != null) {
+			if (!edges.add(gedge)) {
+				gedge.release(tenv);
+			}
+			return;
+		}
+
+		final int labelA = gedge.getLabelA();
+		final int direction = gedge.getDirection();
+
+		// search fragment for current edge
+		DFSCode<NodeType, EdgeType> code = map.get(gedge);
+		if (code == null) {
+			// create initial DFSCode
+			code = createInitial(gedge, tenv);
+			map.put(gedge, code);
+		} else {
+			gedge.release(tenv);
+		}
+		final HPFragment<NodeType, EdgeType> frag = code.toHPFragment();
+
+		// add graph/embedding to fragment
+		if (!env.storeEmbeddings) {
+			if (buffer == null) {
+				frag.add(this);
+			} else {
+				buffer.add(frag, this);
+			}
+			return;
+		}
+		final GSpanHPEmbedding<NodeType, EdgeType> emb;
+		GSpanHPEmbedding<NodeType, EdgeType> rev = null;
+		if (!env.connectedFragments) {
+			final int[] superNodes = tenv.getIntArray(2);
+			superNodes[1] = nodeB;
+			superNodes[0] = nodeA;
+			final BitSet freeEdges = (BitSet) availableEdges.clone();
+			freeEdges.clear(edge);
+			emb = tenv.getHPEmbedding(code, this, superNodes, freeEdges);
+		} else if (hp.getNodeLabelIndex(nodeA, env) == labelA) {
+			emb = createEmbedding(nodeA, nodeB, edge, code, tenv);
+			if (nodeA != nodeB && direction == Edge.UNDIRECTED
+					&& hp.getNodeLabelIndex(nodeA, env) == hp
+							.getNodeLabelIndex(nodeB, env)) {
+				rev = createEmbedding(nodeB, nodeA, edge, code, tenv);
+			}
+		} else {
+			emb = createEmbedding(nodeB, nodeA, edge, code, tenv);
+		}
+		if (buffer == null) {
+			frag.add(emb);
+			if (rev != null) {
+				frag.add(rev);
+			}
+		} else {
+			buffer.add(frag, emb);
+			if (rev != null) {
+				buffer.add(frag, rev);
 			}
 		}
 	}
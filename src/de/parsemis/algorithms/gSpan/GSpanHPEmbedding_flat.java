@@ -49,8 +49,6 @@ public class GSpanHPEmbedding_flat<NodeType, EdgeType>
 	 */
 	private static final long serialVersionUID = -4172615715497009282L;
 
-	public static int counter = 0;
-
 	final static boolean equal(final BitSet a, final BitSet b) {
 		final BitSet c = (BitSet) a.clone();
 		c.xor(b);
@@ -71,7 +69,7 @@ public class GSpanHPEmbedding_flat<NodeType, EdgeType>
 	 */
 	public GSpanHPEmbedding_flat(
 			final GThreadEnvironment<NodeType, EdgeType> tenv) {
-		counter++;
+		tenv.stats.flatEmbeddings.inc();
 		this.threadIdx = tenv.threadIdx;
 		this.tenv = tenv;
 	}
@@ -55,8 +55,6 @@ public class GSpanHPEmbedding_hierarchical<NodeType, EdgeType>
 	 */
 	private static final long serialVersionUID = 415471913577298943L;
 
-	public static int counter = 0;
-
 	/* final */transient GThreadEnvironment<NodeType, EdgeType> tenv;
 
 	/** used for the pool */
@@ -71,7 +69,7 @@ public class GSpanHPEmbedding_hierarchical<NodeType, EdgeType>
 	 */
 	public GSpanHPEmbedding_hierarchical(
 			final GThreadEnvironment<NodeType, EdgeType> tenv) {
-		counter++;
+		tenv.stats.hierarchicalEmbeddings.inc();
 		this.threadIdx = tenv.threadIdx;
 		this.tenv = tenv;
 	}
@@ -33,6 +33,11 @@ import de.parsemis.miner.environment.ThreadEnvironmentFactory;
 public class GThreadEnvFactory<NodeType, EdgeType> implements
 		ThreadEnvironmentFactory<NodeType, EdgeType> {
 
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
 	/*
 	 * (non-Javadoc)
 	 * 
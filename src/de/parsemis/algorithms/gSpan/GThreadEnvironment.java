@@ -17,15 +17,17 @@ package de.parsemis.algorithms.gSpan;
 import static de.parsemis.miner.environment.Debug.VVERBOSE;
 import static de.parsemis.miner.environment.Debug.out;
 
-import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import de.parsemis.graph.Graph;
 import de.parsemis.graph.HPGraph;
 import de.parsemis.graph.HPListGraph;
 import de.parsemis.graph.HPMutableGraph;
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Metrics;
+import de.parsemis.miner.environment.Statistics;
 import de.parsemis.miner.environment.ThreadEnvironment;
 import de.parsemis.miner.general.Fragment;
 import de.parsemis.miner.general.GraphBasedFragment;
@@ -46,8 +48,8 @@ import de.parsemis.miner.general.HPFragment;
 public final class GThreadEnvironment<NodeType, EdgeType> extends
 		ThreadEnvironment<NodeType, EdgeType> {
 
-	// counter for generated embedding objects
-	static int embeddings = 0;
+	/* the longest int array kept in the arena */
+	private static final int MAX_POOLED_ARRAY = 4096;
 
 	private final boolean embeddingBased;
 
@@ -58,6 +60,9 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	/** the index of the thread this environment is created for */
 	public final int threadIdx;
 
+	/** the statistics the created objects are counted in */
+	final Statistics stats;
+
 	/** the one and only ExtensionSet for each thread */
 	private final MinExtensionSet<NodeType, EdgeType> mes = new MinExtensionSet<NodeType, EdgeType>(
 			this);
@@ -79,8 +84,30 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private GSpanExtension<NodeType, EdgeType> firstGSpanExtension = null;
 
+	private EmbeddingList<NodeType, EdgeType> firstEmbeddingList = null;
+
 	private MinExtension<NodeType, EdgeType> firstMinExtension = null;
 
+	/* the limits and counters of each pool */
+	private final PoolLimit ehpFrags, ghpFrags, hpEmbeddings,
+			hpEmbeddings_hierarchical, gSpanEdges, gSpanExtensions,
+			embeddingLists, minExtensions, intArrays;
+
+	/*
+	 * the arena of free int arrays: a stack for each length, because the
+	 * length of a scratch array is used by its callers
+	 */
+	private int[][][] freeArrays = new int[0][][];
+
+	private int[] freeArrayCounts = new int[0];
+
+	/*
+	 * the thread that uses the arena; the DFSCodes of stolen nodes still
+	 * refer to this environment, so other threads allocate their arrays
+	 * directly
+	 */
+	private final AtomicReference<Thread> arenaOwner = new AtomicReference<Thread>();
+
 	/**
 	 * creates a new environment
 	 * 
@@ -93,6 +120,19 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 		usePooling = env.usePooling;
 		storeHierachicalEmbeddings = env.storeHierarchicalEmbeddings;
 		this.threadIdx = threadIdx;
+		this.stats = env.stats;
+		final Metrics metrics = env.stats.metrics;
+		final int limit = env.poolLimit;
+		ehpFrags = new PoolLimit(metrics, "ehpFragments", limit);
+		ghpFrags = new PoolLimit(metrics, "ghpFragments", limit);
+		hpEmbeddings = new PoolLimit(metrics, "hpEmbeddings", limit);
+		hpEmbeddings_hierarchical = new PoolLimit(metrics,
+				"hpEmbeddings_hierarchical", limit);
+		gSpanEdges = new PoolLimit(metrics, "edges", limit);
+		gSpanExtensions = new PoolLimit(metrics, "extensions", limit);
+		embeddingLists = new PoolLimit(metrics, "embeddingLists", limit);
+		minExtensions = new PoolLimit(metrics, "minExtensions", limit);
+		intArrays = new PoolLimit(metrics, "intArrays", limit);
 		if (VVERBOSE) {
 			out.println("gThreadEnvironment " + threadIdx + " created");
 		}
@@ -100,18 +140,29 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	/**
 	 * @param me
-	 * @param first
+	 * @param parent
+	 *            the extended DFSCode
 	 * @param last
-	 * @param parents
+	 *            the new edge
 	 * @return a newly initialized DFSCode
 	 */
 	public final DFSCode<NodeType, EdgeType> getCode(
 			final HPFragment<NodeType, EdgeType> me,
-			final GSpanEdge<NodeType, EdgeType> first,
-			final GSpanEdge<NodeType, EdgeType> last,
-			final ArrayList<GSpanEdge<NodeType, EdgeType>> parents) {
-		return new DFSCode<NodeType, EdgeType>(this).set(me, first, last,
-				parents);
+			final DFSCode<NodeType, EdgeType> parent,
+			final GSpanEdge<NodeType, EdgeType> last) {
+		return new DFSCode<NodeType, EdgeType>(this).set(me, parent, last);
+	}
+
+	/**
+	 * @param me
+	 * @param first
+	 *            the initial edge
+	 * @return a newly initialized DFSCode
+	 */
+	public final DFSCode<NodeType, EdgeType> getCode(
+			final HPFragment<NodeType, EdgeType> me,
+			final GSpanEdge<NodeType, EdgeType> first) {
+		return new DFSCode<NodeType, EdgeType>(this).set(me, first);
 	}
 
 	/**
@@ -155,9 +206,47 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 		final GSpanExtension<NodeType, EdgeType> ret = nextGSpanExtension();
 		ret.edge = gEdge;
 		ret.frag = frag;
+		ret.list = null;
 		return ret;
 	}
 
+	/**
+	 * @param nodeCount
+	 *            the number of nodes of the corresponding DFSCode
+	 * @return an empty EmbeddingList for occurrences of the given size
+	 */
+	final EmbeddingList<NodeType, EdgeType> getEmbeddingList(
+			final int nodeCount) {
+		EmbeddingList<NodeType, EdgeType> ret = firstEmbeddingList;
+		if (ret == null) {
+			embeddingLists.miss();
+			ret = new EmbeddingList<NodeType, EdgeType>(this);
+		} else {
+			embeddingLists.hit(1);
+			firstEmbeddingList = ret.next;
+		}
+		return ret.set(nodeCount);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.miner.environment.ThreadEnvironment#getIntArray(int)
+	 */
+	@Override
+	public final int[] getIntArray(final int length) {
+		if (usePooling && length < freeArrayCounts.length && ownsArena()
+				&& freeArrayCounts[length] > 0) {
+			intArrays.hit(length);
+			final int[][] free = freeArrays[length];
+			final int[] ret = free[--freeArrayCounts[length]];
+			free[freeArrayCounts[length]] = null;
+			return ret;
+		}
+		intArrays.miss();
+		return new int[length];
+	}
+
 	/** @return the one and only ExtensionSet for each thread */
 	public final MinExtensionSet<NodeType, EdgeType> getExtensionSet() {
 		return mes;
@@ -281,10 +370,20 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 				dir, gEdge, gNodeB);
 	}
 
+	/* @return true, if the current thread may use the arena */
+	private final boolean ownsArena() {
+		final Thread me = Thread.currentThread();
+		final Thread owner = arenaOwner.get();
+		return owner == me
+				|| (owner == null && arenaOwner.compareAndSet(null, me));
+	}
+
 	private final EmbeddingBasedHPFragment<NodeType, EdgeType> nextEHPFragment() {
 		if (firstEHPFrag == null) {
+			ehpFrags.miss();
 			return new EmbeddingBasedHPFragment<NodeType, EdgeType>(this);
 		}
+		ehpFrags.hit(1);
 		final EmbeddingBasedHPFragment<NodeType, EdgeType> ret = firstEHPFrag;
 		firstEHPFrag = ret.next;
 		return ret;
@@ -292,8 +391,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final GraphBasedHPFragment<NodeType, EdgeType> nextGHPFragment() {
 		if (firstGHPFrag == null) {
+			ghpFrags.miss();
 			return new GraphBasedHPFragment<NodeType, EdgeType>(this);
 		}
+		ghpFrags.hit(1);
 		final GraphBasedHPFragment<NodeType, EdgeType> ret = firstGHPFrag;
 		firstGHPFrag = ret.next;
 		return ret;
@@ -301,8 +402,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final GSpanEdge<NodeType, EdgeType> nextGSpanEdge() {
 		if (firstGSpanEdge == null) {
+			gSpanEdges.miss();
 			return new GSpanEdge<NodeType, EdgeType>(this);
 		}
+		gSpanEdges.hit(1);
 		final GSpanEdge<NodeType, EdgeType> ret = firstGSpanEdge;
 		firstGSpanEdge = ret.next;
 		return ret;
@@ -310,8 +413,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final GSpanExtension<NodeType, EdgeType> nextGSpanExtension() {
 		if (firstGSpanExtension == null) {
+			gSpanExtensions.miss();
 			return new GSpanExtension<NodeType, EdgeType>(this);
 		}
+		gSpanExtensions.hit(1);
 		final GSpanExtension<NodeType, EdgeType> ret = firstGSpanExtension;
 		firstGSpanExtension = ret.next;
 		return ret;
@@ -319,9 +424,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final GSpanHPEmbedding_flat<NodeType, EdgeType> nextHPEmbedding() {
 		if (firstHPEmbedding == null) {
-			embeddings++;
+			hpEmbeddings.miss();
 			return new GSpanHPEmbedding_flat<NodeType, EdgeType>(this);
 		}
+		hpEmbeddings.hit(1);
 		final GSpanHPEmbedding_flat<NodeType, EdgeType> ret = firstHPEmbedding;
 		firstHPEmbedding = ret.next;
 		ret.next = null;
@@ -330,8 +436,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final GSpanHPEmbedding_hierarchical<NodeType, EdgeType> nextHPEmbedding_hierarchical() {
 		if (firstHPEmbedding_hierarchical == null) {
+			hpEmbeddings_hierarchical.miss();
 			return new GSpanHPEmbedding_hierarchical<NodeType, EdgeType>(this);
 		}
+		hpEmbeddings_hierarchical.hit(1);
 		final GSpanHPEmbedding_hierarchical<NodeType, EdgeType> ret = firstHPEmbedding_hierarchical;
 		firstHPEmbedding_hierarchical = ret.next;
 		ret.next = null;
@@ -340,8 +448,10 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 
 	private final MinExtension<NodeType, EdgeType> nextMinExtension() {
 		if (firstMinExtension == null) {
+			minExtensions.miss();
 			return new MinExtension<NodeType, EdgeType>(this);
 		}
+		minExtensions.hit(1);
 		final MinExtension<NodeType, EdgeType> ret = firstMinExtension;
 		firstMinExtension = (MinExtension<NodeType, EdgeType>) ret.next;
 		return ret;
@@ -354,7 +464,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 */
 	public final void push(
 			final EmbeddingBasedHPFragment<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && ehpFrags.offer(1)) {
 			obj.next = firstEHPFrag;
 			firstEHPFrag = obj;
 		}
@@ -366,7 +476,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 * @param obj
 	 */
 	public final void push(final GraphBasedHPFragment<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && ghpFrags.offer(1)) {
 			obj.next = firstGHPFrag;
 			firstGHPFrag = obj;
 		}
@@ -378,7 +488,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 * @param obj
 	 */
 	public final void push(final GSpanEdge<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && gSpanEdges.offer(1)) {
 			obj.next = firstGSpanEdge;
 			firstGSpanEdge = obj;
 		}
@@ -393,18 +503,73 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	public final void push(final GSpanEdge<NodeType, EdgeType> first,
 			final GSpanEdge<NodeType, EdgeType> last) {
 		if (usePooling) {
+			int count = 1;
+			for (GSpanEdge<NodeType, EdgeType> e = first; e != last; e = e.next) {
+				count++;
+			}
+			if (!gSpanEdges.offer(count)) {
+				return;
+			}
 			last.next = firstGSpanEdge;
 			firstGSpanEdge = first;
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.miner.environment.ThreadEnvironment#push(int[])
+	 */
+	@Override
+	public final void push(final int[] array) {
+		final int length = array.length;
+		if (usePooling && length <= MAX_POOLED_ARRAY && ownsArena()
+				&& intArrays.offer(length)) {
+			if (length >= freeArrayCounts.length) {
+				final int size = Math.min(MAX_POOLED_ARRAY + 1, Math.max(
+						length + 1, 2 * freeArrayCounts.length));
+				final int[][][] arrays = new int[size][][];
+				System.arraycopy(freeArrays, 0, arrays, 0, freeArrays.length);
+				final int[] counts = new int[size];
+				System.arraycopy(freeArrayCounts, 0, counts, 0,
+						freeArrayCounts.length);
+				freeArrays = arrays;
+				freeArrayCounts = counts;
+			}
+			int[][] free = freeArrays[length];
+			if (free == null) {
+				free = freeArrays[length] = new int[4][];
+			} else if (freeArrayCounts[length] == free.length) {
+				final int[][] tmp = new int[2 * free.length][];
+				System.arraycopy(free, 0, tmp, 0, free.length);
+				free = freeArrays[length] = tmp;
+			}
+			free[freeArrayCounts[length]++] = array;
+		}
+	}
+
+	/**
+	 * stores the given object in the pool
+	 * <p>
+	 * EmbeddingLists are always pooled, because they are just released by
+	 * their own thread.
+	 * 
+	 * @param obj
+	 */
+	final void push(final EmbeddingList<NodeType, EdgeType> obj) {
+		if (embeddingLists.offer(1)) {
+			obj.next = firstEmbeddingList;
+			firstEmbeddingList = obj;
+		}
+	}
+
 	/**
 	 * stores the given object in the pool (if configured)
 	 * 
 	 * @param obj
 	 */
 	public final void push(final GSpanExtension<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && gSpanExtensions.offer(1)) {
 			obj.next = firstGSpanExtension;
 			firstGSpanExtension = obj;
 		}
@@ -416,7 +581,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 * @param obj
 	 */
 	public final void push(final GSpanHPEmbedding_flat<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && hpEmbeddings.offer(1)) {
 			obj.next = firstHPEmbedding;
 			firstHPEmbedding = obj;
 		}
@@ -429,7 +594,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 */
 	public final void push(
 			final GSpanHPEmbedding_hierarchical<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && hpEmbeddings_hierarchical.offer(1)) {
 			obj.next = firstHPEmbedding_hierarchical;
 			firstHPEmbedding_hierarchical = obj;
 		}
@@ -441,7 +606,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	 * @param obj
 	 */
 	public final void push(final MinExtension<NodeType, EdgeType> obj) {
-		if (usePooling) {
+		if (usePooling && minExtensions.offer(1)) {
 			obj.next = firstMinExtension;
 			firstMinExtension = obj;
 		}
@@ -458,7 +623,7 @@ public final class GThreadEnvironment<NodeType, EdgeType> extends
 	@Override
 	public String toString() {
 		return "GSpanEnvironment of thread " + threadIdx + "\nEmbeddingCount: "
-				+ embeddings;
+				+ stats.metrics.counter("pool.hpEmbeddings.misses");
 	}
 
 }
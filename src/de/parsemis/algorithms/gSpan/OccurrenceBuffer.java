@@ -0,0 +1,102 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.algorithms.gSpan;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import de.parsemis.miner.general.DataBaseGraph;
+import de.parsemis.miner.general.HPEmbedding;
+import de.parsemis.miner.general.HPFragment;
+
+/**
+ * This class buffers the graphs and embeddings found for a set of fragments
+ * in a part of the graph database.
+ * <p>
+ * Fragments are not thread safe, so each thread that initializes a part of
+ * the database collects its occurrences in its own buffer. Afterwards, the
+ * buffers are added to the fragments one after the other in the order of the
+ * parts, so each fragment gets its graphs and embeddings in the same order as
+ * if the database is processed by a single thread.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+final class OccurrenceBuffer<NodeType, EdgeType> {
+
+	private final Map<HPFragment<NodeType, EdgeType>, ArrayList<DataBaseGraph<NodeType, EdgeType>>> graphs = new IdentityHashMap<HPFragment<NodeType, EdgeType>, ArrayList<DataBaseGraph<NodeType, EdgeType>>>();
+
+	private final Map<HPFragment<NodeType, EdgeType>, ArrayList<HPEmbedding<NodeType, EdgeType>>> embeddings = new IdentityHashMap<HPFragment<NodeType, EdgeType>, ArrayList<HPEmbedding<NodeType, EdgeType>>>();
+
+	/**
+	 * buffers the given graph for the given fragment
+	 *
+	 * @param frag
+	 * @param graph
+	 */
+	void add(final HPFragment<NodeType, EdgeType> frag,
+			final DataBaseGraph<NodeType, EdgeType> graph) {
+		ArrayList<DataBaseGraph<NodeType, EdgeType>> list = graphs.get(frag);
+		if (list == null) {
+			list = new ArrayList<DataBaseGraph<NodeType, EdgeType>>();
+			graphs.put(frag, list);
+		}
+		// a graph is added several times in a row for its different
+		// occurrences, but counted just once
+		if (list.isEmpty() || list.get(list.size() - 1) != graph) {
+			list.add(graph);
+		}
+	}
+
+	/**
+	 * buffers the given embedding for the given fragment
+	 *
+	 * @param frag
+	 * @param emb
+	 */
+	void add(final HPFragment<NodeType, EdgeType> frag,
+			final HPEmbedding<NodeType, EdgeType> emb) {
+		ArrayList<HPEmbedding<NodeType, EdgeType>> list = embeddings.get(frag);
+		if (list == null) {
+			list = new ArrayList<HPEmbedding<NodeType, EdgeType>>();
+			embeddings.put(frag, list);
+		}
+		list.add(emb);
+	}
+
+	/**
+	 * adds all buffered graphs and embeddings to their fragments and empties
+	 * this buffer
+	 */
+	void flush() {
+		for (final Map.Entry<HPFragment<NodeType, EdgeType>, ArrayList<DataBaseGraph<NodeType, EdgeType>>> entry : graphs
+				.entrySet()) {
+			final HPFragment<NodeType, EdgeType> frag = entry.getKey();
+			for (final DataBaseGraph<NodeType, EdgeType> graph : entry
+					.getValue()) {
+				frag.add(graph);
+			}
+		}
+		graphs.clear();
+		for (final Map.Entry<HPFragment<NodeType, EdgeType>, ArrayList<HPEmbedding<NodeType, EdgeType>>> entry : embeddings
+				.entrySet()) {
+			final HPFragment<NodeType, EdgeType> frag = entry.getKey();
+			for (final HPEmbedding<NodeType, EdgeType> emb : entry.getValue()) {
+				frag.add(emb);
+			}
+		}
+		embeddings.clear();
+	}
+
+}
@@ -0,0 +1,87 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.algorithms.gSpan;
+
+import de.parsemis.miner.environment.Metrics;
+
+/**
+ * This class bounds one object pool of a GThreadEnvironment and counts its
+ * usage.
+ * <p>
+ * The size of a pool is measured in units (objects, or ints for the scratch
+ * arrays). Released objects that would exceed the limit are dropped and left
+ * to the garbage collector. The hits, misses, dropped units and the high
+ * water marks of the pools of all threads are summed up in the metrics of the
+ * search.
+ */
+final class PoolLimit {
+
+	private final int limit;
+
+	private int size = 0;
+
+	private int highWater = 0;
+
+	private final Metrics.Counter hits, misses, drops, high;
+
+	/**
+	 * creates a new PoolLimit
+	 *
+	 * @param metrics
+	 *            the metrics the usage is counted in
+	 * @param name
+	 *            the name of the pool
+	 * @param limit
+	 *            the maximal size of the pool, or 0 for no limit
+	 */
+	PoolLimit(final Metrics metrics, final String name, final int limit) {
+		this.limit = limit;
+		this.hits = metrics.counter("pool." + name + ".hits");
+		this.misses = metrics.counter("pool." + name + ".misses");
+		this.drops = metrics.counter("pool." + name + ".dropped");
+		this.high = metrics.counter("pool." + name + ".highWater");
+	}
+
+	/**
+	 * counts a request answered by the pool
+	 *
+	 * @param units
+	 *            the size of the returned object
+	 */
+	void hit(final int units) {
+		size -= units;
+		hits.inc();
+	}
+
+	/**
+	 * counts a request that requires a new object
+	 */
+	void miss() {
+		misses.inc();
+	}
+
+	/**
+	 * @param units
+	 *            the size of a released object
+	 * @return <code>true</code>, if the object can be stored in the pool
+	 */
+	boolean offer(final int units) {
+		if (limit > 0 && size + units > limit) {
+			drops.add(units);
+			return false;
+		}
+		size += units;
+		if (size > highWater) {
+			high.add(size - highWater);
+			highWater = size;
+		}
+		return true;
+	}
+
+}
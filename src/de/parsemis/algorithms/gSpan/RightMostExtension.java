@@ -14,9 +14,8 @@
  */
 package de.parsemis.algorithms.gSpan;
 
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Map;
-import java.util.TreeMap;
 
 import de.parsemis.graph.HPGraph;
 import de.parsemis.graph.HPMutableGraph;
@@ -24,6 +23,7 @@ import de.parsemis.miner.chain.Extension;
 import de.parsemis.miner.chain.GenerationPartialStep;
 import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.general.Frequency;
 import de.parsemis.miner.general.HPEmbedding;
 import de.parsemis.miner.general.HPFragment;
 
@@ -33,6 +33,11 @@ import de.parsemis.miner.general.HPFragment;
  * For gSpan just backward edges from the last inserted node, or forward edges
  * staring in nodes of the right most path (path of forward edges between the
  * "root" node to the last inserted node) are relevant.
+ * <p>
+ * The found edges are collected in an open addressing table keyed by a single
+ * long (see key(..)), that is reused for each extended node. Without stored
+ * embeddings just the database graphs of each edge are noted, and the
+ * fragment graph is only built for the frequent ones.
  * 
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
  * 
@@ -46,13 +51,52 @@ import de.parsemis.miner.general.HPFragment;
 public class RightMostExtension<NodeType, EdgeType> extends
 		GenerationPartialStep<NodeType, EdgeType> {
 
-	public static int counter = 0;
+	private static final int INITIAL_SIZE = 64;
 
 	protected final GThreadEnvironment<NodeType, EdgeType> tenv;
 
 	private final LocalEnvironment<NodeType, EdgeType> env;
 
-	private final Map<GSpanEdge<NodeType, EdgeType>, GSpanExtension<NodeType, EdgeType>> children;
+	/* the table: the key and the slot (+1) of each position */
+	private long[] keys = new long[2 * INITIAL_SIZE];
+
+	private int[] slotAt = new int[2 * INITIAL_SIZE];
+
+	/* the slots in order of their creation */
+	private int size = 0;
+
+	private int[] posOf = new int[INITIAL_SIZE];
+
+	private GSpanEdge<NodeType, EdgeType>[] edges = newEdges(INITIAL_SIZE);
+
+	private GSpanExtension<NodeType, EdgeType>[] exts = newExtensions(INITIAL_SIZE);
+
+	private EmbeddingList<NodeType, EdgeType>[] lists = newLists(INITIAL_SIZE);
+
+	/* the database graphs of each slot as linked lists */
+	private int[] firstGraph = new int[INITIAL_SIZE];
+
+	private int[] graphs = new int[INITIAL_SIZE];
+
+	private int[] nextGraph = new int[INITIAL_SIZE];
+
+	private int graphCount = 0;
+
+	private int[] order = new int[INITIAL_SIZE];
+
+	private int[] scratch = new int[INITIAL_SIZE];
+
+	/* the number of embeddings extended for the current code */
+	private int embeddingCount = 0;
+
+	private final Frequency freq;
+
+	private final BitSet seen;
+
+	/* true, if each label combination gets its own key */
+	private final boolean packed;
+
+	private final int nodeLabels;
 
 	/**
 	 * creates a new pruning
@@ -68,9 +112,28 @@ public class RightMostExtension<NodeType, EdgeType> extends
 		super(next);
 		this.tenv = tenv;
 		this.env = LocalEnvironment.env(this);
-		this.children = new TreeMap<GSpanEdge<NodeType, EdgeType>, GSpanExtension<NodeType, EdgeType>>();
-		// TODO: evtl schnellere vergleich der gEdges, aber das macht nicht viel
-		// aus
+		this.freq = env.newFrequency();
+		this.seen = new BitSet(env.graphCount());
+		this.nodeLabels = Math.max(1, env.nodeLabelCount());
+		this.packed = 3L * nodeLabels * Math.max(1, env.edgeLabelCount()) <= 0xFFFFFFFFL;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <NodeType, EdgeType> GSpanEdge<NodeType, EdgeType>[] newEdges(
+			final int size) {
+		return (GSpanEdge<NodeType, EdgeType>[]) new GSpanEdge<?, ?>[size];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <NodeType, EdgeType> GSpanExtension<NodeType, EdgeType>[] newExtensions(
+			final int size) {
+		return (GSpanExtension<NodeType, EdgeType>[]) new GSpanExtension<?, ?>[size];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <NodeType, EdgeType> EmbeddingList<NodeType, EdgeType>[] newLists(
+			final int size) {
+		return (EmbeddingList<NodeType, EdgeType>[]) new EmbeddingList<?, ?>[size];
 	}
 
 	/**
@@ -87,38 +150,39 @@ public class RightMostExtension<NodeType, EdgeType> extends
 			final DFSCode<NodeType, EdgeType> code, final int edge,
 			final int nodeB) {
 		// search corresponding extension
-		GSpanExtension<NodeType, EdgeType> ext = children.get(gEdge);
-		if (env.storeEmbeddings) {
-			if (ext == null) {
+		int slot = slotOf(gEdge);
+		if (slot < 0) {
+			slot = insert(gEdge);
+			if (env.storeEmbeddings) {
 				// create new extension
 				final HPMutableGraph<NodeType, EdgeType> ng = (HPMutableGraph<NodeType, EdgeType>) code
 						.toHPFragment().toHPGraph().clone();
-				// TODO: avoid clone??
 				gEdge.addTo(ng);
 				final HPFragment<NodeType, EdgeType> f = tenv.getHPFragment(ng);
-				ext = tenv.getExtension(gEdge, f);
+				final GSpanExtension<NodeType, EdgeType> ext = tenv
+						.getExtension(gEdge, f);
 				ext.frag = code.extend(ext);
-				children.put(gEdge, ext);
-			} else {
-				gEdge.release(tenv);
+				exts[slot] = ext;
+			} else if (env.embeddingLists) {
+				lists[slot] = tenv.getEmbeddingList(emb.getSubGraph()
+						.getNodeCount()
+						+ (gEdge.isForward() ? 1 : 0));
 			}
+		} else {
+			gEdge.release(tenv);
+		}
+		if (env.storeEmbeddings) {
 			// store embedding in extension
-			ext.getFragment().add(emb.extend(ext, edge, nodeB));
+			exts[slot].getFragment().add(
+					emb.extend(exts[slot], edge, nodeB));
 		} else {
-			if (ext == null) {
-				// create new extension
-				final HPMutableGraph<NodeType, EdgeType> ng = (HPMutableGraph<NodeType, EdgeType>) emb
-						.getSubGraph().clone();
-				// TODO: avoid clone??
-				gEdge.addTo(ng);
-				final HPFragment<NodeType, EdgeType> f = tenv.getHPFragment(ng);
-				ext = tenv.getExtension(gEdge, f);
-				children.put(gEdge, ext);
-			} else {
-				gEdge.release(tenv);
+			// note database graph of the extension
+			note(slot, emb.getDataBaseGraph().getIndex());
+			if (lists[slot] != null) {
+				// and the extended occurrence
+				lists[slot].add(emb, gEdge.isForward() ? nodeB
+						: HPGraph.NO_NODE);
 			}
-			// store database graph in extension
-			ext.getFragment().add(emb.getDataBaseGraph());
 		}
 	}
 
@@ -131,9 +195,23 @@ public class RightMostExtension<NodeType, EdgeType> extends
 	@Override
 	public void call(final SearchLatticeNode<NodeType, EdgeType> node,
 			final Collection<Extension<NodeType, EdgeType>> extensions) {
-		// just give YOUR extensions to the next step
+		// just give YOUR extensions to the next step, in the order of their
+		// edges
 		extensions.clear();
-		extensions.addAll(children.values());
+		env.stats.embeddingsPerCode.record(embeddingCount);
+		sort();
+		for (int i = 0; i < size; ++i) {
+			final int slot = order[i];
+			if (env.storeEmbeddings) {
+				extensions.add(exts[slot]);
+			} else {
+				final GSpanExtension<NodeType, EdgeType> ext = materialize(
+						(DFSCode<NodeType, EdgeType>) node, slot);
+				if (ext != null) {
+					extensions.add(ext);
+				}
+			}
+		}
 		callNext(node, extensions);
 	}
 
@@ -146,7 +224,7 @@ public class RightMostExtension<NodeType, EdgeType> extends
 	@Override
 	public void call(final SearchLatticeNode<NodeType, EdgeType> node,
 			final HPEmbedding<NodeType, EdgeType> embedding) {
-		counter++;
+		embeddingCount++;
 		extend((DFSCode<NodeType, EdgeType>) node,
 				(GSpanHPEmbedding<NodeType, EdgeType>) embedding);
 		callNext(node, embedding);
@@ -197,9 +275,7 @@ public class RightMostExtension<NodeType, EdgeType> extends
 			int ackNode = (env.findPathsOnly ? 0 : lastNode);
 			do {
 				// find extension of the right most path
-				final GSpanEdge<NodeType, EdgeType> ack = code
-						.getParent(ackNode);
-				ackNode = ack.getNodeA();
+				ackNode = code.getParentNode(ackNode);
 				final int nodeA = emb.getSuperGraphNode(ackNode);
 				for (int i = sup.getDegree(nodeA) - 1; i >= 0; --i) {
 					final int edge = sup.getNodeEdge(nodeA, i);
@@ -223,6 +299,181 @@ public class RightMostExtension<NodeType, EdgeType> extends
 
 	}
 
+	/*
+	 * @return the given array with doubled size
+	 */
+	private static int[] grow(final int[] array) {
+		final int[] ret = new int[2 * array.length];
+		System.arraycopy(array, 0, ret, 0, array.length);
+		return ret;
+	}
+
+	/* adds a new slot for the given edge to the table */
+	private int insert(final GSpanEdge<NodeType, EdgeType> gEdge) {
+		if (2 * (size + 1) > keys.length) {
+			rehash();
+		}
+		final long key = key(gEdge);
+		final int mask = keys.length - 1;
+		int pos = position(key);
+		while (slotAt[pos] != 0) {
+			pos = (pos + 1) & mask;
+		}
+		if (size == posOf.length) {
+			posOf = grow(posOf);
+			firstGraph = grow(firstGraph);
+			order = grow(order);
+			final GSpanEdge<NodeType, EdgeType>[] ne = newEdges(2 * size);
+			System.arraycopy(edges, 0, ne, 0, size);
+			edges = ne;
+			final GSpanExtension<NodeType, EdgeType>[] nx = newExtensions(2 * size);
+			System.arraycopy(exts, 0, nx, 0, size);
+			exts = nx;
+			final EmbeddingList<NodeType, EdgeType>[] nl = newLists(2 * size);
+			System.arraycopy(lists, 0, nl, 0, size);
+			lists = nl;
+		}
+		final int slot = size++;
+		keys[pos] = key;
+		slotAt[pos] = slot + 1;
+		posOf[slot] = pos;
+		edges[slot] = gEdge;
+		firstGraph[slot] = -1;
+		return slot;
+	}
+
+	/*
+	 * @return the key of the given edge; unique for all edges of a code, as
+	 * long as the labels fit in 32 bits
+	 */
+	private long key(final GSpanEdge<NodeType, EdgeType> gEdge) {
+		// labelA is given by nodeA
+		return ((long) gEdge.getNodeA() << 48)
+				^ ((long) gEdge.getNodeB() << 32)
+				^ ((((long) gEdge.getEdgeLabel() * nodeLabels + gEdge
+						.getLabelB()) * 3 + gEdge.getDirection() + 1) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * builds the extension of the given slot, if it is frequent
+	 * 
+	 * @param code
+	 * @param slot
+	 * @return the extension, or <code>null</code> if it is infrequent
+	 */
+	private GSpanExtension<NodeType, EdgeType> materialize(
+			final DFSCode<NodeType, EdgeType> code, final int slot) {
+		freq.smul(0);
+		for (int g = firstGraph[slot]; g >= 0; g = nextGraph[g]) {
+			if (!seen.get(graphs[g])) {
+				seen.set(graphs[g]);
+				freq.add(env.getGraph(graphs[g]).frequency());
+			}
+		}
+		for (int g = firstGraph[slot]; g >= 0; g = nextGraph[g]) {
+			seen.clear(graphs[g]);
+		}
+		final GSpanEdge<NodeType, EdgeType> gEdge = edges[slot];
+		final EmbeddingList<NodeType, EdgeType> list = lists[slot];
+		if (env.minFreq.compareTo(freq) > 0) {
+			// would be pruned by the FrequencyPruningStep of the child
+			gEdge.release(tenv);
+			if (list != null) {
+				list.release(tenv);
+			}
+			return null;
+		}
+		final HPMutableGraph<NodeType, EdgeType> ng = (HPMutableGraph<NodeType, EdgeType>) code
+				.toHPFragment().toHPGraph().clone();
+		gEdge.addTo(ng);
+		final HPFragment<NodeType, EdgeType> f = tenv.getHPFragment(ng);
+		for (int g = firstGraph[slot]; g >= 0; g = nextGraph[g]) {
+			f.add(env.getGraph(graphs[g]));
+		}
+		final GSpanExtension<NodeType, EdgeType> ext = tenv.getExtension(
+				gEdge, f);
+		ext.list = list;
+		return ext;
+	}
+
+	/**
+	 * adds the extensions found by the given step for the same node behind
+	 * the ones found by this step, as if this step has got the embeddings of
+	 * both, and resets the given step
+	 * 
+	 * @param other
+	 *            a step without stored embeddings, that is not used
+	 *            concurrently
+	 */
+	void merge(final RightMostExtension<NodeType, EdgeType> other) {
+		assert !env.storeEmbeddings : "stored embeddings cannot be merged";
+		for (int s = 0; s < other.size; ++s) {
+			final GSpanEdge<NodeType, EdgeType> gEdge = other.edges[s];
+			final EmbeddingList<NodeType, EdgeType> list = other.lists[s];
+			int slot = slotOf(gEdge);
+			if (slot < 0) {
+				slot = insert(gEdge);
+				lists[slot] = list;
+			} else {
+				gEdge.release(other.tenv);
+				if (list != null) {
+					lists[slot].addAll(list);
+					list.release(other.tenv);
+				}
+			}
+			// the graphs of the other slot are linked from the last to the
+			// first one
+			int count = 0;
+			for (int g = other.firstGraph[s]; g >= 0; g = other.nextGraph[g]) {
+				if (count == scratch.length) {
+					scratch = grow(scratch);
+				}
+				scratch[count++] = other.graphs[g];
+			}
+			while (count > 0) {
+				note(slot, scratch[--count]);
+			}
+		}
+		embeddingCount += other.embeddingCount;
+		other.reset();
+	}
+
+	/* notes the given database graph for the given slot */
+	private void note(final int slot, final int idx) {
+		if (firstGraph[slot] < 0 || graphs[firstGraph[slot]] != idx) {
+			// the embeddings of each graph are given consecutively
+			if (graphCount == graphs.length) {
+				graphs = grow(graphs);
+				nextGraph = grow(nextGraph);
+			}
+			graphs[graphCount] = idx;
+			nextGraph[graphCount] = firstGraph[slot];
+			firstGraph[slot] = graphCount++;
+		}
+	}
+
+	/* @return the table position of the given key */
+	private int position(final long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+	}
+
+	/* doubles the table */
+	private void rehash() {
+		keys = new long[2 * keys.length];
+		slotAt = new int[keys.length];
+		final int mask = keys.length - 1;
+		for (int slot = 0; slot < size; ++slot) {
+			final long key = key(edges[slot]);
+			int pos = position(key);
+			while (slotAt[pos] != 0) {
+				pos = (pos + 1) & mask;
+			}
+			keys[pos] = key;
+			slotAt[pos] = slot + 1;
+			posOf[slot] = pos;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -230,8 +481,45 @@ public class RightMostExtension<NodeType, EdgeType> extends
 	 */
 	@Override
 	public void reset() {
-		children.clear();
+		for (int slot = 0; slot < size; ++slot) {
+			slotAt[posOf[slot]] = 0;
+			edges[slot] = null;
+			exts[slot] = null;
+			lists[slot] = null;
+		}
+		size = 0;
+		graphCount = 0;
+		embeddingCount = 0;
 		resetNext();
 	}
 
+	/* @return the slot of an equal edge, or -1 */
+	private int slotOf(final GSpanEdge<NodeType, EdgeType> gEdge) {
+		final long key = key(gEdge);
+		final boolean exact = packed
+				&& ((gEdge.getNodeA() | gEdge.getNodeB()) >>> 16) == 0;
+		final int mask = keys.length - 1;
+		for (int pos = position(key); slotAt[pos] != 0; pos = (pos + 1) & mask) {
+			final int slot = slotAt[pos] - 1;
+			if (keys[pos] == key
+					&& (exact || edges[slot].compareTo(gEdge) == 0)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/* sorts the slots by their edges (insertion sort, as there are just few) */
+	private void sort() {
+		for (int i = 0; i < size; ++i) {
+			final int slot = order[i] = i;
+			int j = i;
+			while (j > 0 && edges[order[j - 1]].compareTo(edges[slot]) > 0) {
+				order[j] = order[j - 1];
+				--j;
+			}
+			order[j] = slot;
+		}
+	}
+
 }
@@ -24,13 +24,12 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 
 import de.parsemis.graph.Graph;
 import de.parsemis.graph.GraphFactory;
-import de.parsemis.graph.HPGraph;
-import de.parsemis.jp.RemoteCounter;
 import de.parsemis.miner.chain.DefaultExtender;
 import de.parsemis.miner.chain.EdgeCountStep;
 import de.parsemis.miner.chain.Extender;
@@ -43,8 +42,8 @@ import de.parsemis.miner.environment.Settings;
 import de.parsemis.miner.general.DataBase;
 import de.parsemis.miner.general.Fragment;
 import de.parsemis.utils.Generic;
-import de.parsemis.utils.GraphSet;
-import de.parsemis.utils.MutableInteger;
+import de.parsemis.utils.CanonicalStringSet;
+import de.parsemis.utils.PartitionedTask;
 
 /**
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
@@ -67,7 +66,7 @@ public class Algorithm<NodeType, EdgeType> implements
 
 	transient/* final */HashMap<NodeType, GastonPath<NodeType, EdgeType>> initials;
 
-	private Collection<HPGraph<NodeType, EdgeType>> unique;
+	private CanonicalStringSet unique;
 
 	public Extender<NodeType, EdgeType> getExtender(final int threadIdx) {
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
@@ -85,6 +84,24 @@ public class Algorithm<NodeType, EdgeType> implements
 		curFirst = new UniqueStep<NodeType, EdgeType>(curFirst, unique,
 				env.stats);
 
+		curFirst = getPruningSteps(curFirst);
+
+		// insert mining chain
+		extender.setFirst(curFirst);
+		return extender;
+
+	}
+
+	/**
+	 * @param next
+	 * @return the size and frequency pruning steps, that each node has to pass
+	 *         in front of the given step of the mining chain
+	 */
+	MiningStep<NodeType, EdgeType> getPruningSteps(
+			final MiningStep<NodeType, EdgeType> next) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		MiningStep<NodeType, EdgeType> curFirst = next;
 		if (env.minNodeCount > 0 || env.maxNodeCount < Integer.MAX_VALUE) {
 			curFirst = new NodeCountStep<NodeType, EdgeType>(curFirst,
 					env.minNodeCount, env.maxNodeCount);
@@ -93,13 +110,15 @@ public class Algorithm<NodeType, EdgeType> implements
 			curFirst = new EdgeCountStep<NodeType, EdgeType>(curFirst,
 					env.minEdgeCount, env.maxEdgeCount);
 		}
-		curFirst = new FrequencyPruningStep<NodeType, EdgeType>(curFirst,
+		return new FrequencyPruningStep<NodeType, EdgeType>(curFirst,
 				env.minFreq, env.maxFreq);
+	}
 
-		// insert mining chain
-		extender.setFirst(curFirst);
-		return extender;
-
+	/**
+	 * @return the set of the canonical strings of the found cycles
+	 */
+	CanonicalStringSet getUnique() {
+		return unique;
 	}
 
 	public Collection<Fragment<NodeType, EdgeType>> initialize(
@@ -114,15 +133,11 @@ public class Algorithm<NodeType, EdgeType> implements
 		final SortedSet<EdgeType> frequentEdges = db.frequentEdgeLabels();
 		final ArrayList<NodeType> nodes = new ArrayList<NodeType>(frequentNodes);
 		final GastonEnvironmentFactory<NodeType, EdgeType> envFac = new GastonEnvironmentFactory<NodeType, EdgeType>(
-				frequentNodes.size(), frequentEdges.size(),
-				settings.javaparty ? new RemoteCounter()
-						: new MutableInteger(0));
+				frequentNodes.size(), frequentEdges.size());
 
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.create(settings, graphs.size(), nodes,
 						new ArrayList<EdgeType>(frequentEdges), envFac);
-		final GastonEnvironment<NodeType, EdgeType> tenv = (GastonEnvironment<NodeType, EdgeType>) envFac
-				.getNewEnvironment(0, env);
 
 		if (INFO) {
 			out.println("FREQUENT NODES:" + frequentNodes.size());
@@ -135,15 +150,35 @@ public class Algorithm<NodeType, EdgeType> implements
 		initials = new HashMap<NodeType, GastonPath<NodeType, EdgeType>>();
 		final Collection<Leg<NodeType, EdgeType>> siblings = new ArrayList<Leg<NodeType, EdgeType>>(
 				frequentNodes.size());
-		int i = 0;
-		for (final Graph<NodeType, EdgeType> graph : graphs) {
-			final GastonGraph<NodeType, EdgeType> dbg = new GastonGraph<NodeType, EdgeType>(
-					graph.toHPGraph(), i, settings.getFrequency(graph));
-			env.setDataBaseGraph(i++, dbg);
-			dbg.createInitials(initials, nodes, siblings, tenv);
-			if (graph.getMaxNodeIndex() > envFac.maxNodeIndex) {
-				envFac.maxNodeIndex = graph.getMaxNodeIndex();
+		// generate GastonGraphs for consecutive parts of the database
+		// concurrently
+		final List<Graph<NodeType, EdgeType>> list = PartitionedTask
+				.asList(graphs);
+		final List<Integer> maxIndices = new PartitionedTask<Integer>() {
+			@Override
+			protected Integer process(final int part, final int from,
+					final int to) {
+				int max = 0;
+				for (int i = from; i < to; ++i) {
+					final Graph<NodeType, EdgeType> graph = list.get(i);
+					env.setDataBaseGraph(i, new GastonGraph<NodeType, EdgeType>(
+							graph.toHPGraph(), i, settings.getFrequency(graph)));
+					if (graph.getMaxNodeIndex() > max) {
+						max = graph.getMaxNodeIndex();
+					}
+				}
+				return max;
 			}
+		}.run(list.size(), settings.threadCount);
+		for (final Integer max : maxIndices) {
+			if (max > envFac.maxNodeIndex) {
+				envFac.maxNodeIndex = max;
+			}
+		}
+		// the initial occurrences are added in the order of the graphs
+		for (int i = 0; i < list.size(); ++i) {
+			((GastonGraph<NodeType, EdgeType>) env.getGraph(i)).createInitials(
+					initials, siblings);
 		}
 		if (!env.embeddingBased) {
 			// filter graphBased infrequent initial nodes
@@ -164,7 +199,8 @@ public class Algorithm<NodeType, EdgeType> implements
 		}
 
 		// create filter set for cyclic fragments
-		unique = new GraphSet<NodeType, EdgeType>(env);
+		unique = new CanonicalStringSet(settings.cycleMemory * 1024L * 1024L,
+				null);
 
 		final Collection<Fragment<NodeType, EdgeType>> expectedFragments = new HashSet<Fragment<NodeType, EdgeType>>();
 		return expectedFragments;
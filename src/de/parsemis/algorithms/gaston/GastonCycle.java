@@ -38,6 +38,9 @@ public class GastonCycle<NodeType, EdgeType> extends
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/* set, if the cycle is already stored as unique by a GastonStack */
+	transient boolean checked = false;
+
 	public static <NodeType, EdgeType> GastonCycle<NodeType, EdgeType> create(
 			final GastonTree<NodeType, EdgeType> tree,
 			final Leg<NodeType, EdgeType> leg,
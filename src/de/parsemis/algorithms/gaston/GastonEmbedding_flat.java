@@ -14,10 +14,13 @@
  */
 package de.parsemis.algorithms.gaston;
 
-import de.parsemis.miner.environment.ThreadEnvironment;
 import de.parsemis.miner.general.DefaultFlatHPEmbedding;
 
 /**
+ * This class is the embedding of an occurrence of a GastonFragment, that is
+ * materialized just if the embeddings of the fragment are requested (e.g., for
+ * the output).
+ * 
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
  * 
  * @param <NodeType>
@@ -29,76 +32,16 @@ import de.parsemis.miner.general.DefaultFlatHPEmbedding;
  */
 public class GastonEmbedding_flat<NodeType, EdgeType>
 		extends
-		DefaultFlatHPEmbedding<NodeType, EdgeType, GastonGraph<NodeType, EdgeType>>
-		implements GastonEmbedding<NodeType, EdgeType> {
+		DefaultFlatHPEmbedding<NodeType, EdgeType, GastonGraph<NodeType, EdgeType>> {
 
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
 
-	/** for order and fast joining like the original code */
-	public final int id;
-
-	private final GastonFragment<NodeType, EdgeType> correspondingLeg;
-
-	public GastonEmbedding_flat(
-			final GastonGraph<NodeType, EdgeType> superGraph, final int id) {
-		super.set(superGraph, null, new int[0]);
-		correspondingLeg = null;
-		this.id = id;
-	}
-
 	public GastonEmbedding_flat(final int dbIdx, final int[] superNodes,
-			final GastonFragment<NodeType, EdgeType> frag, final int id) {
+			final GastonFragment<NodeType, EdgeType> frag) {
 		super.set(dbIdx, frag.subgraph, superNodes);
-		correspondingLeg = frag;
-		this.id = id;
-	}
-
-	public int compareTo(final GastonEmbedding<NodeType, EdgeType> o) {
-		if (getParentId() != o.getParentId()) {
-			return getParentId() - o.getParentId();
-		}
-		return id - o.getId();
-	}
-
-	public GastonEmbedding<NodeType, EdgeType> get() {
-		return this;
-	}
-
-	public int getId() {
-		return id;
-	}
-
-	public int getParentId() {
-		assert false : "should not happen";
-		return -1;
-	}
-
-	public int getSubNode() {
-		return correspondingLeg.correspondingNode;
-	}
-
-	public int getSuperNode() {
-		return getSuperGraphNode(getSubNode());
-	}
-
-	int[] getSuperNodes() {
-		return superNodes();
-	}
-
-	public boolean isInit() {
-		return correspondingLeg == null;
-	}
-
-	@Override
-	public void release(final ThreadEnvironment<NodeType, EdgeType> tenv) {
-
-	}
-
-	public void setFrag(final GastonFragment<NodeType, EdgeType> frag) {
-		assert false : "should not happen";
 	}
 
 }
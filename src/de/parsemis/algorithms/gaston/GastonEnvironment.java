@@ -24,9 +24,7 @@ import de.parsemis.graph.HPMutableGraph;
 import de.parsemis.miner.chain.ExtensionSet;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.environment.ThreadEnvironment;
-import de.parsemis.miner.general.HPEmbedding;
 import de.parsemis.strategy.SMPThread;
-import de.parsemis.utils.SynchronizedCounter;
 
 /**
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
@@ -46,12 +44,9 @@ public class GastonEnvironment<NodeType, EdgeType> extends
 
 	public final boolean doCycles;
 
-	public final boolean hierarchical;
-
 	private final Leg<NodeType, EdgeType> node_depth[][];
 
 	private final Leg<NodeType, EdgeType> cycle[][];
-	private final SynchronizedCounter counter;
 
 	private final Collection<Leg<NodeType, EdgeType>> node_depth_set;
 	private final Collection<Leg<NodeType, EdgeType>> cycle_set;
@@ -64,23 +59,17 @@ public class GastonEnvironment<NodeType, EdgeType> extends
 	 * @param maxNodeLabels
 	 * @param maxNodes
 	 * @param doCycles
-	 * @param hierarchical
-	 * @param counter
 	 */
 	@SuppressWarnings("unchecked")
 	GastonEnvironment(final int threadIdx, final int maxEdgeLabels,
 			final int maxNodeLabels, final int maxNodes,
-			final boolean doCycles, final boolean hierarchical,
-			final SynchronizedCounter counter) {
+			final boolean doCycles) {
 		this.threadIdx = threadIdx;
 		this.doCycles = doCycles;
-		this.hierarchical = hierarchical;
-		System.out.println("hierachical: " + hierarchical);
 		node_depth = new Leg[maxEdgeLabels][maxNodeLabels];
 		node_depth_set = new ArrayList<Leg<NodeType, EdgeType>>();
 		cycle = doCycles ? new Leg[maxEdgeLabels][maxNodes] : null;
 		cycle_set = new ArrayList<Leg<NodeType, EdgeType>>();
-		this.counter = counter;
 	}
 
 	public final ExtensionSet<NodeType, EdgeType, Leg<NodeType, EdgeType>> clearAndAddExtensions(
@@ -98,31 +87,6 @@ public class GastonEnvironment<NodeType, EdgeType> extends
 		return ret;
 	}
 
-	public GastonEmbedding<NodeType, EdgeType> createEmbedding(
-			final GastonGraph<NodeType, EdgeType> superGraph) {
-		if (hierarchical) {
-			return new GastonEmbedding_hierarchical<NodeType, EdgeType>(
-					superGraph);
-		} else {
-			return new GastonEmbedding_flat<NodeType, EdgeType>(superGraph,
-					counter.next());
-		}
-	}
-
-	public GastonEmbedding<NodeType, EdgeType> createEmbedding(
-			final HPEmbedding<NodeType, EdgeType> o, final int newSuperNode) {
-		final GastonEmbedding<NodeType, EdgeType> old = (GastonEmbedding<NodeType, EdgeType>) o;
-		if (hierarchical) {
-			return new GastonEmbedding_hierarchical<NodeType, EdgeType>(
-					(GastonEmbedding_hierarchical<NodeType, EdgeType>) old
-							.get(), newSuperNode);
-		} else {
-			return new LazyExtendedEmbedding_flat<NodeType, EdgeType>(
-					(GastonEmbedding_flat<NodeType, EdgeType>) old.get(),
-					newSuperNode, counter.next());
-		}
-	}
-
 	/**
 	 * searches or creates a Leg in the LegSeg for a cycle refinement
 	 * 
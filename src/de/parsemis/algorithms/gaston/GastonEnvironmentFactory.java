@@ -18,21 +18,23 @@ package de.parsemis.algorithms.gaston;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.environment.ThreadEnvironment;
 import de.parsemis.miner.environment.ThreadEnvironmentFactory;
-import de.parsemis.utils.SynchronizedCounter;
 
 public class GastonEnvironmentFactory<NodeType, EdgeType> implements
 		ThreadEnvironmentFactory<NodeType, EdgeType> {
 
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
 	final int nodeLabelCount, edgeLabelCount;
-	final SynchronizedCounter counter;
 
 	int maxNodeIndex;
 
 	public GastonEnvironmentFactory(final int nodeLabelCount,
-			final int edgeLabelCount, final SynchronizedCounter counter) {
+			final int edgeLabelCount) {
 		this.nodeLabelCount = nodeLabelCount;
 		this.edgeLabelCount = edgeLabelCount;
-		this.counter = counter;
 	}
 
 	/*
@@ -45,8 +47,7 @@ public class GastonEnvironmentFactory<NodeType, EdgeType> implements
 			final int idx, final LocalEnvironment<NodeType, EdgeType> env) {
 		return new GastonEnvironment<NodeType, EdgeType>(idx, edgeLabelCount,
 				nodeLabelCount, maxNodeIndex, !env.findPathsOnly
-						&& !env.findTreesOnly, env.storeHierarchicalEmbeddings,
-				counter);
+						&& !env.findTreesOnly);
 	}
 
 }
\ No newline at end of file
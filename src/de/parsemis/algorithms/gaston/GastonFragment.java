@@ -14,7 +14,7 @@
  */
 package de.parsemis.algorithms.gaston;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
@@ -34,6 +34,15 @@ import de.parsemis.utils.FrequentedCollection;
 import de.parsemis.utils.GraphSetIterator;
 
 /**
+ * This class stores the occurrences of a fragment like the original Gaston
+ * implementation in parallel int arrays: the database graph, the index of the
+ * parent occurrence in the fragment this one is extended from and the database
+ * node of the new node (if any). So the complete node mapping of an
+ * occurrence is given by the chain of its parent occurrences.
+ * <p>
+ * Embedding objects are just created, if the fragment is accessed as a list
+ * (e.g., to output its embeddings).
+ * 
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
  * 
  * @param <NodeType>
@@ -44,7 +53,7 @@ import de.parsemis.utils.GraphSetIterator;
  *            .equals(..))
  */
 public class GastonFragment<NodeType, EdgeType> extends
-		ArrayList<HPEmbedding<NodeType, EdgeType>> implements
+		AbstractList<HPEmbedding<NodeType, EdgeType>> implements
 		HPFragment<NodeType, EdgeType> {
 
 	/**
@@ -52,6 +61,8 @@ public class GastonFragment<NodeType, EdgeType> extends
 	 */
 	private static final long serialVersionUID = 1L;
 
+	private static final int[] EMPTY = new int[0];
+
 	final protected Frequency graphBasedFrequency;
 
 	final HPGraph<NodeType, EdgeType> subgraph;
@@ -60,6 +71,14 @@ public class GastonFragment<NodeType, EdgeType> extends
 
 	final protected int correspondingNode;
 
+	/* the fragment of the parent occurrences, or null for initial fragments */
+	private GastonFragment<NodeType, EdgeType> parent = null;
+
+	/* the columns of the occurrence list */
+	private int[] graphs = EMPTY, parents = EMPTY, superNodes = EMPTY;
+
+	private int size = 0;
+
 	private transient FrequentedCollection<HPEmbedding<NodeType, EdgeType>> mc;
 
 	transient Fragment<NodeType, EdgeType> frag = null;
@@ -84,60 +103,71 @@ public class GastonFragment<NodeType, EdgeType> extends
 		throw new UnsupportedOperationException("Gaston requires embeddings");
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * adds an occurrence that extends the given occurrence of the parent
+	 * fragment
 	 * 
-	 * @see java.util.ArrayList#add(java.lang.Object)
+	 * @param parent
+	 *            the fragment of the parent occurrence
+	 * @param parentIdx
+	 *            the index of the parent occurrence
+	 * @param superNode
+	 *            the database node of the corresponding node, or
+	 *            HPGraph.NO_NODE for a cycle closing edge
 	 */
-	@Override
-	public boolean add(final HPEmbedding<NodeType, EdgeType> o) {
-		assert o instanceof GastonEmbedding : "just GastonEmbeddings can be added to a GastonFragment";
-		if (super.add(o)) {
-			mc = null;
-			if (o instanceof GastonEmbedding) {
-				@SuppressWarnings("unchecked")
-				final GastonEmbedding<NodeType, EdgeType> emb = (GastonEmbedding<NodeType, EdgeType>) o;
-				emb.setFrag(this);
-			}
-			final int graphIdx = o.getDataBaseGraph().getIndex();
-			if (graphSet.get(graphIdx)) {
-				return true;
-			}
-			graphSet.set(graphIdx);
-			graphBasedFrequency.add(o.getDataBaseGraph().frequency());
-			return true;
-		}
-		return false;
+	void add(final GastonFragment<NodeType, EdgeType> parent,
+			final int parentIdx, final int superNode) {
+		assert this.parent == null || this.parent == parent : "all parent occurrences have to belong to the same fragment";
+		this.parent = parent;
+		add(parent.graphs[parentIdx], parentIdx, superNode);
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * adds an initial occurrence
 	 * 
-	 * @see java.util.ArrayList#addAll(java.util.Collection)
+	 * @param graphIdx
+	 *            the index of the database graph
+	 * @param superNode
+	 *            the database node of the corresponding node
 	 */
-	@Override
-	public boolean addAll(
-			final Collection<? extends HPEmbedding<NodeType, EdgeType>> c) {
-		boolean ret = false;
-		for (final HPEmbedding<NodeType, EdgeType> emb : c) {
-			ret |= add(emb);
+	void add(final int graphIdx, final int superNode) {
+		assert parent == null : "initial occurrences have no parent";
+		add(graphIdx, -1, superNode);
+	}
+
+	private void add(final int graphIdx, final int parentIdx,
+			final int superNode) {
+		if (size == graphs.length) {
+			final int len = size < 8 ? 8 : size + (size >> 1);
+			graphs = grow(graphs, len);
+			parents = grow(parents, len);
+			superNodes = grow(superNodes, len);
+		}
+		graphs[size] = graphIdx;
+		parents[size] = parentIdx;
+		superNodes[size] = superNode;
+		size++;
+		mc = null;
+		if (!graphSet.get(graphIdx)) {
+			graphSet.set(graphIdx);
+			graphBasedFrequency.add(LocalEnvironment.env(this).getGraph(
+					graphIdx).frequency());
 		}
-		return ret;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see java.util.ArrayList#clear()
+	 * @see java.util.AbstractList#clear()
 	 */
 	@Override
 	public void clear() {
-		super.clear();
+		parent = null;
+		graphs = parents = superNodes = EMPTY;
+		size = 0;
 		graphSet.clear();
 		graphBasedFrequency.sub(graphBasedFrequency);
 		mc = null;
-		// subgraph = null;
-		// correspondingNode = HPGraph.NO_NODE;
 	}
 
 	/*
@@ -148,14 +178,28 @@ public class GastonFragment<NodeType, EdgeType> extends
 	public HPFragment<NodeType, EdgeType> copy() {
 		final GastonFragment<NodeType, EdgeType> ret = new GastonFragment<NodeType, EdgeType>(
 				subgraph, correspondingNode);
-		ret.addAll(this);
+		ret.parent = parent;
+		ret.graphs = grow(graphs, size);
+		ret.parents = grow(parents, size);
+		ret.superNodes = grow(superNodes, size);
+		ret.size = size;
+		ret.graphSet.or(graphSet);
+		ret.graphBasedFrequency.add(graphBasedFrequency);
 		return ret;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		// identity, so the embeddings are not materialized
+		return this == o;
+	}
+
 	public void finalizeIt() {
-		for (final HPEmbedding<NodeType, EdgeType> emb : this) {
-			emb.freeTransient();
-		}
 		mc = null;
 	}
 
@@ -171,6 +215,29 @@ public class GastonFragment<NodeType, EdgeType> extends
 		return graphBasedFrequency;
 	}
 
+	/**
+	 * creates the embedding of the given occurrence
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public HPEmbedding<NodeType, EdgeType> get(final int idx) {
+		if (idx < 0 || idx >= size) {
+			throw new IndexOutOfBoundsException("Index: " + idx + ", Size: "
+					+ size);
+		}
+		return new GastonEmbedding_flat<NodeType, EdgeType>(graphs[idx],
+				getSuperNodes(idx, new int[subgraph.getMaxNodeIndex()]), this);
+	}
+
+	/**
+	 * @param idx
+	 * @return the index of the database graph of the given occurrence
+	 */
+	final int getGraphIndex(final int idx) {
+		return graphs[idx];
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -180,6 +247,52 @@ public class GastonFragment<NodeType, EdgeType> extends
 		return maxClique();
 	}
 
+	/**
+	 * @param idx
+	 * @return the index of the parent occurrence of the given occurrence
+	 */
+	final int getParent(final int idx) {
+		return parents[idx];
+	}
+
+	/**
+	 * @param idx
+	 * @return the database graph of the given occurrence
+	 */
+	final HPGraph<NodeType, EdgeType> getSuperGraph(final int idx) {
+		return LocalEnvironment.env(this).getGraph(graphs[idx]).toHPGraph();
+	}
+
+	/**
+	 * @param idx
+	 * @return the database node of the corresponding node of the given
+	 *         occurrence
+	 */
+	final int getSuperNode(final int idx) {
+		return superNodes[idx];
+	}
+
+	/**
+	 * stores the database node of each fragment node of the given occurrence
+	 * in the given array
+	 * 
+	 * @param idx
+	 * @param nodes
+	 *            an array of (at least) the size of the max node index of the
+	 *            fragment
+	 * @return the given array
+	 */
+	final int[] getSuperNodes(final int idx, final int[] nodes) {
+		int i = idx;
+		for (GastonFragment<NodeType, EdgeType> ack = this; ack != null; ack = ack.parent) {
+			if (ack.correspondingNode != HPGraph.NO_NODE) {
+				nodes[ack.correspondingNode] = ack.superNodes[i];
+			}
+			i = ack.parents[i];
+		}
+		return nodes;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -190,14 +303,25 @@ public class GastonFragment<NodeType, EdgeType> extends
 				LocalEnvironment.env(this));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
 	private final FrequentedCollection<HPEmbedding<NodeType, EdgeType>> maxClique() {
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.env(this);
 		if (mc == null) {
+			// computed once, since further calls would add the clique again
 			mc = new FrequentedArrayList<HPEmbedding<NodeType, EdgeType>>(env
 					.newFrequency());
+			MaxCliqueStep.findHPMaxClique(this, env.ignoreNodes, mc);
 		}
-		MaxCliqueStep.findHPMaxClique(this, env.ignoreNodes, mc);
 		return mc;
 	}
 
@@ -213,23 +337,11 @@ public class GastonFragment<NodeType, EdgeType> extends
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see java.util.ArrayList#remove(java.lang.Object)
+	 * @see java.util.AbstractCollection#size()
 	 */
 	@Override
-	public boolean remove(final Object o) {
-		throw new UnsupportedOperationException(
-				"remove is not yet supported for GastonFragment");
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see java.util.AbstractCollection#removeAll(java.util.Collection)
-	 */
-	@Override
-	public boolean removeAll(final Collection<?> c) {
-		throw new UnsupportedOperationException(
-				"removeAll is not yet supported for GastonFragment");
+	public int size() {
+		return size;
 	}
 
 	/*
@@ -252,4 +364,27 @@ public class GastonFragment<NodeType, EdgeType> extends
 	public HPGraph<NodeType, EdgeType> toHPGraph() {
 		return subgraph;
 	}
+
+	/**
+	 * @param nodes
+	 *            the database nodes of the fragment nodes of an occurrence
+	 * @param superNode
+	 * @return the fragment node mapped to the given database node, or
+	 *         HPGraph.NO_NODE
+	 */
+	static final int getSubGraphNode(final int[] nodes, final int superNode) {
+		for (int i = 0; i < nodes.length; ++i) {
+			if (nodes[i] == superNode) {
+				return i;
+			}
+		}
+		return HPGraph.NO_NODE;
+	}
+
+	private static final int[] grow(final int[] array, final int length) {
+		final int[] ret = new int[length];
+		System.arraycopy(array, 0, ret, 0, Math.min(array.length,
+				length));
+		return ret;
+	}
 }
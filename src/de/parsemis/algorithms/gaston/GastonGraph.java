@@ -58,18 +58,14 @@ public class GastonGraph<NodeType, EdgeType> implements
 
 	protected void createInitials(
 			final Map<NodeType, GastonPath<NodeType, EdgeType>> map,
-			final Collection<NodeType> nodes,
-			final Collection<Leg<NodeType, EdgeType>> siblings,
-			final GastonEnvironment<NodeType, EdgeType> tenv) {
+			final Collection<Leg<NodeType, EdgeType>> siblings) {
 		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
 				.env(this);
-		final GastonEmbedding<NodeType, EdgeType> parent = tenv
-				.createEmbedding(this);
 		// check all nodes of the database graph
 		for (int node = 0; node < originalGraph.getMaxNodeIndex(); node++) {
 			if (originalGraph.isValidNode(node)) {
 				final NodeType label = originalGraph.getNodeLabel(node);
-				if (nodes.contains(label)) {
+				if (env.getNodeLabelIndex(label) >= 0) {
 					// get the code for the frequent label
 					GastonPath<NodeType, EdgeType> code = map.get(label);
 
@@ -87,7 +83,7 @@ public class GastonGraph<NodeType, EdgeType> implements
 						siblings.add(leg);
 						map.put(label, code);
 					}
-					code.toHPFragment().add(tenv.createEmbedding(parent, node));
+					code.getLeg().frag.add(idx, node);
 				}
 			}
 		}
@@ -0,0 +1,337 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.algorithms.gaston;
+
+import static de.parsemis.miner.environment.Debug.VVERBOSE;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import de.parsemis.miner.chain.Extension;
+import de.parsemis.miner.chain.MiningStep;
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.strategy.AbstractWorkStealingStack;
+import de.parsemis.strategy.MiningStack;
+import de.parsemis.utils.CanonicalLabeling;
+import de.parsemis.utils.CanonicalStringSet;
+
+/**
+ * This class implements the per worker deque of the GastonStrategy.
+ * <p>
+ * Paths and trees are kept apart from cycles. The owner extends the cheap
+ * paths and trees first and defers the cycles (up to a limit). The deferred
+ * cycles are de-duplicated in batches, so the set of the found cycles is
+ * locked just once per segment for each batch instead of once per cycle.
+ * <p>
+ * The cost of a node depends on the occurrences of its leg, so thieves take
+ * the oldest nodes until they got half of the occurrences of the deque
+ * instead of half of its nodes.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class GastonStack<NodeType, EdgeType> extends
+		AbstractWorkStealingStack<NodeType, EdgeType> {
+
+	/* an array based deque of nodes with the sum of their occurrences */
+	private static final class Deque<NodeType, EdgeType> {
+		@SuppressWarnings("unchecked")
+		private SearchLatticeNode<NodeType, EdgeType>[] pool = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[16];
+
+		/* index of the oldest node */
+		private int base = 0;
+
+		/* index behind the newest node */
+		private int top = 0;
+
+		long weight = 0;
+
+		/* @return and removes the oldest node */
+		SearchLatticeNode<NodeType, EdgeType> poll() {
+			final SearchLatticeNode<NodeType, EdgeType> ret = pool[base];
+			pool[base++] = null;
+			return removed(ret);
+		}
+
+		/* @return and removes the newest node */
+		SearchLatticeNode<NodeType, EdgeType> pop() {
+			final SearchLatticeNode<NodeType, EdgeType> ret = pool[--top];
+			pool[top] = null;
+			return removed(ret);
+		}
+
+		void push(final SearchLatticeNode<NodeType, EdgeType> node) {
+			if (top == pool.length) {
+				final int size = top - base;
+				if (base > (pool.length >> 1)) {
+					// enough free space at the bottom
+					System.arraycopy(pool, base, pool, 0, size);
+				} else {
+					@SuppressWarnings("unchecked")
+					final SearchLatticeNode<NodeType, EdgeType>[] tmp = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[pool.length << 1];
+					System.arraycopy(pool, base, tmp, 0, size);
+					pool = tmp;
+				}
+				for (int i = size; i < top; ++i) {
+					pool[i] = null;
+				}
+				base = 0;
+				top = size;
+			}
+			pool[top++] = node;
+			weight += weight(node);
+		}
+
+		private SearchLatticeNode<NodeType, EdgeType> removed(
+				final SearchLatticeNode<NodeType, EdgeType> node) {
+			if (top == base) {
+				top = base = 0;
+			}
+			weight -= weight(node);
+			return node;
+		}
+
+		int size() {
+			return top - base;
+		}
+
+		/* @return the newest node */
+		SearchLatticeNode<NodeType, EdgeType> top() {
+			return pool[top - 1];
+		}
+	}
+
+	/* the last step of the pruning chain, that notes reaching nodes */
+	private static final class Reached<NodeType, EdgeType> extends
+			MiningStep<NodeType, EdgeType> {
+		boolean reached;
+
+		Reached() {
+			super(null);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see de.parsemis.miner.chain.MiningStep#call(de.parsemis.miner.chain.SearchLatticeNode,
+		 *      java.util.Collection)
+		 */
+		@Override
+		public void call(final SearchLatticeNode<NodeType, EdgeType> node,
+				final Collection<Extension<NodeType, EdgeType>> extensions) {
+			reached = true;
+		}
+	}
+
+	/* the number of cycles that are de-duplicated at once */
+	private static final int BATCH = 32;
+
+	/* the number of cycles that are deferred at most */
+	private static final int MAX_DEFERRED = 1024;
+
+	/**
+	 * @param node
+	 * @return the estimated cost of the given node
+	 */
+	static final int weight(final SearchLatticeNode<?, ?> node) {
+		return Math.max(1, ((GastonNode<?, ?>) node).getLeg().frag.size());
+	}
+
+	private final Deque<NodeType, EdgeType> paths = new Deque<NodeType, EdgeType>();
+
+	private final Deque<NodeType, EdgeType> cycles = new Deque<NodeType, EdgeType>();
+
+	private final CanonicalStringSet unique;
+
+	private final LocalEnvironment<NodeType, EdgeType> env;
+
+	private final Statistics stats;
+
+	private final Reached<NodeType, EdgeType> reached = new Reached<NodeType, EdgeType>();
+
+	/* the steps of the mining chain in front of the UniqueStep */
+	private final MiningStep<NodeType, EdgeType> pruning;
+
+	/**
+	 * creates a new phase aware stack
+	 *
+	 * @param idx
+	 *            the index of the owning thread
+	 * @param owner
+	 *            the strategy this stack belongs to
+	 * @param algo
+	 *            the algorithm with the set of the canonical strings of the
+	 *            found cycles
+	 */
+	public GastonStack(final int idx,
+			final GastonStrategy<NodeType, EdgeType> owner,
+			final Algorithm<NodeType, EdgeType> algo) {
+		super(idx, owner);
+		this.unique = algo.getUnique();
+		this.env = LocalEnvironment.env(this);
+		this.stats = env.stats;
+		this.pruning = algo.getPruningSteps(reached);
+	}
+
+	/**
+	 * stores the given cycles as unique, or removes their duplicates from the
+	 * list
+	 *
+	 * @param batch
+	 */
+	private void deduplicate(
+			final ArrayList<GastonCycle<NodeType, EdgeType>> batch) {
+		final int[] pos = new int[batch.size()];
+		final byte[][] strings = new byte[batch.size()][];
+		int count = 0;
+		for (int i = 0; i < batch.size(); ++i) {
+			final GastonCycle<NodeType, EdgeType> cycle = batch.get(i);
+			// just cycles that pass the pruning steps of the mining chain
+			// reach the UniqueStep
+			reached.reached = false;
+			pruning.call(cycle, Collections
+					.<Extension<NodeType, EdgeType>> emptyList());
+			if (reached.reached) {
+				pos[count] = i;
+				strings[count++] = CanonicalLabeling.canonicalString(cycle
+						.toHPFragment().toHPGraph(), env);
+			}
+			cycle.checked = true;
+		}
+		final byte[][] checked = new byte[count][];
+		System.arraycopy(strings, 0, checked, 0, count);
+		final boolean[] added = new boolean[count];
+		unique.addAll(checked, added);
+		for (int i = 0; i < count; ++i) {
+			if (!added[i]) {
+				// duplicated graphs need not to be extended or stored
+				final GastonCycle<NodeType, EdgeType> cycle = batch.get(pos[i]);
+				stats.duplicateFragments.inc();
+				cycle.release();
+				cycle.finalizeIt();
+				batch.set(pos[i], null);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.AbstractWorkStealingStack#popLocal()
+	 */
+	@Override
+	public SearchLatticeNode<NodeType, EdgeType> popLocal() {
+		while (true) {
+			final ArrayList<GastonCycle<NodeType, EdgeType>> batch;
+			synchronized (this) {
+				if (cycles.size() == 0
+						|| (paths.size() > 0 && cycles.size() <= MAX_DEFERRED)) {
+					return (paths.size() == 0 ? null : owned(paths.pop()));
+				}
+				if (((GastonCycle<NodeType, EdgeType>) cycles.top()).checked) {
+					return owned(cycles.pop());
+				}
+				batch = new ArrayList<GastonCycle<NodeType, EdgeType>>(BATCH);
+				while (batch.size() < BATCH && cycles.size() > 0
+						&& !((GastonCycle<NodeType, EdgeType>) cycles.top()).checked) {
+					batch.add((GastonCycle<NodeType, EdgeType>) cycles.pop());
+				}
+			}
+			// the canonical strings are computed outside of the own lock
+			deduplicate(batch);
+			synchronized (this) {
+				// the unique cycles are returned in their previous order
+				for (int i = batch.size() - 1; i >= 0; --i) {
+					if (batch.get(i) != null) {
+						cycles.push(batch.get(i));
+					}
+				}
+			}
+			signal();
+		}
+	}
+
+	private SearchLatticeNode<NodeType, EdgeType> owned(
+			final SearchLatticeNode<NodeType, EdgeType> node) {
+		assert node.getThreadNumber() == idx : "wrong Node in GastonStack";
+		return node;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#push(de.parsemis.miner.SearchLatticeNode)
+	 */
+	public SearchLatticeNode<NodeType, EdgeType> push(
+			final SearchLatticeNode<NodeType, EdgeType> object) {
+		object.setThreadNumber(idx);
+		synchronized (this) {
+			(object instanceof GastonCycle ? cycles : paths).push(object);
+		}
+		signal();
+		return object;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#size()
+	 */
+	public synchronized int size() {
+		return paths.size() + cycles.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#split(de.parsemis.strategy.MiningStack)
+	 */
+	public boolean split(final MiningStack<NodeType, EdgeType> other) {
+		final ArrayList<SearchLatticeNode<NodeType, EdgeType>> stolen = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
+		long taken = 0;
+		synchronized (this) {
+			final Deque<NodeType, EdgeType> d = (paths.size() > 0 ? paths
+					: cycles);
+			if (d.size() == 0) {
+				return false;
+			}
+			// take the oldest nodes until half of the occurrences are taken,
+			// but at least one node
+			final long half = d.weight >> 1;
+			do {
+				final SearchLatticeNode<NodeType, EdgeType> node = d.poll();
+				taken += weight(node);
+				stolen.add(node);
+			} while (d.size() > 0 && taken < half);
+		}
+		// push outside of the own lock to avoid lock cycles between thieves
+		for (final SearchLatticeNode<NodeType, EdgeType> node : stolen) {
+			other.push(node);
+		}
+		if (VVERBOSE) {
+			out.println(other + " steals " + stolen.size() + " nodes with "
+					+ taken + " occurrences from " + this);
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "GastonStack-" + idx;
+	}
+
+}
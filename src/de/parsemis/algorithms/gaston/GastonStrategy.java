@@ -0,0 +1,72 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.algorithms.gaston;
+
+import java.util.Collection;
+
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.strategy.AbstractWorkStealingStack;
+import de.parsemis.strategy.WorkStealingStrategy;
+
+/**
+ * This class represents the work stealing search for Gaston, that schedules
+ * paths, trees and cycles differently (see GastonStack).
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class GastonStrategy<NodeType, EdgeType> extends
+		WorkStealingStrategy<NodeType, EdgeType> {
+
+	private Algorithm<NodeType, EdgeType> algo;
+
+	/**
+	 * creates a new GastonStrategy
+	 *
+	 * @param threadcount
+	 *            the number of threads that shall be initiated
+	 * @param stats
+	 *            object to store statistical informations for all threads
+	 */
+	public GastonStrategy(final int threadcount, final Statistics stats) {
+		super(threadcount, stats);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.WorkStealingStrategy#newStack(int)
+	 */
+	@Override
+	protected AbstractWorkStealingStack<NodeType, EdgeType> newStack(
+			final int idx) {
+		return new GastonStack<NodeType, EdgeType>(idx, this, algo);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.WorkStealingStrategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	@Override
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final de.parsemis.algorithms.Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		this.algo = (Algorithm<NodeType, EdgeType>) algo;
+		return super.search(algo, sink);
+	}
+
+}
@@ -23,7 +23,6 @@ import de.parsemis.graph.HPGraph;
 import de.parsemis.miner.chain.Extension;
 import de.parsemis.miner.chain.ExtensionSet;
 import de.parsemis.miner.environment.LocalEnvironment;
-import de.parsemis.miner.general.HPEmbedding;
 
 /**
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
@@ -482,16 +481,18 @@ public class GastonTree<NodeType, EdgeType> extends
 							|| (maxDepth != maxRightDepth && maxDepth != bb.length - 1) || !rmpEqualsbb
 							.get(depth - 1));
 
-			for (final HPEmbedding<NodeType, EdgeType> emb : me.frag) {
-				final int superNode = ((GastonEmbedding<NodeType, EdgeType>) emb)
-						.getSuperNode();
-				final HPGraph<NodeType, EdgeType> g = emb.getSuperGraph();
+			final int[] nodes = new int[me.frag.subgraph.getMaxNodeIndex()];
+			for (int o = 0; o < me.frag.size(); o++) {
+				final int superNode = me.frag.getSuperNode(o);
+				final HPGraph<NodeType, EdgeType> g = me.frag.getSuperGraph(o);
 				final int d = g.getDegree(superNode);
+				me.frag.getSuperNodes(o, nodes);
 
 				for (int i = 0; i < d; i++) {
 					final int edge = g.getNodeEdge(superNode, i);
 					final int oNode = g.getOtherNode(edge, superNode);
-					final int cNode = emb.getSubGraphNode(oNode);
+					final int cNode = GastonFragment.getSubGraphNode(nodes,
+							oNode);
 					final int nli = g.getNodeLabelIndex(oNode, env);
 					final int eli = g.getEdgeLabelIndex(edge, env);
 					if (nli >= 0 && eli >= 0) {
@@ -506,14 +507,13 @@ public class GastonTree<NodeType, EdgeType> extends
 								final Leg<NodeType, EdgeType> n = tenv
 										.getDepth(fromNode, eli, nli, depth,
 												me.frag.subgraph, rpmNodes);
-								n.frag.add(tenv.createEmbedding(emb, oNode));
+								n.frag.add(me.frag, o, oNode);
 							}
 						} else if (tenv.doCycles
 								&& subGraph.getEdge(fromNode, cNode) == HPGraph.NO_EDGE) {
 							final Leg<NodeType, EdgeType> n = tenv.getCycle(
 									fromNode, eli, cNode, me.frag.subgraph);
-							n.frag.add(tenv.createEmbedding(emb,
-									HPGraph.NO_NODE));
+							n.frag.add(me.frag, o, HPGraph.NO_NODE);
 							sort = true;
 						}
 					}
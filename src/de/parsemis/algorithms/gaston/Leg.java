@@ -97,10 +97,6 @@ public class Leg<NodeType, EdgeType> implements Generic<NodeType, EdgeType>,
 		return frag.frequency();
 	}
 
-	private final GastonEmbedding<NodeType, EdgeType> get(final int index) {
-		return (GastonEmbedding<NodeType, EdgeType>) frag.get(index);
-	}
-
 	public int getDepth() {
 		return ref.getDepth();
 	}
@@ -134,101 +130,83 @@ public class Leg<NodeType, EdgeType> implements Generic<NodeType, EdgeType>,
 		 * the optimized joining algorithm of the original implementation
 		 * (invariant test are separated)
 		 */
-		final Leg<NodeType, EdgeType> leg2 = this;
 		final Leg<NodeType, EdgeType> newLeg = extend(leg1);
+		final GastonFragment<NodeType, EdgeType> f1 = leg1.frag;
+		final GastonFragment<NodeType, EdgeType> f2 = this.frag;
+		final GastonFragment<NodeType, EdgeType> f = newLeg.frag;
 
-		final int end1 = leg1.frag.size();
-		final int end2 = this.frag.size();
+		final int end1 = f1.size();
+		final int end2 = f2.size();
 		int a1 = 0;
 		int a2 = 0;
 
-		// merge all embeddings of leg1 with the embeddings of leg2 that has the
-		// same parent embeddings
+		// merge all occurrences of leg1 with the occurrences of leg2 that has
+		// the same parent occurrence
 
 		if (ref.isCycleRefinement() && (this != leg1)) {
 
 			while (a1 < end1 && a2 < end2) {
-				final int id2 = leg2.get(a2).getParentId();
-				// skip embeddings with a lesser parent id than the one of leg2
-				while (a1 < end1 && leg1.get(a1).getParentId() < id2) {
+				final int id2 = f2.getParent(a2);
+				// skip occurrences with a lesser parent than the one of leg2
+				while (a1 < end1 && f1.getParent(a1) < id2) {
 					a1++;
 				}
 				if (a1 < end1) {
-					final int id1 = leg1.get(a1).getParentId();
-					// skip embeddings with a lesser parent id than the one of
+					final int id1 = f1.getParent(a1);
+					// skip occurrences with a lesser parent than the one of
 					// leg1
-					while (a2 < end2 && leg2.get(a2).getParentId() < id1) {
+					while (a2 < end2 && f2.getParent(a2) < id1) {
 						a2++;
 					}
 
 					final int m2 = a2;
-					{
-						final GastonEmbedding<NodeType, EdgeType> e1 = leg1
-								.get(a1);
-						while (a2 < end2) {
-							// merge embedding a1 with all embeddings from leg2
-							// with the same parent id as a1 (if available)
-							final GastonEmbedding<NodeType, EdgeType> e2 = leg2
-									.get(a2);
-							final int id3 = e2.getParentId();
-							if (id3 != id1) {
-								break;
-							}
-							newLeg.frag.add(tenv.createEmbedding(e1, e2
-									.getSuperNode()));
-							a2++;
+					while (a2 < end2) {
+						// merge occurrence a1 with all occurrences from leg2
+						// with the same parent as a1 (if available)
+						if (f2.getParent(a2) != id1) {
+							break;
 						}
+						f.add(f1, a1, f2.getSuperNode(a2));
+						a2++;
 					}
 					// there are equals parents, than check the next ones in
 					// leg1
 					if (a2 != m2) {
-						for (a1++; a1 < end1
-								&& leg1.get(a1).getParentId() == id1; a1++) {
-							final GastonEmbedding<NodeType, EdgeType> e1 = leg1
-									.get(a1);
+						for (a1++; a1 < end1 && f1.getParent(a1) == id1; a1++) {
 							for (int e = m2; e < a2; e++) {
-								final GastonEmbedding<NodeType, EdgeType> e2 = leg2
-										.get(e);
-								newLeg.frag.add(tenv.createEmbedding(e1, e2
-										.getSuperNode()));
+								f.add(f1, a1, f2.getSuperNode(e));
 							}
 						}
 					}
 				}
 			} // do until end of one leg
 		} else {
-			// same as above, but just merge embeddings with different nodes
+			// same as above, but just merge occurrences with different nodes
 			while (a1 < end1 && a2 < end2) {
-				final int id2 = leg2.get(a2).getParentId();
-				// skip embeddings with a lesser parent id than the one of leg2
-				while (a1 < end1 && leg1.get(a1).getParentId() < id2) {
+				final int id2 = f2.getParent(a2);
+				// skip occurrences with a lesser parent than the one of leg2
+				while (a1 < end1 && f1.getParent(a1) < id2) {
 					a1++;
 				}
 				if (a1 < end1) {
-					final int id1 = leg1.get(a1).getParentId();
-					// skip embeddings with a lesser parent id than the one of
+					final int id1 = f1.getParent(a1);
+					// skip occurrences with a lesser parent than the one of
 					// leg1
-					while (a2 < end2 && leg2.get(a2).getParentId() < id1) {
+					while (a2 < end2 && f2.getParent(a2) < id1) {
 						a2++;
 					}
 
 					final int m2 = a2;
 					{
-						final GastonEmbedding<NodeType, EdgeType> e1 = leg1
-								.get(a1);
-						final int node1 = e1.getSuperNode();
+						final int node1 = f1.getSuperNode(a1);
 						while (a2 < end2) {
-							// merge embedding a1 with all embeddings from leg2
-							// with the same parent id as a1 (if available)
-							final GastonEmbedding<NodeType, EdgeType> e2 = leg2
-									.get(a2);
-							final int id3 = e2.getParentId();
-							if (id3 != id1) {
+							// merge occurrence a1 with all occurrences from
+							// leg2 with the same parent as a1 (if available)
+							if (f2.getParent(a2) != id1) {
 								break;
 							}
-							if (node1 != e2.getSuperNode()) {
-								newLeg.frag.add(tenv.createEmbedding(e1, e2
-										.getSuperNode()));
+							if (node1 != f2.getSuperNode(a2)) {
+								f.add(f1, a1, f2.getSuperNode(a2));
 							}
 							a2++;
 						}
@@ -236,18 +214,11 @@ public class Leg<NodeType, EdgeType> implements Generic<NodeType, EdgeType>,
 					// there are equals parents, than check the next ones in
 					// leg1
 					if (a2 != m2) {
-						for (a1++; a1 < end1
-								&& leg1.get(a1).getParentId() == id1; a1++) {
-							final GastonEmbedding<NodeType, EdgeType> e1 = leg1
-									.get(a1);
-							final int node1 = e1.getSuperNode();
-
+						for (a1++; a1 < end1 && f1.getParent(a1) == id1; a1++) {
+							final int node1 = f1.getSuperNode(a1);
 							for (int e = m2; e < a2; e++) {
-								final GastonEmbedding<NodeType, EdgeType> e2 = leg2
-										.get(e);
-								if (node1 != e2.getSuperNode()) {
-									newLeg.frag.add(tenv.createEmbedding(e1, e2
-											.getSuperNode()));
+								if (node1 != f2.getSuperNode(e)) {
+									f.add(f1, a1, f2.getSuperNode(e));
 								}
 							}
 						}
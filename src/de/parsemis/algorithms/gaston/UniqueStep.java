@@ -16,12 +16,14 @@ package de.parsemis.algorithms.gaston;
 
 import java.util.Collection;
 
-import de.parsemis.graph.HPGraph;
 import de.parsemis.miner.chain.Extension;
 import de.parsemis.miner.chain.MiningStep;
 import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Relabler;
 import de.parsemis.miner.environment.Statistics;
+import de.parsemis.utils.CanonicalLabeling;
+import de.parsemis.utils.CanonicalStringSet;
 
 /**
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
@@ -36,15 +38,17 @@ import de.parsemis.miner.environment.Statistics;
 public class UniqueStep<NodeType, EdgeType> extends
 		MiningStep<NodeType, EdgeType> {
 
-	final private Collection<HPGraph<NodeType, EdgeType>> found;
+	final private CanonicalStringSet found;
+
+	final private Relabler<NodeType, EdgeType> rel;
 
 	final private Statistics stats;
 
 	public UniqueStep(final MiningStep<NodeType, EdgeType> next,
-			final Collection<HPGraph<NodeType, EdgeType>> unique,
-			final Statistics stats) {
+			final CanonicalStringSet unique, final Statistics stats) {
 		super(next);
 		found = unique;
+		rel = LocalEnvironment.env(this);
 		this.stats = stats;
 	}
 
@@ -57,17 +61,17 @@ public class UniqueStep<NodeType, EdgeType> extends
 	@Override
 	public void call(final SearchLatticeNode<NodeType, EdgeType> node,
 			final Collection<Extension<NodeType, EdgeType>> extensions) {
-		if (node instanceof GastonCycle) {
+		if (node instanceof GastonCycle
+				&& !((GastonCycle<NodeType, EdgeType>) node).checked) {
 			assert node.toHPFragment().toHPGraph() != null : node;
-			final long before = System.currentTimeMillis();
-			synchronized (found) {
-				stats.syncTime[3] += System.currentTimeMillis() - before;
-				if (!found.add(node.toHPFragment().toHPGraph())) {
-					node.store(false);
-					LocalEnvironment.env(this).stats.duplicateFragments++;
-					// duplicated graphs need not to be extended
-					return;
-				}
+			// just the canonical string of the graph is stored, and the set
+			// is thread safe, so no global lock is required
+			if (!found.add(CanonicalLabeling.canonicalString(node
+					.toHPFragment().toHPGraph(), rel))) {
+				node.store(false);
+				stats.duplicateFragments.inc();
+				// duplicated graphs need not to be extended
+				return;
 			}
 		}
 		this.callNext(node, extensions);
@@ -140,13 +140,25 @@ public class HPListGraph<NodeType, EdgeType> implements
 
 	EdgeType[] edge_labels;
 
-	private transient Relabler<NodeType, EdgeType> lastNodeRelabler = null;
+	/**
+	 * the label indices of all nodes or edges for the relabler they are
+	 * interned with; a new instance is published for each new relabler, so a
+	 * reader never sees the indices of one relabler together with another
+	 */
+	private static final class LabelIndices {
+		final Relabler<?, ?> rel;
 
-	private transient Relabler<NodeType, EdgeType> lastEdgeRelabler = null;
+		final int[] idx;
 
-	private transient int[] node_lidx;
+		LabelIndices(final Relabler<?, ?> rel, final int[] idx) {
+			this.rel = rel;
+			this.idx = idx;
+		}
+	}
 
-	private transient int[] edge_lidx;
+	private transient volatile LabelIndices node_lidx;
+
+	private transient volatile LabelIndices edge_lidx;
 
 	private transient BitSet edges;
 
@@ -576,22 +588,33 @@ public class HPListGraph<NodeType, EdgeType> implements
 	 */
 	public int getEdgeLabelIndex(final int edgeIdx,
 			final Relabler<NodeType, EdgeType> rel) {
-		if (this.edge_lidx == null || lastEdgeRelabler != rel) {
-			synchronized (this) {
-				if (this.edge_lidx == null || lastEdgeRelabler != rel) {
-					edge_lidx = new int[edge_labels.length];
-					lastEdgeRelabler = rel;
-				}
-			}
+		LabelIndices lidx = this.edge_lidx;
+		if (lidx == null || lidx.rel != rel) {
+			lidx = internEdgeLabels(rel);
 		}
 		// is just correct if you do not use different relabler!!
-		if (this.edge_lidx[edgeIdx] == 0) {
-			final int l = rel.getEdgeLabelIndex(edge_labels[edgeIdx]);
-			edge_lidx[edgeIdx] = l + 2;
-			return l;
-		} else {
-			return edge_lidx[edgeIdx] - 2;
+		return lidx.idx[edgeIdx];
+	}
+
+	/**
+	 * interns the labels of all edges with the given relabler at once
+	 * 
+	 * @param rel
+	 * @return the label indices of all edges
+	 */
+	private synchronized LabelIndices internEdgeLabels(
+			final Relabler<NodeType, EdgeType> rel) {
+		LabelIndices lidx = this.edge_lidx;
+		if (lidx == null || lidx.rel != rel) {
+			final int[] idx = new int[edge_labels.length];
+			for (int i = 0; i < idx.length; ++i) {
+				idx[i] = (isValidEdge(i) ? rel
+						.getEdgeLabelIndex(edge_labels[i]) : -1);
+			}
+			lidx = new LabelIndices(rel, idx);
+			edge_lidx = lidx;
 		}
+		return lidx;
 	}
 
 	/*
@@ -754,22 +777,33 @@ public class HPListGraph<NodeType, EdgeType> implements
 	 */
 	public int getNodeLabelIndex(final int nodeIdx,
 			final Relabler<NodeType, EdgeType> rel) {
-		if (this.node_lidx == null || lastNodeRelabler != rel) {
-			synchronized (this) {
-				if (this.node_lidx == null || lastNodeRelabler != rel) {
-					node_lidx = new int[node_labels.length];
-					lastNodeRelabler = rel;
-				}
-			}
+		LabelIndices lidx = this.node_lidx;
+		if (lidx == null || lidx.rel != rel) {
+			lidx = internNodeLabels(rel);
 		}
 		// is just correct if you do not use different relabler!!
-		if (this.node_lidx[nodeIdx] == 0) {
-			final int l = rel.getNodeLabelIndex(node_labels[nodeIdx]);
-			node_lidx[nodeIdx] = l + 2;
-			return l;
-		} else {
-			return node_lidx[nodeIdx] - 2;
+		return lidx.idx[nodeIdx];
+	}
+
+	/**
+	 * interns the labels of all nodes with the given relabler at once
+	 * 
+	 * @param rel
+	 * @return the label indices of all nodes
+	 */
+	private synchronized LabelIndices internNodeLabels(
+			final Relabler<NodeType, EdgeType> rel) {
+		LabelIndices lidx = this.node_lidx;
+		if (lidx == null || lidx.rel != rel) {
+			final int[] idx = new int[node_labels.length];
+			for (int i = 0; i < idx.length; ++i) {
+				idx[i] = (isValidNode(i) ? rel
+						.getNodeLabelIndex(node_labels[i]) : -1);
+			}
+			lidx = new LabelIndices(rel, idx);
+			node_lidx = lidx;
 		}
+		return lidx;
 	}
 
 	/*
@@ -28,6 +28,8 @@ import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.environment.Statistics;
 import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
 import de.parsemis.strategy.LocalStack;
 import de.parsemis.strategy.MiningStack;
 import de.parsemis.strategy.StackList;
@@ -75,6 +77,18 @@ public class JavaPartyStrategy<NodeType, EdgeType> implements
 	 */
 	public Collection<Fragment<NodeType, EdgeType>> search(
 			final Algorithm<NodeType, EdgeType> algo) {
+		return search(algo, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
 		final StackList<NodeType, EdgeType> sl = new RemoteStackList<NodeType, EdgeType>();
 		final long tmp2 = System.currentTimeMillis();
 		if (VERBOSE) {
@@ -88,8 +102,11 @@ public class JavaPartyStrategy<NodeType, EdgeType> implements
 			mine.push(it.next());
 		}
 
-		// initialize worker for the current thread
-		final Collection<Fragment<NodeType, EdgeType>> ret = new ArrayList<Fragment<NodeType, EdgeType>>();
+		// initialize worker for the current thread (the fragments of the
+		// remote workers are forwarded to the sink after they are finished)
+		final Collection<Fragment<NodeType, EdgeType>> ret = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+				sink)
+				: new ArrayList<Fragment<NodeType, EdgeType>>());
 		final Worker<NodeType, EdgeType> me = new Worker<NodeType, EdgeType>(
 				mine, ret, algo.getExtender(0), 0);
 
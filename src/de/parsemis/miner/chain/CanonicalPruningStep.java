@@ -17,6 +17,7 @@ package de.parsemis.miner.chain;
 import java.util.Collection;
 
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
 import de.parsemis.utils.Canonizable;
 
 /**
@@ -53,12 +54,16 @@ public class CanonicalPruningStep<NodeType, EdgeType> extends
 	public void call(final SearchLatticeNode<NodeType, EdgeType> node,
 			final Collection<Extension<NodeType, EdgeType>> extensions) {
 		final Canonizable can = (Canonizable) node;
+		final Statistics stats = LocalEnvironment.env(this).stats;
 
-		if (can.isCanonical()) {
+		final long before = System.nanoTime();
+		final boolean canonical = can.isCanonical();
+		stats.canonicalTestTime.record(System.nanoTime() - before);
+		if (canonical) {
 			this.callNext(node, extensions);
 		} else {
 			node.store(false);
-			LocalEnvironment.env(this).stats.duplicateFragments++;
+			stats.duplicateFragments.inc();
 		}
 
 	}
@@ -55,7 +55,7 @@ public class ConnectedPruningStep<NodeType, EdgeType> extends
 
 		if (!GraphUtils.isConnected(node.toHPFragment().toHPGraph())) {
 			node.store(false);
-			LocalEnvironment.env(this).stats.unconnectedFragments++;
+			LocalEnvironment.env(this).stats.unconnectedFragments.inc();
 		}
 		this.callNext(node, extensions);
 
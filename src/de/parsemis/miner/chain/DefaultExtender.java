@@ -113,13 +113,12 @@ public class DefaultExtender<NodeType, EdgeType> extends
 		dummy.clear();
 		// start the run thru the chain for the given node
 		callFirst(node, dummy);
+		final Statistics stats = LocalEnvironment.env(this).stats;
+		stats.extensionsPerNode.record(children.size());
 		if (INFO) {
-			final Statistics stats = LocalEnvironment.env(this).stats;
-			synchronized (stats.syncTime) {
-				stats.syncTime[1] += System.currentTimeMillis() - before;
-				if (node instanceof GastonCycle)
-					stats.unconnectedFragments++;
-			}
+			stats.syncTime[1].add(System.currentTimeMillis() - before);
+			if (node instanceof GastonCycle)
+				stats.unconnectedFragments.inc();
 		}
 		return children;
 	}
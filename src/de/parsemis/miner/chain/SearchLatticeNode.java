@@ -46,6 +46,9 @@ public abstract class SearchLatticeNode<NodeType, EdgeType> implements
 	 */
 	private boolean store = true;
 
+	/** the index of the initial node this node is derived from */
+	private int root = -1;
+
 	protected SearchLatticeNode() {
 		this.level = -1;
 	}
@@ -81,6 +84,14 @@ public abstract class SearchLatticeNode<NodeType, EdgeType> implements
 		return level;
 	}
 
+	/**
+	 * @return the index of the initial node this node is derived from, or
+	 *         <code>-1</code> if unknown
+	 */
+	public final int getRoot() {
+		return root;
+	}
+
 	/**
 	 * gets the thread index of the SearchLatticeNode
 	 * 
@@ -111,6 +122,15 @@ public abstract class SearchLatticeNode<NodeType, EdgeType> implements
 		this.level = level;
 	}
 
+	/**
+	 * sets the index of the initial node this node is derived from
+	 * 
+	 * @param root
+	 */
+	public final void setRoot(final int root) {
+		this.root = root;
+	}
+
 	/**
 	 * sets the thread index of the SearchLatticeNode
 	 * 
@@ -0,0 +1,156 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.miner.environment;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.BitSet;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+
+/**
+ * This class represents the time and memory limits of an anytime search.
+ *
+ * The strategies ask the budget before each extension. If it is exhausted,
+ * no further node is extended, but the already found fragments are returned
+ * as usual. If the budget is nearly exhausted, each worker extends no nodes
+ * deeper than the one it works on, so that the remaining time and memory is
+ * spent on the smaller fragments.
+ */
+public final class Budget implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** the part of a budget after that it is treated as nearly exhausted */
+	public static final double NEAR = 0.8;
+
+	/** the minimal time (in ms) between two garbage collections */
+	private static final long GC_INTERVAL = 1000;
+
+	private final long time;
+
+	private final long heap;
+
+	private volatile long deadline = Long.MAX_VALUE, nearline = Long.MAX_VALUE;
+
+	private transient long lastGC = 0;
+
+	private volatile String exceeded = null;
+
+	private long unexplored = 0;
+
+	private int minLevel = Integer.MAX_VALUE;
+
+	private final BitSet roots = new BitSet();
+
+	/**
+	 * creates a new Budget
+	 *
+	 * @param time
+	 *            the maximal time (in ms) of the search, or 0 for no limit
+	 * @param heap
+	 *            the maximal used heap (in bytes), or 0 for no limit
+	 */
+	public Budget(final long time, final long heap) {
+		this.time = time;
+		this.heap = heap;
+	}
+
+	/**
+	 * @return <code>true</code>, if no further node shall be extended
+	 */
+	public boolean exhausted() {
+		if (exceeded != null) {
+			return true;
+		}
+		if (System.currentTimeMillis() > deadline) {
+			exceeded = "time budget of " + (time / 1000.0) + "s";
+		} else if (heap > 0 && usedHeap() > heap && collect()
+				&& usedHeap() > heap) {
+			exceeded = "heap budget of " + (heap >> 20) + "MB";
+		}
+		return exceeded != null;
+	}
+
+	/**
+	 * @return <code>true</code>, if the budget is exhausted or nearly exhausted
+	 */
+	public boolean near() {
+		return exceeded != null || System.currentTimeMillis() > nearline
+				|| (heap > 0 && usedHeap() > NEAR * heap);
+	}
+
+	/**
+	 * prints which parts of the search lattice are left unexplored
+	 *
+	 * @param out
+	 */
+	public synchronized void report(final PrintStream out) {
+		if (unexplored == 0) {
+			return;
+		}
+		out.println("search stopped by the "
+				+ (exceeded != null ? exceeded : "nearly exhausted budget")
+				+ ": " + unexplored + " search nodes (from level " + minLevel
+				+ ")" + (roots.isEmpty() ? "" : " below " + roots.cardinality()
+						+ " initial nodes") + " are left unexplored");
+	}
+
+	/**
+	 * marks the given node as not extended
+	 *
+	 * @param node
+	 */
+	public synchronized void skip(final SearchLatticeNode<?, ?> node) {
+		unexplored++;
+		minLevel = Math.min(minLevel, node.getLevel());
+		if (node.getRoot() >= 0) {
+			roots.set(node.getRoot());
+		}
+	}
+
+	/**
+	 * starts the time budget
+	 */
+	public synchronized void start() {
+		final long now = System.currentTimeMillis();
+		if (time > 0) {
+			deadline = now + time;
+			nearline = now + (long) (NEAR * time);
+		}
+		exceeded = null;
+		unexplored = 0;
+		minLevel = Integer.MAX_VALUE;
+		roots.clear();
+	}
+
+	/**
+	 * @return the number of nodes that are not extended
+	 */
+	public synchronized long unexplored() {
+		return unexplored;
+	}
+
+	/** collects the garbage, if not done recently */
+	private boolean collect() {
+		final long now = System.currentTimeMillis();
+		if (now - lastGC < GC_INTERVAL) {
+			return false;
+		}
+		lastGC = now;
+		System.gc();
+		return true;
+	}
+
+	private static long usedHeap() {
+		final Runtime rt = Runtime.getRuntime();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.miner.environment;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * This class interns the labels of a graph database into dense integers.
+ *
+ * The labels are numbered in the order of the given collection, so the
+ * indices are the same as the ones of a list with these labels. In contrast
+ * to <code>List.indexOf(..)</code>, both directions are answered in constant
+ * time.
+ *
+ * @param <LabelType>
+ *            the type of the labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public final class LabelDictionary<LabelType> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ArrayList<LabelType> labels;
+
+	private final HashMap<LabelType, Integer> indices;
+
+	/**
+	 * creates a new dictionary for the given labels
+	 *
+	 * @param labels
+	 *            the labels in the order of their indices
+	 */
+	public LabelDictionary(final Collection<LabelType> labels) {
+		this.labels = new ArrayList<LabelType>(labels);
+		this.indices = new HashMap<LabelType, Integer>(
+				2 * this.labels.size() + 1);
+		for (int i = 0; i < this.labels.size(); ++i) {
+			final LabelType label = this.labels.get(i);
+			// equal labels keep the first index, like indexOf(..)
+			if (!indices.containsKey(label)) {
+				indices.put(label, i);
+			}
+		}
+	}
+
+	/**
+	 * @param idx
+	 * @return the label with the given index
+	 */
+	public LabelType getLabel(final int idx) {
+		return labels.get(idx);
+	}
+
+	/**
+	 * @param label
+	 * @return the index of the given label, or -1 if the label is unknown
+	 */
+	public int getIndex(final LabelType label) {
+		final Integer idx = indices.get(label);
+		return (idx == null ? -1 : idx.intValue());
+	}
+
+	/**
+	 * @return the number of known labels
+	 */
+	public int size() {
+		return labels.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return labels.toString();
+	}
+
+}
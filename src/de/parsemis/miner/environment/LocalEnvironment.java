@@ -33,7 +33,9 @@ import de.parsemis.miner.general.Fragment;
 import de.parsemis.miner.general.Frequency;
 import de.parsemis.miner.general.IntFrequency;
 import de.parsemis.parsers.GraphParser;
+import de.parsemis.strategy.AdaptiveSplitPolicy;
 import de.parsemis.strategy.MiningStack;
+import de.parsemis.utils.AsyncFileSerializeCollection;
 import de.parsemis.utils.FileSerializeCollection;
 import de.parsemis.utils.Generic;
 
@@ -205,6 +207,12 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 
 	public final boolean storeHierarchicalEmbeddings;
 
+	/** keep the occurrences of gSpan fragments instead of searching them */
+	public final boolean embeddingLists;
+
+	/** the number of tasks of each embedding search of gSpan */
+	public final int embeddingTasks;
+
 	public final boolean findPathsOnly;
 
 	public final boolean findTreesOnly;
@@ -219,14 +227,28 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 
 	public final boolean usePooling;
 
+	/** the maximal size of each object pool of a thread, or 0 for no limit */
+	public final int poolLimit;
+
 	public final boolean closeGraph;
 
+	public final boolean asyncIO;
+
 	public final GraphParser<NodeType, EdgeType> parser;
 
 	public final GraphParser<NodeType, EdgeType> serializer;
 
 	public final String objectFileName;
 
+	/** the directory checkpoints are written to, or <code>null</code> */
+	public final String checkpointDir;
+
+	/** the time (in ms) between two checkpoints */
+	public final long checkpointInterval;
+
+	/** the directory of the checkpoint to resume, or <code>null</code> */
+	public final String resumeDir;
+
 	public final Frequency minFreq;
 
 	public final Frequency maxFreq;
@@ -254,15 +276,21 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	/** the maximal number of nodes transfered with a stack split */
 	public final int maxSplitCount;
 
+	/** the cost model for stack splits, if adaptive splitting is enabled */
+	public final transient AdaptiveSplitPolicy splitPolicy;
+
+	/** the time and memory limits of the search, or <code>null</code> */
+	public final Budget budget;
+
 	public final GraphFactory<NodeType, EdgeType> factory;
 
 	private final int graphCount;
 
 	private transient DataBaseGraph<NodeType, EdgeType>[] graphs;
 
-	private final ArrayList<NodeType> nodes;
+	private final LabelDictionary<NodeType> nodes;
 
-	private final ArrayList<EdgeType> edges;
+	private final LabelDictionary<EdgeType> edges;
 
 	public transient FragmentFilter<NodeType, EdgeType> filter = null;
 
@@ -275,7 +303,7 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	/** array of "all" stack on the local machine */
 	transient public MiningStack<NodeType, EdgeType>[] stack;
 
-	Collection<Fragment<NodeType, EdgeType>> returnSet = null;
+	transient Collection<Fragment<NodeType, EdgeType>> returnSet = null;
 
 	private final ThreadEnvironmentFactory<NodeType, EdgeType> tenvfac;
 
@@ -291,18 +319,23 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 			final ThreadEnvironmentFactory<NodeType, EdgeType> envFac) {
 		this.graphCount = graphCount;
 		this.graphs = new DataBaseGraph[graphCount];
-		this.nodes = nodes;
-		this.edges = edges;
+		this.nodes = new LabelDictionary<NodeType>(nodes);
+		this.edges = new LabelDictionary<EdgeType>(edges);
 		this.embeddingBased = settings.embeddingBased;
 		this.storeEmbeddings = settings.storeEmbeddings;
 		this.storeHierarchicalEmbeddings = settings.storeHierarchicalEmbeddings;
+		this.embeddingLists = settings.embeddingLists
+				&& !settings.storeEmbeddings;
+		this.embeddingTasks = Math.max(1, settings.embeddingTasks);
 		this.connectedFragments = settings.connectedFragments;
 		this.closeGraph = settings.closeGraph;
+		this.asyncIO = settings.asyncIO;
 		this.shrink = settings.shrink;
 		this.zaretsky = settings.zaretsky;
 		this.singleRooted = settings.singleRooted;
 		this.javaparty = settings.javaparty;
 		this.usePooling = settings.usePooling;
+		this.poolLimit = Math.max(0, settings.poolLimit);
 		this.factory = settings.factory;
 		this.parser = settings.parser;
 		this.serializer = settings.serializer;
@@ -321,11 +354,17 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 		this.splitSize = settings.splitSize;
 		this.maxSplitCount = settings.maxSplitCount;
 		this.maxSplitDepth = settings.maxSplitDepth;
+		this.splitPolicy = (settings.adaptiveSplitting ? new AdaptiveSplitPolicy(
+				settings.threadCount)
+				: null);
+		this.budget = settings.budget;
 		this.tenvfac = envFac;
 		this.objectFileName = settings.objectFileName;
+		this.checkpointDir = settings.checkpointDir;
+		this.checkpointInterval = settings.checkpointInterval * 1000L;
+		this.resumeDir = settings.resumeDir;
 		if (objectFileName != null) {
-			returnSet = new FileSerializeCollection<Fragment<NodeType, EdgeType>>(
-					objectFileName);
+			returnSet = newSwapCollection(objectFileName);
 		}
 
 		this.findPathsOnly = settings.pathsOnly;
@@ -347,7 +386,7 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	 * @see de.parsemis.utils.Relabler#getEdgeLabel(int)
 	 */
 	public EdgeType getEdgeLabel(final int idx) {
-		return edges.get(idx);
+		return edges.getLabel(idx);
 	}
 
 	/*
@@ -356,7 +395,7 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	 * @see de.parsemis.utils.Relabler#getEdgeLabelIndex(null)
 	 */
 	public int getEdgeLabelIndex(final EdgeType edge) {
-		return edges.indexOf(edge);
+		return edges.getIndex(edge);
 	}
 
 	/*
@@ -377,7 +416,7 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	 * @see de.parsemis.utils.Relabler#getNodeLabel(int)
 	 */
 	public NodeType getNodeLabel(final int idx) {
-		return nodes.get(idx);
+		return nodes.getLabel(idx);
 	}
 
 	/*
@@ -386,7 +425,7 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 	 * @see de.parsemis.utils.Relabler#getNodeLabelIndex(null)
 	 */
 	public int getNodeLabelIndex(final NodeType node) {
-		return nodes.indexOf(node);
+		return nodes.getIndex(node);
 	}
 
 	public final Collection<Fragment<NodeType, EdgeType>> getReturnSet() {
@@ -434,6 +473,20 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 		return graphCount;
 	}
 
+	/**
+	 * @return the number of known node labels
+	 */
+	public int nodeLabelCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * @return the number of known edge labels
+	 */
+	public int edgeLabelCount() {
+		return edges.size();
+	}
+
 	/**
 	 * @return a new frequency object
 	 */
@@ -441,6 +494,17 @@ public class LocalEnvironment<NodeType, EdgeType> implements
 		return new IntFrequency(0);
 	}
 
+	/**
+	 * @param <Type>
+	 * @param filename
+	 * @return a new collection that swaps its elements to the given file
+	 */
+	public final <Type extends Serializable> FileSerializeCollection<Type> newSwapCollection(
+			final String filename) {
+		return (asyncIO ? new AsyncFileSerializeCollection<Type>(filename)
+				: new FileSerializeCollection<Type>(filename));
+	}
+
 	/**
 	 * @return a new Graph according to the configured factory
 	 */
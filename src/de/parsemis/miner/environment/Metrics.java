@@ -0,0 +1,344 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.miner.environment;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a registry of named counters and histograms that are updated
+ * concurrently by the threads of a search.
+ * <p>
+ * Each counter and histogram is striped: each thread updates the cells of
+ * its own stripe, and the stripes are placed in different cache lines, so
+ * the threads do not contend for the same cells. The stripes are summed up,
+ * if a value is read.
+ */
+public final class Metrics implements Serializable {
+
+	/**
+	 * A counter that is summed up over all threads.
+	 */
+	public static final class Counter implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final AtomicLongArray cells = new AtomicLongArray(STRIPES
+				* LINE);
+
+		Counter() {
+		}
+
+		/**
+		 * adds the given value for the current thread
+		 *
+		 * @param value
+		 */
+		public void add(final long value) {
+			cells.addAndGet(stripe(cells.length(), LINE), value);
+		}
+
+		/**
+		 * @return the sum of the values of all threads
+		 */
+		public long get() {
+			long sum = 0;
+			for (int i = 0; i < cells.length(); i += LINE) {
+				sum += cells.get(i);
+			}
+			return sum;
+		}
+
+		/**
+		 * increments the counter for the current thread
+		 */
+		public void inc() {
+			add(1);
+		}
+
+		/* clears the values of all threads */
+		void reset() {
+			for (int i = 0; i < cells.length(); i += LINE) {
+				cells.set(i, 0);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return Long.toString(get());
+		}
+	}
+
+	/**
+	 * A histogram of non-negative values with buckets of powers of two. Bucket
+	 * 0 counts the values less than 1, and bucket i the values in
+	 * [2^(i-1), 2^i).
+	 */
+	public static final class Histogram implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final int BUCKETS = 64;
+
+		/* the buckets and the sum of a stripe, filling whole cache lines */
+		private static final int WIDTH = (BUCKETS + LINE) / LINE * LINE;
+
+		private final AtomicLongArray cells = new AtomicLongArray(STRIPES
+				* WIDTH);
+
+		Histogram() {
+		}
+
+		/* @return the counts of each bucket over all threads */
+		private long[] buckets() {
+			final long[] ret = new long[BUCKETS + 1];
+			for (int s = 0; s < cells.length(); s += WIDTH) {
+				for (int i = 0; i <= BUCKETS; ++i) {
+					ret[i] += cells.get(s + i);
+				}
+			}
+			return ret;
+		}
+
+		/**
+		 * @return the number of recorded values
+		 */
+		public long count() {
+			return count(buckets());
+		}
+
+		/**
+		 * @param p
+		 *            the requested fraction of all values (between 0 and 1)
+		 * @return an upper bound of the given percentile of the recorded
+		 *         values
+		 */
+		public long percentile(final double p) {
+			final long[] buckets = buckets();
+			return percentile(buckets, count(buckets), p);
+		}
+
+		/**
+		 * records the given value for the current thread
+		 *
+		 * @param value
+		 */
+		public void record(final long value) {
+			final int base = stripe(cells.length(), WIDTH);
+			cells.incrementAndGet(base
+					+ (value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value)));
+			cells.addAndGet(base + BUCKETS, value);
+		}
+
+		/* clears the values of all threads */
+		void reset() {
+			for (int i = 0; i < cells.length(); ++i) {
+				cells.set(i, 0);
+			}
+		}
+
+		/**
+		 * @return the sum of the recorded values
+		 */
+		public long sum() {
+			return buckets()[BUCKETS];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			final long[] buckets = buckets();
+			final long count = count(buckets);
+			return "count=" + count + " mean="
+					+ (count == 0 ? 0 : buckets[BUCKETS] / count) + " p50<="
+					+ percentile(buckets, count, 0.5) + " p90<="
+					+ percentile(buckets, count, 0.9) + " p99<="
+					+ percentile(buckets, count, 0.99) + " max<="
+					+ percentile(buckets, count, 1);
+		}
+
+		/* appends the JSON object of this histogram to the given buffer */
+		void toJSON(final StringBuilder b) {
+			final long[] buckets = buckets();
+			final long count = count(buckets);
+			b.append("{\"count\":").append(count);
+			b.append(",\"sum\":").append(buckets[BUCKETS]);
+			b.append(",\"p50\":").append(percentile(buckets, count, 0.5));
+			b.append(",\"p90\":").append(percentile(buckets, count, 0.9));
+			b.append(",\"p99\":").append(percentile(buckets, count, 0.99));
+			b.append(",\"max\":").append(percentile(buckets, count, 1));
+			b.append('}');
+		}
+
+		private static long count(final long[] buckets) {
+			long count = 0;
+			for (int i = 0; i < BUCKETS; ++i) {
+				count += buckets[i];
+			}
+			return count;
+		}
+
+		private static long percentile(final long[] buckets, final long count,
+				final double p) {
+			final long rank = (long) Math.ceil(p * count);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; ++i) {
+				seen += buckets[i];
+				if (buckets[i] > 0 && seen >= rank) {
+					// the upper bound of the bucket (0 for bucket 0)
+					return (1L << i) - 1;
+				}
+			}
+			return 0;
+		}
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	/* the number of longs in a cache line */
+	private static final int LINE = 8;
+
+	/* the number of stripes of each value (a power of two) */
+	private static final int STRIPES;
+
+	static {
+		final int wanted = 2 * Runtime.getRuntime().availableProcessors();
+		int stripes = 4;
+		while (stripes < wanted && stripes < 64) {
+			stripes <<= 1;
+		}
+		STRIPES = stripes;
+	}
+
+	/*
+	 * @return the first cell of the stripe of the current thread within cells
+	 * of the given length and the given width of a stripe
+	 */
+	private static int stripe(final int length, final int width) {
+		final long id = Thread.currentThread().getId();
+		// the length is fixed at creation, so it is also valid for
+		// deserialized values of other machines
+		return (int) (((id * 0x9E3779B97F4A7C15L) >>> 32) & (length / width - 1))
+				* width;
+	}
+
+	private static void quote(final StringBuilder b, final String s) {
+		b.append('"');
+		for (int i = 0; i < s.length(); ++i) {
+			final char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				b.append('\\');
+			}
+			b.append(c);
+		}
+		b.append('"');
+	}
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * @param name
+	 * @return the counter with the given name, created if necessary
+	 */
+	public Counter counter(final String name) {
+		Counter ret = counters.get(name);
+		if (ret == null) {
+			final Counter c = new Counter();
+			ret = counters.putIfAbsent(name, c);
+			if (ret == null) {
+				ret = c;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @param name
+	 * @return the histogram with the given name, created if necessary
+	 */
+	public Histogram histogram(final String name) {
+		Histogram ret = histograms.get(name);
+		if (ret == null) {
+			final Histogram h = new Histogram();
+			ret = histograms.putIfAbsent(name, h);
+			if (ret == null) {
+				ret = h;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * clears all counters and histograms
+	 */
+	public void reset() {
+		for (final Counter c : counters.values()) {
+			c.reset();
+		}
+		for (final Histogram h : histograms.values()) {
+			h.reset();
+		}
+	}
+
+	/**
+	 * @return the current values of all counters and histograms (sorted by
+	 *         their names) as one line of JSON
+	 */
+	public String toJSON() {
+		final StringBuilder b = new StringBuilder();
+		b.append("{\"time\":").append(System.currentTimeMillis());
+		b.append(",\"counters\":{");
+		String sep = "";
+		for (final Map.Entry<String, Counter> e : new TreeMap<String, Counter>(
+				counters).entrySet()) {
+			b.append(sep);
+			quote(b, e.getKey());
+			b.append(':').append(e.getValue().get());
+			sep = ",";
+		}
+		b.append("},\"histograms\":{");
+		sep = "";
+		for (final Map.Entry<String, Histogram> e : new TreeMap<String, Histogram>(
+				histograms).entrySet()) {
+			b.append(sep);
+			quote(b, e.getKey());
+			b.append(':');
+			e.getValue().toJSON(b);
+			sep = ",";
+		}
+		b.append("}}");
+		return b.toString();
+	}
+
+	/**
+	 * writes the current values as one line of JSON to the given stream
+	 *
+	 * @param out
+	 */
+	public void writeJSON(final PrintStream out) {
+		out.println(toJSON());
+	}
+
+}
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Map;
 
 import de.parsemis.algorithms.Algorithm;
+import de.parsemis.algorithms.gaston.GastonStrategy;
 import de.parsemis.chemical.Atom;
 import de.parsemis.chemical.Bond;
 import de.parsemis.graph.Graph;
@@ -28,6 +29,7 @@ import de.parsemis.jp.JavaPartyStrategy;
 import de.parsemis.miner.chain.MiningStepFactory;
 import de.parsemis.miner.general.Frequency;
 import de.parsemis.miner.general.IntFrequency;
+import de.parsemis.net.SocketStrategy;
 import de.parsemis.parsers.CccGraphParser;
 import de.parsemis.parsers.DotGraphParser;
 import de.parsemis.parsers.GraphParser;
@@ -45,6 +47,7 @@ import de.parsemis.strategy.BFSStrategy;
 import de.parsemis.strategy.RecursiveStrategy;
 import de.parsemis.strategy.Strategy;
 import de.parsemis.strategy.ThreadedDFSStrategy;
+import de.parsemis.strategy.WorkStealingStrategy;
 
 /**
  * This class is for parsing and initialising the console parameters and mining
@@ -92,19 +95,49 @@ public final class Settings<NodeType, EdgeType> {
 		} else if (set.distributionScheme.equals("threads_pooling")) {
 			set.strategy = new ThreadedDFSStrategy(set.threadCount, set.stats);
 			set.usePooling = true;
+		} else if (set.distributionScheme.equals("forkjoin")) {
+			set.strategy = new WorkStealingStrategy<NodeType, EdgeType>(
+					set.threadCount, set.stats);
+			set.usePooling = false;
+		} else if (set.distributionScheme.equals("forkjoin_lockfree")) {
+			set.strategy = new WorkStealingStrategy<NodeType, EdgeType>(
+					set.threadCount, set.stats, true);
+			set.usePooling = false;
+		} else if (set.distributionScheme.equals("gaston")) {
+			if (!(set.algorithm instanceof de.parsemis.algorithms.gaston.Algorithm)) {
+				throw new RuntimeException(
+						"--distribution=gaston requires --algorithm=gaston");
+			}
+			set.strategy = new GastonStrategy<NodeType, EdgeType>(set.threadCount,
+					set.stats);
+			set.usePooling = false;
 		} else if (set.distributionScheme.equals("javaparty")) {
 			set.strategy = new JavaPartyStrategy(set.threadCount, set.stats);
 			set.javaparty = true;
+		} else if (set.distributionScheme.equals("sockets")) {
+			set.strategy = new SocketStrategy<NodeType, EdgeType>(set.port,
+					set.workerCount, set.stats);
+			set.usePooling = false;
 		} else if (set.distributionScheme.equals("local")) {
 			set.strategy = new RecursiveStrategy();
 		} else if (set.distributionScheme.equals("bfs")) {
-			set.strategy = new BFSStrategy();
+			set.strategy = new BFSStrategy(set.threadCount, set.stats,
+					set.frontierLimit);
 		} else if (set.distributionScheme.equals("visualisation")) {
 			set.strategy = new RecursiveStrategy();
 		} else {
 			throw new RuntimeException("Unknown distribution scheme "
 					+ set.distributionScheme);
 		}
+		if (set.timeBudget > 0 || set.heapBudget > 0) {
+			set.budget = new Budget(set.timeBudget * 1000L,
+					set.heapBudget * 1024L * 1024L);
+		}
+		if ((set.checkpointDir != null || set.resumeDir != null)
+				&& !(set.strategy instanceof ThreadedDFSStrategy)) {
+			throw new RuntimeException(
+					"Checkpoints require --distribution=threads|threads_pooling");
+		}
 
 		// clone for setting generic Parameters
 		return new Settings<NodeType, EdgeType>(set);
@@ -325,6 +358,22 @@ public final class Settings<NodeType, EdgeType> {
 			}
 		} else if (temp[0].equals("--swapFile")) { // done
 			set.objectFileName = temp[1];
+		} else if (temp[0].equals("--checkpoint")) {
+			set.checkpointDir = temp[1];
+		} else if (temp[0].equals("--checkpointInterval")) {
+			set.checkpointInterval = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--resume")) {
+			set.resumeDir = temp[1];
+		} else if (temp[0].equals("--timeBudget")) {
+			set.timeBudget = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--heapBudget")) {
+			set.heapBudget = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--asyncIO")) {
+			set.asyncIO = temp.length == 1
+					|| Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("--streamOutput")) {
+			set.streamOutput = temp.length == 1
+					|| Boolean.valueOf(temp[1]).booleanValue();
 
 			// constraints
 		} else if (temp[0].equals("--minimumFrequency")) { // done
@@ -384,6 +433,13 @@ public final class Settings<NodeType, EdgeType> {
 		} else if (temp[0].equals("--embeddingBased")) { // done
 			set.embeddingBased = temp.length == 1
 					|| Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("--embeddingLists")) {
+			set.embeddingLists = temp.length == 1
+					|| Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("--embeddingTasks")) {
+			set.embeddingTasks = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--poolLimit")) {
+			set.poolLimit = Integer.parseInt(temp[1]);
 
 			// algorithm
 		} else if (temp[0].equals("--algorithm")) { // done
@@ -413,6 +469,17 @@ public final class Settings<NodeType, EdgeType> {
 			set.threadCount = Integer.parseInt(temp[1]);
 		} else if (temp[0].equals("--distribution")) { // done
 			set.distributionScheme = temp[1];
+		} else if (temp[0].equals("--cycleMemory")) {
+			set.cycleMemory = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--frontierLimit")) {
+			set.frontierLimit = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--port")) {
+			set.port = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--workers")) {
+			set.workerCount = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("--adaptiveSplitting")) {
+			set.adaptiveSplitting = temp.length == 1
+					|| Boolean.valueOf(temp[1]).booleanValue();
 
 			// debug
 		} else if (temp[0].equals("--debug")) {
@@ -421,6 +488,10 @@ public final class Settings<NodeType, EdgeType> {
 		} else if (temp[0].equals("--memoryStatistics")) {
 			set.memoryStatistics = temp.length == 1
 					|| Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("--metricsFile")) {
+			set.metricsFileName = temp[1];
+		} else if (temp[0].equals("--metricsInterval")) {
+			set.metricsInterval = Integer.parseInt(temp[1]);
 
 		} else if (temp[0].equals("--naturalOrdered")) {
 			set.naturalOrderedNodeLabels = temp.length == 1
@@ -455,6 +526,26 @@ public final class Settings<NodeType, EdgeType> {
 		out.println("\t--swapFile=file (optional)");
 		out
 				.println("\t\tA file to temporarly to swap out temporary unused objects");
+		out.println("\t--asyncIO=true|false (optional; default: false)");
+		out
+				.println("\t\tWrites swap and output files within separate I/O threads, so that the mining threads are not blocked");
+		out.println("\t--streamOutput=true|false (optional; default: false)");
+		out
+				.println("\t\tWrites each fragment to the output file as soon as it is found, instead of collecting all fragments first");
+		out.println("\t--checkpoint=dir (optional)");
+		out
+				.println("\t\tRegularly writes the search state to the given directory (requires threads distribution)");
+		out.println("\t--checkpointInterval=seconds (optional; default: 600)");
+		out.println("\t\tThe time between two checkpoints");
+		out.println("\t--resume=dir (optional)");
+		out
+				.println("\t\tContinues the search of the checkpoint in the given directory (with the same graphs and options)");
+		out.println("\t--timeBudget=seconds (optional)");
+		out
+				.println("\t\tStops extending the search after the given time and returns the fragments found so far");
+		out.println("\t--heapBudget=MB (optional)");
+		out
+				.println("\t\tStops extending the search if the used heap exceeds the given size and returns the fragments found so far");
 
 		out.println("");
 		out.println("\t--minimumFrequency=freq (integer or percentage)");
@@ -504,6 +595,12 @@ public final class Settings<NodeType, EdgeType> {
 		out.println("\t--embeddingBased=true|false (optional; default: false)");
 		out
 				.println("\t\tSpecifies that the frequency should be calculated embedding based or graph based");
+		out.println("\t--embeddingLists=true|false (optional; default: false)");
+		out
+				.println("\t\tSpecifies for gSpan without stored embeddings that the occurrences of each fragment are kept as compact lists, instead of searching them again");
+		out.println("\t--embeddingTasks=int (optional; default: 1)");
+		out
+				.println("\t\tThe number of tasks gSpan without stored embeddings splits the embedding search of each fragment into (useful for a database of few large graphs)");
 
 		out.println("");
 		out.println("\t--algorithm=" + ALGORITHMS
@@ -521,15 +618,44 @@ public final class Settings<NodeType, EdgeType> {
 		out.println("");
 		out.println("Parallel options:");
 		out
-				.println("\t--distribution=local|threads|threads_np (optional; default: local)");
+				.println("\t--distribution=local|threads|threads_pooling|forkjoin|forkjoin_lockfree|gaston|bfs|sockets (optional; default: local)");
 		out.println("\t\tThe scheme for distribution");
 		out
 				.println("\t\tlocal     : no distribution, whole serach is done in master thread");
 		out.println("\t\tthreads   : distribution by local threads");
 		out
-				.println("\t\tthreads_np: distribution by local threads without pooling temporal objects");
+				.println("\t\tforkjoin  : distribution by local threads with randomized work stealing");
+		out
+				.println("\t\tforkjoin_lockfree: like forkjoin, but with lock-free (Chase-Lev) stacks");
+		out
+				.println("\t\tgaston    : like forkjoin, but prefers Gaston's paths and trees to its cycles");
+		out
+				.println("\t\tthreads_pooling: distribution by local threads with pooling of temporal objects");
+		out
+				.println("\t\tbfs       : level synchronous breadth first search by local threads");
+		out
+				.println("\t\tsockets   : distribution to worker processes (java de.parsemis.net.SocketWorker host[:port])");
 		out.println("\t--threads=int (optional; default: 1)");
 		out.println("\t\tThe number of working threads to be used");
+		out.println("\t--poolLimit=int (optional; default: 65536)");
+		out
+				.println("\t\tThe maximal number of free objects of each type (and of ints in free arrays) each thread keeps for reuse (0 for no limit; for threads_pooling)");
+		out
+				.println("\t--adaptiveSplitting=true|false (optional; default: false)");
+		out
+				.println("\t\tAdapts the stack split thresholds to the observed subtree costs");
+		out.println("\t--cycleMemory=MB (optional; default: 0)");
+		out
+				.println("\t\tThe memory for the canonical strings of the cyclic fragments of Gaston; further strings are swapped to disk (0 for no limit)");
+		out.println("\t--frontierLimit=int (optional; default: 0)");
+		out
+				.println("\t\tThe maximal number of nodes of a bfs level kept in memory; further nodes are swapped to disk (0 for no limit)");
+		out.println("\t--port=int (optional; default: 4711)");
+		out
+				.println("\t\tThe port the worker processes connect to (for sockets distribution)");
+		out.println("\t--workers=int (optional; default: 1)");
+		out
+				.println("\t\tThe number of worker processes each running --threads threads (for sockets distribution)");
 
 		out.println("");
 		out.println("Debug options:");
@@ -537,6 +663,12 @@ public final class Settings<NodeType, EdgeType> {
 				.println("\t--memoryStatistics=true|false (optional; default: false)");
 		out
 				.println("\t\tStarts debug thread for memory measurement (takes much time)");
+		out.println("\t--metricsFile=file (optional)");
+		out
+				.println("\t\tWrites the counters and histograms of the search as JSON to the given file");
+		out.println("\t--metricsInterval=seconds (optional; default: 0)");
+		out
+				.println("\t\tThe time between two samples of the metrics, written to file.samples (0 for no samples)");
 		out.println("\t--visualize=true|false (optional; default: false)");
 		out.println("\t\tRenders the database graphs");
 		out
@@ -574,9 +706,30 @@ public final class Settings<NodeType, EdgeType> {
 	/** the maximal depth of nodes transfered with a stack split */
 	public int maxSplitDepth = Integer.MAX_VALUE;
 
+	/** maximal number of nodes of a bfs level kept in memory */
+	public int frontierLimit = 0;
+
+	/** the memory (in MB) for the canonical strings of cyclic fragments */
+	public int cycleMemory = 0;
+
+	/** the port the worker processes connect to */
+	public int port = SocketStrategy.DEFAULT_PORT;
+
+	/** the number of worker processes */
+	public int workerCount = 1;
+
 	/** the maximal number of nodes transfered with a stack split */
 	public int maxSplitCount = Integer.MAX_VALUE;
 
+	/** adapt the split thresholds to the observed subtree costs */
+	public boolean adaptiveSplitting = false;
+
+	/** do blocking file output within separate I/O threads */
+	public boolean asyncIO = false;
+
+	/** write the fragments while mining */
+	public boolean streamOutput = false;
+
 	public boolean embeddingBased = false;
 
 	public boolean pathsOnly = false;
@@ -587,10 +740,24 @@ public final class Settings<NodeType, EdgeType> {
 
 	public boolean storeHierarchicalEmbeddings = false;
 
+	public boolean embeddingLists = false;
+
+	/** the number of tasks of each embedding search of gSpan */
+	public int embeddingTasks = 1;
+
+	/** the maximal size of each object pool of a thread, or 0 for no limit */
+	public int poolLimit = 65536;
+
 	public boolean connectedFragments = true;
 
 	public boolean memoryStatistics = false;
 
+	/** the file the metrics are written to as JSON, if any */
+	public String metricsFileName;
+
+	/** the time (in seconds) between two samples of the metrics, or 0 */
+	public int metricsInterval = 0;
+
 	public boolean shrink = false;
 
 	public boolean zaretsky = false;
@@ -617,6 +784,24 @@ public final class Settings<NodeType, EdgeType> {
 
 	public String objectFileName;
 
+	/** the directory checkpoints are written to */
+	public String checkpointDir;
+
+	/** the time (in seconds) between two checkpoints */
+	public int checkpointInterval = 600;
+
+	/** the directory of the checkpoint to resume */
+	public String resumeDir;
+
+	/** the maximal time (in seconds) of the search, or 0 for no limit */
+	public int timeBudget = 0;
+
+	/** the maximal used heap (in MB), or 0 for no limit */
+	public int heapBudget = 0;
+
+	/** the time and memory limits of the search, if any */
+	public Budget budget = null;
+
 	private String distributionScheme = "local";
 
 	public GraphFactory<NodeType, EdgeType> factory;
@@ -653,6 +838,12 @@ public final class Settings<NodeType, EdgeType> {
 		this.inputFileName = set.inputFileName;
 		this.outputFileName = set.outputFileName;
 		this.objectFileName = set.objectFileName;
+		this.checkpointDir = set.checkpointDir;
+		this.checkpointInterval = set.checkpointInterval;
+		this.resumeDir = set.resumeDir;
+		this.timeBudget = set.timeBudget;
+		this.heapBudget = set.heapBudget;
+		this.budget = set.budget;
 
 		this.minProzent = set.minProzent;
 		this.maxProzent = set.maxProzent;
@@ -666,10 +857,19 @@ public final class Settings<NodeType, EdgeType> {
 		this.splitSize = set.splitSize;
 		this.maxSplitCount = set.maxSplitCount;
 		this.maxSplitDepth = set.maxSplitDepth;
+		this.frontierLimit = set.frontierLimit;
+		this.cycleMemory = set.cycleMemory;
+		this.port = set.port;
+		this.workerCount = set.workerCount;
+		this.adaptiveSplitting = set.adaptiveSplitting;
+		this.asyncIO = set.asyncIO;
+		this.streamOutput = set.streamOutput;
 
 		this.pathsOnly = set.pathsOnly;
 		this.treesOnly = set.treesOnly;
 		this.memoryStatistics = set.memoryStatistics;
+		this.metricsFileName = set.metricsFileName;
+		this.metricsInterval = set.metricsInterval;
 		this.shrink = set.shrink;
 		this.zaretsky = set.zaretsky;
 		this.usePooling = set.usePooling;
@@ -679,6 +879,9 @@ public final class Settings<NodeType, EdgeType> {
 		this.storeHierarchicalEmbeddings = set.storeHierarchicalEmbeddings;
 		this.storeEmbeddings = set.storeEmbeddings || this.embeddingBased
 				|| this.storeHierarchicalEmbeddings;
+		this.embeddingLists = set.embeddingLists;
+		this.embeddingTasks = set.embeddingTasks;
+		this.poolLimit = set.poolLimit;
 		this.closeGraph = set.closeGraph;
 		this.singleRooted = set.singleRooted;
 		this.naturalOrderedNodeLabels = set.naturalOrderedNodeLabels;
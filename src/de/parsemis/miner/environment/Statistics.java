@@ -17,11 +17,6 @@ package de.parsemis.miner.environment;
 import java.io.PrintStream;
 import java.io.Serializable;
 
-import de.parsemis.algorithms.gSpan.GSpanEmbedding;
-import de.parsemis.algorithms.gSpan.GSpanHPEmbedding_flat;
-import de.parsemis.algorithms.gSpan.GSpanHPEmbedding_hierarchical;
-import de.parsemis.algorithms.gSpan.RightMostExtension;
-
 /**
  * This class is to store runtime statistic
  * 
@@ -65,8 +60,19 @@ public class Statistics implements Serializable {
 	/** Stores the time used for spliting the worker stacks */
 	public long splitTime;
 
+	/**
+	 * Stores the counters and histograms that are updated by several threads
+	 */
+	public final Metrics metrics = new Metrics();
+
 	/** Stores the time used for syncing */
-	public long[] syncTime = new long[10];
+	public final Metrics.Counter[] syncTime = new Metrics.Counter[10];
+
+	{
+		for (int i = 0; i < syncTime.length; ++i) {
+			syncTime[i] = metrics.counter("time.sync" + i);
+		}
+	}
 
 	/**
 	 * Stores the maximal amount of heap that was requiered (just valid for
@@ -74,11 +80,62 @@ public class Statistics implements Serializable {
 	 */
 	public int maximumHeapSize = -1;
 
-	public int duplicateFragments = 0;
+	public final Metrics.Counter duplicateFragments = metrics
+			.counter("fragments.duplicate");
+
+	public final Metrics.Counter unconnectedFragments = metrics
+			.counter("fragments.unconnected");
+
+	public final Metrics.Counter newRoot = metrics.counter("dagm.newRoot"),
+			newNode = metrics.counter("dagm.newNode"), newLevel = metrics
+					.counter("dagm.newLevel"), newEdge = metrics
+					.counter("dagm.newEdge");
+
+	/** Stores the number of created embedding objects of gSpan */
+	public final Metrics.Counter embeddings = metrics
+			.counter("gspan.embeddings"), flatEmbeddings = metrics
+			.counter("gspan.hpEmbeddings.flat"),
+			hierarchicalEmbeddings = metrics
+					.counter("gspan.hpEmbeddings.hierarchical");
+
+	/** Stores the number of successful and failed steals of the workers */
+	public final Metrics.Counter steals = metrics.counter("steals"),
+			failedSteals = metrics.counter("steals.failed");
+
+	/** Stores how often workers had to wait for new work */
+	public final Metrics.Counter idles = metrics.counter("idles");
+
+	/** Stores the number of children of each extended search node */
+	public final Metrics.Histogram extensionsPerNode = metrics
+			.histogram("search.extensionsPerNode");
+
+	/** Stores the number of embeddings of each DFSCode extended by gSpan */
+	public final Metrics.Histogram embeddingsPerCode = metrics
+			.histogram("gspan.embeddingsPerCode");
 
-	public int unconnectedFragments = 0;
+	/** Stores the time (in ns) of each canonical test */
+	public final Metrics.Histogram canonicalTestTime = metrics
+			.histogram("canonicalTest.ns");
 
-	public int newRoot, newNode, newLevel, newEdge;
+	/** Stores the time (in ns) a worker needs to steal new work */
+	public final Metrics.Histogram stealLatency = metrics
+			.histogram("steal.latency.ns");
+
+	/** Stores the split thresholds chosen by the adaptive split policy */
+	public int adaptiveSplitSize = -1, adaptiveSplitDepth = -1,
+			adaptiveSplitCount = -1;
+
+	/** Stores the minimal subtree cost (in ns) a split has to transfer */
+	public long adaptiveSplitCost = -1;
+
+	/** Stores the number of levels and the largest level of the BFS */
+	public int bfsLevels, maxFrontierSize;
+
+	/** Stores the number of BFS nodes that are swapped to disk */
+	public long spilledNodes;
+
+	/** Stores the number of written checkpoints and the time to write them */
+	public long checkpoints, checkpointTime;
 
 	/**
 	 * prints the gathered information
@@ -104,9 +161,9 @@ public class Statistics implements Serializable {
 			out.println("      split time: " + (splitTime / 1000.0) + "s");
 		}
 		for (int i = 0; i < syncTime.length; i++) {
-			if (syncTime[i] > 0) {
+			if (syncTime[i].get() > 0) {
 				out.println("      sync" + i + " time: "
-						+ (syncTime[i] / 1000.0) + "s");
+						+ (syncTime[i].get() / 1000.0) + "s");
 			}
 		}
 		if (filteringTime > 0) {
@@ -133,41 +190,73 @@ public class Statistics implements Serializable {
 		 * duplicateFragments); if (movedFragments > 0) out.println("nodes
 		 * moved: "+movedFragments);
 		 */
-		if (duplicateFragments > 0) {
+		if (duplicateFragments.get() > 0) {
 			out.println("Duplicate fragments: " + duplicateFragments);
 		}
-		if (unconnectedFragments > 0) {
+		if (unconnectedFragments.get() > 0) {
 			out.println("Unconnected fragments: " + unconnectedFragments);
 		}
 		if (maximumHeapSize >= 0) {
 			out.println("Maximum heap size: " + maximumHeapSize + "kB");
 		}
-		if (GSpanEmbedding.counter != 0) {
-			out.println("created embeddings: " + GSpanEmbedding.counter);
+		if (embeddings.get() != 0) {
+			out.println("created embeddings: " + embeddings);
 		}
-		if (GSpanHPEmbedding_flat.counter != 0) {
-			out.println("created hpembeddings_impl: "
-					+ GSpanHPEmbedding_flat.counter);
+		if (flatEmbeddings.get() != 0) {
+			out.println("created hpembeddings_impl: " + flatEmbeddings);
 		}
-		if (GSpanHPEmbedding_hierarchical.counter != 0) {
+		if (hierarchicalEmbeddings.get() != 0) {
 			out.println("created hpembeddings_hier: "
-					+ GSpanHPEmbedding_hierarchical.counter);
+					+ hierarchicalEmbeddings);
+		}
+		if (embeddingsPerCode.count() != 0) {
+			out.println("RightMostExtensions: " + embeddingsPerCode.sum());
+			out.println("embeddings per code: " + embeddingsPerCode);
+		}
+		if (extensionsPerNode.count() != 0) {
+			out.println("extensions per node: " + extensionsPerNode);
 		}
-		if (RightMostExtension.counter != 0) {
-			out.println("RightMostExtensions: " + RightMostExtension.counter);
+		if (canonicalTestTime.count() != 0) {
+			out.println("canonical test time (ns): " + canonicalTestTime);
 		}
-		if (newRoot > 0) {
+		if (newRoot.get() > 0) {
 			out.println("newRoot: " + newRoot);
 		}
-		if (newNode > 0) {
+		if (newNode.get() > 0) {
 			out.println("newNode: " + newNode);
 		}
-		if (newEdge > 0) {
+		if (newEdge.get() > 0) {
 			out.println("newEdge: " + newEdge);
 		}
-		if (newLevel > 0) {
+		if (newLevel.get() > 0) {
 			out.println("newLevel: " + newLevel);
 		}
+		if (steals.get() > 0 || failedSteals.get() > 0) {
+			out.println("steals: " + steals + " (failed: " + failedSteals
+					+ ")");
+		}
+		if (stealLatency.count() != 0) {
+			out.println("steal latency (ns): " + stealLatency);
+		}
+		if (idles.get() > 0) {
+			out.println("idle waits: " + idles);
+		}
+		if (adaptiveSplitCost >= 0) {
+			out.println("adaptive split thresholds: splitSize="
+					+ adaptiveSplitSize + " maxSplitDepth="
+					+ adaptiveSplitDepth + " maxSplitCount="
+					+ adaptiveSplitCount + " minCost="
+					+ (adaptiveSplitCost / 1000000.0) + "ms");
+		}
+		if (bfsLevels > 0) {
+			out.println("bfs levels: " + bfsLevels + " (maximal frontier: "
+					+ maxFrontierSize + " nodes, swapped: " + spilledNodes
+					+ " nodes)");
+		}
+		if (checkpoints > 0) {
+			out.println("checkpoints: " + checkpoints + " (" + checkpointTime
+					+ " ms)");
+		}
 
 		out.println("-------------------------------");
 
@@ -183,8 +272,16 @@ public class Statistics implements Serializable {
 		this.distributedTime = 0;
 		this.checkTime = 0;
 		this.serializeTime = 0;
-		this.duplicateFragments = 0;
-		this.unconnectedFragments = 0;
+		this.metrics.reset();
+		this.adaptiveSplitSize = -1;
+		this.adaptiveSplitDepth = -1;
+		this.adaptiveSplitCount = -1;
+		this.adaptiveSplitCost = -1;
+		this.bfsLevels = 0;
+		this.maxFrontierSize = 0;
+		this.spilledNodes = 0;
+		this.checkpoints = 0;
+		this.checkpointTime = 0;
 	}
 
 }
@@ -14,6 +14,8 @@
  */
 package de.parsemis.miner.environment;
 
+import java.io.Serializable;
+
 /**
  * This interface describes a factory for ThreadEnvironments
  * 
@@ -26,7 +28,8 @@ package de.parsemis.miner.environment;
  *            the type of the edge labels (will be hashed and checked with
  *            .equals(..))
  */
-public interface ThreadEnvironmentFactory<NodeType, EdgeType> {
+public interface ThreadEnvironmentFactory<NodeType, EdgeType> extends
+		Serializable {
 
 	/**
 	 * @param idx
@@ -17,6 +17,8 @@ package de.parsemis.miner.general;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -25,6 +27,7 @@ import de.parsemis.graph.Graph;
 import de.parsemis.graph.HPGraph;
 import de.parsemis.miner.environment.Settings;
 import de.parsemis.utils.IntIterator;
+import de.parsemis.utils.PartitionedTask;
 
 /**
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
@@ -51,32 +54,27 @@ public class DataBase<NodeType, EdgeType> {
 		nfreq = new HashMap<NodeType, Frequency>();
 		efreq = new HashMap<EdgeType, Frequency>();
 
-		// compute the frequency of each node and edge label
-		for (final Graph<NodeType, EdgeType> o_graph : graphs) {
-			final HPGraph<NodeType, EdgeType> graph = o_graph.toHPGraph();
-			final Frequency gfreq = settings.getFrequency(o_graph);
-			for (final IntIterator nit = graph.nodeIndexIterator(); nit
-					.hasNext();) {
-				final int node = nit.next();
-				final NodeType label = graph.getNodeLabel(node);
-				final Frequency freq = nfreq.get(label);
-				if (freq == null) {
-					nfreq.put(label, gfreq.clone());
-				} else {
-					freq.add(gfreq);
-				}
-			}
-			for (final IntIterator eit = graph.edgeIndexIterator(); eit
-					.hasNext();) {
-				final int edge = eit.next();
-				final EdgeType label = graph.getEdgeLabel(edge);
-				final Frequency freq = efreq.get(label);
-				if (freq == null) {
-					efreq.put(label, gfreq.clone());
-				} else {
-					freq.add(gfreq);
+		// compute the frequency of each node and edge label for consecutive
+		// parts of the database concurrently
+		final List<Graph<NodeType, EdgeType>> list = PartitionedTask
+				.asList(graphs);
+		final List<LabelCounts<NodeType, EdgeType>> parts = new PartitionedTask<LabelCounts<NodeType, EdgeType>>() {
+			@Override
+			protected LabelCounts<NodeType, EdgeType> process(final int part,
+					final int from, final int to) {
+				final LabelCounts<NodeType, EdgeType> counts = new LabelCounts<NodeType, EdgeType>();
+				for (int i = from; i < to; ++i) {
+					counts.count(list.get(i), settings);
 				}
+				return counts;
 			}
+		}.run(list.size(), settings.threadCount);
+
+		// merge the parts in order, so each map gets the same label instances
+		// in the same order as if counted at once
+		for (final LabelCounts<NodeType, EdgeType> counts : parts) {
+			merge(counts.nodes, nfreq);
+			merge(counts.edges, efreq);
 		}
 
 		if (settings.naturalOrderedNodeLabels) {
@@ -172,6 +170,20 @@ public class DataBase<NodeType, EdgeType> {
 
 	}
 
+	/* adds the given partial frequencies to the total ones */
+	private static <LabelType> void merge(
+			final Map<LabelType, Frequency> part,
+			final Map<LabelType, Frequency> total) {
+		for (final Map.Entry<LabelType, Frequency> entry : part.entrySet()) {
+			final Frequency freq = total.get(entry.getKey());
+			if (freq == null) {
+				total.put(entry.getKey(), entry.getValue());
+			} else {
+				freq.add(entry.getValue());
+			}
+		}
+	}
+
 	public Frequency edgeFreq(final EdgeType label) {
 		return efreq.get(label);
 	}
@@ -188,4 +200,43 @@ public class DataBase<NodeType, EdgeType> {
 		return nfreq.get(label);
 	}
 
+	/**
+	 * the label frequencies of a part of the graph database, in the order the
+	 * labels are found
+	 */
+	private static final class LabelCounts<NodeType, EdgeType> {
+
+		final Map<NodeType, Frequency> nodes = new LinkedHashMap<NodeType, Frequency>();
+
+		final Map<EdgeType, Frequency> edges = new LinkedHashMap<EdgeType, Frequency>();
+
+		void count(final Graph<NodeType, EdgeType> o_graph,
+				final Settings<NodeType, EdgeType> settings) {
+			final HPGraph<NodeType, EdgeType> graph = o_graph.toHPGraph();
+			final Frequency gfreq = settings.getFrequency(o_graph);
+			for (final IntIterator nit = graph.nodeIndexIterator(); nit
+					.hasNext();) {
+				final int node = nit.next();
+				final NodeType label = graph.getNodeLabel(node);
+				final Frequency freq = nodes.get(label);
+				if (freq == null) {
+					nodes.put(label, gfreq.clone());
+				} else {
+					freq.add(gfreq);
+				}
+			}
+			for (final IntIterator eit = graph.edgeIndexIterator(); eit
+					.hasNext();) {
+				final int edge = eit.next();
+				final EdgeType label = graph.getEdgeLabel(edge);
+				final Frequency freq = edges.get(label);
+				if (freq == null) {
+					edges.put(label, gfreq.clone());
+				} else {
+					freq.add(gfreq);
+				}
+			}
+		}
+	}
+
 }
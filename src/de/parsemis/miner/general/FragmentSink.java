@@ -0,0 +1,37 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.miner.general;
+
+import de.parsemis.utils.Generic;
+
+/**
+ * This interface describes a receiver for fragments that are emitted as soon
+ * as they are found, instead of being collected until the search is finished.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public interface FragmentSink<NodeType, EdgeType> extends
+		Generic<NodeType, EdgeType> {
+
+	/**
+	 * receives the given fragment
+	 *
+	 * This method may be called concurrently by several mining threads and may
+	 * block the calling thread, if the sink cannot keep up with the search.
+	 *
+	 * @param fragment
+	 */
+	public void add(Fragment<NodeType, EdgeType> fragment);
+
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.miner.general;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * This class wraps a FragmentSink as a collection, so that the search nodes
+ * can store their fragments as usual.
+ *
+ * Each added fragment is directly forwarded to the sink and not kept, so the
+ * iterator of this collection is always empty and its size is the number of
+ * forwarded fragments.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class SinkCollection<NodeType, EdgeType> extends
+		AbstractCollection<Fragment<NodeType, EdgeType>> {
+
+	private final FragmentSink<NodeType, EdgeType> sink;
+
+	private int size = 0;
+
+	/**
+	 * creates a new collection forwarding to the given <code>sink</code>
+	 *
+	 * @param sink
+	 */
+	public SinkCollection(final FragmentSink<NodeType, EdgeType> sink) {
+		this.sink = sink;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(final Fragment<NodeType, EdgeType> fragment) {
+		sink.add(fragment);
+		size++;
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<Fragment<NodeType, EdgeType>> iterator() {
+		return Collections.<Fragment<NodeType, EdgeType>> emptyList()
+				.iterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import de.parsemis.miner.general.DataBaseGraph;
+import de.parsemis.utils.GraphReference;
+
+/**
+ * This class wraps a socket between the coordinator and a worker process.
+ *
+ * Each message is serialized on its own, so that the streams do not keep the
+ * sent objects alive. After <code>setGraphs</code> is called, the graphs of
+ * the database are not serialized any more, but replaced by references that
+ * are resolved to the graphs of the receiving process.
+ */
+final class Connection {
+
+	final int idx;
+
+	private final Socket socket;
+
+	private final GraphReference.Output out;
+
+	private final GraphReference.Input in;
+
+	/**
+	 * creates a new connection
+	 *
+	 * @param idx
+	 *            the index of the worker process
+	 * @param socket
+	 * @throws IOException
+	 */
+	Connection(final int idx, final Socket socket) throws IOException {
+		this.idx = idx;
+		this.socket = socket;
+		socket.setTcpNoDelay(true);
+		this.out = new GraphReference.Output(new BufferedOutputStream(socket
+				.getOutputStream()));
+		// the stream header has to be sent before the other side can read
+		this.out.flush();
+		this.in = new GraphReference.Input(new BufferedInputStream(socket
+				.getInputStream()));
+	}
+
+	/**
+	 * closes the connection
+	 */
+	void close() {
+		try {
+			socket.close();
+		} catch (final IOException io) {
+			System.err.println(io);
+		}
+	}
+
+	/**
+	 * @return the next received message
+	 * @throws IOException
+	 */
+	Message receive() throws IOException {
+		try {
+			final Message ret = (Message) in.readObject();
+			ret.from = this;
+			return ret;
+		} catch (final ClassNotFoundException cnf) {
+			final IOException io = new IOException("unknown message: "
+					+ cnf.getMessage());
+			io.initCause(cnf);
+			throw io;
+		}
+	}
+
+	/**
+	 * sends the given message
+	 *
+	 * @param type
+	 * @param content
+	 * @throws IOException
+	 */
+	synchronized void send(final int type, final Object content)
+			throws IOException {
+		out.writeObject(new Message(type, content));
+		out.reset();
+		out.flush();
+	}
+
+	/**
+	 * from now on, the given graphs are just referenced within messages
+	 *
+	 * @param graphs
+	 *            the graph database (in the same order on each process)
+	 */
+	synchronized void setGraphs(final DataBaseGraph<?, ?>[] graphs) {
+		out.setGraphs(graphs);
+		in.setGraphs(graphs);
+	}
+
+	@Override
+	public String toString() {
+		return "Connection-" + idx + " (" + socket.getRemoteSocketAddress()
+				+ ")";
+	}
+
+}
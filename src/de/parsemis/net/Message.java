@@ -0,0 +1,62 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.net;
+
+import java.io.Serializable;
+
+/**
+ * This class represents a single message between the coordinator and a
+ * worker process.
+ */
+final class Message implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** coordinator to worker: environment, algorithm and database */
+	static final int SETUP = 0;
+
+	/** worker to coordinator: all threads of the worker are idle */
+	static final int STEAL = 1;
+
+	/** coordinator to worker: split the local stacks */
+	static final int SPLIT = 2;
+
+	/** search nodes, as answer to STEAL or SPLIT */
+	static final int NODES = 3;
+
+	/** worker to coordinator: found fragments */
+	static final int FRAGMENTS = 4;
+
+	/** coordinator to worker: the search is finished */
+	static final int FINISH = 5;
+
+	/** worker to coordinator: all fragments are sent */
+	static final int DONE = 6;
+
+	/** (local) the connection is broken */
+	static final int FAILED = 7;
+
+	final int type;
+
+	final Object content;
+
+	/** the connection this message is received from */
+	transient Connection from;
+
+	Message(final int type, final Object content) {
+		this.type = type;
+		this.content = content;
+	}
+
+	@Override
+	public String toString() {
+		return "Message-" + type;
+	}
+
+}
@@ -0,0 +1,322 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.net;
+
+import static de.parsemis.miner.environment.Debug.INFO;
+import static de.parsemis.miner.environment.Debug.VERBOSE;
+import static de.parsemis.miner.environment.Debug.VVERBOSE;
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.parsemis.algorithms.Algorithm;
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.miner.general.DataBaseGraph;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
+import de.parsemis.strategy.Strategy;
+
+/**
+ * This class represents the coordinator of a search distributed over several
+ * worker processes.
+ *
+ * The coordinator does not search by itself. It waits for the given number of
+ * SocketWorkers, sends each of them the environment, the algorithm and the
+ * graph database, and hands out the initial search nodes on request. If no
+ * node is left, the stacks of a busy worker are split (like a local
+ * MiningStack) and the received nodes are given to the idle workers. A worker
+ * answers a split request as soon as it has nodes to give away, or with no
+ * nodes if it gets idle itself. The search is finished if all workers are idle
+ * and no nodes are left.
+ *
+ * As the search nodes are transfered by serialization, just algorithms with
+ * serializable search nodes (like gSpan) can be distributed.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class SocketStrategy<NodeType, EdgeType> implements
+		Strategy<NodeType, EdgeType> {
+
+	/** the default port the coordinator listens on */
+	public static final int DEFAULT_PORT = 4711;
+
+	/** reads the messages of one worker into the common inbox */
+	private final class Reader extends Thread {
+		private final Connection conn;
+
+		Reader(final Connection conn) {
+			super("SocketStrategy-" + conn.idx);
+			this.conn = conn;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					final Message msg = conn.receive();
+					inbox.add(msg);
+					if (msg.type == Message.DONE) {
+						return;
+					}
+				}
+			} catch (final IOException io) {
+				final Message msg = new Message(Message.FAILED, io);
+				msg.from = conn;
+				inbox.add(msg);
+			}
+		}
+	}
+
+	private final int port;
+
+	private final Statistics stats;
+
+	private final Connection[] conns;
+
+	private final LinkedBlockingQueue<Message> inbox;
+
+	private final LinkedList<SearchLatticeNode<NodeType, EdgeType>> pool;
+
+	/** workers whose threads are all idle */
+	private final boolean[] waiting;
+
+	/** workers that got idle since their last split request */
+	private final boolean[] empty;
+
+	/** the worker that is currently asked for a split, or -1 */
+	private int victim = -1;
+
+	/** the victim got nodes after it was asked, so an empty answer is stale */
+	private boolean stale = false;
+
+	private int nextVictim = 0;
+
+	/**
+	 * creates a new SocketStrategy
+	 *
+	 * @param port
+	 *            the port the workers connect to
+	 * @param workerCount
+	 *            the number of worker processes
+	 * @param stats
+	 *            object to store statistical informations for all workers
+	 */
+	public SocketStrategy(final int port, final int workerCount,
+			final Statistics stats) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException(
+					"at least one worker is required");
+		}
+		this.port = port;
+		this.stats = stats;
+		this.conns = new Connection[workerCount];
+		this.inbox = new LinkedBlockingQueue<Message>();
+		this.pool = new LinkedList<SearchLatticeNode<NodeType, EdgeType>>();
+		this.waiting = new boolean[workerCount];
+		this.empty = new boolean[workerCount];
+	}
+
+	/**
+	 * gives nodes to the waiting workers, asks for a split or finishes the
+	 * search
+	 *
+	 * @return <code>true</code>, if the search is finished
+	 * @throws IOException
+	 */
+	private boolean dispatch() throws IOException {
+		final int count = conns.length;
+		for (int i = 0; i < count && !pool.isEmpty(); ++i) {
+			if (waiting[i]) {
+				final int chunk = Math.max(1, pool.size() / (2 * count));
+				final ArrayList<SearchLatticeNode<NodeType, EdgeType>> nodes = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>(
+						chunk);
+				for (int j = 0; j < chunk; ++j) {
+					nodes.add(pool.removeFirst());
+				}
+				conns[i].send(Message.NODES, nodes);
+				waiting[i] = empty[i] = false;
+				stale |= (i == victim);
+			}
+		}
+		if (!pool.isEmpty() || victim >= 0) {
+			return false;
+		}
+		boolean idle = false, busy = false;
+		for (int i = 0; i < count; ++i) {
+			idle |= waiting[i];
+			busy |= !waiting[i];
+		}
+		if (!busy) {
+			// no worker has nodes and none are on their way
+			for (int i = 0; i < count; ++i) {
+				conns[i].send(Message.FINISH, null);
+			}
+			return true;
+		}
+		if (idle) {
+			for (int i = 0; i < count; ++i) {
+				final int v = (nextVictim + i) % count;
+				if (!waiting[v] && !empty[v]) {
+					if (VVERBOSE) {
+						out.println("split " + conns[v]);
+					}
+					conns[v].send(Message.SPLIT, null);
+					victim = v;
+					stale = false;
+					nextVictim = v + 1;
+					break;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo) {
+		return search(algo, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		final Collection<Fragment<NodeType, EdgeType>> ret = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+				sink)
+				: env.getReturnSet());
+		final DataBaseGraph<NodeType, EdgeType>[] graphs = (DataBaseGraph<NodeType, EdgeType>[]) new DataBaseGraph<?, ?>[env
+				.graphCount()];
+		for (int i = 0; i < graphs.length; ++i) {
+			graphs[i] = env.getGraph(i);
+		}
+
+		pool.clear();
+		int root = 0;
+		for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
+				.initialNodes(); it.hasNext();) {
+			final SearchLatticeNode<NodeType, EdgeType> node = it.next();
+			node.setRoot(root++);
+			pool.add(node);
+		}
+
+		ServerSocket server = null;
+		try {
+			server = new ServerSocket(port);
+			if (INFO) {
+				out.println("waiting for " + conns.length + " workers on port "
+						+ port);
+			}
+			for (int i = 0; i < conns.length; ++i) {
+				conns[i] = new Connection(i, server.accept());
+				conns[i].send(Message.SETUP, new Object[] { env, algo, graphs });
+				conns[i].setGraphs(graphs);
+				waiting[i] = empty[i] = false;
+				new Reader(conns[i]).start();
+				if (VERBOSE) {
+					out.println("started " + conns[i]);
+				}
+			}
+			victim = -1;
+
+			if (INFO) {
+				stats.distributedTime -= System.currentTimeMillis();
+			}
+			boolean finished = false;
+			int done = 0;
+			while (done < conns.length) {
+				final Message msg = inbox.take();
+				final int from = msg.from.idx;
+				switch (msg.type) {
+				case Message.FRAGMENTS:
+					ret.addAll((Collection<Fragment<NodeType, EdgeType>>) msg.content);
+					break;
+				case Message.STEAL:
+					waiting[from] = true;
+					finished = finished || dispatch();
+					break;
+				case Message.NODES:
+					victim = -1;
+					final Collection<SearchLatticeNode<NodeType, EdgeType>> nodes = (Collection<SearchLatticeNode<NodeType, EdgeType>>) msg.content;
+					if (nodes.isEmpty()) {
+						// the worker got idle and its STEAL follows, unless it
+						// got nodes after the request
+						empty[from] = !stale;
+						stats.failedSteals.inc();
+					} else {
+						pool.addAll(nodes);
+						stats.steals.inc();
+					}
+					finished = finished || dispatch();
+					break;
+				case Message.DONE:
+					done++;
+					break;
+				default:
+					throw new RuntimeException(msg.from + " failed",
+							(Throwable) msg.content);
+				}
+			}
+			if (INFO) {
+				stats.distributedTime += System.currentTimeMillis();
+			}
+		} catch (final IOException io) {
+			throw new RuntimeException(io);
+		} catch (final InterruptedException ie) {
+			throw new RuntimeException(ie);
+		} finally {
+			for (int i = 0; i < conns.length; ++i) {
+				if (conns[i] != null) {
+					conns[i].close();
+					conns[i] = null;
+				}
+			}
+			if (server != null) {
+				try {
+					server.close();
+				} catch (final IOException io) {
+					if (WARN) {
+						err.println(io);
+					}
+				}
+			}
+			inbox.clear();
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,310 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.net;
+
+import static de.parsemis.miner.environment.Debug.INFO;
+import static de.parsemis.miner.environment.Debug.VERBOSE;
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.parsemis.algorithms.Algorithm;
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.miner.general.DataBaseGraph;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.strategy.AbstractWorkStealingStack;
+import de.parsemis.strategy.WorkStealingStack;
+import de.parsemis.strategy.WorkStealingStrategy;
+
+/**
+ * This class represents a worker process of a distributed search.
+ *
+ * Within the process, the search is done by the usual work stealing threads.
+ * If all of these threads are idle, new nodes are requested from the
+ * coordinator. On request of the coordinator, the local stacks are split and
+ * the taken nodes are sent back, so that other processes can work on them. If
+ * nothing can be split yet, the answer is delayed until the local threads
+ * push new nodes or get idle.
+ * Found fragments are sent to the coordinator in small batches.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class SocketWorker<NodeType, EdgeType> extends
+		WorkStealingStrategy<NodeType, EdgeType> implements
+		FragmentSink<NodeType, EdgeType>, Runnable {
+
+	/** the number of fragments sent within one message */
+	public static final int BATCH_SIZE = 64;
+
+	/** the time (in ms) a worker tries to reach the coordinator */
+	public static final int CONNECT_TIMEOUT = 30000;
+
+	/**
+	 * starts a worker process
+	 *
+	 * @param args
+	 *            <code>host[:port]</code> of the coordinator
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("usage: java " + SocketWorker.class.getName()
+					+ " host[:port]");
+			System.exit(1);
+		}
+		final int colon = args[0].lastIndexOf(':');
+		final String host = (colon < 0 ? args[0] : args[0].substring(0,
+				colon));
+		final int port = (colon < 0 ? SocketStrategy.DEFAULT_PORT : Integer
+				.parseInt(args[0].substring(colon + 1)));
+
+		work(new Connection(0, connect(host, port)));
+	}
+
+	/* runs the search with the setup received over the given connection */
+	@SuppressWarnings("unchecked")
+	private static <NodeType, EdgeType> void work(final Connection conn)
+			throws IOException {
+		final Object[] setup = (Object[]) conn.receive().content;
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.set((LocalEnvironment<NodeType, EdgeType>) setup[0]);
+		final Algorithm<NodeType, EdgeType> algo = (Algorithm<NodeType, EdgeType>) setup[1];
+		final DataBaseGraph<NodeType, EdgeType>[] graphs = (DataBaseGraph<NodeType, EdgeType>[]) setup[2];
+		for (int i = 0; i < graphs.length; ++i) {
+			if (graphs[i] != null) {
+				env.setDataBaseGraph(i, graphs[i]);
+			}
+		}
+		conn.setGraphs(graphs);
+		if (VERBOSE) {
+			out.println("worker got " + graphs.length + " graphs from "
+					+ conn);
+		}
+
+		final SocketWorker<NodeType, EdgeType> worker = new SocketWorker<NodeType, EdgeType>(
+				env.stack.length, env.stats, conn);
+		final Thread reader = new Thread(worker, "SocketWorker-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		worker.search(algo, worker);
+		worker.flush();
+		conn.send(Message.DONE, null);
+		conn.close();
+		if (INFO) {
+			out.println("worker sent " + worker.count + " fragments");
+		}
+	}
+
+	private static Socket connect(final String host, final int port)
+			throws IOException {
+		final long end = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (true) {
+			try {
+				return new Socket(host, port);
+			} catch (final ConnectException ce) {
+				if (System.currentTimeMillis() > end) {
+					throw ce;
+				}
+				// the coordinator may not be listening yet
+				try {
+					Thread.sleep(200);
+				} catch (final InterruptedException ie) {
+					throw ce;
+				}
+			}
+		}
+	}
+
+	private final Connection conn;
+
+	/** NODES and FINISH messages of the coordinator */
+	private final LinkedBlockingQueue<Message> replies;
+
+	private ArrayList<Fragment<NodeType, EdgeType>> buffer;
+
+	private int count = 0;
+
+	/**
+	 * creates a new SocketWorker
+	 *
+	 * @param threadcount
+	 *            the number of threads that shall be initiated
+	 * @param stats
+	 *            object to store statistical informations for all threads
+	 * @param conn
+	 *            the connection to the coordinator
+	 */
+	SocketWorker(final int threadcount, final Statistics stats,
+			final Connection conn) {
+		super(threadcount, stats);
+		this.conn = conn;
+		this.replies = new LinkedBlockingQueue<Message>();
+		this.buffer = new ArrayList<Fragment<NodeType, EdgeType>>(BATCH_SIZE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.miner.general.FragmentSink#add(de.parsemis.miner.general.Fragment)
+	 */
+	public void add(final Fragment<NodeType, EdgeType> fragment) {
+		final ArrayList<Fragment<NodeType, EdgeType>> full;
+		synchronized (this) {
+			count++;
+			buffer.add(fragment);
+			if (buffer.size() < BATCH_SIZE) {
+				return;
+			}
+			full = buffer;
+			buffer = new ArrayList<Fragment<NodeType, EdgeType>>(BATCH_SIZE);
+		}
+		send(Message.FRAGMENTS, full);
+	}
+
+	/**
+	 * sends all buffered fragments
+	 */
+	void flush() {
+		final ArrayList<Fragment<NodeType, EdgeType>> rest;
+		synchronized (this) {
+			rest = buffer;
+			buffer = new ArrayList<Fragment<NodeType, EdgeType>>(BATCH_SIZE);
+		}
+		if (!rest.isEmpty()) {
+			send(Message.FRAGMENTS, rest);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.WorkStealingStrategy#initialNodes(de.parsemis.algorithms.Algorithm)
+	 */
+	@Override
+	protected Iterator<SearchLatticeNode<NodeType, EdgeType>> initialNodes(
+			final Algorithm<NodeType, EdgeType> algo) {
+		// all nodes are given by the coordinator
+		return Collections.<SearchLatticeNode<NodeType, EdgeType>> emptyList()
+				.iterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.WorkStealingStrategy#refill(de.parsemis.strategy.AbstractWorkStealingStack)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected SearchLatticeNode<NodeType, EdgeType> refill(
+			final AbstractWorkStealingStack<NodeType, EdgeType> thief) {
+		while (true) {
+			send(Message.STEAL, null);
+			final Message reply;
+			try {
+				reply = replies.take();
+			} catch (final InterruptedException ie) {
+				throw new RuntimeException(ie);
+			}
+			if (reply.type == Message.FINISH) {
+				return null;
+			}
+			for (final SearchLatticeNode<NodeType, EdgeType> node : (Collection<SearchLatticeNode<NodeType, EdgeType>>) reply.content) {
+				thief.push(node);
+			}
+			final SearchLatticeNode<NodeType, EdgeType> ret = thief.popLocal();
+			if (ret != null) {
+				return ret;
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		try {
+			while (true) {
+				final Message msg = conn.receive();
+				switch (msg.type) {
+				case Message.SPLIT:
+					send(Message.NODES, split());
+					break;
+				case Message.NODES:
+					replies.put(msg);
+					break;
+				case Message.FINISH:
+					replies.put(msg);
+					return;
+				default:
+					throw new IOException("unexpected " + msg);
+				}
+			}
+		} catch (final IOException io) {
+			if (WARN) {
+				err.println("lost coordinator: " + io);
+			}
+			replies.add(new Message(Message.FINISH, null));
+		} catch (final InterruptedException ie) {
+			if (WARN) {
+				err.println(ie);
+			}
+		}
+	}
+
+	private void send(final int type, final Object content) {
+		try {
+			conn.send(type, content);
+		} catch (final IOException io) {
+			throw new RuntimeException("cannot reach coordinator", io);
+		}
+	}
+
+	/**
+	 * @return the nodes taken from the local stacks for other processes, or an
+	 *         empty list if all local threads are idle
+	 */
+	private ArrayList<SearchLatticeNode<NodeType, EdgeType>> split() {
+		final WorkStealingStack<NodeType, EdgeType> transfer = new WorkStealingStack<NodeType, EdgeType>(
+				-1, null);
+		final ArrayList<SearchLatticeNode<NodeType, EdgeType>> ret = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
+		if (awaitSplit(transfer)) {
+			for (SearchLatticeNode<NodeType, EdgeType> node = transfer
+					.popLocal(); node != null; node = transfer.popLocal()) {
+				ret.add(node);
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		return "SocketWorker (" + conn + ")";
+	}
+
+}
@@ -0,0 +1,20 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence: 
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+
+/**
+ * Contains the classes for the distribution of a search over several java
+ * processes connected by plain TCP sockets.
+ * <p>
+ * The {@link de.parsemis.net.SocketStrategy} is the coordinator of the search
+ * and is chosen by <code>--distribution=sockets</code>. It waits for the
+ * given number of {@link de.parsemis.net.SocketWorker} processes, sends them
+ * the graph database once, distributes the search nodes on demand and
+ * collects the found fragments. 
+ */
+package de.parsemis.net;
@@ -0,0 +1,250 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.parsers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+
+/**
+ * This class serializes fragments while the search is still running.
+ *
+ * A dedicated writer thread calls <code>serializeFragments</code> of the
+ * given parser once, with a collection whose iterator blocks until the next
+ * fragment is found or the writer is closed. If the writer cannot keep up,
+ * the mining threads are blocked as soon as <code>capacity</code> fragments
+ * are waiting.
+ *
+ * The iterator of the collection replays the first fragment for each new
+ * iterator, so that parsers can read a header from the first fragment. The
+ * size of the collection is only known at the end of the search; so if a
+ * parser requests it before writing, all fragments are buffered without
+ * back-pressure.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class FragmentStreamWriter<NodeType, EdgeType> implements
+		FragmentSink<NodeType, EdgeType>, Runnable {
+
+	/** the default number of fragments that may wait for the writer */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** the collection given to the parser */
+	private final class View extends
+			AbstractCollection<Fragment<NodeType, EdgeType>> {
+
+		@Override
+		public Iterator<Fragment<NodeType, EdgeType>> iterator() {
+			synchronized (FragmentStreamWriter.this) {
+				return new Iterator<Fragment<NodeType, EdgeType>>() {
+					private boolean replay = (first != null);
+
+					public boolean hasNext() {
+						return replay || waitForNext();
+					}
+
+					public Fragment<NodeType, EdgeType> next() {
+						if (replay) {
+							replay = false;
+							return first;
+						}
+						if (!waitForNext()) {
+							throw new NoSuchElementException();
+						}
+						return take();
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException(
+								"remove is not supported for a FragmentStreamWriter");
+					}
+				};
+			}
+		}
+
+		@Override
+		public int size() {
+			return total();
+		}
+	}
+
+	private final GraphParser<NodeType, EdgeType> serializer;
+
+	private final OutputStream out;
+
+	private final int capacity;
+
+	private final LinkedList<Fragment<NodeType, EdgeType>> queue;
+
+	private final Thread thread;
+
+	private Fragment<NodeType, EdgeType> first = null;
+
+	private int count = 0;
+
+	private boolean closed = false, done = false, unbounded = false;
+
+	private Throwable error = null;
+
+	/**
+	 * creates a new writer and starts its thread
+	 *
+	 * @param serializer
+	 *            the parser used to serialize the fragments
+	 * @param out
+	 *            the stream the fragments are written to
+	 */
+	public FragmentStreamWriter(
+			final GraphParser<NodeType, EdgeType> serializer,
+			final OutputStream out) {
+		this(serializer, out, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * creates a new writer and starts its thread
+	 *
+	 * @param serializer
+	 *            the parser used to serialize the fragments
+	 * @param out
+	 *            the stream the fragments are written to
+	 * @param capacity
+	 *            the maximal number of waiting fragments
+	 */
+	public FragmentStreamWriter(
+			final GraphParser<NodeType, EdgeType> serializer,
+			final OutputStream out, final int capacity) {
+		this.serializer = serializer;
+		this.out = out;
+		this.capacity = capacity;
+		this.queue = new LinkedList<Fragment<NodeType, EdgeType>>();
+		this.thread = new Thread(this, "FragmentStreamWriter");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.miner.general.FragmentSink#add(de.parsemis.miner.general.Fragment)
+	 */
+	public synchronized void add(final Fragment<NodeType, EdgeType> fragment) {
+		assert !closed : "add to a closed FragmentStreamWriter";
+		while (!unbounded && !done && queue.size() >= capacity) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		count++;
+		if (!done) {
+			queue.add(fragment);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * signals the end of the search, waits until all fragments are written
+	 * and rethrows the first error of the writer thread
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			thread.join();
+		} catch (final InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		if (error instanceof IOException) {
+			throw (IOException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		}
+	}
+
+	/**
+	 * @return the number of fragments given to this writer
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		try {
+			serializer.serializeFragments(out, new View());
+		} catch (final Throwable t) {
+			error = t;
+		} finally {
+			synchronized (this) {
+				done = true;
+				queue.clear();
+				notifyAll();
+			}
+		}
+	}
+
+	private synchronized Fragment<NodeType, EdgeType> take() {
+		final Fragment<NodeType, EdgeType> ret = queue.removeFirst();
+		if (first == null) {
+			first = ret;
+		}
+		notifyAll();
+		return ret;
+	}
+
+	private synchronized int total() {
+		unbounded = true;
+		notifyAll();
+		while (!closed) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return count;
+	}
+
+	private synchronized boolean waitForNext() {
+		while (queue.isEmpty() && !closed) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return !queue.isEmpty();
+	}
+
+}
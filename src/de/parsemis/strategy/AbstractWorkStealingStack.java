@@ -0,0 +1,97 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.utils.Generic;
+
+/**
+ * This class implements the common parts of the per worker deques of the work
+ * stealing search.
+ *
+ * The owning thread pushes and pops the newest (deepest) nodes at the top,
+ * whereas thieves take the oldest (shallowest) nodes from the bottom. If the
+ * deque runs empty, the owner asks its strategy to steal new work. Without a
+ * strategy, the deque can be used as a simple standalone stack.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public abstract class AbstractWorkStealingStack<NodeType, EdgeType> implements
+		MiningStack<NodeType, EdgeType>, Generic<NodeType, EdgeType> {
+
+	protected final int idx;
+
+	private final WorkStealingStrategy<NodeType, EdgeType> owner;
+
+	/** number of successful steals of the owning thread */
+	int steals = 0;
+
+	/** number of failed steal attempts of the owning thread */
+	int failedSteals = 0;
+
+	/** number of times the owning thread has to wait for new work */
+	int idles = 0;
+
+	/** time the owning thread has waited for new work */
+	long idleTime = 0;
+
+	/**
+	 * creates a new work stealing stack
+	 *
+	 * @param idx
+	 *            the index of the owning thread
+	 * @param owner
+	 *            the strategy this stack belongs to (or <code>null</code>)
+	 */
+	protected AbstractWorkStealingStack(final int idx,
+			final WorkStealingStrategy<NodeType, EdgeType> owner) {
+		this.idx = idx;
+		this.owner = owner;
+	}
+
+	/**
+	 * @return the index of the owning thread
+	 */
+	public final int getIdx() {
+		return idx;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#pop()
+	 */
+	public final SearchLatticeNode<NodeType, EdgeType> pop() {
+		final SearchLatticeNode<NodeType, EdgeType> ret = popLocal();
+		return (ret != null || owner == null ? ret : owner.steal(this));
+	}
+
+	/**
+	 * Has to be called only by the owning thread.
+	 *
+	 * @return and removes the top of the stack, or <code>null</code> if the
+	 *         stack is empty (without trying to steal new work)
+	 */
+	public abstract SearchLatticeNode<NodeType, EdgeType> popLocal();
+
+	/**
+	 * wakes up waiting workers after new nodes are pushed
+	 */
+	protected final void signal() {
+		if (owner != null) {
+			owner.signal();
+		}
+	}
+
+}
@@ -0,0 +1,324 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import java.io.Serializable;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.Statistics;
+
+/**
+ * This class records the observed costs of extending search nodes and derives
+ * from this history how much work a stack split should give away and how
+ * deep the transfered nodes may be.
+ *
+ * The expansion times are recorded per thread, per lattice level and per
+ * initial node (each thread locks just its own record, so the lock is
+ * uncontended except while the records are merged). They are periodically
+ * merged to an estimation of the average subtree cost of a node on each level,
+ * scaled by the relative cost of the subtree of its initial node.
+ */
+public class AdaptiveSplitPolicy implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** the number of recorded nodes before the history is used */
+	private static final int MIN_SAMPLES = 64;
+
+	/** minimal time between two updates of the estimations (in ns) */
+	private static final long UPDATE_INTERVAL = 10000000L;
+
+	/** the lower bound of a subtree cost that is worth to be transfered */
+	private static final double MIN_COST = 100000.0;
+
+	/** how many times more expensive a subtree has to be than a split */
+	private static final double SPLIT_FACTOR = 16.0;
+
+	/** costs gathered by a single thread, guarded by its own monitor */
+	private static final class ThreadCosts {
+		long[] levelTime = new long[16];
+
+		int[] levelCount = new int[16];
+
+		long[] rootTime = new long[16];
+
+		int[] rootCount = new int[16];
+
+		long splitTime = 0;
+
+		int splits = 0;
+
+		long count = 0;
+	}
+
+	private final ThreadCosts[] costs;
+
+	/** the estimated subtree cost of a node of each level */
+	private volatile double[] subtreeCost = new double[0];
+
+	/** the relative cost of each initial node */
+	private volatile double[] rootFactor = new double[0];
+
+	private volatile double minCost = MIN_COST;
+
+	private volatile int maxSplitDepth = Integer.MAX_VALUE;
+
+	private volatile boolean valid = false;
+
+	/** the number of initial nodes of the search */
+	private volatile int rootCount = 0;
+
+	private long lastUpdate = 0;
+
+	/** thresholds observed for successful splits */
+	private int minSplitSize = Integer.MAX_VALUE, maxSplitCount = 0,
+			maxSplitLevel = -1;
+
+	/**
+	 * creates a new policy for the given number of threads
+	 *
+	 * @param threadCount
+	 */
+	public AdaptiveSplitPolicy(final int threadCount) {
+		costs = new ThreadCosts[threadCount];
+		for (int i = 0; i < threadCount; ++i) {
+			costs[i] = new ThreadCosts();
+		}
+	}
+
+	/**
+	 * @param node
+	 * @return the estimated cost (in ns) of the subtree of the given node
+	 */
+	public double estimate(final SearchLatticeNode<?, ?> node) {
+		final double[] sub = subtreeCost;
+		final double[] fac = rootFactor;
+		final int level = node.getLevel();
+		if (sub.length == 0) {
+			return 0;
+		}
+		final double base = sub[level < 0 ? 0
+				: (level < sub.length ? level : sub.length - 1)];
+		final int root = node.getRoot();
+		return (root >= 0 && root < fac.length ? base * fac[root] : base);
+	}
+
+	/**
+	 * @return the maximal level of nodes that are worth to be transfered
+	 */
+	public int getMaxSplitDepth() {
+		return maxSplitDepth;
+	}
+
+	/**
+	 * @return the minimal subtree cost (in ns) that is worth to be transfered
+	 */
+	public double getMinCost() {
+		return minCost;
+	}
+
+	/**
+	 * @return <code>true</code>, if enough history is recorded to use the
+	 *         estimations
+	 */
+	public boolean isValid() {
+		if (System.nanoTime() - lastUpdate > UPDATE_INTERVAL) {
+			update();
+		}
+		return valid;
+	}
+
+	/**
+	 * sets the number of initial nodes, so that the cost of each initial node
+	 * can be related to the average one
+	 *
+	 * @param count
+	 */
+	public void setRootCount(final int count) {
+		rootCount = count;
+	}
+
+	/**
+	 * records the time required to extend the given node
+	 *
+	 * @param idx
+	 *            the index of the working thread
+	 * @param node
+	 * @param time
+	 *            in ns
+	 */
+	public void record(final int idx, final SearchLatticeNode<?, ?> node,
+			final long time) {
+		final ThreadCosts c = costs[idx];
+		final int level = (node.getLevel() < 0 ? 0 : node.getLevel());
+		final int root = node.getRoot();
+		synchronized (c) {
+			if (level >= c.levelTime.length) {
+				c.levelTime = grow(c.levelTime, level);
+				c.levelCount = grow(c.levelCount, level);
+			}
+			c.levelTime[level] += time;
+			c.levelCount[level]++;
+			if (root >= 0) {
+				if (root >= c.rootTime.length) {
+					c.rootTime = grow(c.rootTime, root);
+					c.rootCount = grow(c.rootCount, root);
+				}
+				c.rootTime[root] += time;
+				c.rootCount[root]++;
+			}
+			c.count++;
+		}
+	}
+
+	/**
+	 * records a successful split
+	 *
+	 * @param idx
+	 *            the index of the thread whose stack is split
+	 * @param size
+	 *            the stack size before the split
+	 * @param count
+	 *            the number of transfered nodes
+	 * @param level
+	 *            the deepest level of the transfered nodes
+	 * @param time
+	 *            the time required for the split (in ns)
+	 */
+	public synchronized void recordSplit(final int idx, final int size,
+			final int count, final int level, final long time) {
+		final ThreadCosts c = costs[idx];
+		synchronized (c) {
+			c.splitTime += time;
+			c.splits++;
+		}
+		minSplitSize = Math.min(minSplitSize, size);
+		maxSplitCount = Math.max(maxSplitCount, count);
+		maxSplitLevel = Math.max(maxSplitLevel, level);
+	}
+
+	/**
+	 * stores the chosen thresholds to the given statistics
+	 *
+	 * @param stats
+	 */
+	public synchronized void report(final Statistics stats) {
+		update();
+		stats.adaptiveSplitSize = (minSplitSize == Integer.MAX_VALUE ? -1
+				: minSplitSize);
+		stats.adaptiveSplitDepth = (maxSplitDepth == Integer.MAX_VALUE ? maxSplitLevel
+				: maxSplitDepth);
+		stats.adaptiveSplitCount = maxSplitCount;
+		stats.adaptiveSplitCost = (long) minCost;
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder b = new StringBuilder("AdaptiveSplitPolicy: minCost=");
+		b.append((long) minCost).append("ns maxSplitDepth=").append(
+				maxSplitDepth).append(" subtreeCost[ns]=");
+		final double[] sub = subtreeCost;
+		for (int i = 0; i < sub.length; ++i) {
+			b.append(i == 0 ? "[" : ", ").append((long) sub[i]);
+		}
+		return b.append(sub.length == 0 ? "[]" : "]").toString();
+	}
+
+	/**
+	 * merges the per thread histories to new estimations and thresholds
+	 */
+	public synchronized void update() {
+		lastUpdate = System.nanoTime();
+		final int roots = rootCount;
+		long count = 0;
+		for (final ThreadCosts c : costs) {
+			synchronized (c) {
+				count += c.count;
+			}
+		}
+		if (count < MIN_SAMPLES) {
+			return;
+		}
+		long[] levelTime = new long[16];
+		long[] levelCount = new long[16];
+		final long[] rootTime = new long[roots];
+		final long[] rootCount = new long[roots];
+		long splitTime = 0;
+		int levels = 0, splits = 0;
+		for (final ThreadCosts c : costs) {
+			synchronized (c) {
+				if (c.levelTime.length > levelTime.length) {
+					levelTime = grow(levelTime, c.levelTime.length - 1);
+					levelCount = grow(levelCount, c.levelTime.length - 1);
+				}
+				levels = Math.max(levels, c.levelTime.length);
+				for (int i = 0; i < c.levelTime.length; ++i) {
+					levelTime[i] += c.levelTime[i];
+					levelCount[i] += c.levelCount[i];
+				}
+				for (int i = 0; i < c.rootTime.length && i < roots; ++i) {
+					rootTime[i] += c.rootTime[i];
+					rootCount[i] += c.rootCount[i];
+				}
+				splitTime += c.splitTime;
+				splits += c.splits;
+			}
+		}
+		// the subtree of a node of level l contains all work of the deeper
+		// levels, distributed over the nodes of level l
+		int last = levels - 1;
+		while (last > 0 && levelCount[last] == 0) {
+			last--;
+		}
+		final double[] sub = new double[last + 1];
+		long below = 0, all = 0;
+		for (int l = last; l >= 0; --l) {
+			below += levelTime[l];
+			sub[l] = (levelCount[l] == 0 ? (l < last ? sub[l + 1] : 0)
+					: ((double) below) / levelCount[l]);
+		}
+		for (int l = 0; l < levels; ++l) {
+			all += levelTime[l];
+		}
+		// initial nodes with more expensive subtrees get higher estimations
+		final double avgRoot = (roots == 0 ? 0 : ((double) all) / roots);
+		final double[] fac = new double[roots];
+		for (int r = 0; r < roots; ++r) {
+			fac[r] = (avgRoot <= 0 || rootCount[r] == 0 ? 1.0 : Math.min(10.0,
+					Math.max(0.1, rootTime[r] / avgRoot)));
+		}
+		// nodes have to be more expensive than the split itself
+		final double newMin = Math.max(MIN_COST, (splits == 0 ? 0
+				: SPLIT_FACTOR * splitTime / splits));
+		int depth = -1;
+		for (int l = 0; l < sub.length; ++l) {
+			if (sub[l] >= newMin) {
+				depth = l;
+			}
+		}
+		subtreeCost = sub;
+		rootFactor = fac;
+		minCost = newMin;
+		maxSplitDepth = (depth < 0 ? 0 : depth);
+		valid = true;
+	}
+
+	private static int[] grow(final int[] old, final int min) {
+		final int[] ret = new int[Math.max(old.length << 1, min + 1)];
+		System.arraycopy(old, 0, ret, 0, old.length);
+		return ret;
+	}
+
+	private static long[] grow(final long[] old, final int min) {
+		final long[] ret = new long[Math.max(old.length << 1, min + 1)];
+		System.arraycopy(old, 0, ret, 0, old.length);
+		return ret;
+	}
+
+}
@@ -14,23 +14,36 @@
  */
 package de.parsemis.strategy;
 
+import static de.parsemis.miner.environment.Debug.INFO;
+import static de.parsemis.miner.environment.Debug.VERBOSE;
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 
 import de.parsemis.algorithms.Algorithm;
 import de.parsemis.miner.chain.Extender;
 import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.Budget;
 import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
 import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
 
 /**
- * This class represents a local breadth first extension strategy.
- * 
+ * This class represents a level synchronous breadth first extension strategy.
+ *
+ * All nodes of a level are extended concurrently by the given number of
+ * threads, each with its own extender. The found children form the next level,
+ * which is started after all threads have finished the current one.
+ *
  * @author Alexander Dreweke (dreweke@informatik.uni-erlangen.de)
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
- * 
+ *
  * @param <NodeType>
  *            the type of the node labels (will be hashed and checked with
  *            .equals(..))
@@ -41,34 +54,222 @@ import de.parsemis.miner.general.Fragment;
 public class BFSStrategy<NodeType, EdgeType> implements
 		Strategy<NodeType, EdgeType> {
 
+	/** extends the nodes of one level */
+	private final class LevelWorker implements Runnable {
+		private final int idx;
+
+		private final Frontier<NodeType, EdgeType> current, next;
+
+		LevelWorker(final int idx, final Frontier<NodeType, EdgeType> current,
+				final Frontier<NodeType, EdgeType> next) {
+			this.idx = idx;
+			this.current = current;
+			this.next = next;
+		}
+
+		public void run() {
+			final ArrayList<SearchLatticeNode<NodeType, EdgeType>> chunk = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
+			while (current.take(idx, chunk)) {
+				for (final SearchLatticeNode<NodeType, EdgeType> node : chunk) {
+					extend(node);
+				}
+			}
+		}
+
+		private void extend(final SearchLatticeNode<NodeType, EdgeType> node) {
+			node.setThreadNumber(idx);
+			if (budget != null && skip(node)) {
+				// leave the node unexplored
+				budget.skip(node);
+				node.release();
+				node.finalizeIt();
+				return;
+			}
+			final int root = node.getRoot();
+			for (final SearchLatticeNode<NodeType, EdgeType> child : extenders[idx]
+					.getChildren(node)) {
+				child.setRoot(root);
+				next.add(idx, child);
+			}
+
+			if (node.store()) {
+				node.store(answers[idx]);
+			} else {
+				node.release();
+			}
+
+			node.finalizeIt();
+		}
+	}
+
+	private final Collection<Fragment<NodeType, EdgeType>>[] answers;
+
+	private final Extender<NodeType, EdgeType>[] extenders;
+
+	private final Statistics stats;
+
+	private final int frontierLimit;
+
+	private Budget budget;
+
+	/** nodes deeper than this level are not extended any more */
+	private volatile int limit;
+
+	/**
+	 * creates a new single threaded BFSStrategy
+	 */
+	public BFSStrategy() {
+		this(1, new Statistics(), 0);
+	}
+
+	/**
+	 * creates a new BFSStrategy
+	 *
+	 * @param threadcount
+	 *            the number of threads that extend each level
+	 * @param stats
+	 *            object to store statistical informations for all threads
+	 * @param frontierLimit
+	 *            the maximal number of nodes of a level kept in memory (or 0
+	 *            for no limit); further nodes are swapped to disk
+	 */
+	@SuppressWarnings("unchecked")
+	public BFSStrategy(final int threadcount, final Statistics stats,
+			final int frontierLimit) {
+		this.answers = (Collection<Fragment<NodeType, EdgeType>>[]) new Collection<?>[threadcount];
+		this.extenders = (Extender<NodeType, EdgeType>[]) new Extender<?, ?>[threadcount];
+		this.stats = stats;
+		this.frontierLimit = frontierLimit;
+	}
+
+	/**
+	 * extends all nodes of the <code>current</code> level and adds their
+	 * children to the <code>next</code> one
+	 *
+	 * @param current
+	 * @param next
+	 */
+	private void expand(final Frontier<NodeType, EdgeType> current,
+			final Frontier<NodeType, EdgeType> next) {
+		final Thread[] threads = new Thread[answers.length];
+		for (int i = 1; i < answers.length; ++i) {
+			threads[i] = new SMPThread<NodeType, EdgeType>(i, new LevelWorker(
+					i, current, next));
+			threads[i].start();
+		}
+
+		// extend within the current thread, too
+		new LevelWorker(0, current, next).run();
+
+		// wait for others
+		for (int i = 1; i < answers.length; ++i) {
+			try {
+				threads[i].join();
+			} catch (final InterruptedException ie) {
+				if (WARN) {
+					err.println(ie);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node
+	 * @return <code>true</code>, if the given node shall not be extended
+	 */
+	private boolean skip(final SearchLatticeNode<NodeType, EdgeType> node) {
+		if (budget.exhausted()) {
+			return true;
+		}
+		if (limit == Integer.MAX_VALUE && budget.near()) {
+			// finish the current level, but do not start further ones
+			limit = node.getLevel();
+		}
+		return node.getLevel() > limit;
+	}
+
 	public Collection<Fragment<NodeType, EdgeType>> search(
 			final Algorithm<NodeType, EdgeType> algo) {
-		final List<SearchLatticeNode<NodeType, EdgeType>> list = new LinkedList<SearchLatticeNode<NodeType, EdgeType>>();
-		final Collection<Fragment<NodeType, EdgeType>> result = LocalEnvironment
-				.env(this).getReturnSet();
+		return search(algo, null);
+	}
 
-		final Extender<NodeType, EdgeType> extender = algo.getExtender(0);
-		assert (extender != null) : "extender == null";
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		final String filename = env.objectFileName;
 
-		final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
-				.initialNodes();
-		while (it.hasNext()) {
-			list.add(it.next());
+		for (int i = 0; i < answers.length; ++i) {
+			answers[i] = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+					sink)
+					: i == 0 ? env.getReturnSet()
+							: filename != null ? env
+									.<Fragment<NodeType, EdgeType>> newSwapCollection(filename
+											+ "_" + i)
+									: new ArrayList<Fragment<NodeType, EdgeType>>());
+			extenders[i] = algo.getExtender(i);
+			assert (extenders[i] != null) : "extender == null";
 		}
 
-		while (!list.isEmpty()) {
-			final SearchLatticeNode<NodeType, EdgeType> current = list
-					.remove(0);
-			list.addAll(extender.getChildren(current));
+		budget = env.budget;
+		limit = Integer.MAX_VALUE;
+		int level = 0;
+		int swapLimit = frontierLimit;
+		Frontier<NodeType, EdgeType> current = new Frontier<NodeType, EdgeType>(
+				level, swapLimit, filename, answers.length);
+		int root = 0;
+		for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
+				.initialNodes(); it.hasNext();) {
+			final SearchLatticeNode<NodeType, EdgeType> node = it.next();
+			node.setRoot(root++);
+			// spread the initial nodes over the parts
+			current.add(root % answers.length, node);
+		}
+		current.seal();
 
-			if (current.store()) {
-				current.store(result);
-			} else {
-				current.release();
+		if (INFO) {
+			stats.distributedTime -= System.currentTimeMillis();
+		}
+		while (current.size() > 0) {
+			final long time = System.currentTimeMillis();
+			stats.bfsLevels++;
+			stats.maxFrontierSize = Math.max(stats.maxFrontierSize, current
+					.size());
+			stats.spilledNodes += current.spilled();
+
+			final Frontier<NodeType, EdgeType> next = new Frontier<NodeType, EdgeType>(
+					++level, swapLimit, filename, answers.length);
+			expand(current, next);
+			current.close();
+			// the level barrier: all threads have finished
+			next.seal();
+			if (swapLimit > 0 && !next.isSwappable()) {
+				if (WARN) {
+					err.println("search nodes of " + algo
+							+ " cannot be swapped, frontierLimit is ignored");
+				}
+				swapLimit = 0;
+			}
+
+			if (VERBOSE) {
+				out.println("level " + (level - 1) + " with "
+						+ current.size() + " nodes (" + current.spilled()
+						+ " swapped) done ("
+						+ (System.currentTimeMillis() - time) + " ms)");
 			}
+			current = next;
+		}
+		if (INFO) {
+			stats.distributedTime += System.currentTimeMillis();
+		}
 
-			current.finalizeIt();
+		// collect data (streamed fragments are already emitted)
+		if (sink == null) {
+			for (int i = 1; i < answers.length; ++i) {
+				answers[0].addAll(answers[i]);
+			}
 		}
-		return result;
+		return answers[0];
 	}
 }
@@ -0,0 +1,189 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import static de.parsemis.miner.environment.Debug.VVERBOSE;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+
+/**
+ * This class implements the per worker deque of the work stealing search as a
+ * growable lock-free Chase-Lev deque.
+ *
+ * Only the owning thread is allowed to call <code>push</code> and
+ * <code>popLocal</code>; these need no atomic operation unless a thief
+ * competes for the last node. Any thread may call <code>split</code> to move
+ * the oldest nodes into its own stack (so the given stack has to be owned by
+ * the calling thread).
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class ChaseLevStack<NodeType, EdgeType> extends
+		AbstractWorkStealingStack<NodeType, EdgeType> {
+
+	private static final int INITIAL_SIZE = 16;
+
+	/** the next index to be stolen (the oldest node) */
+	private final AtomicLong top;
+
+	/** the next free index for the owner (behind the newest node) */
+	private volatile long bottom;
+
+	/** the circular node buffer, its length is always a power of two */
+	private volatile AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> pool;
+
+	/**
+	 * creates a new lock-free work stealing stack
+	 *
+	 * @param idx
+	 *            the index of the owning thread
+	 * @param owner
+	 *            the strategy this stack belongs to (or <code>null</code>)
+	 */
+	public ChaseLevStack(final int idx,
+			final WorkStealingStrategy<NodeType, EdgeType> owner) {
+		super(idx, owner);
+		this.top = new AtomicLong(0);
+		this.bottom = 0;
+		this.pool = new AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>>(
+				INITIAL_SIZE);
+	}
+
+	/**
+	 * doubles the size of the buffer (called by the owner only)
+	 *
+	 * @param old
+	 * @param t
+	 * @param b
+	 * @return the new buffer
+	 */
+	private AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> grow(
+			final AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> old,
+			final long t, final long b) {
+		final int oldMask = old.length() - 1;
+		final AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> tmp = new AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>>(
+				old.length() << 1);
+		final int mask = tmp.length() - 1;
+		for (long i = t; i < b; ++i) {
+			tmp.set((int) (i & mask), old.get((int) (i & oldMask)));
+		}
+		pool = tmp;
+		return tmp;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.AbstractWorkStealingStack#popLocal()
+	 */
+	@Override
+	public SearchLatticeNode<NodeType, EdgeType> popLocal() {
+		final long b = bottom - 1;
+		final AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> a = pool;
+		bottom = b;
+		final long t = top.get();
+		if (b < t) {
+			// empty
+			bottom = t;
+			return null;
+		}
+		final int slot = (int) (b & (a.length() - 1));
+		SearchLatticeNode<NodeType, EdgeType> ret = a.get(slot);
+		if (b > t) {
+			// no thief can reach this slot any more
+			a.set(slot, null);
+		} else {
+			// last node, compete with the thieves
+			if (top.compareAndSet(t, t + 1)) {
+				a.compareAndSet(slot, ret, null);
+			} else {
+				ret = null;
+			}
+			bottom = t + 1;
+		}
+		assert ret == null || ret.getThreadNumber() == idx : "wrong Node in ChaseLevStack";
+		return ret;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#push(de.parsemis.miner.SearchLatticeNode)
+	 */
+	public SearchLatticeNode<NodeType, EdgeType> push(
+			final SearchLatticeNode<NodeType, EdgeType> object) {
+		object.setThreadNumber(idx);
+		final long b = bottom;
+		final long t = top.get();
+		AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> a = pool;
+		if (b - t >= a.length() - 1) {
+			a = grow(a, t, b);
+		}
+		a.set((int) (b & (a.length() - 1)), object);
+		bottom = b + 1;
+		signal();
+		return object;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#size()
+	 */
+	public int size() {
+		final long size = bottom - top.get();
+		return (size < 0 ? 0 : (int) size);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#split(de.parsemis.strategy.MiningStack)
+	 */
+	public boolean split(final MiningStack<NodeType, EdgeType> other) {
+		// take the older half, but at least one node
+		final int max = (size() + 1) >> 1;
+		int count = 0;
+		while (count < max) {
+			final long t = top.get();
+			final long b = bottom;
+			if (t >= b) {
+				break;
+			}
+			final AtomicReferenceArray<SearchLatticeNode<NodeType, EdgeType>> a = pool;
+			final int slot = (int) (t & (a.length() - 1));
+			final SearchLatticeNode<NodeType, EdgeType> next = a.get(slot);
+			if (next != null && top.compareAndSet(t, t + 1)) {
+				// clear the slot, if it is not reused in the meantime
+				a.compareAndSet(slot, next, null);
+				other.push(next);
+				count++;
+			}
+		}
+		if (VVERBOSE && count > 0) {
+			out.println(other + " steals " + count + " nodes from " + this);
+		}
+		return count > 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ChaseLevStack-" + idx;
+	}
+
+}
@@ -0,0 +1,319 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.general.DataBaseGraph;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.utils.GraphReference;
+
+/**
+ * This class stores the state of an interrupted search: the unextended search
+ * nodes, the graph database the nodes refer to, and how much of the fragment
+ * log belongs to the checkpoint.
+ *
+ * The found fragments are not rewritten for each checkpoint, but appended to
+ * a log in the same directory, in which the database graphs are just
+ * referenced. Everything behind the stored length of the log is ignored (and
+ * truncated) on a resume.
+ *
+ * The label tables of the environment are stored, too, to detect a resume
+ * with a different graph database or different settings.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+final class Checkpoint<NodeType, EdgeType> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** the name of the checkpoint file within the checkpoint directory */
+	static final String FILE_NAME = "checkpoint.ser";
+
+	/** the name of the fragment log within the checkpoint directory */
+	static final String LOG_NAME = "fragments.ser";
+
+	/**
+	 * appends the given fragments to the fragment log of the given directory
+	 *
+	 * @param dir
+	 * @param length
+	 *            the length of the valid part of the log, further bytes are
+	 *            truncated
+	 * @param fragments
+	 * @param graphs
+	 *            the graph database, which is just referenced
+	 * @return the new length of the log
+	 * @throws IOException
+	 */
+	static long append(final String dir, final long length,
+			final Collection<? extends Fragment<?, ?>> fragments,
+			final DataBaseGraph<?, ?>[] graphs) throws IOException {
+		// each part is serialized on its own, so the stream does not keep
+		// the fragments alive and each part can be read separately
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final GraphReference.Output out = new GraphReference.Output(bytes);
+		out.setGraphs(graphs);
+		out.writeObject(new ArrayList<Fragment<?, ?>>(fragments));
+		out.close();
+		final RandomAccessFile log = new RandomAccessFile(new File(
+				directory(dir), LOG_NAME), "rw");
+		try {
+			log.setLength(length);
+			log.seek(length);
+			log.writeInt(bytes.size());
+			log.write(bytes.toByteArray());
+			log.getFD().sync();
+			return log.length();
+		} finally {
+			log.close();
+		}
+	}
+
+	private static File directory(final String dir) throws IOException {
+		final File directory = new File(dir);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("cannot create directory " + dir);
+		}
+		return directory;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <NodeType, EdgeType> DataBaseGraph<NodeType, EdgeType>[] graphs(
+			final LocalEnvironment<NodeType, EdgeType> env) {
+		final DataBaseGraph<NodeType, EdgeType>[] ret = (DataBaseGraph<NodeType, EdgeType>[]) new DataBaseGraph<?, ?>[env
+				.graphCount()];
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = env.getGraph(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * reads the checkpoint of the given directory
+	 *
+	 * @param <NodeType>
+	 * @param <EdgeType>
+	 * @param dir
+	 * @return the stored checkpoint
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	static <NodeType, EdgeType> Checkpoint<NodeType, EdgeType> read(
+			final String dir) throws IOException {
+		final ObjectInputStream in = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(new File(dir,
+						FILE_NAME))));
+		try {
+			return (Checkpoint<NodeType, EdgeType>) in.readObject();
+		} catch (final ClassNotFoundException cnf) {
+			final IOException io = new IOException("invalid checkpoint: "
+					+ cnf.getMessage());
+			io.initCause(cnf);
+			throw io;
+		} finally {
+			in.close();
+		}
+	}
+
+	private final ArrayList<NodeType> nodeLabels;
+
+	private final ArrayList<EdgeType> edgeLabels;
+
+	private final DataBaseGraph<NodeType, EdgeType>[] graphs;
+
+	/** the search nodes that are not extended yet */
+	final Collection<SearchLatticeNode<NodeType, EdgeType>> nodes;
+
+	/** the length of the fragment log with the fragments found so far */
+	final long logLength;
+
+	/** the number of the fragments found so far */
+	final int fragmentCount;
+
+	/**
+	 * creates a new checkpoint
+	 *
+	 * @param env
+	 *            the environment of the search
+	 * @param nodes
+	 *            the search nodes that are not extended yet
+	 * @param logLength
+	 *            the length of the fragment log with the fragments found so
+	 *            far
+	 * @param fragmentCount
+	 *            the number of the fragments found so far
+	 */
+	Checkpoint(final LocalEnvironment<NodeType, EdgeType> env,
+			final Collection<SearchLatticeNode<NodeType, EdgeType>> nodes,
+			final long logLength, final int fragmentCount) {
+		this.nodeLabels = new ArrayList<NodeType>(env.nodeLabelCount());
+		for (int i = 0; i < env.nodeLabelCount(); ++i) {
+			nodeLabels.add(env.getNodeLabel(i));
+		}
+		this.edgeLabels = new ArrayList<EdgeType>(env.edgeLabelCount());
+		for (int i = 0; i < env.edgeLabelCount(); ++i) {
+			edgeLabels.add(env.getEdgeLabel(i));
+		}
+		this.graphs = graphs(env);
+		this.nodes = nodes;
+		this.logLength = logLength;
+		this.fragmentCount = fragmentCount;
+	}
+
+	/**
+	 * copies the valid part of the fragment log of this checkpoint to another
+	 * directory
+	 *
+	 * @param from
+	 *            the directory of this checkpoint
+	 * @param to
+	 * @throws IOException
+	 */
+	void copyLog(final String from, final String to) throws IOException {
+		final File src = new File(from, LOG_NAME);
+		final File dst = new File(directory(to), LOG_NAME);
+		if (src.getCanonicalFile().equals(dst.getCanonicalFile())) {
+			return;
+		}
+		final FileInputStream in = new FileInputStream(src);
+		final FileOutputStream out = new FileOutputStream(dst);
+		try {
+			final byte[] buf = new byte[65536];
+			long rest = logLength;
+			while (rest > 0) {
+				final int read = in.read(buf, 0, (int) Math.min(buf.length,
+						rest));
+				if (read < 0) {
+					throw new IOException("truncated fragment log " + src);
+				}
+				out.write(buf, 0, read);
+				rest -= read;
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	/**
+	 * replaces the graphs of the given environment by the stored ones, to
+	 * which the stored nodes and fragments refer
+	 *
+	 * @param env
+	 *            the environment of the resumed search
+	 */
+	void install(final LocalEnvironment<NodeType, EdgeType> env) {
+		boolean same = graphs.length == env.graphCount()
+				&& nodeLabels.size() == env.nodeLabelCount()
+				&& edgeLabels.size() == env.edgeLabelCount();
+		for (int i = 0; same && i < nodeLabels.size(); ++i) {
+			same = nodeLabels.get(i).equals(env.getNodeLabel(i));
+		}
+		for (int i = 0; same && i < edgeLabels.size(); ++i) {
+			same = edgeLabels.get(i).equals(env.getEdgeLabel(i));
+		}
+		if (!same) {
+			throw new RuntimeException(
+					"the checkpoint does not match the given graph database and settings");
+		}
+		for (int i = 0; i < graphs.length; ++i) {
+			env.setDataBaseGraph(i, graphs[i]);
+		}
+	}
+
+	/**
+	 * adds the fragments of this checkpoint to the given collection
+	 *
+	 * @param dir
+	 *            the directory of this checkpoint
+	 * @param into
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	void readFragments(final String dir,
+			final Collection<Fragment<NodeType, EdgeType>> into)
+			throws IOException {
+		if (logLength == 0) {
+			return;
+		}
+		final DataInputStream log = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(new File(dir,
+						LOG_NAME))));
+		try {
+			for (long pos = 0; pos < logLength;) {
+				final byte[] part = new byte[log.readInt()];
+				log.readFully(part);
+				pos += 4 + part.length;
+				final GraphReference.Input in = new GraphReference.Input(
+						new ByteArrayInputStream(part));
+				in.setGraphs(graphs);
+				try {
+					into.addAll((Collection<Fragment<NodeType, EdgeType>>) in
+							.readObject());
+				} catch (final ClassNotFoundException cnf) {
+					final IOException io = new IOException(
+							"invalid fragment log: " + cnf.getMessage());
+					io.initCause(cnf);
+					throw io;
+				}
+			}
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * writes this checkpoint to the given directory, replacing the previous
+	 * one only after the new one is completely written
+	 *
+	 * @param dir
+	 * @throws IOException
+	 */
+	void write(final String dir) throws IOException {
+		final File directory = directory(dir);
+		final File tmp = new File(directory, FILE_NAME + ".tmp");
+		final ObjectOutputStream out = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeObject(this);
+			out.close();
+		} catch (final IOException io) {
+			out.close();
+			tmp.delete();
+			throw io;
+		}
+		final File file = new File(directory, FILE_NAME);
+		if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+			throw new IOException("cannot replace " + file);
+		}
+	}
+
+}
@@ -0,0 +1,319 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import static de.parsemis.miner.environment.Debug.VERBOSE;
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.miner.general.Fragment;
+
+/**
+ * This class regularly writes checkpoints of a ThreadedDFSStrategy.
+ *
+ * To get a consistent state, a checkpoint is only written if each working
+ * thread waits at the beginning of its next extension, so that all unextended
+ * nodes are either on a stack or held by a waiting Worker. Threads without
+ * work are kept from splitting during the checkpoint by the lock of the
+ * StackList.
+ *
+ * The fragments found since the previous checkpoint are appended to the
+ * fragment log of the checkpoint directory and then dropped, so they are not
+ * kept in memory in addition to the result collection (or swap file).
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+final class Checkpointer<NodeType, EdgeType> implements Runnable {
+
+	/** records the fragments found by one Worker since the last checkpoint */
+	private final class Recorder extends
+			AbstractCollection<Fragment<NodeType, EdgeType>> {
+		private final int idx;
+
+		private final Collection<Fragment<NodeType, EdgeType>> target;
+
+		Recorder(final int idx,
+				final Collection<Fragment<NodeType, EdgeType>> target) {
+			this.idx = idx;
+			this.target = target;
+		}
+
+		@Override
+		public boolean add(final Fragment<NodeType, EdgeType> fragment) {
+			unlogged[idx].add(fragment);
+			return target.add(fragment);
+		}
+
+		@Override
+		public Iterator<Fragment<NodeType, EdgeType>> iterator() {
+			return target.iterator();
+		}
+
+		@Override
+		public int size() {
+			return target.size();
+		}
+	}
+
+	private final StackList<NodeType, EdgeType> list;
+
+	private final LocalEnvironment<NodeType, EdgeType> env;
+
+	private final Statistics stats;
+
+	/** the fragments found since the last checkpoint, per Worker */
+	private final ArrayList<Fragment<NodeType, EdgeType>>[] unlogged;
+
+	/** the length of the fragment log */
+	private long logLength;
+
+	/** the number of fragments within the fragment log */
+	private int fragmentCount;
+
+	private final SearchLatticeNode<NodeType, EdgeType>[] held;
+
+	private final Thread thread;
+
+	/** is set while a checkpoint waits for the Workers */
+	volatile boolean pending = false;
+
+	private int paused = 0;
+
+	private boolean stopped = false;
+
+	/**
+	 * creates a new Checkpointer and starts its thread
+	 *
+	 * @param list
+	 *            the list of all working stacks
+	 * @param env
+	 * @param stats
+	 * @param threadCount
+	 *            the number of Workers
+	 * @param resumed
+	 *            the resumed checkpoint (or <code>null</code>), whose
+	 *            fragment log is continued
+	 */
+	@SuppressWarnings("unchecked")
+	Checkpointer(final StackList<NodeType, EdgeType> list,
+			final LocalEnvironment<NodeType, EdgeType> env,
+			final Statistics stats, final int threadCount,
+			final Checkpoint<NodeType, EdgeType> resumed) {
+		this.list = list;
+		this.env = env;
+		this.stats = stats;
+		this.unlogged = (ArrayList<Fragment<NodeType, EdgeType>>[]) new ArrayList<?>[threadCount];
+		for (int i = 0; i < threadCount; ++i) {
+			unlogged[i] = new ArrayList<Fragment<NodeType, EdgeType>>();
+		}
+		if (resumed != null) {
+			try {
+				resumed.copyLog(env.resumeDir, env.checkpointDir);
+				logLength = resumed.logLength;
+				fragmentCount = resumed.fragmentCount;
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot continue the fragment log",
+						io);
+			}
+		}
+		this.held = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[threadCount];
+		this.thread = new Thread(this, "Checkpointer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * waits until the checkpoint is written
+	 *
+	 * @param idx
+	 *            the index of the calling Worker
+	 * @param node
+	 *            the node the Worker will extend next
+	 */
+	synchronized void pause(final int idx,
+			final SearchLatticeNode<NodeType, EdgeType> node) {
+		held[idx] = node;
+		paused++;
+		notifyAll();
+		while (pending) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				if (WARN) {
+					err.println(ie);
+				}
+			}
+		}
+		paused--;
+		held[idx] = null;
+	}
+
+	/**
+	 * @param idx
+	 *            the index of a Worker
+	 * @param target
+	 *            the collection the Worker stores its fragments to
+	 * @return a collection that additionally records the fragments for the
+	 *         checkpoints
+	 */
+	Collection<Fragment<NodeType, EdgeType>> record(final int idx,
+			final Collection<Fragment<NodeType, EdgeType>> target) {
+		return new Recorder(idx, target);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		while (true) {
+			synchronized (this) {
+				final long end = System.currentTimeMillis()
+						+ env.checkpointInterval;
+				for (long now = System.currentTimeMillis(); !stopped
+						&& now < end; now = System.currentTimeMillis()) {
+					try {
+						wait(end - now);
+					} catch (final InterruptedException ie) {
+						return;
+					}
+				}
+				if (stopped) {
+					return;
+				}
+				pending = true;
+			}
+			try {
+				if (!checkpoint()) {
+					return;
+				}
+			} finally {
+				synchronized (this) {
+					pending = false;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * stops further checkpoints
+	 */
+	void stop() {
+		synchronized (this) {
+			stopped = true;
+			notifyAll();
+		}
+		try {
+			thread.join();
+		} catch (final InterruptedException ie) {
+			if (WARN) {
+				err.println(ie);
+			}
+		}
+	}
+
+	/**
+	 * waits for all working threads and writes the checkpoint
+	 *
+	 * @return <code>false</code>, if no further checkpoints can be written
+	 */
+	private boolean checkpoint() {
+		while (true) {
+			// all splits are done with the lock of the list
+			synchronized (list) {
+				synchronized (this) {
+					if (stopped) {
+						return false;
+					}
+					if (paused == list.size()) {
+						return write();
+					}
+				}
+			}
+			synchronized (this) {
+				if (!stopped && paused < list.size()) {
+					try {
+						wait(10);
+					} catch (final InterruptedException ie) {
+						return false;
+					}
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean write() {
+		final long time = System.currentTimeMillis();
+		final ArrayList<SearchLatticeNode<NodeType, EdgeType>> nodes = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
+		for (int i = 0; i < held.length; ++i) {
+			if (held[i] != null) {
+				nodes.add(held[i]);
+			}
+		}
+		for (final MiningStack<?, ?> stack : list
+				.toArray(new MiningStack<?, ?>[list.size()])) {
+			((LocalStack<NodeType, EdgeType>) stack).snapshot(nodes);
+		}
+		final ArrayList<Fragment<NodeType, EdgeType>> fragments = new ArrayList<Fragment<NodeType, EdgeType>>();
+		for (int i = 0; i < unlogged.length; ++i) {
+			fragments.addAll(unlogged[i]);
+		}
+		try {
+			logLength = Checkpoint.append(env.checkpointDir, logLength,
+					fragments, Checkpoint.graphs(env));
+			fragmentCount += fragments.size();
+			// the logged fragments are not required any more
+			for (int i = 0; i < unlogged.length; ++i) {
+				unlogged[i].clear();
+			}
+			new Checkpoint<NodeType, EdgeType>(env, nodes, logLength,
+					fragmentCount).write(env.checkpointDir);
+		} catch (final NotSerializableException nse) {
+			if (WARN) {
+				err.println("search nodes cannot be stored, checkpoints are disabled: "
+								+ nse);
+			}
+			return false;
+		} catch (final IOException io) {
+			if (WARN) {
+				err.println("cannot write checkpoint: " + io);
+			}
+			return true;
+		}
+		stats.checkpoints++;
+		stats.checkpointTime += System.currentTimeMillis() - time;
+		if (VERBOSE) {
+			out.println("checkpoint with " + nodes.size() + " nodes and "
+					+ fragmentCount + " fragments (" + fragments.size()
+					+ " new) written ("
+					+ (System.currentTimeMillis() - time) + " ms)");
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,309 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.parsemis.miner.chain.SearchLatticeNode;
+
+/**
+ * This class stores the search nodes of one level of the breadth first
+ * search.
+ *
+ * Each thread adds its nodes to its own part, so no lock is shared while a
+ * level is built. If more than its share of <code>limit</code> nodes are
+ * added to a part, the further nodes are serialized to the swap file of that
+ * part. At the level barrier the parts are merged by <code>seal()</code>, and
+ * afterwards the nodes are handed out in chunks, the nodes in memory first.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+final class Frontier<NodeType, EdgeType> {
+
+	/** the nodes one thread adds, and its swap file */
+	private final class Part {
+		private final int idx;
+
+		private final ArrayList<SearchLatticeNode<NodeType, EdgeType>> nodes = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>();
+
+		private File file = null;
+
+		private ObjectOutputStream oos = null;
+
+		private ObjectInputStream ois = null;
+
+		private int spilled = 0, read = 0;
+
+		private boolean swappable = true;
+
+		Part(final int idx) {
+			this.idx = idx;
+		}
+
+		void add(final SearchLatticeNode<NodeType, EdgeType> node) {
+			if (share <= 0 || nodes.size() < share || !swappable) {
+				nodes.add(node);
+				return;
+			}
+			try {
+				if (oos == null) {
+					file = (swapFileName != null ? new File(swapFileName
+							+ "_frontier" + level + "_" + idx) : File
+							.createTempFile("frontier" + level + "_" + idx
+									+ "_", ".ser"));
+					file.deleteOnExit();
+					oos = new ObjectOutputStream(new BufferedOutputStream(
+							new FileOutputStream(file)));
+				}
+				oos.writeObject(node);
+				// do not keep the written nodes alive
+				oos.reset();
+				spilled++;
+			} catch (final NotSerializableException nse) {
+				if (spilled > 0) {
+					throw new RuntimeException("cannot swap out search node "
+							+ node, nse);
+				}
+				// the nodes of this algorithm cannot be swapped at all
+				swappable = false;
+				close();
+				nodes.add(node);
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot swap out search node "
+						+ node, io);
+			}
+		}
+
+		void close() {
+			try {
+				if (oos != null) {
+					oos.close();
+				}
+				if (ois != null) {
+					ois.close();
+				}
+			} catch (final IOException io) {
+				System.err.println(io);
+			}
+			oos = null;
+			ois = null;
+			if (file != null) {
+				file.delete();
+				file = null;
+			}
+		}
+
+		/**
+		 * reads up to <code>CHUNK</code> swapped nodes into the given chunk
+		 *
+		 * @param chunk
+		 * @return <code>false</code>, if all swapped nodes of this part are
+		 *         taken
+		 */
+		@SuppressWarnings("unchecked")
+		synchronized boolean read(
+				final List<SearchLatticeNode<NodeType, EdgeType>> chunk) {
+			if (read == spilled) {
+				return false;
+			}
+			try {
+				if (ois == null) {
+					ois = new ObjectInputStream(new BufferedInputStream(
+							new FileInputStream(file)));
+				}
+				for (int i = 0; i < CHUNK && read < spilled; ++i, ++read) {
+					chunk.add((SearchLatticeNode<NodeType, EdgeType>) ois
+							.readObject());
+				}
+				return true;
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot swap in search node", io);
+			} catch (final ClassNotFoundException cnf) {
+				throw new RuntimeException("cannot swap in search node", cnf);
+			}
+		}
+
+		/** finishes the swap file for reading */
+		void seal() {
+			if (oos != null) {
+				try {
+					oos.close();
+				} catch (final IOException io) {
+					throw new RuntimeException("cannot swap out search nodes",
+							io);
+				}
+				oos = null;
+			}
+		}
+	}
+
+	/** the number of nodes handed out at once */
+	private static final int CHUNK = 16;
+
+	private final int level;
+
+	private final int share;
+
+	private final String swapFileName;
+
+	private final ArrayList<Part> parts;
+
+	private ArrayList<SearchLatticeNode<NodeType, EdgeType>> nodes = null;
+
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	/**
+	 * creates a new empty frontier
+	 *
+	 * @param level
+	 *            the level of the stored nodes
+	 * @param limit
+	 *            the maximal number of nodes kept in memory (or 0 for no
+	 *            limit); each part keeps an equal share of them
+	 * @param swapFileName
+	 *            the prefix of the swap files, or <code>null</code> to use
+	 *            temporary files
+	 * @param threads
+	 *            the number of threads that add nodes
+	 */
+	Frontier(final int level, final int limit, final String swapFileName,
+			final int threads) {
+		this.level = level;
+		this.share = (limit <= 0 ? 0 : (limit + threads - 1) / threads);
+		this.swapFileName = swapFileName;
+		this.parts = new ArrayList<Part>(threads);
+		for (int i = 0; i < threads; ++i) {
+			parts.add(new Part(i));
+		}
+	}
+
+	/**
+	 * adds the given node to the part of the given thread
+	 *
+	 * @param idx
+	 *            the number of the adding thread
+	 * @param node
+	 */
+	void add(final int idx, final SearchLatticeNode<NodeType, EdgeType> node) {
+		assert nodes == null : "add to an already sealed frontier";
+		parts.get(idx).add(node);
+	}
+
+	/**
+	 * removes the swap files
+	 */
+	void close() {
+		for (final Part part : parts) {
+			part.close();
+		}
+	}
+
+	/**
+	 * merges the nodes of all parts after the level is built; has to be
+	 * called before any node is taken
+	 */
+	void seal() {
+		int size = 0;
+		for (final Part part : parts) {
+			size += part.nodes.size();
+		}
+		nodes = new ArrayList<SearchLatticeNode<NodeType, EdgeType>>(size);
+		for (final Part part : parts) {
+			nodes.addAll(part.nodes);
+			part.nodes.clear();
+			part.nodes.trimToSize();
+			part.seal();
+		}
+	}
+
+	/**
+	 * removes the next chunk of nodes and stores it into the given list
+	 *
+	 * @param idx
+	 *            the number of the taking thread, the swap file of its own
+	 *            part is read first
+	 * @param chunk
+	 * @return <code>false</code>, if all nodes are taken
+	 */
+	boolean take(final int idx,
+			final List<SearchLatticeNode<NodeType, EdgeType>> chunk) {
+		assert nodes != null : "take from an unsealed frontier";
+		chunk.clear();
+		final int size = nodes.size();
+		if (cursor.get() < size) {
+			final int start = cursor.getAndAdd(CHUNK);
+			if (start < size) {
+				final int end = Math.min(start + CHUNK, size);
+				for (int i = start; i < end; ++i) {
+					chunk.add(nodes.set(i, null));
+				}
+				return true;
+			}
+		}
+		final int count = parts.size();
+		for (int i = 0; i < count; ++i) {
+			if (parts.get((idx + i) % count).read(chunk)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of nodes that are added
+	 */
+	int size() {
+		int size = (nodes == null ? 0 : nodes.size());
+		for (final Part part : parts) {
+			size += part.nodes.size() + part.spilled;
+		}
+		return size;
+	}
+
+	/**
+	 * @return <code>false</code>, if the nodes turned out to be not
+	 *         serializable and are kept in memory
+	 */
+	boolean isSwappable() {
+		for (final Part part : parts) {
+			if (!part.swappable) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of nodes that are swapped out
+	 */
+	int spilled() {
+		int spilled = 0;
+		for (final Part part : parts) {
+			spilled += part.spilled;
+		}
+		return spilled;
+	}
+
+}
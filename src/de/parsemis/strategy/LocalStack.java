@@ -18,6 +18,9 @@ import static de.parsemis.miner.environment.Debug.ERROR;
 import static de.parsemis.miner.environment.Debug.VVERBOSE;
 import static de.parsemis.miner.environment.Debug.err;
 import static de.parsemis.miner.environment.Debug.out;
+
+import java.util.Collection;
+
 import de.parsemis.jp.RemoteWrapperStack;
 import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
@@ -52,6 +55,8 @@ public class LocalStack<NodeType, EdgeType> extends
 
 	private final MiningStack<NodeType, EdgeType> master;
 
+	private final AdaptiveSplitPolicy policy;
+
 	private SearchLatticeNode<NodeType, EdgeType>[] pool;
 
 	private int pos;
@@ -73,6 +78,7 @@ public class LocalStack<NodeType, EdgeType> extends
 		this.SPLITTSIZE = env.splitSize;
 		this.MAXDEPTH = env.maxSplitDepth;
 		this.MAXCOUNT = env.maxSplitCount;
+		this.policy = env.splitPolicy;
 
 		env.stack[idx] = this;
 		this.master = (env.javaparty ? /** @at idx */
@@ -83,6 +89,66 @@ public class LocalStack<NodeType, EdgeType> extends
 		pos = 0;
 	}
 
+	/**
+	 * splits the stack according to the estimated subtree costs: nodes are
+	 * transfered from the bottom until half of the estimated work is given
+	 * away, and only if the transfered work is worth the split
+	 * 
+	 * @param other
+	 * @return <code>true</code>, if the given stack is refilled
+	 */
+	private boolean adaptiveSplit(final MiningStack<NodeType, EdgeType> other) {
+		final long before = System.nanoTime();
+		synchronized (this) {
+			if (pos < 2) {
+				return false;
+			}
+			final int depth = policy.getMaxSplitDepth();
+			final double minCost = policy.getMinCost();
+			double total = 0;
+			for (int i = 0; i < pos; ++i) {
+				total += policy.estimate(pool[i]);
+			}
+			if (total < 2 * minCost) {
+				return false;
+			}
+			final int size = pos;
+			int j = 0, i = 0, count = 0, level = -1;
+			double given = 0;
+			while (i < pos - 1 && given < total / 2) {
+				final SearchLatticeNode<NodeType, EdgeType> next = pool[i];
+				final double cost = policy.estimate(next);
+				if (next.getLevel() > depth || cost < minCost) {
+					break;
+				}
+				other.push(next);
+				given += cost;
+				level = Math.max(level, next.getLevel());
+				count++;
+				i++;
+				pool[j++] = pool[i++];
+			}
+			if (count == 0) {
+				return false;
+			}
+			while (i < pos) {
+				pool[j++] = pool[i++];
+			}
+			while (pos > j) {
+				pool[--pos] = null;
+			}
+			policy.recordSplit(idx, size, count, level, System.nanoTime()
+					- before);
+			if (VVERBOSE) {
+				out.println(other + " gets adaptive splitt: size="
+						+ other.size() + " this.size=" + this.size() + " ("
+						+ this + ") given cost=" + (long) given + "ns of "
+						+ (long) total + "ns");
+			}
+			return true;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -102,9 +168,9 @@ public class LocalStack<NodeType, EdgeType> extends
 						available.add(master);
 						synchronized (this) {
 							assert pool[pos - 1].getThreadNumber() == idx : "wrong Node in LocalStack";
-							LocalEnvironment.env(this).stats.syncTime[2] += System
+							LocalEnvironment.env(this).stats.syncTime[2].add(System
 									.currentTimeMillis()
-									- before;
+									- before);
 							return pool[--pos];
 						}
 					}
@@ -121,9 +187,9 @@ public class LocalStack<NodeType, EdgeType> extends
 				}
 			}
 			synchronized (available) {
-				LocalEnvironment.env(this).stats.syncTime[2] += System
+				LocalEnvironment.env(this).stats.syncTime[2].add(System
 						.currentTimeMillis()
-						- before;
+						- before);
 			}
 			return null;
 		}
@@ -162,12 +228,28 @@ public class LocalStack<NodeType, EdgeType> extends
 		}
 	}
 
+	/**
+	 * adds all nodes of this stack to the given collection (without removing
+	 * them)
+	 * 
+	 * @param into
+	 */
+	synchronized void snapshot(
+			final Collection<SearchLatticeNode<NodeType, EdgeType>> into) {
+		for (int i = 0; i < pos; ++i) {
+			into.add(pool[i]);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see de.parsemis.strategy.MiningStack#split(de.parsemis.strategy.MiningStack)
 	 */
 	public boolean split(final MiningStack<NodeType, EdgeType> other) {
+		if (policy != null && policy.isValid()) {
+			return adaptiveSplit(other);
+		}
 		synchronized (this) {
 			if (size() < SPLITTSIZE
 					|| (pool[SPLITTSIZE - 2]).getLevel() > MAXDEPTH) {
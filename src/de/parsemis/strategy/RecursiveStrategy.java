@@ -25,8 +25,11 @@ import java.util.Iterator;
 import de.parsemis.algorithms.Algorithm;
 import de.parsemis.miner.chain.Extender;
 import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.Budget;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
 import de.parsemis.utils.Frequented;
 
 /**
@@ -48,6 +51,11 @@ public class RecursiveStrategy<NodeType, EdgeType> implements
 
 	private Collection<Fragment<NodeType, EdgeType>> ret;
 
+	private Budget budget;
+
+	/** nodes deeper than this level are not extended any more */
+	private int limit;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -56,12 +64,29 @@ public class RecursiveStrategy<NodeType, EdgeType> implements
 	 */
 	public Collection<Fragment<NodeType, EdgeType>> search(
 			final Algorithm<NodeType, EdgeType> algo) {
-		ret = LocalEnvironment.env(this).getReturnSet();
+		return search(algo, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		ret = (sink != null ? new SinkCollection<NodeType, EdgeType>(sink)
+				: LocalEnvironment.env(this).getReturnSet());
 		extender = algo.getExtender(0);
+		budget = LocalEnvironment.env(this).budget;
+		limit = Integer.MAX_VALUE;
+		int root = 0;
 
 		for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
 				.initialNodes(); it.hasNext();) {
 			final SearchLatticeNode<NodeType, EdgeType> code = it.next();
+			code.setRoot(root++);
 			final long time = System.currentTimeMillis();
 			if (VERBOSE) {
 				out.print("doing seed " + code + " ...");
@@ -84,6 +109,13 @@ public class RecursiveStrategy<NodeType, EdgeType> implements
 
 	@SuppressWarnings("unchecked")
 	private void search(final SearchLatticeNode<NodeType, EdgeType> node) {
+		if (budget != null && skip(node)) {
+			// leave the node unexplored
+			budget.skip(node);
+			node.release();
+			node.finalizeIt();
+			return;
+		}
 
 		final Collection<SearchLatticeNode<NodeType, EdgeType>> tmp = extender
 				.getChildren(node);
@@ -93,6 +125,7 @@ public class RecursiveStrategy<NodeType, EdgeType> implements
 				out.println("doing " + child);
 			}
 
+			child.setRoot(node.getRoot());
 			search(child);
 
 		}
@@ -112,4 +145,19 @@ public class RecursiveStrategy<NodeType, EdgeType> implements
 		node.finalizeIt();
 	}
 
+	/**
+	 * @param node
+	 * @return <code>true</code>, if the given node shall not be extended
+	 */
+	private boolean skip(final SearchLatticeNode<NodeType, EdgeType> node) {
+		if (budget.exhausted()) {
+			return true;
+		}
+		if (limit == Integer.MAX_VALUE && budget.near()) {
+			// prefer the smaller fragments for the rest of the budget
+			limit = node.getLevel();
+		}
+		return node.getLevel() > limit;
+	}
+
 }
@@ -43,6 +43,10 @@ public class SMPThread<NodeType, EdgeType> extends Thread implements
 
 	private final Collection<Fragment<NodeType, EdgeType>> answer;
 
+	private final MiningStack<NodeType, EdgeType> stack;
+
+	private final Runnable job;
+
 	/**
 	 * creates a new thread
 	 * 
@@ -62,6 +66,48 @@ public class SMPThread<NodeType, EdgeType> extends Thread implements
 		this.algo = algo;
 		this.list = list;
 		this.answer = answer;
+		this.stack = null;
+		this.job = null;
+	}
+
+	/**
+	 * creates a new thread working on an already created stack
+	 * 
+	 * @param idx
+	 *            the index of the new thread
+	 * @param algo
+	 *            the algorithm that will be used
+	 * @param stack
+	 *            the stack of the new thread
+	 * @param answer
+	 *            the collection the found fragments will be stored in
+	 */
+	public SMPThread(final int idx, final Algorithm<NodeType, EdgeType> algo,
+			final MiningStack<NodeType, EdgeType> stack,
+			final Collection<Fragment<NodeType, EdgeType>> answer) {
+		this.idx = idx;
+		this.algo = algo;
+		this.list = null;
+		this.answer = answer;
+		this.stack = stack;
+		this.job = null;
+	}
+
+	/**
+	 * creates a new thread executing the given job instead of a Worker
+	 * 
+	 * @param idx
+	 *            the index of the new thread
+	 * @param job
+	 *            the work of the new thread
+	 */
+	public SMPThread(final int idx, final Runnable job) {
+		this.idx = idx;
+		this.algo = null;
+		this.list = null;
+		this.answer = null;
+		this.stack = null;
+		this.job = job;
 	}
 
 	/*
@@ -71,8 +117,13 @@ public class SMPThread<NodeType, EdgeType> extends Thread implements
 	 */
 	@Override
 	public void run() {
-		new Worker<NodeType, EdgeType>(new LocalStack<NodeType, EdgeType>(idx,
-				list, LocalEnvironment.env(this)), answer, algo
+		if (job != null) {
+			job.run();
+			return;
+		}
+		new Worker<NodeType, EdgeType>((stack != null ? stack
+				: new LocalStack<NodeType, EdgeType>(idx, list,
+						LocalEnvironment.env(this))), answer, algo
 				.getExtender(idx), idx).run();
 	}
 	
@@ -18,6 +18,7 @@ import java.util.Collection;
 
 import de.parsemis.algorithms.Algorithm;
 import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
 import de.parsemis.utils.Generic;
 
 /**
@@ -45,4 +46,20 @@ public interface Strategy<NodeType, EdgeType> extends
 	public Collection<Fragment<NodeType, EdgeType>> search(
 			Algorithm<NodeType, EdgeType> algo);
 
+	/**
+	 * starts the corresponding strategy and emits each found fragment
+	 * directly to the given <code>sink</code>
+	 * 
+	 * @param algo
+	 *            the algorithm which search space will be used
+	 * @param sink
+	 *            the receiver of the found fragments (or <code>null</code>,
+	 *            to collect them as in <code>search(algo)</code>)
+	 * @return the set of found frequent Fragments, if no sink is given
+	 *         (otherwise its content is undefined)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			Algorithm<NodeType, EdgeType> algo,
+			FragmentSink<NodeType, EdgeType> sink);
+
 }
@@ -15,9 +15,12 @@
 package de.parsemis.strategy;
 
 import static de.parsemis.miner.environment.Debug.INFO;
+import static de.parsemis.miner.environment.Debug.VERBOSE;
 import static de.parsemis.miner.environment.Debug.WARN;
 import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -28,7 +31,8 @@ import de.parsemis.miner.chain.SearchLatticeNode;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.environment.Statistics;
 import de.parsemis.miner.general.Fragment;
-import de.parsemis.utils.FileSerializeCollection;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
 
 /**
  * This class represents the threaded DFS search
@@ -49,6 +53,29 @@ public class ThreadedDFSStrategy<NodeType, EdgeType> extends
 		ListItem<MiningStack<NodeType, EdgeType>> implements
 		Strategy<NodeType, EdgeType>, StackList<NodeType, EdgeType> {
 
+	/** runs a Worker with its own LocalStack */
+	private final class ListWorker implements Runnable {
+		private final int idx;
+
+		private final Algorithm<NodeType, EdgeType> algo;
+
+		private final Collection<Fragment<NodeType, EdgeType>> answer;
+
+		ListWorker(final int idx, final Algorithm<NodeType, EdgeType> algo,
+				final Collection<Fragment<NodeType, EdgeType>> answer) {
+			this.idx = idx;
+			this.algo = algo;
+			this.answer = answer;
+		}
+
+		public void run() {
+			new Worker<NodeType, EdgeType>(new LocalStack<NodeType, EdgeType>(
+					idx, ThreadedDFSStrategy.this, LocalEnvironment
+							.env(ThreadedDFSStrategy.this)), answer, algo
+					.getExtender(idx), idx, checkpointer).run();
+		}
+	}
+
 	private final Collection<Fragment<NodeType, EdgeType>>[] answers;
 
 	private final Thread[] threads;
@@ -57,6 +84,8 @@ public class ThreadedDFSStrategy<NodeType, EdgeType> extends
 
 	private int size = 0;
 
+	private Checkpointer<NodeType, EdgeType> checkpointer = null;
+
 	/**
 	 * creates a new ThreadedDFSStrategy
 	 * 
@@ -242,29 +271,86 @@ public class ThreadedDFSStrategy<NodeType, EdgeType> extends
 	 */
 	public Collection<Fragment<NodeType, EdgeType>> search(
 			final Algorithm<NodeType, EdgeType> algo) {
-		final String filename = LocalEnvironment.env(this).objectFileName;
+		return search(algo, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		final LocalEnvironment<NodeType, EdgeType> env = LocalEnvironment
+				.env(this);
+		final String filename = env.objectFileName;
+
+		Checkpoint<NodeType, EdgeType> resumed = null;
+		if (env.resumeDir != null) {
+			try {
+				resumed = Checkpoint.read(env.resumeDir);
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot resume from "
+						+ env.resumeDir, io);
+			}
+			resumed.install(env);
+			if (VERBOSE) {
+				out.println("resume with " + resumed.nodes.size()
+						+ " nodes and " + resumed.fragmentCount
+						+ " fragments");
+			}
+		}
 
 		final MiningStack<NodeType, EdgeType> mine = new LocalStack<NodeType, EdgeType>(
-				0, this, LocalEnvironment.env(this));
-		for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
-				.initialNodes(); it.hasNext();) {
-			mine.push(it.next());
+				0, this, env);
+		int root = 0;
+		if (resumed != null) {
+			for (final SearchLatticeNode<NodeType, EdgeType> node : resumed.nodes) {
+				root = Math.max(root, node.getRoot() + 1);
+				mine.push(node);
+			}
+		} else {
+			for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = algo
+					.initialNodes(); it.hasNext();) {
+				final SearchLatticeNode<NodeType, EdgeType> node = it.next();
+				node.setRoot(root++);
+				mine.push(node);
+			}
+		}
+		if (env.splitPolicy != null) {
+			env.splitPolicy.setRootCount(root);
 		}
 
 		// initialize worker for the current thread
-		answers[0] = (filename != null ? new FileSerializeCollection<Fragment<NodeType, EdgeType>>(
-				filename)
+		answers[0] = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+				sink) : filename != null ? LocalEnvironment.env(this)
+				.<Fragment<NodeType, EdgeType>> newSwapCollection(filename)
 				: new ArrayList<Fragment<NodeType, EdgeType>>());
+		if (resumed != null) {
+			try {
+				resumed.readFragments(env.resumeDir, answers[0]);
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot resume from "
+						+ env.resumeDir, io);
+			}
+		}
+		checkpointer = (env.checkpointDir != null ? new Checkpointer<NodeType, EdgeType>(
+				this, env, stats, answers.length, resumed)
+				: null);
 		final Worker<NodeType, EdgeType> me = new Worker<NodeType, EdgeType>(
-				mine, answers[0], algo.getExtender(0), 0);
+				mine, answers[0], algo.getExtender(0), 0, checkpointer);
 
 		// initialize worker for further threads
 		for (int i = 1; i < answers.length; ++i) {
-			answers[i] = (filename != null ? new FileSerializeCollection<Fragment<NodeType, EdgeType>>(
-					filename + "_" + i)
+			answers[i] = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+					sink) : filename != null ? LocalEnvironment.env(this)
+					.<Fragment<NodeType, EdgeType>> newSwapCollection(
+							filename + "_" + i)
 					: new HashSet<Fragment<NodeType, EdgeType>>());
-			threads[i] = new SMPThread<NodeType, EdgeType>(i, algo, this,
-					answers[i]);
+			threads[i] = new SMPThread<NodeType, EdgeType>(i, new ListWorker(
+					i, algo, answers[i]));
 		}
 
 		// start other workers
@@ -291,10 +377,23 @@ public class ThreadedDFSStrategy<NodeType, EdgeType> extends
 		if (INFO) {
 			stats.distributedTime += System.currentTimeMillis();
 		}
+		if (checkpointer != null) {
+			checkpointer.stop();
+			checkpointer = null;
+		}
+		final AdaptiveSplitPolicy policy = LocalEnvironment.env(this).splitPolicy;
+		if (policy != null) {
+			policy.report(stats);
+			if (VERBOSE) {
+				out.println(policy);
+			}
+		}
 
-		// collect data
-		for (int i = 1; i < answers.length; ++i) {
-			answers[0].addAll(answers[i]);
+		// collect data (streamed fragments are already emitted)
+		if (sink == null) {
+			for (int i = 1; i < answers.length; ++i) {
+				answers[0].addAll(answers[i]);
+			}
 		}
 
 		return answers[0];
@@ -0,0 +1,152 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import static de.parsemis.miner.environment.Debug.VVERBOSE;
+import static de.parsemis.miner.environment.Debug.out;
+import de.parsemis.miner.chain.SearchLatticeNode;
+
+/**
+ * This class implements the per worker deque of the work stealing search
+ * guarded by its own monitor.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class WorkStealingStack<NodeType, EdgeType> extends
+		AbstractWorkStealingStack<NodeType, EdgeType> {
+
+	private SearchLatticeNode<NodeType, EdgeType>[] pool;
+
+	/** index of the oldest node */
+	private int base;
+
+	/** index behind the newest node */
+	private int top;
+
+	/**
+	 * creates a new work stealing stack
+	 *
+	 * @param idx
+	 *            the index of the owning thread
+	 * @param owner
+	 *            the strategy this stack belongs to (or <code>null</code>)
+	 */
+	@SuppressWarnings("unchecked")
+	public WorkStealingStack(final int idx,
+			final WorkStealingStrategy<NodeType, EdgeType> owner) {
+		super(idx, owner);
+		this.pool = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[16];
+		this.base = this.top = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.AbstractWorkStealingStack#popLocal()
+	 */
+	@Override
+	public synchronized SearchLatticeNode<NodeType, EdgeType> popLocal() {
+		if (top == base) {
+			return null;
+		}
+		final SearchLatticeNode<NodeType, EdgeType> ret = pool[--top];
+		pool[top] = null;
+		if (top == base) {
+			top = base = 0;
+		}
+		assert ret.getThreadNumber() == idx : "wrong Node in WorkStealingStack";
+		return ret;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#push(de.parsemis.miner.SearchLatticeNode)
+	 */
+	public SearchLatticeNode<NodeType, EdgeType> push(
+			final SearchLatticeNode<NodeType, EdgeType> object) {
+		object.setThreadNumber(idx);
+		synchronized (this) {
+			if (top == pool.length) {
+				final int size = top - base;
+				if (base > (pool.length >> 1)) {
+					// enough free space at the bottom
+					System.arraycopy(pool, base, pool, 0, size);
+				} else {
+					@SuppressWarnings("unchecked")
+					final SearchLatticeNode<NodeType, EdgeType>[] tmp = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[pool.length << 1];
+					System.arraycopy(pool, base, tmp, 0, size);
+					pool = tmp;
+				}
+				for (int i = size; i < top; ++i) {
+					pool[i] = null;
+				}
+				base = 0;
+				top = size;
+			}
+			pool[top++] = object;
+		}
+		signal();
+		return object;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#size()
+	 */
+	public synchronized int size() {
+		return top - base;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.MiningStack#split(de.parsemis.strategy.MiningStack)
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean split(final MiningStack<NodeType, EdgeType> other) {
+		final SearchLatticeNode<NodeType, EdgeType>[] stolen;
+		synchronized (this) {
+			final int size = top - base;
+			if (size == 0) {
+				return false;
+			}
+			// take the older half, but at least one node
+			stolen = (SearchLatticeNode<NodeType, EdgeType>[]) new SearchLatticeNode<?, ?>[(size + 1) >> 1];
+			System.arraycopy(pool, base, stolen, 0, stolen.length);
+			for (int i = 0; i < stolen.length; ++i) {
+				pool[base++] = null;
+			}
+			if (top == base) {
+				top = base = 0;
+			}
+		}
+		// push outside of the own lock to avoid lock cycles between thieves
+		for (int i = 0; i < stolen.length; ++i) {
+			other.push(stolen[i]);
+		}
+		if (VVERBOSE) {
+			out.println(other + " steals " + stolen.length + " nodes from "
+					+ this);
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkStealingStack-" + idx;
+	}
+
+}
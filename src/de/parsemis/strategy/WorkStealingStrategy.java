@@ -0,0 +1,396 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.strategy;
+
+import static de.parsemis.miner.environment.Debug.INFO;
+import static de.parsemis.miner.environment.Debug.VVERBOSE;
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+import static de.parsemis.miner.environment.Debug.out;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+
+import de.parsemis.algorithms.Algorithm;
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Statistics;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.miner.general.FragmentSink;
+import de.parsemis.miner.general.SinkCollection;
+
+/**
+ * This class represents the threaded DFS search with randomized work stealing.
+ *
+ * In contrast to the ThreadedDFSStrategy, each worker owns a deque and an idle
+ * worker steals directly from a randomly chosen victim instead of polling a
+ * global, synchronized list of stacks. Workers that do not find any work wait
+ * until new nodes are pushed or the whole search is finished.
+ *
+ * @param <NodeType>
+ *            the type of the node labels (will be hashed and checked with
+ *            .equals(..))
+ * @param <EdgeType>
+ *            the type of the edge labels (will be hashed and checked with
+ *            .equals(..))
+ */
+public class WorkStealingStrategy<NodeType, EdgeType> implements
+		Strategy<NodeType, EdgeType> {
+
+	private final Collection<Fragment<NodeType, EdgeType>>[] answers;
+
+	private final Thread[] threads;
+
+	private final AbstractWorkStealingStack<NodeType, EdgeType>[] stacks;
+
+	private final boolean lockFree;
+
+	private final Random[] random;
+
+	private final Statistics stats;
+
+	/** number of currently waiting workers */
+	private volatile int idle = 0;
+
+	/** number of threads waiting in awaitSplit */
+	private volatile int splitters = 0;
+
+	private boolean finished = false;
+
+	/** an idle worker is getting work from outside (without the lock) */
+	private boolean refilling = false;
+
+	/**
+	 * creates a new WorkStealingStrategy
+	 *
+	 * @param threadcount
+	 *            the number of threads that shall be initiated
+	 * @param stats
+	 *            object to store statistical informations for all threads
+	 */
+	public WorkStealingStrategy(final int threadcount, final Statistics stats) {
+		this(threadcount, stats, false);
+	}
+
+	/**
+	 * creates a new WorkStealingStrategy
+	 *
+	 * @param threadcount
+	 *            the number of threads that shall be initiated
+	 * @param stats
+	 *            object to store statistical informations for all threads
+	 * @param lockFree
+	 *            if <code>true</code>, the lock-free ChaseLevStack is used
+	 *            instead of the synchronized WorkStealingStack
+	 */
+	@SuppressWarnings("unchecked")
+	public WorkStealingStrategy(final int threadcount, final Statistics stats,
+			final boolean lockFree) {
+		this.answers = (Collection<Fragment<NodeType, EdgeType>>[]) new Collection<?>[threadcount];
+		this.threads = new Thread[threadcount];
+		this.stacks = (AbstractWorkStealingStack<NodeType, EdgeType>[]) new AbstractWorkStealingStack<?, ?>[threadcount];
+		this.lockFree = lockFree;
+		this.random = new Random[threadcount];
+		this.stats = stats;
+	}
+
+	/**
+	 * @return <code>true</code>, if any stack contains nodes
+	 */
+	private boolean hasWork() {
+		for (int i = 0; i < stacks.length; ++i) {
+			if (stacks[i].size() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo) {
+		return search(algo, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see de.parsemis.strategy.Strategy#search(de.parsemis.algorithms.Algorithm,
+	 *      de.parsemis.miner.general.FragmentSink)
+	 */
+	public Collection<Fragment<NodeType, EdgeType>> search(
+			final Algorithm<NodeType, EdgeType> algo,
+			final FragmentSink<NodeType, EdgeType> sink) {
+		final String filename = LocalEnvironment.env(this).objectFileName;
+		idle = 0;
+		finished = false;
+		refilling = false;
+
+		for (int i = 0; i < stacks.length; ++i) {
+			stacks[i] = newStack(i);
+			random[i] = new Random(i);
+			LocalEnvironment.env(this).stack[i] = stacks[i];
+		}
+		int root = 0;
+		for (final Iterator<SearchLatticeNode<NodeType, EdgeType>> it = initialNodes(algo); it
+				.hasNext();) {
+			final SearchLatticeNode<NodeType, EdgeType> node = it.next();
+			node.setRoot(root++);
+			stacks[0].push(node);
+		}
+
+		// initialize worker for the current thread
+		answers[0] = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+				sink) : filename != null ? LocalEnvironment.env(this)
+				.<Fragment<NodeType, EdgeType>> newSwapCollection(filename)
+				: new ArrayList<Fragment<NodeType, EdgeType>>());
+		final Worker<NodeType, EdgeType> me = new Worker<NodeType, EdgeType>(
+				stacks[0], answers[0], algo.getExtender(0), 0);
+
+		// initialize worker for further threads
+		for (int i = 1; i < answers.length; ++i) {
+			answers[i] = (sink != null ? new SinkCollection<NodeType, EdgeType>(
+					sink) : filename != null ? LocalEnvironment.env(this)
+					.<Fragment<NodeType, EdgeType>> newSwapCollection(
+							filename + "_" + i)
+					: new HashSet<Fragment<NodeType, EdgeType>>());
+			threads[i] = new SMPThread<NodeType, EdgeType>(i, algo,
+					stacks[i], answers[i]);
+		}
+
+		// start other workers
+		if (INFO) {
+			stats.distributedTime -= System.currentTimeMillis();
+		}
+		for (int i = 1; i < answers.length; ++i) {
+			threads[i].start();
+		}
+
+		// start local worker
+		me.run();
+
+		// wait for others
+		for (int i = 1; i < answers.length; ++i) {
+			try {
+				threads[i].join();
+			} catch (final InterruptedException ie) {
+				if (WARN) {
+					err.println(ie);
+				}
+			}
+		}
+		if (INFO) {
+			stats.distributedTime += System.currentTimeMillis();
+		}
+
+		// collect data
+		for (int i = 0; i < stacks.length; ++i) {
+			stats.steals.add(stacks[i].steals);
+			stats.failedSteals.add(stacks[i].failedSteals);
+			stats.idles.add(stacks[i].idles);
+			stats.syncTime[2].add(stacks[i].idleTime);
+		}
+		if (sink == null) {
+			for (int i = 1; i < answers.length; ++i) {
+				answers[0].addAll(answers[i]);
+			}
+		}
+
+		return answers[0];
+	}
+
+	/**
+	 * @param algo
+	 * @return the nodes the search starts with
+	 */
+	protected Iterator<SearchLatticeNode<NodeType, EdgeType>> initialNodes(
+			final Algorithm<NodeType, EdgeType> algo) {
+		return algo.initialNodes();
+	}
+
+	/**
+	 * @param idx
+	 *            the index of the owning thread
+	 * @return a new deque for the given worker
+	 */
+	protected AbstractWorkStealingStack<NodeType, EdgeType> newStack(
+			final int idx) {
+		return (lockFree ? new ChaseLevStack<NodeType, EdgeType>(idx, this)
+				: new WorkStealingStack<NodeType, EdgeType>(idx, this));
+	}
+
+	/**
+	 * is called (without the lock of this strategy) if all workers are idle,
+	 * to get further work from outside of this strategy; the other workers
+	 * stay idle until the refilled nodes are pushed
+	 * 
+	 * @param thief
+	 *            the stack of the calling worker
+	 * @return the next node for the given stack, or <code>null</code> if the
+	 *         whole search is finished
+	 */
+	protected SearchLatticeNode<NodeType, EdgeType> refill(
+			final AbstractWorkStealingStack<NodeType, EdgeType> thief) {
+		return null;
+	}
+
+	/**
+	 * moves nodes of the first splittable worker stack to the given one, and
+	 * waits for new nodes if no stack can be split yet
+	 * 
+	 * @param other
+	 * @return <code>true</code>, if the given stack is refilled, or
+	 *         <code>false</code> if all workers are idle
+	 */
+	protected boolean awaitSplit(final MiningStack<NodeType, EdgeType> other) {
+		synchronized (this) {
+			splitters++;
+			try {
+				while (true) {
+					// pushing workers wait for this lock to signal, so no push
+					// gets lost between the split and the wait
+					if (split(other)) {
+						return true;
+					}
+					if (finished || refilling) {
+						return false;
+					}
+					try {
+						wait();
+					} catch (final InterruptedException ie) {
+						if (WARN) {
+							err.println(ie);
+						}
+						return false;
+					}
+				}
+			} finally {
+				splitters--;
+			}
+		}
+	}
+
+	/**
+	 * moves nodes of the first splittable worker stack to the given one
+	 * 
+	 * @param other
+	 * @return <code>true</code>, if the given stack is refilled
+	 */
+	protected boolean split(final MiningStack<NodeType, EdgeType> other) {
+		for (int i = 0; i < stacks.length; ++i) {
+			if (stacks[i] != null && stacks[i].split(other)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * wakes up waiting workers, if there are any
+	 */
+	final void signal() {
+		if (idle > 0 || splitters > 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * tries to refill the given (empty) stack with work of other stacks and
+	 * waits, if no work is currently available
+	 *
+	 * @param thief
+	 * @return the next node for the given stack, or <code>null</code> if the
+	 *         whole search is finished
+	 */
+	SearchLatticeNode<NodeType, EdgeType> steal(
+			final AbstractWorkStealingStack<NodeType, EdgeType> thief) {
+		final int me = thief.getIdx();
+		final int count = stacks.length;
+		final long before = System.currentTimeMillis();
+		final long beforeNs = System.nanoTime();
+		while (true) {
+			// try each other stack once, starting at a random victim
+			final int start = (count > 1 ? random[me].nextInt(count - 1) : 0);
+			for (int i = 0; i < count - 1; ++i) {
+				final int victim = (me + 1 + (start + i) % (count - 1))
+						% count;
+				if (stacks[victim].split(thief)) {
+					final SearchLatticeNode<NodeType, EdgeType> ret = thief
+							.popLocal();
+					if (ret != null) {
+						thief.steals++;
+						thief.idleTime += System.currentTimeMillis() - before;
+						stats.stealLatency.record(System.nanoTime() - beforeNs);
+						return ret;
+					}
+				}
+				thief.failedSteals++;
+			}
+			boolean refill = false;
+			synchronized (this) {
+				idle++;
+				thief.idles++;
+				while (true) {
+					if (finished) {
+						thief.idleTime += System.currentTimeMillis() - before;
+						return null;
+					}
+					if (idle == count && !refilling) {
+						// nobody is working, so nobody can create new work
+						refilling = refill = true;
+						notifyAll();
+						break;
+					}
+					if (hasWork()) {
+						idle--;
+						break;
+					}
+					try {
+						wait();
+					} catch (final InterruptedException ie) {
+						if (WARN) {
+							err.println(ie);
+						}
+					}
+				}
+			}
+			if (refill) {
+				// a refill may block (e.g. on the network), so it is called
+				// without the lock and the other workers may steal the
+				// refilled nodes meanwhile
+				final SearchLatticeNode<NodeType, EdgeType> ret = refill(thief);
+				synchronized (this) {
+					refilling = false;
+					notifyAll();
+					thief.idleTime += System.currentTimeMillis() - before;
+					if (ret != null) {
+						idle--;
+						stats.stealLatency.record(System.nanoTime() - beforeNs);
+						return ret;
+					}
+					if (VVERBOSE) {
+						out.println(thief + " detects end of search");
+					}
+					finished = true;
+					return null;
+				}
+			}
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ import java.util.Iterator;
 
 import de.parsemis.miner.chain.Extender;
 import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.Budget;
 import de.parsemis.miner.environment.LocalEnvironment;
 import de.parsemis.miner.general.Fragment;
 
@@ -50,6 +51,11 @@ public class Worker<NodeType, EdgeType> implements Runnable {
 
 	private final int idx;
 
+	private final Checkpointer<NodeType, EdgeType> checkpointer;
+
+	/** nodes deeper than this level are not extended any more */
+	private int limit = Integer.MAX_VALUE;
+
 	/**
 	 * creates a new Worker
 	 * 
@@ -65,10 +71,33 @@ public class Worker<NodeType, EdgeType> implements Runnable {
 	public Worker(final MiningStack<NodeType, EdgeType> stack,
 			final Collection<Fragment<NodeType, EdgeType>> found,
 			final Extender<NodeType, EdgeType> searcher, final int idx) {
+		this(stack, found, searcher, idx, null);
+	}
+
+	/**
+	 * creates a new Worker that waits for pending checkpoints
+	 * 
+	 * @param stack
+	 *            the stack for storing and getting unextended fragments
+	 * @param found
+	 *            the set to store frequent fragments
+	 * @param searcher
+	 *            the Searcher which should be used to extend fragments
+	 * @param idx
+	 *            the index of the given worker
+	 * @param checkpointer
+	 *            the Checkpointer of the search (or <code>null</code>)
+	 */
+	Worker(final MiningStack<NodeType, EdgeType> stack,
+			final Collection<Fragment<NodeType, EdgeType>> found,
+			final Extender<NodeType, EdgeType> searcher, final int idx,
+			final Checkpointer<NodeType, EdgeType> checkpointer) {
 		this.stack = stack;
 		this.idx = idx;
-		this.found = found;
+		this.found = (checkpointer == null ? found : checkpointer.record(idx,
+				found));
 		this.searcher = searcher;
+		this.checkpointer = checkpointer;
 	}
 
 	/*
@@ -82,25 +111,51 @@ public class Worker<NodeType, EdgeType> implements Runnable {
 			err.println(this + " is up and running (stderr)("+Thread.currentThread()+")");
 		}
 		int count = 0;
+		final AdaptiveSplitPolicy policy = LocalEnvironment.env(searcher).splitPolicy;
+		final Budget budget = LocalEnvironment.env(searcher).budget;
 		SearchLatticeNode<NodeType, EdgeType> node = stack.pop();
 
 		// while work is available, extend it
 		while (node != null) {
+			if (checkpointer != null && checkpointer.pending) {
+				checkpointer.pause(idx, node);
+			}
+			if (budget != null && skip(budget, node)) {
+				// leave the node unexplored
+				budget.skip(node);
+				node.release();
+				node.finalizeIt();
+				node = stack.pop();
+				continue;
+			}
 			if ((VERBOSE && node.getLevel() == 0) || VVERBOSE) {
 				out.println(this + " Stack size " + stack.size() + " works "
 						+ node);
 			}
 			// extends current node
+			final long before = (policy != null ? System.nanoTime() : 0);
 			final Iterator<SearchLatticeNode<NodeType, EdgeType>> children = searcher
 					.getChildren(node).iterator();
+			if (policy != null) {
+				policy.record(idx, node, System.nanoTime() - before);
+			}
+			final int root = node.getRoot();
 
 			// get next node
-			final SearchLatticeNode<NodeType, EdgeType> next = (children
-					.hasNext() ? children.next() : stack.pop());
+			final SearchLatticeNode<NodeType, EdgeType> next;
+			if (children.hasNext()) {
+				next = children.next();
+				next.setRoot(root);
+			} else {
+				next = stack.pop();
+			}
 
 			// push other found ones
 			while (children.hasNext()) {
-				stack.push(children.next());
+				final SearchLatticeNode<NodeType, EdgeType> child = children
+						.next();
+				child.setRoot(root);
+				stack.push(child);
 			}
 
 			if (node.store()) {
@@ -123,6 +178,23 @@ public class Worker<NodeType, EdgeType> implements Runnable {
 		}
 	}
 
+	/**
+	 * @param budget
+	 * @param node
+	 * @return <code>true</code>, if the given node shall not be extended
+	 */
+	private boolean skip(final Budget budget,
+			final SearchLatticeNode<NodeType, EdgeType> node) {
+		if (budget.exhausted()) {
+			return true;
+		}
+		if (limit == Integer.MAX_VALUE && budget.near()) {
+			// prefer the smaller fragments for the rest of the budget
+			limit = node.getLevel();
+		}
+		return node.getLevel() > limit;
+	}
+
 	@Override
 	public String toString() {
 		return "Worker-" + this.idx;
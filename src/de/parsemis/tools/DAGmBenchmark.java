@@ -0,0 +1,80 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import de.parsemis.Miner;
+import de.parsemis.graph.Graph;
+import de.parsemis.graph.HPGraph;
+import de.parsemis.miner.environment.Settings;
+import de.parsemis.miner.general.Fragment;
+import de.parsemis.parsers.LineGraphParser;
+import de.parsemis.parsers.StringLabelParser;
+
+/**
+ * This class measures the run time of DAGma on databases of random DAGs
+ * generated by GraphGenerator.generateDAG. The fewer edges the DAGs have,
+ * the more roots they have, so the databases range from forests with many
+ * roots to dense DAGs.
+ *
+ * Usage: java -cp ... DAGmBenchmark [graphs] [nodes] [minFreq]
+ */
+public class DAGmBenchmark {
+
+	/* the edge count of the DAGs relative to their node count */
+	private static final double[] DENSITIES = { 1.0, 1.25, 1.5 };
+
+	/**
+	 * @param args
+	 */
+	public static void main(final String[] args) {
+		final int graphs = (args.length > 0 ? Integer.parseInt(args[0]) : 200);
+		final int nodes = (args.length > 1 ? Integer.parseInt(args[1]) : 12);
+		final int minFreq = (args.length > 2 ? Integer.parseInt(args[2])
+				: graphs / 10);
+
+		for (final double density : DENSITIES) {
+			final int edges = (int) ((nodes - 1) * density);
+			final Collection<Graph<String, String>> db = new ArrayList<Graph<String, String>>();
+			int roots = 0;
+			for (int i = 0; i < graphs; ++i) {
+				final Graph<String, String> graph = GraphGenerator
+						.generateDAG(nodes, edges);
+				final HPGraph<String, String> hp = graph.toHPGraph();
+				for (int n = 0; n < hp.getMaxNodeIndex(); ++n) {
+					if (hp.isValidNode(n) && hp.getInDegree(n) == 0) {
+						roots++;
+					}
+				}
+				db.add(graph);
+			}
+			System.out.println(graphs + " DAGs with " + nodes + " nodes, "
+					+ edges + " edges and " + ((double) roots / graphs)
+					+ " roots on average");
+			for (int run = 0; run < 3; ++run) {
+				final long before = System.nanoTime();
+				final Collection<Fragment<String, String>> found = Miner.mine(
+						db, settings(minFreq));
+				final long time = System.nanoTime() - before;
+				System.out.println("  run " + run + ": " + found.size()
+						+ " fragments in " + (time / 1000000) + " ms");
+			}
+		}
+	}
+
+	private static Settings<String, String> settings(final int minFreq) {
+		return Settings.parse(new String[] {
+				"--minimumFrequency=" + minFreq, "--algorithm=dagma" },
+				new LineGraphParser<String, String>(new StringLabelParser(),
+						new StringLabelParser()));
+	}
+
+}
@@ -0,0 +1,206 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import de.parsemis.miner.chain.Extension;
+import de.parsemis.miner.chain.SearchLatticeNode;
+import de.parsemis.miner.environment.LocalEnvironment;
+import de.parsemis.miner.environment.Settings;
+import de.parsemis.miner.general.HPEmbedding;
+import de.parsemis.miner.general.HPFragment;
+import de.parsemis.strategy.ChaseLevStack;
+import de.parsemis.strategy.LocalStack;
+import de.parsemis.strategy.MiningStack;
+import de.parsemis.strategy.ThreadedDFSStrategy;
+
+/**
+ * This class compares the push/pop throughput and the split latency under
+ * contention of the LocalStack and the lock-free ChaseLevStack.
+ *
+ * Usage: java -cp ... StackBenchmark [operations] [thieves]
+ */
+public class StackBenchmark {
+
+	/** a search node without any content */
+	private static final class DummyNode extends
+			SearchLatticeNode<String, String> {
+		private static final long serialVersionUID = 1L;
+
+		private int threadIdx;
+
+		DummyNode(final int level) {
+			super(level);
+		}
+
+		@Override
+		public Collection<HPEmbedding<String, String>> allEmbeddings() {
+			return null;
+		}
+
+		@Override
+		public SearchLatticeNode<String, String> extend(
+				final Extension<String, String> extension) {
+			return null;
+		}
+
+		@Override
+		public void finalizeIt() {
+		}
+
+		@Override
+		public int getThreadNumber() {
+			return threadIdx;
+		}
+
+		@Override
+		public void release() {
+		}
+
+		@Override
+		public void setFinalEmbeddings(
+				final Collection<HPEmbedding<String, String>> embs) {
+		}
+
+		@Override
+		public void setThreadNumber(final int threadIdx) {
+			this.threadIdx = threadIdx;
+		}
+
+		@Override
+		public HPFragment<String, String> toHPFragment() {
+			return null;
+		}
+	}
+
+	private static final int DEPTH = 32;
+
+	private static LocalEnvironment<String, String> env;
+
+	private static final DummyNode[] nodes = new DummyNode[DEPTH];
+
+	private static volatile boolean done;
+
+	/**
+	 * @param args
+	 * @throws InterruptedException
+	 */
+	public static void main(final String[] args) throws InterruptedException {
+		final int operations = (args.length > 0 ? Integer.parseInt(args[0])
+				: 10000000);
+		final int thieves = (args.length > 1 ? Integer.parseInt(args[1]) : 3);
+
+		final Settings<String, String> settings = new Settings<String, String>();
+		settings.threadCount = thieves + 1;
+		env = LocalEnvironment.create(settings, 0, new ArrayList<String>(),
+				new ArrayList<String>());
+		for (int i = 0; i < DEPTH; ++i) {
+			nodes[i] = new DummyNode(i);
+		}
+
+		for (int run = 0; run < 3; ++run) {
+			System.out.println("run " + run);
+			pushPop("LocalStack", newLocalStack(), operations);
+			pushPop("ChaseLevStack", new ChaseLevStack<String, String>(0,
+					null), operations);
+			split("LocalStack", newLocalStack(), operations / 10, thieves);
+			split("ChaseLevStack",
+					new ChaseLevStack<String, String>(0, null),
+					operations / 10, thieves);
+		}
+	}
+
+	private static MiningStack<String, String> newLocalStack() {
+		return new LocalStack<String, String>(0,
+				new ThreadedDFSStrategy<String, String>(1, env.stats), env);
+	}
+
+	/**
+	 * the owner simulates a depth first search by pushing and popping
+	 *
+	 * @param stack
+	 * @param operations
+	 * @return the number of executed operations
+	 */
+	private static long owner(final MiningStack<String, String> stack,
+			final int operations) {
+		long ops = 0;
+		while (ops < operations) {
+			for (int i = 0; i < DEPTH; ++i) {
+				stack.push(nodes[i]);
+			}
+			while (stack.size() > 0 && stack.pop() != null) {
+				ops++;
+			}
+			ops += DEPTH;
+		}
+		return ops;
+	}
+
+	private static void pushPop(final String name,
+			final MiningStack<String, String> stack, final int operations) {
+		final long before = System.nanoTime();
+		final long ops = owner(stack, operations);
+		final long time = System.nanoTime() - before;
+		System.out.println("  " + name + " push/pop: " + (ops * 1000000 / time)
+				+ " ops/ms");
+	}
+
+	private static void split(final String name,
+			final MiningStack<String, String> stack, final int operations,
+			final int thieves) throws InterruptedException {
+		final long[] splits = new long[thieves];
+		final long[] attempts = new long[thieves];
+		final long[] times = new long[thieves];
+		final Thread[] threads = new Thread[thieves];
+		done = false;
+		for (int i = 0; i < thieves; ++i) {
+			final int idx = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					final ChaseLevStack<String, String> mine = new ChaseLevStack<String, String>(
+							idx + 1, null);
+					while (!done) {
+						final long before = System.nanoTime();
+						final boolean success = stack.split(mine);
+						times[idx] += System.nanoTime() - before;
+						attempts[idx]++;
+						if (success) {
+							splits[idx]++;
+							while (mine.popLocal() != null) {
+								// drop stolen work
+							}
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		final long before = System.nanoTime();
+		final long ops = owner(stack, operations);
+		final long time = System.nanoTime() - before;
+		done = true;
+		long splitCount = 0, attemptCount = 0, splitTime = 0;
+		for (int i = 0; i < thieves; ++i) {
+			threads[i].join();
+			splitCount += splits[i];
+			attemptCount += attempts[i];
+			splitTime += times[i];
+		}
+		System.out.println("  " + name + " with " + thieves + " thieves: "
+				+ (ops * 1000000 / time) + " owner ops/ms, " + splitCount
+				+ " of " + attemptCount + " splits succeeded, "
+				+ (attemptCount == 0 ? 0 : splitTime / attemptCount)
+				+ " ns/split");
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Iterator;
+
+/**
+ * This class is a FileSerializeCollection that serializes the stored elements
+ * within a separate I/O thread, so that the adding (mining) thread is not
+ * blocked by the file system.
+ *
+ * @param <Type>
+ *            that is stored in the Set
+ */
+public class AsyncFileSerializeCollection<Type extends Serializable> extends
+		FileSerializeCollection<Type> {
+
+	/** the maximal number of elements waiting for serialization */
+	private static final int CAPACITY = 1024;
+
+	private WriteBehind<Type> writer;
+
+	/**
+	 * creates a new empty DumpSet
+	 *
+	 * @param file
+	 */
+	public AsyncFileSerializeCollection(final File file) {
+		super(file);
+		writer = new WriteBehind<Type>(CAPACITY) {
+			@Override
+			protected void process(final Type elem) throws IOException {
+				if (!write(elem)) {
+					synchronized (AsyncFileSerializeCollection.this) {
+						size--;
+					}
+					throw new IOException("cannot serialize " + elem);
+				}
+			}
+		};
+	}
+
+	/**
+	 * creates a new empty DumpSet
+	 *
+	 * @param filename
+	 */
+	public AsyncFileSerializeCollection(final String filename) {
+		this(new File(filename));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.utils.FileSerializeCollection#add(java.io.Serializable)
+	 */
+	@Override
+	public boolean add(final Type t) {
+		// as for the synchronous collection, a failed write is reported by
+		// returning false
+		if (writer.getError() != null) {
+			return false;
+		}
+		writer.add(t);
+		synchronized (this) {
+			size++;
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.utils.FileSerializeCollection#clear()
+	 */
+	@Override
+	public void clear() {
+		// called by the super constructor before the writer exists
+		if (writer != null) {
+			flush();
+		}
+		super.clear();
+	}
+
+	/**
+	 * waits until all added elements are written
+	 * 
+	 * @return <code>false</code>, if an element could not be written (and is
+	 *         not part of the collection)
+	 */
+	public boolean flush() {
+		return writer.flush() == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.utils.FileSerializeCollection#iterator()
+	 */
+	@Override
+	public Iterator<Type> iterator() {
+		flush();
+		return super.iterator();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.utils.FileSerializeCollection#size()
+	 */
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parsemis.utils.FileSerializeCollection#isEmpty()
+	 */
+	@Override
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+}
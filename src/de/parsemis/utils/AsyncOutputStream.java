@@ -0,0 +1,137 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class buffers the written data and passes it in larger chunks to the
+ * underlying stream within a separate I/O thread (including compression, if
+ * the underlying stream is compressing).
+ */
+public class AsyncOutputStream extends OutputStream {
+
+	/** the size of a single chunk */
+	private static final int CHUNK = 1 << 16;
+
+	/** the maximal number of chunks waiting to be written */
+	private static final int CAPACITY = 64;
+
+	private final OutputStream out;
+
+	private final WriteBehind<byte[]> writer;
+
+	private byte[] buf = new byte[CHUNK];
+
+	private int pos = 0;
+
+	/**
+	 * creates a new asynchronous stream
+	 *
+	 * @param out
+	 *            the underlying stream
+	 */
+	public AsyncOutputStream(final OutputStream out) {
+		this.out = out;
+		this.writer = new WriteBehind<byte[]>(CAPACITY) {
+			@Override
+			protected void process(final byte[] chunk) throws IOException {
+				out.write(chunk);
+			}
+		};
+	}
+
+	private void check(final Throwable t) throws IOException {
+		if (t instanceof IOException) {
+			throw (IOException) t;
+		} else if (t != null) {
+			throw new IOException(t.toString());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		out.close();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#flush()
+	 */
+	@Override
+	public void flush() throws IOException {
+		pass();
+		check(writer.flush());
+		out.flush();
+	}
+
+	/**
+	 * passes the current chunk to the I/O thread
+	 * 
+	 * @throws IOException
+	 *             if the I/O thread failed to write a previous chunk
+	 */
+	private void pass() throws IOException {
+		// do not hand further chunks to a failed writer
+		check(writer.getError());
+		if (pos > 0) {
+			final byte[] chunk;
+			if (pos == buf.length) {
+				chunk = buf;
+				buf = new byte[CHUNK];
+			} else {
+				chunk = new byte[pos];
+				System.arraycopy(buf, 0, chunk, 0, pos);
+			}
+			pos = 0;
+			writer.add(chunk);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int l = java.lang.Math.min(len, buf.length - pos);
+			System.arraycopy(b, off, buf, pos, l);
+			pos += l;
+			off += l;
+			len -= l;
+			if (pos == buf.length) {
+				pass();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(int)
+	 */
+	@Override
+	public void write(final int b) throws IOException {
+		buf[pos++] = (byte) b;
+		if (pos == buf.length) {
+			pass();
+		}
+	}
+
+}
@@ -0,0 +1,396 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import de.parsemis.graph.HPGraph;
+import de.parsemis.miner.environment.Relabler;
+
+/**
+ * This class computes a canonical byte string of a graph, so two graphs are
+ * isomorphic if and only if their strings are equal.
+ * <p>
+ * The nodes are partitioned by iterative refinement as in
+ * {@link GraphUtils#computePartitions(HPGraph, Relabler)}, but the cells are
+ * numbered by their content instead of the node order, so the numbers are
+ * comparable between graphs. If the refinement leaves cells with several
+ * nodes, each node of the first such cell is individualized in turn and the
+ * refinement continues. Each resulting discrete partition orders the nodes,
+ * and the smallest code of all these orders is the canonical one.
+ * <p>
+ * Two orders with the same code define an automorphism of the graph. The
+ * found automorphisms that fix the already individualized nodes map the
+ * subtrees of the nodes of a cell onto each other, so just one node of each
+ * of their orbits is individualized.
+ * <p>
+ * The codes store node numbers in 16 bits, so graphs with more than 65535
+ * nodes are rejected.
+ */
+public final class CanonicalLabeling {
+
+	/* the graph in a dense representation */
+	private final int nodeCount;
+
+	private final int[] labels;
+
+	private final int[][] neighbours;
+
+	// the edge label and direction of each incident edge
+	private final int[][] edgeInfos;
+
+	private int[] best = null;
+
+	// the node of each position of the order of the best code
+	private int[] bestNodes = null;
+
+	// the found automorphisms, each maps a node to its image
+	private final ArrayList<int[]> automorphisms = new ArrayList<int[]>();
+
+	private <NodeType, EdgeType> CanonicalLabeling(
+			final HPGraph<NodeType, EdgeType> g,
+			final Relabler<NodeType, EdgeType> r) {
+		final int[] dense = new int[g.getMaxNodeIndex()];
+		int n = 0;
+		for (int i = 0; i < dense.length; ++i) {
+			dense[i] = g.isValidNode(i) ? n++ : -1;
+		}
+		if (n > 0xFFFF) {
+			throw new IllegalArgumentException(
+					"canonical strings are limited to graphs with 65535 nodes, not "
+							+ n);
+		}
+		nodeCount = n;
+		labels = new int[n];
+		neighbours = new int[n][];
+		edgeInfos = new int[n][];
+		for (int i = 0; i < dense.length; ++i) {
+			final int d = dense[i];
+			if (d >= 0) {
+				labels[d] = g.getNodeLabelIndex(i, r);
+				final int degree = g.getDegree(i);
+				neighbours[d] = new int[degree];
+				edgeInfos[d] = new int[degree];
+				for (int e = 0; e < degree; ++e) {
+					final int edge = g.getNodeEdge(i, e);
+					neighbours[d][e] = dense[g.getOtherNode(edge, i)];
+					edgeInfos[d][e] = (g.getEdgeLabelIndex(edge, r) << 2)
+							| (g.getDirection(edge, i) + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param g
+	 * @param r
+	 *            the relabler for the label indices
+	 * @return the canonical byte string of the given graph
+	 *
+	 * @param <NodeType>
+	 *            the type of the node labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param <EdgeType>
+	 *            the type of the edge labels (will be hashed and checked with
+	 *            .equals(..))
+	 */
+	public static <NodeType, EdgeType> byte[] canonicalString(
+			final HPGraph<NodeType, EdgeType> g,
+			final Relabler<NodeType, EdgeType> r) {
+		final CanonicalLabeling cl = new CanonicalLabeling(g, r);
+		final long[] keys = new long[cl.nodeCount];
+		for (int i = 0; i < cl.nodeCount; ++i) {
+			int in = 0, out = 0;
+			for (final int info : cl.edgeInfos[i]) {
+				if ((info & 3) == 0) {
+					in++;
+				} else if ((info & 3) == 2) {
+					out++;
+				}
+			}
+			keys[i] = ((long) cl.labels[i] << 32) | (in << 16) | out;
+		}
+		if (cl.nodeCount > 0) {
+			cl.search(cl.refine(rank(keys)), new int[cl.nodeCount], 0);
+		} else {
+			cl.best = new int[2];
+		}
+		return toBytes(cl.best);
+	}
+
+	/* @return the number of different colors of the given coloring */
+	private static int colorCount(final int[] colors) {
+		int max = -1;
+		for (final int c : colors) {
+			if (c > max) {
+				max = c;
+			}
+		}
+		return max + 1;
+	}
+
+	private static int compare(final int[] a, final int[] b) {
+		for (int i = 0; i < a.length && i < b.length; ++i) {
+			if (a[i] != b[i]) {
+				return a[i] < b[i] ? -1 : 1;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	private static int compare(final long[] a, final long[] b) {
+		for (int i = 0; i < a.length && i < b.length; ++i) {
+			if (a[i] != b[i]) {
+				return a[i] < b[i] ? -1 : 1;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/* @return the rank of each key among the different keys */
+	private static int[] rank(final long[] keys) {
+		final long[] sorted = keys.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		final int[] ret = new int[keys.length];
+		for (int i = 0; i < keys.length; ++i) {
+			ret[i] = Arrays.binarySearch(sorted, 0, distinct, keys[i]);
+		}
+		return ret;
+	}
+
+	/* writes each int as an unsigned variable length number */
+	private static byte[] toBytes(final int[] code) {
+		final byte[] buf = new byte[code.length * 5];
+		int pos = 0;
+		for (int v : code) {
+			while ((v & ~0x7F) != 0) {
+				buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte) v;
+		}
+		final byte[] ret = new byte[pos];
+		System.arraycopy(buf, 0, ret, 0, pos);
+		return ret;
+	}
+
+	/*
+	 * @return the code of the graph for the given discrete coloring: the node
+	 * and edge count, the node labels in color order and the sorted edges
+	 * (each edge from its node with the smaller color, self loops from their
+	 * node)
+	 */
+	private int[] code(final int[] colors) {
+		final int[] ret;
+		int edgeCount = 0;
+		for (int i = 0; i < nodeCount; ++i) {
+			for (final int o : neighbours[i]) {
+				if (colors[i] <= colors[o]) {
+					edgeCount++;
+				}
+			}
+		}
+		final long[] edges = new long[edgeCount];
+		int e = 0;
+		for (int i = 0; i < nodeCount; ++i) {
+			for (int j = 0; j < neighbours[i].length; ++j) {
+				final int o = neighbours[i][j];
+				// the coloring is discrete, so equal colors are a self loop
+				if (colors[i] <= colors[o]) {
+					edges[e++] = ((long) colors[i] << 48)
+							| ((long) colors[o] << 32)
+							| (edgeInfos[i][j] & 0xFFFFFFFFL);
+				}
+			}
+		}
+		Arrays.sort(edges);
+		ret = new int[2 + nodeCount + 3 * edgeCount];
+		ret[0] = nodeCount;
+		ret[1] = edgeCount;
+		for (int i = 0; i < nodeCount; ++i) {
+			ret[2 + colors[i]] = labels[i];
+		}
+		int pos = 2 + nodeCount;
+		for (final long edge : edges) {
+			ret[pos++] = (int) (edge >>> 48);
+			ret[pos++] = (int) (edge >>> 32) & 0xFFFF;
+			ret[pos++] = (int) edge;
+		}
+		return ret;
+	}
+
+	/*
+	 * splits the cells of the given coloring by the colors of the neighbours
+	 * until it is stable
+	 *
+	 * @return the refined coloring, numbered from 0 by the content of the cells
+	 */
+	private int[] refine(int[] colors) {
+		int count = colorCount(colors);
+		final long[][] signatures = new long[nodeCount][];
+		final Integer[] order = new Integer[nodeCount];
+		while (true) {
+			for (int i = 0; i < nodeCount; ++i) {
+				final long[] sig = new long[neighbours[i].length + 1];
+				for (int j = 0; j < neighbours[i].length; ++j) {
+					sig[j + 1] = ((long) colors[neighbours[i][j]] << 32)
+							| edgeInfos[i][j];
+				}
+				Arrays.sort(sig, 1, sig.length);
+				// the old color first, so the cells are just split
+				sig[0] = colors[i];
+				signatures[i] = sig;
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(final Integer a, final Integer b) {
+					return CanonicalLabeling.compare(signatures[a],
+							signatures[b]);
+				}
+			});
+			final int[] next = new int[nodeCount];
+			int c = 0;
+			for (int i = 0; i < nodeCount; ++i) {
+				if (i > 0
+						&& compare(signatures[order[i - 1]],
+								signatures[order[i]]) != 0) {
+					c++;
+				}
+				next[order[i]] = c;
+			}
+			colors = next;
+			if (c + 1 == count) {
+				return colors;
+			}
+			count = c + 1;
+		}
+	}
+
+	/*
+	 * stores the mapping between the given order and the order of the best
+	 * code, if it is no identity
+	 */
+	private void addAutomorphism(final int[] colors) {
+		final int[] map = new int[nodeCount];
+		boolean identity = true;
+		for (int i = 0; i < nodeCount; ++i) {
+			map[i] = bestNodes[colors[i]];
+			identity &= map[i] == i;
+		}
+		if (!identity) {
+			automorphisms.add(map);
+		}
+	}
+
+	/* @return the index of the set of the given node in the given forest */
+	private static int find(final int[] parents, int node) {
+		while (parents[node] != node) {
+			node = parents[node] = parents[parents[node]];
+		}
+		return node;
+	}
+
+	/*
+	 * @return the orbits of the found automorphisms that fix the first depth
+	 * given nodes, as a union-find forest
+	 */
+	private int[] orbits(final int[] fixed, final int depth) {
+		final int[] parents = new int[nodeCount];
+		for (int i = 0; i < nodeCount; ++i) {
+			parents[i] = i;
+		}
+		for (final int[] map : automorphisms) {
+			boolean fixes = true;
+			for (int d = 0; fixes && d < depth; ++d) {
+				fixes = map[fixed[d]] == fixed[d];
+			}
+			if (fixes) {
+				for (int i = 0; i < nodeCount; ++i) {
+					final int a = find(parents, i);
+					final int b = find(parents, map[i]);
+					if (a < b) {
+						parents[b] = a;
+					} else if (b < a) {
+						parents[a] = b;
+					}
+				}
+			}
+		}
+		return parents;
+	}
+
+	/*
+	 * individualizes the nodes of the first non singleton cell in turn, but
+	 * just one node of each orbit of the found automorphisms that fix the
+	 * already individualized nodes
+	 */
+	private void search(final int[] colors, final int[] fixed, final int depth) {
+		final int count = colorCount(colors);
+		if (count == nodeCount) {
+			final int[] code = code(colors);
+			final int cmp = (best == null ? -1 : compare(code, best));
+			if (cmp < 0) {
+				best = code;
+				bestNodes = new int[nodeCount];
+				for (int i = 0; i < nodeCount; ++i) {
+					bestNodes[colors[i]] = i;
+				}
+			} else if (cmp == 0) {
+				addAutomorphism(colors);
+			}
+			return;
+		}
+		final int[] sizes = new int[count];
+		for (final int c : colors) {
+			sizes[c]++;
+		}
+		int cell = 0;
+		while (sizes[cell] == 1) {
+			cell++;
+		}
+		final int[] tried = new int[sizes[cell]];
+		int triedCount = 0;
+		int[] orbits = null;
+		int known = -1;
+		for (int v = 0; v < nodeCount; ++v) {
+			if (colors[v] == cell) {
+				if (triedCount > 0) {
+					// the automorphisms may be found in the previous subtrees
+					if (known != automorphisms.size()) {
+						known = automorphisms.size();
+						orbits = orbits(fixed, depth);
+					}
+					boolean mapped = false;
+					for (int t = 0; !mapped && t < triedCount; ++t) {
+						mapped = find(orbits, v) == find(orbits, tried[t]);
+					}
+					if (mapped) {
+						continue;
+					}
+				}
+				final int[] next = new int[nodeCount];
+				for (int i = 0; i < nodeCount; ++i) {
+					next[i] = 2 * colors[i] + (i == v ? 0 : 1);
+				}
+				fixed[depth] = v;
+				search(refine(next), fixed, depth + 1);
+				tried[triedCount++] = v;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,462 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import static de.parsemis.miner.environment.Debug.WARN;
+import static de.parsemis.miner.environment.Debug.err;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a thread safe set of byte strings (e.g., canonical strings of
+ * graphs) that can be swapped to disk.
+ * <p>
+ * The set is split into segments, each with its own lock. If the strings kept
+ * in the memory of a segment exceed its part of the memory limit, they are
+ * written sorted to a run file. Each run keeps a bloom filter and the first
+ * string of each block in memory, so a string that is not in the run is
+ * usually rejected without reading the file, and otherwise just one block is
+ * read. If a segment has too many runs, they are merged into one.
+ */
+public final class CanonicalStringSet {
+
+	/* a byte string with its cached hash value */
+	private static final class Key implements Comparable<Key> {
+		final byte[] bytes;
+
+		final int hash;
+
+		Key(final byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		/* unsigned lexicographical order */
+		public int compareTo(final Key other) {
+			final byte[] a = bytes, b = other.bytes;
+			for (int i = 0; i < a.length && i < b.length; ++i) {
+				if (a[i] != b[i]) {
+					return (a[i] & 0xFF) - (b[i] & 0xFF);
+				}
+			}
+			return a.length - b.length;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/* a second hash value for the bloom filters */
+		int hash2() {
+			int h = 0x811C9DC5;
+			for (final byte b : bytes) {
+				h = (h ^ b) * 0x01000193;
+			}
+			return h | 1;
+		}
+	}
+
+	/* a sorted file of strings */
+	private static final class Run {
+		private final File file;
+
+		private final RandomAccessFile raf;
+
+		private final Key[] firstKeys;
+
+		private final long[] offsets;
+
+		private final long[] bloom;
+
+		Run(final File file, final Key[] firstKeys, final long[] offsets,
+				final long[] bloom) throws IOException {
+			this.file = file;
+			this.raf = new RandomAccessFile(file, "r");
+			this.firstKeys = firstKeys;
+			this.offsets = offsets;
+			this.bloom = bloom;
+		}
+
+		void close() {
+			try {
+				raf.close();
+			} catch (final IOException io) {
+				if (WARN) {
+					err.println(io);
+				}
+			}
+			file.delete();
+		}
+
+		boolean contains(final Key key) throws IOException {
+			if (!mightContain(bloom, key)) {
+				return false;
+			}
+			int block = Arrays.binarySearch(firstKeys, key);
+			if (block >= 0) {
+				return true;
+			}
+			block = -block - 2;
+			if (block < 0) {
+				return false;
+			}
+			final byte[] buf = new byte[(int) (offsets[block + 1] - offsets[block])];
+			raf.seek(offsets[block]);
+			raf.readFully(buf);
+			final DataInputStream in = new DataInputStream(
+					new ByteArrayInputStream(buf));
+			for (int i = 0; i < BLOCK; ++i) {
+				final Key k = read(in);
+				if (k == null) {
+					return false;
+				}
+				final int cmp = k.compareTo(key);
+				if (cmp >= 0) {
+					return cmp == 0;
+				}
+			}
+			return false;
+		}
+
+		DataInputStream open() throws IOException {
+			return new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+		}
+	}
+
+	/* a part of the set, guarded by its own lock */
+	private final class Segment {
+		HashSet<Key> memory = new HashSet<Key>();
+
+		long memoryBytes = 0;
+
+		final ArrayList<Run> runs = new ArrayList<Run>();
+
+		boolean add(final Key key) throws IOException {
+			if (memory.contains(key)) {
+				return false;
+			}
+			for (final Run run : runs) {
+				if (run.contains(key)) {
+					return false;
+				}
+			}
+			memory.add(key);
+			memoryBytes += key.bytes.length + OVERHEAD;
+			if (limit > 0 && memoryBytes > limit / SEGMENTS) {
+				spill();
+			}
+			return true;
+		}
+
+		void clear() {
+			for (final Run run : runs) {
+				run.close();
+			}
+			runs.clear();
+			memory.clear();
+			memoryBytes = 0;
+		}
+
+		/* merges all runs into a new one */
+		private void merge() throws IOException {
+			final int count = runs.size();
+			final DataInputStream[] ins = new DataInputStream[count];
+			final Key[] heads = new Key[count];
+			int total = 0;
+			for (int i = 0; i < count; ++i) {
+				ins[i] = runs.get(i).open();
+				heads[i] = read(ins[i]);
+				total += runs.get(i).firstKeys.length * BLOCK;
+			}
+			final RunWriter w = new RunWriter(total);
+			while (true) {
+				int min = -1;
+				for (int i = 0; i < count; ++i) {
+					if (heads[i] != null
+							&& (min < 0 || heads[i].compareTo(heads[min]) < 0)) {
+						min = i;
+					}
+				}
+				if (min < 0) {
+					break;
+				}
+				// the runs are disjoint, so no duplicates are written
+				w.write(heads[min]);
+				heads[min] = read(ins[min]);
+			}
+			for (int i = 0; i < count; ++i) {
+				ins[i].close();
+				runs.get(i).close();
+			}
+			runs.clear();
+			runs.add(w.finish());
+		}
+
+		/* writes the strings of the memory sorted to a new run */
+		private void spill() throws IOException {
+			final Key[] keys = memory.toArray(new Key[memory.size()]);
+			Arrays.sort(keys);
+			final RunWriter w = new RunWriter(keys.length);
+			for (final Key k : keys) {
+				w.write(k);
+			}
+			runs.add(w.finish());
+			memory = new HashSet<Key>();
+			memoryBytes = 0;
+			spills.incrementAndGet();
+			if (runs.size() > MAX_RUNS) {
+				merge();
+			}
+		}
+	}
+
+	/* writes a new run with its index and bloom filter */
+	private final class RunWriter {
+		private final File file;
+
+		private final DataOutputStream out;
+
+		private final ArrayList<Key> firstKeys = new ArrayList<Key>();
+
+		private final ArrayList<Long> offsets = new ArrayList<Long>();
+
+		private final long[] bloom;
+
+		private int count = 0;
+
+		private long position = 0;
+
+		RunWriter(final int expected) throws IOException {
+			file = File.createTempFile("cycles_", ".run", directory);
+			file.deleteOnExit();
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file)));
+			bloom = new long[java.lang.Math.max(1,
+					(int) (((long) expected * BLOOM_BITS + 63) / 64))];
+		}
+
+		Run finish() throws IOException {
+			offsets.add(Long.valueOf(position));
+			out.close();
+			final long[] offs = new long[offsets.size()];
+			for (int i = 0; i < offs.length; ++i) {
+				offs[i] = offsets.get(i).longValue();
+			}
+			return new Run(file, firstKeys.toArray(new Key[firstKeys.size()]),
+					offs, bloom);
+		}
+
+		void write(final Key key) throws IOException {
+			if (count++ % BLOCK == 0) {
+				firstKeys.add(key);
+				offsets.add(Long.valueOf(position));
+			}
+			out.writeShort(key.bytes.length);
+			out.write(key.bytes);
+			position += 2 + key.bytes.length;
+			final int h1 = key.hash, h2 = key.hash2();
+			final long bits = 64L * bloom.length;
+			for (int i = 0; i < BLOOM_HASHES; ++i) {
+				final long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % bits;
+				bloom[(int) (bit >>> 6)] |= 1L << bit;
+			}
+		}
+	}
+
+	/* the number of strings of a run each index entry covers */
+	private static final int BLOCK = 64;
+
+	private static final int BLOOM_BITS = 10;
+
+	private static final int BLOOM_HASHES = 7;
+
+	private static final int MAX_RUNS = 8;
+
+	/* estimated memory of a stored string besides its bytes */
+	private static final int OVERHEAD = 64;
+
+	private static final int SEGMENTS = 16;
+
+	private static boolean mightContain(final long[] bloom, final Key key) {
+		final int h1 = key.hash, h2 = key.hash2();
+		final long bits = 64L * bloom.length;
+		for (int i = 0; i < BLOOM_HASHES; ++i) {
+			final long bit = ((h1 + i * h2) & 0xFFFFFFFFL) % bits;
+			if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/* @return the next string of the stream, or null at its end */
+	private static Key read(final DataInputStream in) throws IOException {
+		final int len;
+		try {
+			len = in.readUnsignedShort();
+		} catch (final EOFException eof) {
+			return null;
+		}
+		final byte[] bytes = new byte[len];
+		in.readFully(bytes);
+		return new Key(bytes);
+	}
+
+	private final long limit;
+
+	private final File directory;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicInteger spills = new AtomicInteger();
+
+	/**
+	 * creates a new empty set
+	 *
+	 * @param limit
+	 *            the maximal number of bytes kept in memory, or 0 for no limit
+	 * @param directory
+	 *            the directory for the run files, or <code>null</code> for
+	 *            the default temporary directory
+	 */
+	public CanonicalStringSet(final long limit, final File directory) {
+		this.limit = limit;
+		this.directory = directory;
+		for (int i = 0; i < SEGMENTS; ++i) {
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * adds the given string
+	 *
+	 * @param bytes
+	 * @return <code>true</code>, if the string was not in the set before
+	 */
+	public boolean add(final byte[] bytes) {
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("string too long: "
+					+ bytes.length);
+		}
+		final Key key = new Key(bytes);
+		final Segment seg = segments[(key.hash ^ (key.hash >>> 16))
+				& (SEGMENTS - 1)];
+		final boolean ret;
+		synchronized (seg) {
+			try {
+				ret = seg.add(key);
+			} catch (final IOException io) {
+				throw new RuntimeException("cannot swap canonical strings", io);
+			}
+		}
+		if (ret) {
+			size.incrementAndGet();
+		}
+		return ret;
+	}
+
+	/**
+	 * adds the given strings, locking each segment just once
+	 *
+	 * @param strings
+	 * @param added
+	 *            stores for each string, if it was not in the set before
+	 *            (neither in the set nor earlier in the given array)
+	 * @return the number of added strings
+	 */
+	public int addAll(final byte[][] strings, final boolean[] added) {
+		final Key[] keys = new Key[strings.length];
+		final int[] segs = new int[strings.length];
+		for (int i = 0; i < strings.length; ++i) {
+			if (strings[i].length > 0xFFFF) {
+				throw new IllegalArgumentException("string too long: "
+						+ strings[i].length);
+			}
+			keys[i] = new Key(strings[i]);
+			segs[i] = (keys[i].hash ^ (keys[i].hash >>> 16)) & (SEGMENTS - 1);
+			added[i] = false;
+		}
+		int ret = 0;
+		for (int s = 0; s < SEGMENTS; ++s) {
+			final Segment seg = segments[s];
+			boolean locked = false;
+			for (int i = 0; i < strings.length && !locked; ++i) {
+				locked = segs[i] == s;
+			}
+			if (!locked) {
+				continue;
+			}
+			synchronized (seg) {
+				try {
+					for (int i = 0; i < strings.length; ++i) {
+						if (segs[i] == s && seg.add(keys[i])) {
+							added[i] = true;
+							ret++;
+						}
+					}
+				} catch (final IOException io) {
+					throw new RuntimeException("cannot swap canonical strings",
+							io);
+				}
+			}
+		}
+		size.addAndGet(ret);
+		return ret;
+	}
+
+	/**
+	 * removes all strings and their run files
+	 */
+	public void clear() {
+		for (final Segment seg : segments) {
+			synchronized (seg) {
+				seg.clear();
+			}
+		}
+		size.set(0);
+	}
+
+	/**
+	 * @return the number of stored strings
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * @return how often strings were written to disk
+	 */
+	public int spills() {
+		return spills.get();
+	}
+
+}
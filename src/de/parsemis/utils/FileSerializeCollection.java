@@ -73,12 +73,9 @@ public class FileSerializeCollection<Type extends Serializable> implements
 	 * @see java.util.Collection#add(E)
 	 */
 	public boolean add(final Type t) {
-		try {
-			oos.writeObject(t);
+		if (write(t)) {
 			size++;
 			return true;
-		} catch (final IOException io) {
-			System.err.println(io + " " + t.toString());
 		}
 		return false;
 	}
@@ -89,16 +86,12 @@ public class FileSerializeCollection<Type extends Serializable> implements
 	 * @see java.util.Collection#addAll(java.util.Collection)
 	 */
 	public boolean addAll(final Collection<? extends Type> c) {
-		try {
-			for (final Type t : c) {
-				oos.writeObject(t);
+		for (final Type t : c) {
+			if (!add(t)) {
+				return false;
 			}
-			size += c.size();
-			return true;
-		} catch (final IOException io) {
-			System.err.println(io);
 		}
-		return false;
+		return true;
 	}
 
 	/*
@@ -269,4 +262,20 @@ public class FileSerializeCollection<Type extends Serializable> implements
 		return arg0;
 	}
 
+	/**
+	 * serializes the given object into the file
+	 * 
+	 * @param t
+	 * @return <code>true</code>, if the object is written
+	 */
+	protected boolean write(final Type t) {
+		try {
+			oos.writeObject(t);
+			return true;
+		} catch (final IOException io) {
+			System.err.println(io + " " + t.toString());
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,127 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+
+import de.parsemis.miner.general.DataBaseGraph;
+
+/**
+ * This class is serialized instead of a graph of the database (or one of its
+ * representations), if the reading side already knows the database.
+ */
+public final class GraphReference implements Serializable {
+
+	/** replaces the database graphs by references */
+	public static class Output extends ObjectOutputStream {
+
+		private volatile IdentityHashMap<Object, GraphReference> references = null;
+
+		/**
+		 * @param out
+		 * @throws IOException
+		 */
+		public Output(final OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(final Object obj) throws IOException {
+			final IdentityHashMap<Object, GraphReference> refs = references;
+			final GraphReference ref = (refs == null ? null : refs.get(obj));
+			return (ref == null ? obj : ref);
+		}
+
+		/**
+		 * from now on, the given graphs are just referenced
+		 *
+		 * @param graphs
+		 *            the graph database (in the same order on the reading
+		 *            side)
+		 */
+		public void setGraphs(final DataBaseGraph<?, ?>[] graphs) {
+			final IdentityHashMap<Object, GraphReference> refs = new IdentityHashMap<Object, GraphReference>();
+			for (int i = 0; i < graphs.length; ++i) {
+				if (graphs[i] == null) {
+					continue;
+				}
+				refs.put(graphs[i], new GraphReference(i, DATABASE_GRAPH));
+				refs.put(graphs[i].toHPGraph(), new GraphReference(i, HPGRAPH));
+				refs.put(graphs[i].toGraph(), new GraphReference(i, GRAPH));
+			}
+			references = refs;
+		}
+	}
+
+	/** resolves the read references to the given database graphs */
+	public static class Input extends ObjectInputStream {
+
+		private volatile DataBaseGraph<?, ?>[] graphs = null;
+
+		/**
+		 * @param in
+		 * @throws IOException
+		 */
+		public Input(final InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(final Object obj) throws IOException {
+			if (!(obj instanceof GraphReference)) {
+				return obj;
+			}
+			final GraphReference ref = (GraphReference) obj;
+			final DataBaseGraph<?, ?> graph = graphs[ref.idx];
+			switch (ref.kind) {
+			case HPGRAPH:
+				return graph.toHPGraph();
+			case GRAPH:
+				return graph.toGraph();
+			default:
+				return graph;
+			}
+		}
+
+		/**
+		 * from now on, references are resolved to the given graphs
+		 *
+		 * @param graphs
+		 *            the graph database (in the same order as on the writing
+		 *            side)
+		 */
+		public void setGraphs(final DataBaseGraph<?, ?>[] graphs) {
+			this.graphs = graphs;
+		}
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int DATABASE_GRAPH = 0, HPGRAPH = 1, GRAPH = 2;
+
+	/** the index of the graph in the database */
+	private final int idx;
+
+	/** which representation of the graph is referenced */
+	private final int kind;
+
+	private GraphReference(final int idx, final int kind) {
+		this.idx = idx;
+		this.kind = kind;
+	}
+
+}
@@ -15,13 +15,12 @@
 package de.parsemis.utils;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import de.parsemis.graph.Graph;
 import de.parsemis.graph.HPGraph;
 import de.parsemis.graph.HPGraphComparator;
 import de.parsemis.miner.environment.LocalEnvironment;
@@ -30,6 +29,15 @@ import de.parsemis.miner.environment.Relabler;
 /**
  * This class is a HashSet for HPGraphs. It uses explicit expensive graph
  * isomorphism test for comparing graphs with the same hash value.
+ * <p>
+ * The set is thread safe. It is split into segments, each with its own lock
+ * and its own hash table, so threads adding different graphs seldom wait for
+ * each other. The hash value of each graph is computed once, if it is
+ * inserted, and stored together with the graph.
+ * <p>
+ * Gaston no longer de-duplicates its cyclic fragments with this set, but
+ * with the smaller canonical strings of a CanonicalStringSet. This set is
+ * still used, where the graphs themselves have to be kept (e.g. GraphDiff).
  * 
  * @author Marc Woerlein (woerlein@informatik.uni-erlangen.de)
  * 
@@ -43,13 +51,44 @@ import de.parsemis.miner.environment.Relabler;
 public class GraphSet<NodeType, EdgeType> implements
 		Collection<HPGraph<NodeType, EdgeType>>, Generic<NodeType, EdgeType> {
 
+	/* a stored graph with its hash value */
+	private static final class Entry<NodeType, EdgeType> {
+		final long hash;
+
+		final HPGraph<NodeType, EdgeType> graph;
+
+		Entry<NodeType, EdgeType> next;
+
+		Entry(final long hash, final HPGraph<NodeType, EdgeType> graph,
+				final Entry<NodeType, EdgeType> next) {
+			this.hash = hash;
+			this.graph = graph;
+			this.next = next;
+		}
+	}
+
+	/* a part of the set, guarded by its own lock */
+	private static final class Segment<NodeType, EdgeType> {
+		Entry<NodeType, EdgeType>[] table;
+
+		int count;
+
+		@SuppressWarnings("unchecked")
+		Segment(final int size) {
+			table = (Entry<NodeType, EdgeType>[]) new Entry<?, ?>[size];
+		}
+	}
+
+	/* the number of segments (a power of two) */
+	private static final int SEGMENTS = 64;
+
 	public final Comparator<HPGraph<NodeType, EdgeType>> comparator;
 
 	private final int averageBinSize;
 
-	ArrayList<HPGraph<NodeType, EdgeType>>[] map;
+	private final Segment<NodeType, EdgeType>[] segments;
 
-	int entries;
+	private final AtomicInteger entries = new AtomicInteger();
 
 	final private Relabler<NodeType, EdgeType> rel;
 
@@ -63,19 +102,13 @@ public class GraphSet<NodeType, EdgeType> implements
 	private GraphSet(final int initialSize,
 			final Comparator<HPGraph<NodeType, EdgeType>> graphComparator,
 			final int averageBinSize, final Relabler<NodeType, EdgeType> rel) {
-		final int bins = initialSize / averageBinSize;
-		int index = Arrays.binarySearch(Math.PRIMES, bins);
-		if (index < 0) {
-			index = -index;
-		}
-		if (index >= Math.PRIMES.length) {
-			index = Math.PRIMES.length - 1;
+		int bins = 1;
+		while (bins * SEGMENTS * averageBinSize < initialSize) {
+			bins <<= 1;
 		}
-
-		this.map = new ArrayList[Math.PRIMES[index]];
-		for (int i = 0; i < map.length; i++) {
-			map[i] = new ArrayList<HPGraph<NodeType, EdgeType>>(
-					(int) (averageBinSize * 1.25));
+		this.segments = (Segment<NodeType, EdgeType>[]) new Segment<?, ?>[SEGMENTS];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment<NodeType, EdgeType>(bins);
 		}
 
 		this.comparator = graphComparator;
@@ -91,7 +124,7 @@ public class GraphSet<NodeType, EdgeType> implements
 	 */
 	public GraphSet(final Relabler<NodeType, EdgeType> rel) {
 		this(Math.PRIMES[16], new HPGraphComparator<NodeType, EdgeType>(rel),
-				25, rel);
+				2, rel);
 
 	}
 
@@ -118,27 +151,32 @@ public class GraphSet<NodeType, EdgeType> implements
 		return ret;
 	}
 
-	// map reader
+	/**
+	 * adds the given graph, if no isomorphic graph is stored
+	 * 
+	 * @param o
+	 * @return the stored isomorphic graph, or <code>null</code> if the given
+	 *         graph is added
+	 */
 	public HPGraph<NodeType, EdgeType> addFirst(
 			final HPGraph<NodeType, EdgeType> o) {
-		if (entries > averageBinSize * map.length) {
-			resize((int) java.lang.Math.ceil(map.length * 1.23578));
-		}
 		assert o != null;
-		final int hashCode = getHash(o);
-		final int bin = getBin(hashCode, map.length);
-
-		final ArrayList<HPGraph<NodeType, EdgeType>> list = map[bin];
-		synchronized (list) {
-			for (final HPGraph<NodeType, EdgeType> g : list) {
-				if (getHash(g) == hashCode && comparator.compare(g, o) == 0) {
-					return g;
+		final long hash = getHash(o);
+		final Segment<NodeType, EdgeType> seg = segmentFor(hash);
+		synchronized (seg) {
+			final int bin = getBin(hash, seg.table.length);
+			for (Entry<NodeType, EdgeType> e = seg.table[bin]; e != null; e = e.next) {
+				if (e.hash == hash && comparator.compare(e.graph, o) == 0) {
+					return e.graph;
 				}
 			}
-			list.add(o);
+			seg.table[bin] = new Entry<NodeType, EdgeType>(hash, o,
+					seg.table[bin]);
+			if (++seg.count > averageBinSize * seg.table.length) {
+				resize(seg);
+			}
 		}
-		// entries writer
-		entries++;
+		entries.incrementAndGet();
 		return null;
 	}
 
@@ -147,12 +185,16 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#clear()
 	 */
-	// map writer
 	public void clear() {
-		for (int i = 0; i < map.length; i++) {
-			map[i].clear();
+		for (final Segment<NodeType, EdgeType> seg : segments) {
+			synchronized (seg) {
+				entries.addAndGet(-seg.count);
+				for (int i = 0; i < seg.table.length; i++) {
+					seg.table[i] = null;
+				}
+				seg.count = 0;
+			}
 		}
-		entries = 0;
 	}
 
 	/*
@@ -160,17 +202,20 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#contains(java.lang.Object)
 	 */
-	// map reader
 	public boolean contains(final Object o) {
 		if (o instanceof HPGraph) {
 			@SuppressWarnings("unchecked")
 			final HPGraph<NodeType, EdgeType> graph = (HPGraph<NodeType, EdgeType>) o;
 
-			final int hashCode = getHash(graph);
-			final int bin = getBin(hashCode, map.length);
-			for (final HPGraph<NodeType, EdgeType> g : map[bin]) {
-				if (getHash(g) == hashCode && comparator.compare(g, graph) == 0) {
-					return true;
+			final long hash = getHash(graph);
+			final Segment<NodeType, EdgeType> seg = segmentFor(hash);
+			synchronized (seg) {
+				for (Entry<NodeType, EdgeType> e = seg.table[getBin(hash,
+						seg.table.length)]; e != null; e = e.next) {
+					if (e.hash == hash
+							&& comparator.compare(e.graph, graph) == 0) {
+						return true;
+					}
 				}
 			}
 		}
@@ -190,14 +235,13 @@ public class GraphSet<NodeType, EdgeType> implements
 		return ret;
 	}
 
-	private final int getBin(final int hashCode, final int length) {
-		return java.lang.Math.abs((hashCode ^ (hashCode >> 24)
-				^ (hashCode >> 15) ^ (hashCode >> 9)))
-				% length;
+	/* the low bits select the bin within a segment */
+	private final int getBin(final long hash, final int length) {
+		return (int) hash & (length - 1);
 	}
 
-	private final int getHash(final HPGraph<NodeType, EdgeType> g) {
-		return GraphUtils.hashValue(g, rel);
+	private final long getHash(final HPGraph<NodeType, EdgeType> g) {
+		return GraphUtils.invariantHash(g, rel);
 	}
 
 	/*
@@ -205,9 +249,8 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#isEmpty()
 	 */
-	// entries writer
 	public boolean isEmpty() {
-		return entries == 0;
+		return entries.get() == 0;
 	}
 
 	/*
@@ -216,10 +259,16 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * @see java.util.Collection#iterator()
 	 */
 	public Iterator<HPGraph<NodeType, EdgeType>> iterator() {
+		// the graphs of each segment are copied, if the segment is reached, so
+		// concurrent modifications are allowed
 		return new Iterator<HPGraph<NodeType, EdgeType>>() {
-			Iterator<HPGraph<NodeType, EdgeType>> it = map[0].iterator();
+			final ArrayList<HPGraph<NodeType, EdgeType>> cur = new ArrayList<HPGraph<NodeType, EdgeType>>();
+
+			int seg = 0;
+
+			int idx = 0;
 
-			int idx = 1;
+			HPGraph<NodeType, EdgeType> last = null;
 
 			/*
 			 * (non-Javadoc)
@@ -227,10 +276,19 @@ public class GraphSet<NodeType, EdgeType> implements
 			 * @see java.util.Iterator#hasNext()
 			 */
 			public boolean hasNext() {
-				while (idx < map.length && !it.hasNext()) {
-					it = map[idx++].iterator();
+				while (idx == cur.size() && seg < segments.length) {
+					cur.clear();
+					idx = 0;
+					final Segment<NodeType, EdgeType> s = segments[seg++];
+					synchronized (s) {
+						for (final Entry<NodeType, EdgeType> first : s.table) {
+							for (Entry<NodeType, EdgeType> e = first; e != null; e = e.next) {
+								cur.add(e.graph);
+							}
+						}
+					}
 				}
-				return it.hasNext();
+				return idx < cur.size();
 			}
 
 			/*
@@ -240,7 +298,7 @@ public class GraphSet<NodeType, EdgeType> implements
 			 */
 			public HPGraph<NodeType, EdgeType> next() {
 				if (hasNext()) {
-					return it.next();
+					return last = cur.get(idx++);
 				}
 				throw new NoSuchElementException("No more elements");
 			}
@@ -251,8 +309,11 @@ public class GraphSet<NodeType, EdgeType> implements
 			 * @see java.util.Iterator#remove()
 			 */
 			public void remove() {
-				it.remove();
-				entries--;
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				removeIdentical(last);
+				last = null;
 			}
 
 		};
@@ -263,33 +324,25 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#remove(java.lang.Object)
 	 */
-	// map reader
 	public boolean remove(final Object o) {
-		boolean ret = false;
 		if (o instanceof HPGraph) {
 			@SuppressWarnings("unchecked")
 			final HPGraph<NodeType, EdgeType> graph = (HPGraph<NodeType, EdgeType>) o;
-			final int hashCode = getHash(graph);
-			final int bin = getBin(hashCode, map.length);
-
-			final ArrayList<HPGraph<NodeType, EdgeType>> list = map[bin];
-
-			synchronized (list) {
-				for (final Iterator<HPGraph<NodeType, EdgeType>> bit = list
-						.iterator(); !ret && bit.hasNext();) {
-					final HPGraph<NodeType, EdgeType> g = bit.next();
-					if (getHash(g) == hashCode
-							&& comparator.compare(g, graph) == 0) {
-						bit.remove();
-						ret = true;
+			final long hash = getHash(graph);
+			final Segment<NodeType, EdgeType> seg = segmentFor(hash);
+			synchronized (seg) {
+				final int bin = getBin(hash, seg.table.length);
+				Entry<NodeType, EdgeType> prev = null;
+				for (Entry<NodeType, EdgeType> e = seg.table[bin]; e != null; prev = e, e = e.next) {
+					if (e.hash == hash
+							&& comparator.compare(e.graph, graph) == 0) {
+						unlink(seg, bin, prev, e);
+						return true;
 					}
 				}
 			}
 		}
-		// entries writer
-		if (ret)
-			entries--;
-		return ret;
+		return false;
 	}
 
 	/*
@@ -305,24 +358,36 @@ public class GraphSet<NodeType, EdgeType> implements
 		return ret;
 	}
 
-	// map writer
-	protected void resize(int newSize) {
-		if (newSize <= 0) {
-			newSize = 1;
-		}
-		@SuppressWarnings("unchecked")
-		final ArrayList<HPGraph<NodeType, EdgeType>>[] temp = new ArrayList[newSize];
-		for (int i = 0; i < temp.length; i++) {
-			temp[i] = new ArrayList<HPGraph<NodeType, EdgeType>>(
-					(int) (averageBinSize * 1.25));
+	/* removes the given stored graph itself */
+	private void removeIdentical(final HPGraph<NodeType, EdgeType> graph) {
+		final long hash = getHash(graph);
+		final Segment<NodeType, EdgeType> seg = segmentFor(hash);
+		synchronized (seg) {
+			final int bin = getBin(hash, seg.table.length);
+			Entry<NodeType, EdgeType> prev = null;
+			for (Entry<NodeType, EdgeType> e = seg.table[bin]; e != null; prev = e, e = e.next) {
+				if (e.graph == graph) {
+					unlink(seg, bin, prev, e);
+					return;
+				}
+			}
 		}
+	}
 
-		for (int i = 0; i < map.length; i++) {
-			for (final HPGraph<NodeType, EdgeType> g : map[i]) {
-				temp[getBin(getHash(g), newSize)].add(g);
+	/* doubles the table of the given (locked) segment */
+	@SuppressWarnings("unchecked")
+	private void resize(final Segment<NodeType, EdgeType> seg) {
+		final Entry<NodeType, EdgeType>[] temp = (Entry<NodeType, EdgeType>[]) new Entry<?, ?>[seg.table.length * 2];
+		for (final Entry<NodeType, EdgeType> first : seg.table) {
+			for (Entry<NodeType, EdgeType> e = first; e != null;) {
+				final Entry<NodeType, EdgeType> next = e.next;
+				final int bin = getBin(e.hash, temp.length);
+				e.next = temp[bin];
+				temp[bin] = e;
+				e = next;
 			}
 		}
-		map = temp;
+		seg.table = temp;
 	}
 
 	/*
@@ -330,7 +395,6 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#retainAll(java.util.Collection)
 	 */
-	// map writer
 	public boolean retainAll(final Collection<?> c) {
 		boolean ret = false;
 		for (final Iterator<HPGraph<NodeType, EdgeType>> git = iterator(); git
@@ -343,14 +407,18 @@ public class GraphSet<NodeType, EdgeType> implements
 		return ret;
 	}
 
+	/* the high bits select the segment */
+	private final Segment<NodeType, EdgeType> segmentFor(final long hash) {
+		return segments[(int) (hash >>> 58) & (SEGMENTS - 1)];
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see java.util.Collection#size()
 	 */
-	// entries writer
 	public int size() {
-		return entries;
+		return entries.get();
 	}
 
 	/*
@@ -358,9 +426,8 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#toArray()
 	 */
-	// map writer
 	public Object[] toArray() {
-		return toArray(new Graph[entries]);
+		return toArray(new HPGraph<?, ?>[size()]);
 	}
 
 	/*
@@ -368,15 +435,27 @@ public class GraphSet<NodeType, EdgeType> implements
 	 * 
 	 * @see java.util.Collection#toArray(T[])
 	 */
-	// map writer
+	@SuppressWarnings("unchecked")
 	public <T> T[] toArray(final T[] a) {
-		@SuppressWarnings("unchecked")
-		final HPGraph<NodeType, EdgeType> f[] = (HPGraph<NodeType, EdgeType>[]) a;
-		int i = 0;
+		final ArrayList<HPGraph<NodeType, EdgeType>> all = new ArrayList<HPGraph<NodeType, EdgeType>>(
+				size());
 		for (final HPGraph<NodeType, EdgeType> g : this) {
-			f[i++] = g;
+			all.add(g);
+		}
+		return all.toArray(a);
+	}
+
+	/* removes the given entry from the (locked) segment */
+	private void unlink(final Segment<NodeType, EdgeType> seg, final int bin,
+			final Entry<NodeType, EdgeType> prev,
+			final Entry<NodeType, EdgeType> e) {
+		if (prev == null) {
+			seg.table[bin] = e.next;
+		} else {
+			prev.next = e.next;
 		}
-		return a;
+		seg.count--;
+		entries.decrementAndGet();
 	}
 
 }
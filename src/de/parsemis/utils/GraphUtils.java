@@ -406,6 +406,59 @@ public final class GraphUtils {
 
 	}
 
+	/**
+	 * Computes a 64 bit hash value that is equal for isomorphic graphs.
+	 * <p>
+	 * Each node is described by its label, its in- and out-degree and the
+	 * descriptions of its neighbours together with the labels and directions
+	 * of the connecting edges (one refinement step as for the Weisfeiler-Lehman
+	 * test). The node values are combined independently of their order.
+	 *
+	 * @param g
+	 * @param r
+	 *            the relabler for the label indices
+	 * @return the hash value of the given graph
+	 *
+	 * @param <NodeType>
+	 *            the type of the node labels (will be hashed and checked with
+	 *            .equals(..))
+	 * @param <EdgeType>
+	 *            the type of the edge labels (will be hashed and checked with
+	 *            .equals(..))
+	 */
+	public static <NodeType, EdgeType> long invariantHash(
+			final HPGraph<NodeType, EdgeType> g,
+			final Relabler<NodeType, EdgeType> r) {
+		final long[] nodes = new long[g.getMaxNodeIndex()];
+		for (int i = nodes.length - 1; i >= 0; --i) {
+			if (g.isValidNode(i)) {
+				nodes[i] = mix(((long) g.getNodeLabelIndex(i, r) << 32)
+						^ (g.getInDegree(i) << 16) ^ g.getOutDegree(i));
+			}
+		}
+		long code = mix(((long) g.getNodeCount() << 32) ^ g.getEdgeCount());
+		for (int i = nodes.length - 1; i >= 0; --i) {
+			if (g.isValidNode(i)) {
+				long neighbours = 0;
+				for (int e = g.getDegree(i) - 1; e >= 0; --e) {
+					final int edge = g.getNodeEdge(i, e);
+					neighbours += mix(nodes[g.getOtherNode(edge, i)]
+							+ (((long) g.getEdgeLabelIndex(edge, r) << 2)
+									^ (g.getDirection(edge, i) + 1)));
+				}
+				code += mix(nodes[i] ^ mix(neighbours));
+			}
+		}
+		return code;
+	}
+
+	/* a strong bit mixer for 64 bit values */
+	private static long mix(long x) {
+		x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+		x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return x ^ (x >>> 33);
+	}
+
 	/*
 	 * for partition computation
 	 * 
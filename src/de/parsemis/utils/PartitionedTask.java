@@ -0,0 +1,154 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * This class processes a range of elements (e.g., the graphs of a database)
+ * concurrently.
+ *
+ * The range is split into consecutive parts of nearly equal size, each part
+ * is processed by its own thread and returns a partial result. The partial
+ * results are returned in the order of the parts, so that merging them one
+ * after the other gives the same result as processing the whole range in
+ * order.
+ *
+ * @param <Result>
+ *            the type of the partial results
+ */
+public abstract class PartitionedTask<Result> {
+
+	/**
+	 * @param <Type>
+	 * @param elements
+	 * @return a list with the given elements that allows fast random access
+	 */
+	public static <Type> List<Type> asList(final Collection<Type> elements) {
+		if (elements instanceof List && elements instanceof RandomAccess) {
+			return (List<Type>) elements;
+		}
+		return new ArrayList<Type>(elements);
+	}
+
+	private Throwable error = null;
+
+	/**
+	 * processes the given part of the range
+	 *
+	 * @param part
+	 *            the index of the part (less than the requested number of
+	 *            parts)
+	 * @param from
+	 *            the first element of the part
+	 * @param to
+	 *            the element after the last one of the part
+	 * @return the partial result of the part
+	 */
+	protected abstract Result process(int part, int from, int to);
+
+	/**
+	 * splits the given range into (at most) the given number of parts and
+	 * processes them concurrently, the first part within the calling thread
+	 *
+	 * @param size
+	 *            the number of elements
+	 * @param parts
+	 *            the maximal number of parts
+	 * @return the partial results in the order of the parts
+	 */
+	public final List<Result> run(final int size, final int parts) {
+		return run(size, parts, null);
+	}
+
+	/**
+	 * splits the given range into (at most) the given number of parts and
+	 * processes them concurrently, the first part within the calling thread
+	 *
+	 * @param size
+	 *            the number of elements
+	 * @param parts
+	 *            the maximal number of parts
+	 * @param executor
+	 *            the executor for the further parts, or <code>null</code>
+	 *            to start a new thread for each of them
+	 * @return the partial results in the order of the parts
+	 */
+	public final List<Result> run(final int size, final int parts,
+			final Executor executor) {
+		final int count = (parts < size ? (parts > 1 ? parts : 1)
+				: (size > 1 ? size : 1));
+		final List<Result> results = new ArrayList<Result>(count);
+		for (int p = 0; p < count; ++p) {
+			results.add(null);
+		}
+		final CountDownLatch done = new CountDownLatch(count - 1);
+		synchronized (this) {
+			error = null;
+		}
+		for (int p = count - 1; p >= 0; --p) {
+			final int part = p;
+			final int from = (int) ((long) size * part / count);
+			final int to = (int) ((long) size * (part + 1) / count);
+			final Runnable r = new Runnable() {
+				public void run() {
+					try {
+						results.set(part, process(part, from, to));
+					} catch (final Throwable t) {
+						synchronized (PartitionedTask.this) {
+							if (error == null) {
+								error = t;
+							}
+						}
+					} finally {
+						if (part > 0) {
+							done.countDown();
+						}
+					}
+				}
+			};
+			if (part == 0) {
+				r.run();
+			} else if (executor != null) {
+				executor.execute(r);
+			} else {
+				new Thread(r, "PartThread-" + part).start();
+			}
+		}
+		boolean interrupted = false;
+		while (true) {
+			try {
+				done.await();
+				break;
+			} catch (final InterruptedException ie) {
+				// the partial results are required, so wait further
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			} else if (error instanceof Error) {
+				throw (Error) error;
+			} else if (error != null) {
+				throw new RuntimeException(error);
+			}
+		}
+		return results;
+	}
+
+}
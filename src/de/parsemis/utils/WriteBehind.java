@@ -0,0 +1,157 @@
+/**
+ * This file is part of parsemis.
+ *
+ * Licence:
+ *  LGPL: http://www.gnu.org/licenses/lgpl.html
+ *   EPL: http://www.eclipse.org/org/documents/epl-v10.php
+ *   See the LICENSE file in the project's top-level directory for details.
+ */
+package de.parsemis.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class moves blocking output operations away from the mining threads.
+ *
+ * Queued elements are processed in order by a task of a shared pool of daemon
+ * I/O threads. The task only exists while elements are waiting, so idle
+ * queues do not bind any thread. If the queue is full, the producer is blocked
+ * until the I/O thread has caught up.
+ *
+ * @param <Type>
+ *            the type of the queued elements
+ */
+public abstract class WriteBehind<Type> implements Runnable {
+
+	private static ExecutorService pool = null;
+
+	/**
+	 * @return the shared pool of I/O threads
+	 */
+	private static synchronized ExecutorService pool() {
+		if (pool == null) {
+			pool = Executors.newCachedThreadPool(new ThreadFactory() {
+				private int count = 0;
+
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "IOThread-" + (count++));
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
+
+	private final int capacity;
+
+	private ArrayList<Type> queue;
+
+	private boolean running = false;
+
+	private Throwable error = null;
+
+	/**
+	 * creates a new queue
+	 *
+	 * @param capacity
+	 *            the maximal number of waiting elements
+	 */
+	public WriteBehind(final int capacity) {
+		this.capacity = capacity;
+		this.queue = new ArrayList<Type>();
+	}
+
+	/**
+	 * enqueues the given element and blocks, if the queue is full
+	 *
+	 * @param elem
+	 */
+	public final synchronized void add(final Type elem) {
+		while (queue.size() >= capacity) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		queue.add(elem);
+		if (!running) {
+			running = true;
+			pool().execute(this);
+		}
+	}
+
+	/**
+	 * waits until all enqueued elements are processed
+	 *
+	 * @return the first error that occurs during processing, or
+	 *         <code>null</code>
+	 */
+	public final synchronized Throwable flush() {
+		while (running) {
+			try {
+				wait();
+			} catch (final InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		final Throwable ret = error;
+		error = null;
+		return ret;
+	}
+
+	/**
+	 * @return the first error that occurred during processing since the last
+	 *         flush, or <code>null</code>
+	 */
+	public final synchronized Throwable getError() {
+		return error;
+	}
+
+	/**
+	 * processes the given element within the I/O thread
+	 *
+	 * @param elem
+	 * @throws Exception
+	 */
+	protected abstract void process(Type elem) throws Exception;
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public final void run() {
+		while (true) {
+			final ArrayList<Type> todo;
+			synchronized (this) {
+				if (queue.isEmpty()) {
+					running = false;
+					notifyAll();
+					return;
+				}
+				todo = queue;
+				queue = new ArrayList<Type>();
+				notifyAll();
+			}
+			for (final Type elem : todo) {
+				try {
+					process(elem);
+				} catch (final Throwable t) {
+					synchronized (this) {
+						if (error == null) {
+							error = t;
+						}
+					}
+				}
+			}
+		}
+	}
+
+}